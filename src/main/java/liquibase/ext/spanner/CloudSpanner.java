@@ -34,9 +34,18 @@ import liquibase.database.AbstractJdbcDatabase;
 import liquibase.database.DatabaseConnection;
 import liquibase.database.OfflineConnection;
 import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.LiquibaseException;
+import liquibase.executor.Executor;
+import liquibase.executor.ExecutorService;
+import liquibase.ext.spanner.change.StandardChangeLogHistoryServiceSpanner;
+import liquibase.ext.spanner.executor.JdbcExecutorSpanner;
 import liquibase.util.ISODateFormat;
 
 public class CloudSpanner extends AbstractJdbcDatabase implements ICloudSpanner {
+  private volatile SpannerConnectionMetadata connectionMetadata;
+  /** The dialect that is used when there is no Spanner JDBC connection to read it from. */
+  @Nullable private Dialect offlineDialect;
 
   public CloudSpanner() {
     unmodifiableDataTypes.add(Type.Code.BOOL.name().toLowerCase());
@@ -132,6 +141,10 @@ public class CloudSpanner extends AbstractJdbcDatabase implements ICloudSpanner
       return defaultSchemaName;
     }
     try {
+      SpannerConnectionMetadata metadata = getConnectionMetadata();
+      if (metadata != null) {
+        return metadata.getDefaultSchema();
+      }
       return ((JdbcConnection) getConnection()).getUnderlyingConnection().getSchema();
     } catch (SQLException e) {
       Scope.getCurrentScope().getLog(getClass()).info("Error getting default schema", e);
@@ -175,7 +188,76 @@ public class CloudSpanner extends AbstractJdbcDatabase implements ICloudSpanner
         }
       }
     }
+    // Invalidate the metadata of the previous connection, and capture the metadata of the new
+    // connection once it has been set.
+    connectionMetadata = null;
     super.setConnection(connectionToUse);
+    try {
+      getConnectionMetadata();
+    } catch (SQLException e) {
+      Scope.getCurrentScope().getLog(getClass()).info("Error getting connection metadata", e);
+    }
+  }
+
+  /**
+   * Returns the metadata of the current connection, or null if the database does not have a Spanner
+   * JDBC connection. The metadata is read once per connection.
+   */
+  @Nullable
+  public SpannerConnectionMetadata getConnectionMetadata() throws SQLException {
+    DatabaseConnection conn = getConnection();
+    if (!(conn instanceof JdbcConnection)) {
+      return null;
+    }
+    Connection underlying = ((JdbcConnection) conn).getUnderlyingConnection();
+    SpannerConnectionMetadata metadata = connectionMetadata;
+    if (metadata == null || !metadata.isFor(underlying)) {
+      metadata = SpannerConnectionMetadata.create(underlying);
+      connectionMetadata = metadata;
+    }
+    return metadata;
+  }
+
+  @Override
+  public void afterUpdate() throws LiquibaseException {
+    // Execute any DDL statements that are still waiting in a DDL batch.
+    Executor executor =
+        Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", this);
+    if (executor instanceof JdbcExecutorSpanner) {
+      ((JdbcExecutorSpanner) executor).flushDdlBatch();
+    }
+    StandardChangeLogHistoryServiceSpanner.writeChangeLogSummary(this);
+    super.afterUpdate();
+  }
+
+  @Override
+  public void commit() throws DatabaseException {
+    // DML statements that are batched are part of the transaction.
+    JdbcExecutorSpanner executor = getSpannerExecutor();
+    if (executor != null) {
+      executor.flushDmlBatch();
+    }
+    super.commit();
+  }
+
+  @Override
+  public void rollback() throws DatabaseException {
+    JdbcExecutorSpanner executor = getSpannerExecutor();
+    if (executor != null) {
+      executor.discardDmlBatch();
+    }
+    super.rollback();
+  }
+
+  /** Returns the Spanner executor of this database if Batch DML is enabled. */
+  @Nullable
+  private JdbcExecutorSpanner getSpannerExecutor() {
+    if (!Boolean.TRUE.equals(SpannerConfiguration.DML_BATCHING.getCurrentValue())) {
+      return null;
+    }
+    Executor executor =
+        Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", this);
+    return executor instanceof JdbcExecutorSpanner ? (JdbcExecutorSpanner) executor : null;
   }
 
   @Override
@@ -296,18 +378,22 @@ public class CloudSpanner extends AbstractJdbcDatabase implements ICloudSpanner
   @Override
   public Dialect getDialect() {
     try {
-      DatabaseConnection conn = getConnection();
-
-      if (conn instanceof JdbcConnection) {
-        Connection underlying = ((JdbcConnection) conn).getUnderlyingConnection();
-        if (underlying.isWrapperFor(CloudSpannerJdbcConnection.class)) {
-          return underlying.unwrap(CloudSpannerJdbcConnection.class).getDialect();
-        }
+      SpannerConnectionMetadata metadata = getConnectionMetadata();
+      if (metadata != null) {
+        return metadata.getDialect();
       }
     } catch (SQLException e) {
       throw new RuntimeException("Failed to get dialect from connection", e);
     }
 
-    return null;
+    return offlineDialect;
+  }
+
+  /**
+   * Sets the dialect that is returned by {@link #getDialect()} when this database does not have a
+   * Spanner JDBC connection, e.g. when SQL is generated for a database that does not exist yet.
+   */
+  public void setOfflineDialect(@Nullable Dialect offlineDialect) {
+    this.offlineDialect = offlineDialect;
   }
 }
@@ -0,0 +1,337 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner;
+
+import liquibase.configuration.AutoloadedConfigurations;
+import liquibase.configuration.ConfigurationDefinition;
+
+/**
+ * Spanner-specific configuration options. All options use the prefix <code>liquibase.spanner</code>
+ * and can be set in the same way as any other Liquibase configuration option, e.g. as a system
+ * property (<code>-Dliquibase.spanner.ddlBatching=true</code>), an environment variable (<code>
+ * LIQUIBASE_SPANNER_DDL_BATCHING=true</code>) or in liquibase.properties.
+ */
+public class SpannerConfiguration implements AutoloadedConfigurations {
+
+  public static final ConfigurationDefinition<Boolean> DDL_BATCHING;
+  public static final ConfigurationDefinition<Boolean> LOAD_DATA_WITH_MUTATIONS;
+  public static final ConfigurationDefinition<Integer> MAX_MUTATIONS_PER_COMMIT;
+  public static final ConfigurationDefinition<Boolean> LOAD_DATA_SPLIT_COMMITS;
+  public static final ConfigurationDefinition<Boolean> INSERT_OR_UPDATE_DML;
+  public static final ConfigurationDefinition<Boolean> PARAMETERIZED_DML;
+  public static final ConfigurationDefinition<Boolean> SNAPSHOT_SINGLE_READ_TIMESTAMP;
+  public static final ConfigurationDefinition<Integer> SNAPSHOT_MAX_STALENESS_SECONDS;
+  public static final ConfigurationDefinition<Integer> SNAPSHOT_PARALLELISM;
+  public static final ConfigurationDefinition<Boolean> SNAPSHOT_FROM_DDL;
+  public static final ConfigurationDefinition<Boolean> FAST_NO_OP_UPDATE;
+  public static final ConfigurationDefinition<Integer> FAST_NO_OP_UPDATE_MAX_STALENESS_SECONDS;
+  public static final ConfigurationDefinition<Boolean> LEASE_LOCK;
+  public static final ConfigurationDefinition<Integer> LEASE_LOCK_DURATION_SECONDS;
+  public static final ConfigurationDefinition<Boolean> CHANGELOG_CACHE;
+  public static final ConfigurationDefinition<String> CHANGELOG_CACHE_FILE;
+  public static final ConfigurationDefinition<Boolean> BOOTSTRAP_IN_ONE_BATCH;
+  public static final ConfigurationDefinition<Integer> BACKFILL_PARALLELISM;
+  public static final ConfigurationDefinition<Integer> BACKFILL_RANGE_SIZE;
+  public static final ConfigurationDefinition<Boolean> DML_COMMIT_CHUNKING;
+  public static final ConfigurationDefinition<Integer> DML_COMMIT_CHUNK_INITIAL_SIZE;
+  public static final ConfigurationDefinition<Integer> DML_COMMIT_CHUNK_MAX_MILLIS;
+  public static final ConfigurationDefinition<Boolean> LOAD_DATA_STREAMING;
+  public static final ConfigurationDefinition<Integer> LOAD_DATA_WRITERS;
+  public static final ConfigurationDefinition<Boolean> DML_BATCHING;
+  public static final ConfigurationDefinition<Integer> DML_BATCH_SIZE;
+
+  static {
+    ConfigurationDefinition.Builder builder =
+        new ConfigurationDefinition.Builder("liquibase.spanner");
+
+    DDL_BATCHING =
+        builder
+            .define("ddlBatching", Boolean.class)
+            .setDescription(
+                "Group the DDL statements of consecutive change sets into one Spanner DDL batch. "
+                    + "The batch is executed when a non-DDL statement is executed, or when the "
+                    + "update finishes.")
+            .setDefaultValue(false)
+            .build();
+
+    LOAD_DATA_WITH_MUTATIONS =
+        builder
+            .define("loadDataWithMutations", Boolean.class)
+            .setDescription(
+                "Write the rows of loadData and loadUpdateData changes with Insert and "
+                    + "InsertOrUpdate mutations instead of DML statements. The mutations are "
+                    + "committed together with the change set, see loadDataSplitCommits for "
+                    + "changes with more than maxMutationsPerCommit mutations.")
+            .setDefaultValue(false)
+            .build();
+
+    MAX_MUTATIONS_PER_COMMIT =
+        builder
+            .define("maxMutationsPerCommit", Integer.class)
+            .setDescription(
+                "The maximum number of column values that is written in one commit when data is "
+                    + "loaded with mutations. Spanner also counts the secondary index entries of "
+                    + "a row in the mutation limit of a commit, so the default leaves room for "
+                    + "indexes.")
+            .setDefaultValue(20000)
+            .build();
+
+    LOAD_DATA_SPLIT_COMMITS =
+        builder
+            .define("loadDataSplitCommits", Boolean.class)
+            .setDescription(
+                "Allow loadDataWithMutations to commit the rows of a change that runs in a "
+                    + "transaction in chunks of at most maxMutationsPerCommit mutations, if the "
+                    + "rows do not fit in one commit. The chunks are committed before the change "
+                    + "set finishes, and are not rolled back if the change set fails. The change "
+                    + "fails instead if the change set has executed statements that may have "
+                    + "written data before it.")
+            .setDefaultValue(false)
+            .build();
+
+    INSERT_OR_UPDATE_DML =
+        builder
+            .define("insertOrUpdateDml", Boolean.class)
+            .setDescription(
+                "Generate one INSERT OR UPDATE (GoogleSQL) or INSERT ... ON CONFLICT DO UPDATE "
+                    + "(PostgreSQL) statement per row for insertOrUpdate statements, instead of "
+                    + "an INSERT and an UPDATE statement.")
+            .setDefaultValue(false)
+            .build();
+
+    PARAMETERIZED_DML =
+        builder
+            .define("parameterizedDml", Boolean.class)
+            .setDescription(
+                "Execute the rows of loadData and loadUpdateData changes as DML statements with "
+                    + "typed query parameters instead of literals. All rows of a change then use "
+                    + "the same SQL strings, which allows Spanner to reuse the query plans. "
+                    + "loadDataWithMutations takes precedence over this option.")
+            .setDefaultValue(false)
+            .build();
+
+    SNAPSHOT_SINGLE_READ_TIMESTAMP =
+        builder
+            .define("snapshotSingleReadTimestamp", Boolean.class)
+            .setDescription(
+                "Execute all metadata queries of a database snapshot (e.g. for diff and "
+                    + "generateChangeLog) at the same read timestamp, so the snapshot is consistent "
+                    + "even if the schema is changed while the snapshot is being taken.")
+            .setDefaultValue(false)
+            .build();
+
+    SNAPSHOT_MAX_STALENESS_SECONDS =
+        builder
+            .define("snapshotMaxStalenessSeconds", Integer.class)
+            .setDescription(
+                "Choose the read timestamp of a database snapshot with a bounded staleness of at "
+                    + "most this number of seconds, instead of a strong read. This allows the "
+                    + "snapshot queries to be served by the nearest replica. 0 means strong reads. "
+                    + "Only used if snapshotSingleReadTimestamp is enabled.")
+            .setDefaultValue(0)
+            .build();
+
+    SNAPSHOT_PARALLELISM =
+        builder
+            .define("snapshotParallelism", Integer.class)
+            .setDescription(
+                "The maximum number of threads that prefetch the column, index and sequence "
+                    + "metadata of a database snapshot in parallel, with one query per kind of "
+                    + "metadata, so values above 3 do not add threads. The tables themselves are "
+                    + "still read one by one. The threads are virtual threads on Java 21 and "
+                    + "higher. The prefetched metadata is the same as the metadata that is read in "
+                    + "serial mode, so the snapshot does not depend on this option. 1 disables "
+                    + "prefetching.")
+            .setDefaultValue(1)
+            .build();
+
+    SNAPSHOT_FROM_DDL =
+        builder
+            .define("snapshotFromDdl", Boolean.class)
+            .setDescription(
+                "Build database snapshots from the DDL statements of the database, which are read "
+                    + "with one GetDatabaseDdl call, instead of querying INFORMATION_SCHEMA for "
+                    + "each object. The snapshot then also contains interleaving, STORING "
+                    + "columns, NULL_FILTERED indexes and row deletion policies. The columns of "
+                    + "views are not included in the snapshot.")
+            .setDefaultValue(false)
+            .build();
+
+    FAST_NO_OP_UPDATE =
+        builder
+            .define("fastNoOpUpdate", Boolean.class)
+            .setDescription(
+                "Store a summary of the applied change sets in the DATABASECHANGELOGSUMMARY table, "
+                    + "and compare it with the change log using a stale read before taking the "
+                    + "change log lock. A command that has nothing to run then finishes without "
+                    + "taking the lock.")
+            .setDefaultValue(false)
+            .build();
+
+    FAST_NO_OP_UPDATE_MAX_STALENESS_SECONDS =
+        builder
+            .define("fastNoOpUpdateMaxStalenessSeconds", Integer.class)
+            .setDescription(
+                "The maximum staleness in seconds of the read of the change log summary when "
+                    + "fastNoOpUpdate is enabled. 0 means that a strong read is used.")
+            .setDefaultValue(10)
+            .build();
+
+    LEASE_LOCK =
+        builder
+            .define("leaseLock", Boolean.class)
+            .setDescription(
+                "Take the change log lock as a lease in the DATABASECHANGELOGLOCKLEASE table "
+                    + "instead of the DATABASECHANGELOGLOCK table. The lease is acquired in one "
+                    + "read-write transaction and renewed by a heartbeat, and expires if the runner "
+                    + "that holds it stops, so the lock does not need to be released by hand.")
+            .setDefaultValue(false)
+            .build();
+
+    LEASE_LOCK_DURATION_SECONDS =
+        builder
+            .define("leaseLockDurationSeconds", Integer.class)
+            .setDescription(
+                "The number of seconds after the last heartbeat that the change log lease "
+                    + "expires when leaseLock is enabled. The heartbeat is written every third of "
+                    + "this duration.")
+            .setDefaultValue(60)
+            .build();
+
+    CHANGELOG_CACHE =
+        builder
+            .define("changeLogCache", Boolean.class)
+            .setDescription(
+                "Cache the rows of the DATABASECHANGELOG table. Later reads of the table only "
+                    + "read the rows with a higher ORDEREXECUTED than the cached rows, and verify "
+                    + "the cached rows with a query that counts the rows, checksums and tags.")
+            .setDefaultValue(false)
+            .build();
+
+    CHANGELOG_CACHE_FILE =
+        builder
+            .define("changeLogCacheFile", String.class)
+            .setDescription(
+                "A local file in which the change log cache is stored, so that subsequent "
+                    + "Liquibase commands can use it. The cache is only kept in memory if this is "
+                    + "not set.")
+            .build();
+
+    BOOTSTRAP_IN_ONE_BATCH =
+        builder
+            .define("bootstrapInOneBatch", Boolean.class)
+            .setDescription(
+                "Create the DATABASECHANGELOG table in the same DDL batch as the "
+                    + "DATABASECHANGELOGLOCK table on a new database, and initialize the lock row "
+                    + "with a single mutation directly after the batch. This saves one schema "
+                    + "change on the first run of Liquibase on a database.")
+            .setDefaultValue(false)
+            .build();
+
+    BACKFILL_PARALLELISM =
+        builder
+            .define("backfillParallelism", Integer.class)
+            .setDescription(
+                "The number of key ranges that are updated in parallel by changes with "
+                    + "dmlMode=parallel. Each range is updated in a separate read-write "
+                    + "transaction.")
+            .setDefaultValue(4)
+            .build();
+
+    BACKFILL_RANGE_SIZE =
+        builder
+            .define("backfillRangeSize", Integer.class)
+            .setDescription(
+                "The approximate number of rows in each key range of a change with "
+                    + "dmlMode=parallel. All rows of a range are updated in one transaction, so "
+                    + "the range size times the number of updated columns must stay below the "
+                    + "mutation limit of a transaction.")
+            .setDefaultValue(1000)
+            .build();
+
+    DML_COMMIT_CHUNKING =
+        builder
+            .define("dmlCommitChunking", Boolean.class)
+            .setDescription(
+                "Commit the INSERT, UPDATE and DELETE statements of a change set in chunks "
+                    + "instead of in one transaction. The chunk size is adapted to the commit "
+                    + "statistics of the previous chunk, so each chunk stays below "
+                    + "maxMutationsPerCommit mutations. A change set is then only atomic per "
+                    + "chunk: if it fails, the chunks that were already committed are not rolled "
+                    + "back.")
+            .setDefaultValue(false)
+            .build();
+
+    DML_COMMIT_CHUNK_INITIAL_SIZE =
+        builder
+            .define("dmlCommitChunkInitialSize", Integer.class)
+            .setDescription(
+                "The number of DML statements in the first chunk when dmlCommitChunking is "
+                    + "enabled. The size of the following chunks is computed from the commit "
+                    + "statistics of the previous chunk.")
+            .setDefaultValue(100)
+            .build();
+
+    DML_COMMIT_CHUNK_MAX_MILLIS =
+        builder
+            .define("dmlCommitChunkMaxMillis", Integer.class)
+            .setDescription(
+                "The commit latency in milliseconds above which the next chunk of a change set "
+                    + "is made smaller when dmlCommitChunking is enabled.")
+            .setDefaultValue(1000)
+            .build();
+
+    LOAD_DATA_STREAMING =
+        builder
+            .define("loadDataStreaming", Boolean.class)
+            .setDescription(
+                "Write the rows of loadData changes with Insert mutations while the CSV file is "
+                    + "read, instead of reading the whole file into memory first. Gzip-compressed "
+                    + "files are decompressed while they are read. The rows are committed in chunks "
+                    + "of at most maxMutationsPerCommit mutations.")
+            .setDefaultValue(false)
+            .build();
+
+    LOAD_DATA_WRITERS =
+        builder
+            .define("loadDataWriters", Integer.class)
+            .setDescription(
+                "The number of threads that commit the rows of a loadData change concurrently "
+                    + "when loadDataStreaming is enabled. With more than one writer, the rows are "
+                    + "sorted by primary key in windows of the file, and rows with the same parent "
+                    + "key of an interleaved table are committed together.")
+            .setDefaultValue(1)
+            .build();
+
+    DML_BATCHING =
+        builder
+            .define("dmlBatching", Boolean.class)
+            .setDescription(
+                "Send consecutive INSERT, UPDATE and DELETE statements of a change set, including "
+                    + "the DML statements of sql changes, to Spanner as one Batch DML request. The "
+                    + "batch is executed as soon as any other statement needs to be executed. Not "
+                    + "used when dmlCommitChunking is enabled.")
+            .setDefaultValue(false)
+            .build();
+
+    DML_BATCH_SIZE =
+        builder
+            .define("dmlBatchSize", Integer.class)
+            .setDescription(
+                "The maximum number of statements in one Batch DML request when dmlBatching is "
+                    + "enabled.")
+            .setDefaultValue(100)
+            .build();
+  }
+}
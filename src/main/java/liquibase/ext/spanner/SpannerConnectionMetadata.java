@@ -0,0 +1,105 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner;
+
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.jdbc.CloudSpannerJdbcConnection;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import javax.annotation.Nullable;
+
+/**
+ * Metadata of a Spanner JDBC connection that does not change during the lifetime of the connection.
+ * {@link CloudSpanner} captures this once per connection, so that the many calls to for example
+ * {@link CloudSpanner#getDialect()} during SQL generation do not call into the JDBC driver.
+ */
+public final class SpannerConnectionMetadata {
+  private final Connection connection;
+  private final Dialect dialect;
+  private final String defaultSchema;
+  private final String defaultCatalog;
+  private final String driverVersion;
+  private final int driverMajorVersion;
+  private final int driverMinorVersion;
+
+  private SpannerConnectionMetadata(
+      Connection connection,
+      Dialect dialect,
+      String defaultSchema,
+      String defaultCatalog,
+      String driverVersion,
+      int driverMajorVersion,
+      int driverMinorVersion) {
+    this.connection = connection;
+    this.dialect = dialect;
+    this.defaultSchema = defaultSchema;
+    this.defaultCatalog = defaultCatalog;
+    this.driverVersion = driverVersion;
+    this.driverMajorVersion = driverMajorVersion;
+    this.driverMinorVersion = driverMinorVersion;
+  }
+
+  /**
+   * Reads the metadata of the given connection, or returns null if the connection is not a Spanner
+   * JDBC connection.
+   */
+  @Nullable
+  static SpannerConnectionMetadata create(@Nullable Connection connection) throws SQLException {
+    if (connection == null || !connection.isWrapperFor(CloudSpannerJdbcConnection.class)) {
+      return null;
+    }
+    CloudSpannerJdbcConnection spannerConnection =
+        connection.unwrap(CloudSpannerJdbcConnection.class);
+    DatabaseMetaData metaData = connection.getMetaData();
+    return new SpannerConnectionMetadata(
+        connection,
+        spannerConnection.getDialect(),
+        connection.getSchema(),
+        connection.getCatalog(),
+        metaData.getDriverVersion(),
+        metaData.getDriverMajorVersion(),
+        metaData.getDriverMinorVersion());
+  }
+
+  /** Returns true if this metadata was read from the given connection. */
+  boolean isFor(@Nullable Connection connection) {
+    return this.connection == connection;
+  }
+
+  public Dialect getDialect() {
+    return dialect;
+  }
+
+  /** The default schema of the connection. This is an empty string for GoogleSQL databases. */
+  public String getDefaultSchema() {
+    return defaultSchema;
+  }
+
+  public String getDefaultCatalog() {
+    return defaultCatalog;
+  }
+
+  public String getDriverVersion() {
+    return driverVersion;
+  }
+
+  public int getDriverMajorVersion() {
+    return driverMajorVersion;
+  }
+
+  public int getDriverMinorVersion() {
+    return driverMinorVersion;
+  }
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner;
+
+import com.google.cloud.spanner.jdbc.CloudSpannerJdbcConnection;
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.annotation.Nullable;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+
+/** Gives access to the Spanner JDBC connection of a database. */
+public final class SpannerConnections {
+  private SpannerConnections() {}
+
+  /**
+   * Returns the Spanner JDBC connection of the given database, or null if the database does not use
+   * a Spanner JDBC connection.
+   */
+  @Nullable
+  public static CloudSpannerJdbcConnection getSpannerConnection(@Nullable Database database)
+      throws DatabaseException {
+    if (!(database instanceof ICloudSpanner)
+        || !(database.getConnection() instanceof JdbcConnection)) {
+      return null;
+    }
+    Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+    try {
+      if (connection == null || !connection.isWrapperFor(CloudSpannerJdbcConnection.class)) {
+        return null;
+      }
+      return connection.unwrap(CloudSpannerJdbcConnection.class);
+    } catch (SQLException e) {
+      throw new DatabaseException(e);
+    }
+  }
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner;
+
+import com.google.cloud.spanner.ErrorCode;
+import com.google.cloud.spanner.SpannerException;
+
+/** Classifies the errors that Spanner returns for the tables that the extension creates lazily. */
+public final class SpannerErrors {
+  private SpannerErrors() {}
+
+  /**
+   * Returns true if the given exception was caused by a table that does not exist. A mutation on a
+   * missing table fails with NOT_FOUND, but a query fails with INVALID_ARGUMENT and a message that
+   * names the table.
+   */
+  public static boolean isTableNotFound(SpannerException exception) {
+    if (exception.getErrorCode() == ErrorCode.NOT_FOUND) {
+      return true;
+    }
+    if (exception.getErrorCode() != ErrorCode.INVALID_ARGUMENT
+        || exception.getMessage() == null) {
+      return false;
+    }
+    String message = exception.getMessage();
+    // GoogleSQL: 'Table not found: X'. PostgreSQL: 'relation "x" does not exist'.
+    return message.contains("Table not found")
+        || (message.contains("relation") && message.contains("does not exist"));
+  }
+}
@@ -15,8 +15,10 @@ package liquibase.ext.spanner.change;
 
 import liquibase.change.ChangeMetaData;
 import liquibase.change.DatabaseChange;
+import liquibase.change.DatabaseChangeProperty;
 import liquibase.change.core.AddColumnChange;
 import liquibase.database.Database;
+import liquibase.exception.ValidationErrors;
 import liquibase.ext.spanner.ICloudSpanner;
 import liquibase.statement.SqlStatement;
 import liquibase.statement.core.UpdateStatement;
@@ -27,6 +29,19 @@ import liquibase.statement.core.UpdateStatement;
     priority = ChangeMetaData.PRIORITY_DATABASE,
     appliesTo = "table")
 public class AddColumnChangeSpanner extends AddColumnChange {
+  private String dmlMode;
+
+  @DatabaseChangeProperty(
+      description =
+          "Set to 'partitioned' or 'parallel' to fill the values of the new columns with "
+              + "Partitioned DML or in parallel key ranges")
+  public String getDmlMode() {
+    return dmlMode;
+  }
+
+  public void setDmlMode(String dmlMode) {
+    this.dmlMode = dmlMode;
+  }
 
   @Override
   public boolean supports(Database database) {
@@ -44,6 +59,14 @@ public class AddColumnChangeSpanner extends AddColumnChange {
         }
       }
     }
-    return statements;
+    return SpannerDmlMode.apply(
+        dmlMode, statements, statement -> statement instanceof UpdateStatement, database);
+  }
+
+  @Override
+  public ValidationErrors validate(Database database) {
+    ValidationErrors errors = super.validate(database);
+    SpannerDmlMode.validate(dmlMode, errors);
+    return errors;
   }
 }
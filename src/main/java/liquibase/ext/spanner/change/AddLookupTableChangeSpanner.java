@@ -19,16 +19,24 @@ import java.util.Arrays;
 import java.util.List;
 import liquibase.change.ChangeMetaData;
 import liquibase.change.DatabaseChange;
+import liquibase.change.DatabaseChangeProperty;
 import liquibase.change.core.AddForeignKeyConstraintChange;
 import liquibase.change.core.AddLookupTableChange;
 import liquibase.database.Database;
 import liquibase.datatype.DataTypeFactory;
 import liquibase.datatype.LiquibaseDataType;
 import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.ext.spanner.sqlgenerator.LoadLookupTableStatementSpanner;
 import liquibase.statement.SqlStatement;
 import liquibase.statement.core.RawSqlStatement;
 import liquibase.structure.core.Column;
 
+/**
+ * Cloud Spanner-specific implementation of {@link AddLookupTableChange}. The lookup table is filled
+ * with one INSERT ... SELECT DISTINCT statement, unless <code>largeTable</code> is set. The values
+ * are then read with a partitioned query and written with chunked mutations, see {@link
+ * LoadLookupTableStatementSpanner}. The foreign key is created after the lookup table is filled.
+ */
 @DatabaseChange(
     name = "addLookupTable",
     description =
@@ -36,6 +44,19 @@ import liquibase.structure.core.Column;
     priority = ChangeMetaData.PRIORITY_DATABASE,
     appliesTo = "column")
 public class AddLookupTableChangeSpanner extends AddLookupTableChange {
+  private Boolean largeTable;
+
+  @DatabaseChangeProperty(
+      description =
+          "Fill the lookup table with a partitioned query and chunked mutations instead of one "
+              + "transaction, for existing tables that exceed the Spanner transaction limits")
+  public Boolean getLargeTable() {
+    return largeTable;
+  }
+
+  public void setLargeTable(Boolean largeTable) {
+    this.largeTable = largeTable;
+  }
 
   @Override
   public boolean supports(Database database) {
@@ -56,37 +77,57 @@ public class AddLookupTableChangeSpanner extends AddLookupTableChange {
     LiquibaseDataType liquibaseType =
         DataTypeFactory.getInstance().fromDescription(rawType, database);
     String actualType = liquibaseType.toDatabaseDataType(database).toString();
-    SqlStatement[] createTablesSQL =
-        new SqlStatement[] {
-          new RawSqlStatement(
-              "CREATE TABLE "
-                  + database.escapeTableName(
-                      newTableCatalogName, newTableSchemaName, getNewTableName())
-                  + " ("
-                  + database.escapeObjectName(getNewColumnName(), Column.class)
-                  + " "
-                  + actualType
-                  + (dialect == Dialect.POSTGRESQL
-                      ? " NOT NULL, PRIMARY KEY ("
-                      : " NOT NULL) PRIMARY KEY (")
-                  + database.escapeObjectName(getNewColumnName(), Column.class)
-                  + (dialect == Dialect.POSTGRESQL ? "))" : ")")),
-          new RawSqlStatement(
-              "INSERT INTO "
-                  + database.escapeTableName(
-                      newTableCatalogName, newTableSchemaName, getNewTableName())
-                  + " ("
-                  + database.escapeObjectName(getNewColumnName(), Column.class)
-                  + ") SELECT DISTINCT "
-                  + database.escapeObjectName(getExistingColumnName(), Column.class)
+    String newTable =
+        database.escapeTableName(newTableCatalogName, newTableSchemaName, getNewTableName());
+    String newColumn = database.escapeObjectName(getNewColumnName(), Column.class);
+    String existingTable =
+        database.escapeTableName(
+            existingTableCatalogName, existingTableSchemaName, getExistingTableName());
+    String existingColumn = database.escapeObjectName(getExistingColumnName(), Column.class);
+    statements.add(
+        new RawSqlStatement(
+            "CREATE TABLE "
+                + newTable
+                + " ("
+                + newColumn
+                + " "
+                + actualType
+                + (dialect == Dialect.POSTGRESQL
+                    ? " NOT NULL, PRIMARY KEY ("
+                    : " NOT NULL) PRIMARY KEY (")
+                + newColumn
+                + (dialect == Dialect.POSTGRESQL ? "))" : ")")));
+    RawSqlStatement insert =
+        new RawSqlStatement(
+            "INSERT INTO "
+                + newTable
+                + " ("
+                + newColumn
+                + ") SELECT DISTINCT "
+                + existingColumn
+                + " FROM "
+                + existingTable
+                + " WHERE "
+                + existingColumn
+                + " IS NOT NULL");
+    if (Boolean.TRUE.equals(largeTable)) {
+      statements.add(
+          new LoadLookupTableStatementSpanner(
+              database,
+              newTableSchemaName,
+              getNewTableName(),
+              getNewColumnName(),
+              "SELECT "
+                  + existingColumn
                   + " FROM "
-                  + database.escapeTableName(
-                      existingTableCatalogName, existingTableSchemaName, getExistingTableName())
+                  + existingTable
                   + " WHERE "
-                  + database.escapeObjectName(getExistingColumnName(), Column.class)
-                  + " IS NOT NULL"),
-        };
-    statements.addAll(Arrays.asList(createTablesSQL));
+                  + existingColumn
+                  + " IS NOT NULL",
+              insert));
+    } else {
+      statements.add(insert);
+    }
 
     AddForeignKeyConstraintChange addFKChange = new AddForeignKeyConstraintChange();
     addFKChange.setBaseTableSchemaName(existingTableSchemaName);
@@ -0,0 +1,266 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.change;
+
+import com.google.cloud.spanner.Mutation;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import liquibase.Scope;
+import liquibase.change.ChangeMetaData;
+import liquibase.change.ColumnConfig;
+import liquibase.change.DatabaseChange;
+import liquibase.change.core.LoadDataChange;
+import liquibase.change.core.LoadDataColumnConfig;
+import liquibase.database.Database;
+import liquibase.database.OfflineConnection;
+import liquibase.exception.UnexpectedLiquibaseException;
+import liquibase.executor.Executor;
+import liquibase.executor.ExecutorService;
+import liquibase.executor.LoggingExecutor;
+import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.ext.spanner.SpannerConfiguration;
+import liquibase.ext.spanner.sqlgenerator.InsertOrUpdateGeneratorSpanner;
+import liquibase.ext.spanner.sqlgenerator.InsertWithSelectGeneratorSpanner;
+import liquibase.ext.spanner.sqlgenerator.ParameterizedDmlStatementSpanner;
+import liquibase.ext.spanner.sqlgenerator.ParameterizedSql;
+import liquibase.ext.spanner.sqlgenerator.StreamLoadDataStatementSpanner;
+import liquibase.ext.spanner.sqlgenerator.WriteMutationsStatementSpanner;
+import liquibase.resource.Resource;
+import liquibase.resource.ResourceAccessor;
+import liquibase.statement.SqlStatement;
+import liquibase.statement.core.InsertOrUpdateStatement;
+import liquibase.statement.core.InsertStatement;
+
+@DatabaseChange(
+    name = "loadData",
+    description = "Loads data from a CSV file into an existing table",
+    priority = ChangeMetaData.PRIORITY_DATABASE,
+    appliesTo = "table",
+    since = "1.7")
+public class LoadDataChangeSpanner extends LoadDataChange {
+  private static final Set<String> STREAMING_UNSUPPORTED_TYPES =
+      new HashSet<>(Arrays.asList("BLOB", "CLOB", "COMPUTED", "SEQUENCE"));
+
+  @Override
+  public boolean supports(Database database) {
+    return database instanceof ICloudSpanner;
+  }
+
+  @Override
+  public SqlStatement[] generateStatements(Database database) {
+    if (!useStreaming(database)) {
+      return super.generateStatements(database);
+    }
+    return new SqlStatement[] {
+      new StreamLoadDataStatementSpanner(
+          database,
+          getSchemaName(),
+          getTableName(),
+          getResource(),
+          getEncoding() == null ? "UTF-8" : getEncoding(),
+          toChar(getSeparator(), ','),
+          toChar(getQuotchar(), '"'),
+          getCommentLineStartsWith() == null ? "#" : getCommentLineStartsWith(),
+          getColumns(),
+          () -> super.generateStatements(database))
+    };
+  }
+
+  /**
+   * Returns true if the file should be streamed into the table. Columns with computed values or
+   * values that must be read from a file are only supported by the statements of Liquibase.
+   */
+  private boolean useStreaming(Database database) {
+    if (!Boolean.TRUE.equals(SpannerConfiguration.LOAD_DATA_STREAMING.getCurrentValue())
+        || getChangeSet() == null
+        || database.getConnection() == null
+        || database.getConnection() instanceof OfflineConnection
+        || isLoggingExecutor(database)) {
+      return false;
+    }
+    for (LoadDataColumnConfig column : getColumns()) {
+      if (column.getValueComputed() != null
+          || column.getValueBlobFile() != null
+          || column.getValueClobFile() != null
+          || (column.getType() != null
+              && STREAMING_UNSUPPORTED_TYPES.contains(column.getType().toUpperCase(Locale.ROOT)))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private Resource getResource() {
+    ResourceAccessor resourceAccessor = Scope.getCurrentScope().getResourceAccessor();
+    try {
+      if (Boolean.TRUE.equals(isRelativeToChangelogFile())) {
+        return resourceAccessor
+            .get(getChangeSet().getChangeLog().getPhysicalFilePath())
+            .resolveSibling(getFile());
+      }
+      return resourceAccessor.getExisting(getFile());
+    } catch (IOException e) {
+      throw new UnexpectedLiquibaseException(e);
+    }
+  }
+
+  private static char toChar(String value, char defaultValue) {
+    if (value == null || value.isEmpty()) {
+      return defaultValue;
+    }
+    return "\\t".equals(value) ? '\t' : value.charAt(0);
+  }
+
+  @Override
+  protected SqlStatement[] generateStatementsFromRows(
+      Database database, List<LoadDataRowConfig> rows) {
+    SqlStatement[] statements = super.generateStatementsFromRows(database, rows);
+    if (useMutations(database, rows)) {
+      return new SqlStatement[] {
+        new WriteMutationsStatementSpanner(
+            database,
+            getSchemaName(),
+            getTableName(),
+            Mutation.Op.INSERT,
+            toColumnValues(rows),
+            statements)
+      };
+    }
+    if (useParameterizedDml(database, rows)) {
+      return new SqlStatement[] {
+        createParameterizedDmlStatement(
+            database,
+            createStatement(getCatalogName(), getSchemaName(), getTableName()),
+            rows,
+            statements)
+      };
+    }
+    return statements;
+  }
+
+  /**
+   * Returns true if the rows should be written with mutations. Rows that contain computed values or
+   * values that must be read from a file are always inserted with DML statements.
+   */
+  static boolean useMutations(Database database, List<? extends LoadDataRowConfig> rows) {
+    return Boolean.TRUE.equals(SpannerConfiguration.LOAD_DATA_WITH_MUTATIONS.getCurrentValue())
+        && canWriteDirectly(database, rows);
+  }
+
+  /**
+   * Returns true if the rows should be written with parameterized DML statements. This requires all
+   * rows to have the same columns, so they can share the same SQL strings.
+   */
+  static boolean useParameterizedDml(Database database, List<? extends LoadDataRowConfig> rows) {
+    if (!Boolean.TRUE.equals(SpannerConfiguration.PARAMETERIZED_DML.getCurrentValue())
+        || !canWriteDirectly(database, rows)) {
+      return false;
+    }
+    List<String> columns = getColumnNames(rows.get(0));
+    for (LoadDataRowConfig row : rows) {
+      if (!columns.equals(getColumnNames(row))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Creates a statement that executes the rows with the parameterized version of the SQL that is
+   * generated for the given template statement. The template is either an {@link InsertStatement}
+   * or an {@link InsertOrUpdateStatement}, and its values are not used.
+   */
+  static ParameterizedDmlStatementSpanner createParameterizedDmlStatement(
+      Database database,
+      InsertStatement template,
+      List<? extends LoadDataRowConfig> rows,
+      SqlStatement[] fallbackStatements) {
+    for (LoadDataColumnConfig column : rows.get(0).getColumns()) {
+      template.addColumnValue(column.getName(), null);
+      if (template instanceof InsertOrUpdateStatement) {
+        ((InsertOrUpdateStatement) template)
+            .setAllowColumnUpdate(column.getName(), !Boolean.FALSE.equals(column.getAllowUpdate()));
+      }
+    }
+    List<ParameterizedSql> statements =
+        template instanceof InsertOrUpdateStatement
+            ? new InsertOrUpdateGeneratorSpanner()
+                .generateParameterizedSql((InsertOrUpdateStatement) template, database)
+            : Collections.singletonList(
+                new InsertWithSelectGeneratorSpanner()
+                    .generateParameterizedSql(template, database));
+    return new ParameterizedDmlStatementSpanner(
+        database,
+        template.getSchemaName(),
+        template.getTableName(),
+        statements,
+        toColumnValues(rows),
+        fallbackStatements);
+  }
+
+  private static List<String> getColumnNames(LoadDataRowConfig row) {
+    List<String> names = new ArrayList<>(row.getColumns().size());
+    for (LoadDataColumnConfig column : row.getColumns()) {
+      names.add(column.getName());
+    }
+    return names;
+  }
+
+  private static boolean canWriteDirectly(
+      Database database, List<? extends LoadDataRowConfig> rows) {
+    if (rows.isEmpty()
+        || database.getConnection() == null
+        || database.getConnection() instanceof OfflineConnection
+        || isLoggingExecutor(database)) {
+      return false;
+    }
+    for (LoadDataRowConfig row : rows) {
+      for (ColumnConfig column : row.getColumns()) {
+        if (column.getValueComputed() != null
+            || column.getValueBlobFile() != null
+            || column.getValueClobFile() != null) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  static List<Map<String, Object>> toColumnValues(List<? extends LoadDataRowConfig> rows) {
+    List<Map<String, Object>> result = new ArrayList<>(rows.size());
+    for (LoadDataRowConfig row : rows) {
+      Map<String, Object> values = new LinkedHashMap<>();
+      for (LoadDataColumnConfig column : row.getColumns()) {
+        values.put(column.getName(), column.getValueObject());
+      }
+      result.add(values);
+    }
+    return result;
+  }
+
+  /** The jdbc executor is replaced by a logging executor when SQL is generated, e.g. updateSql. */
+  private static boolean isLoggingExecutor(Database database) {
+    Executor executor =
+        Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database);
+    return executor instanceof LoggingExecutor;
+  }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.change;
+
+import com.google.cloud.spanner.Mutation;
+import java.util.List;
+import liquibase.change.ChangeMetaData;
+import liquibase.change.DatabaseChange;
+import liquibase.change.core.LoadDataColumnConfig;
+import liquibase.change.core.LoadUpdateDataChange;
+import liquibase.database.Database;
+import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.ext.spanner.sqlgenerator.WriteMutationsStatementSpanner;
+import liquibase.statement.SqlStatement;
+
+@DatabaseChange(
+    name = "loadUpdateData",
+    description =
+        "Loads or updates data from a CSV file into an existing table. Differs from loadData by "
+            + "issuing a SQL batch that checks for the existence of a record. If found, the record "
+            + "is UPDATEd, else the record is INSERTed. Also, generates DELETE statements for a "
+            + "rollback.\n"
+            + "\n"
+            + "A value of NULL in a cell will be converted to a database NULL rather than the "
+            + "string 'NULL'",
+    priority = ChangeMetaData.PRIORITY_DATABASE,
+    appliesTo = "table",
+    since = "2.0")
+public class LoadUpdateDataChangeSpanner extends LoadUpdateDataChange {
+
+  @Override
+  public boolean supports(Database database) {
+    return database instanceof ICloudSpanner;
+  }
+
+  @Override
+  protected SqlStatement[] generateStatementsFromRows(
+      Database database, List<LoadDataRowConfig> rows) {
+    SqlStatement[] statements = super.generateStatementsFromRows(database, rows);
+    // An InsertOrUpdate mutation always writes all columns, and an Update mutation fails if the
+    // row does not exist, so onlyUpdate and columns with allowUpdate=false use DML statements.
+    if (!Boolean.TRUE.equals(getOnlyUpdate())
+        && allColumnsAllowUpdate()
+        && LoadDataChangeSpanner.useMutations(database, rows)) {
+      return new SqlStatement[] {
+        new WriteMutationsStatementSpanner(
+            database,
+            getSchemaName(),
+            getTableName(),
+            Mutation.Op.INSERT_OR_UPDATE,
+            LoadDataChangeSpanner.toColumnValues(rows),
+            statements)
+      };
+    }
+    if (LoadDataChangeSpanner.useParameterizedDml(database, rows)) {
+      return new SqlStatement[] {
+        LoadDataChangeSpanner.createParameterizedDmlStatement(
+            database,
+            createStatement(getCatalogName(), getSchemaName(), getTableName()),
+            rows,
+            statements)
+      };
+    }
+    return statements;
+  }
+
+  private boolean allColumnsAllowUpdate() {
+    for (LoadDataColumnConfig column : getColumns()) {
+      if (Boolean.FALSE.equals(column.getAllowUpdate())) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
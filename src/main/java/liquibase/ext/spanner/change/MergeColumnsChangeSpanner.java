@@ -13,18 +13,21 @@
  */
 package liquibase.ext.spanner.change;
 
-import com.google.cloud.spanner.Dialect;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import liquibase.change.AddColumnConfig;
 import liquibase.change.ChangeMetaData;
 import liquibase.change.DatabaseChange;
+import liquibase.change.DatabaseChangeProperty;
 import liquibase.change.core.AddColumnChange;
 import liquibase.change.core.DropColumnChange;
 import liquibase.change.core.MergeColumnChange;
 import liquibase.database.Database;
-import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.exception.ValidationErrors;
+import liquibase.ext.spanner.sqlgenerator.BackfillStatementSpanner;
+import liquibase.ext.spanner.sqlgenerator.PartitionedDmlStatementSpanner;
+import liquibase.ext.spanner.sqlgenerator.SpannerBackfill;
 import liquibase.statement.SqlStatement;
 import liquibase.statement.core.RawSqlStatement;
 import liquibase.structure.core.Column;
@@ -35,7 +38,9 @@ import liquibase.structure.core.Column;
  * updated/deleted. This feature is a safety precaution against accidental updates/deletes.
  *
  * <p>{@link MergeColumnsChangeSpanner} will use a Partitioned DML statement to fill the data in the
- * new column.
+ * new column, see {@link PartitionedDmlStatementSpanner}, unless <code>dmlMode</code> is <code>
+ * parallel</code>. The new column is then filled in parallel key ranges, see {@link
+ * SpannerBackfill}.
  */
 @DatabaseChange(
     name = "mergeColumns",
@@ -43,10 +48,22 @@ import liquibase.structure.core.Column;
         "Concatenates the values in two columns, joins them by with string, and stores the resulting value in a new column.",
     priority = ChangeMetaData.PRIORITY_DATABASE)
 public class MergeColumnsChangeSpanner extends MergeColumnChange {
+  private String dmlMode;
+
+  @DatabaseChangeProperty(
+      description =
+          "Set to 'parallel' to fill the new column in parallel key ranges instead of with "
+              + "Partitioned DML")
+  public String getDmlMode() {
+    return dmlMode;
+  }
+
+  public void setDmlMode(String dmlMode) {
+    this.dmlMode = dmlMode;
+  }
 
   @Override
   public SqlStatement[] generateStatements(final Database database) {
-    Dialect dialect = ((ICloudSpanner) database).getDialect();
     List<SqlStatement> statements = new ArrayList<>();
 
     AddColumnChange addNewColumnChange = new AddColumnChange();
@@ -58,14 +75,6 @@ public class MergeColumnsChangeSpanner extends MergeColumnChange {
     columnConfig.setType(getFinalColumnType());
     addNewColumnChange.addColumn(columnConfig);
     statements.addAll(Arrays.asList(addNewColumnChange.generateStatements(database)));
-    if (dialect == Dialect.POSTGRESQL) {
-      statements.add(new RawSqlStatement("set autocommit=true"));
-      statements.add(
-          new RawSqlStatement("set spanner.autocommit_dml_mode='partitioned_non_atomic'"));
-    } else {
-      statements.add(new RawSqlStatement("SET AUTOCOMMIT=TRUE"));
-      statements.add(new RawSqlStatement("SET AUTOCOMMIT_DML_MODE='PARTITIONED_NON_ATOMIC'"));
-    }
     String updateStatement =
         "UPDATE "
             + database.escapeTableName(getCatalogName(), getSchemaName(), getTableName())
@@ -75,13 +84,19 @@ public class MergeColumnsChangeSpanner extends MergeColumnChange {
             + database.getConcatSql(
                 database.escapeObjectName(getColumn1Name(), Column.class),
                 "'" + getJoinString() + "'",
-                database.escapeObjectName(getColumn2Name(), Column.class))
-            + " WHERE TRUE";
-    statements.add(new RawSqlStatement(updateStatement));
-    if (dialect == Dialect.POSTGRESQL) {
-      statements.add(new RawSqlStatement("set spanner.autocommit_dml_mode='transactional'"));
+                database.escapeObjectName(getColumn2Name(), Column.class));
+    if (SpannerDmlMode.isParallel(dmlMode)) {
+      statements.add(
+          new BackfillStatementSpanner(
+              database,
+              getSchemaName(),
+              getTableName(),
+              new RawSqlStatement(
+                  updateStatement + " WHERE " + SpannerBackfill.RANGE_PREDICATE)));
     } else {
-      statements.add(new RawSqlStatement("SET AUTOCOMMIT_DML_MODE='TRANSACTIONAL'"));
+      statements.add(
+          new PartitionedDmlStatementSpanner(
+              new RawSqlStatement(updateStatement + " WHERE TRUE")));
     }
     DropColumnChange dropColumn1Change = new DropColumnChange();
     dropColumn1Change.setCatalogName(getCatalogName());
@@ -99,4 +114,11 @@ public class MergeColumnsChangeSpanner extends MergeColumnChange {
 
     return statements.toArray(new SqlStatement[statements.size()]);
   }
+
+  @Override
+  public ValidationErrors validate(Database database) {
+    ValidationErrors errors = super.validate(database);
+    SpannerDmlMode.validate(dmlMode, errors);
+    return errors;
+  }
 }
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.change;
+
+import liquibase.change.ChangeMetaData;
+import liquibase.change.DatabaseChange;
+import liquibase.change.DatabaseChangeProperty;
+import liquibase.change.core.RawSQLChange;
+import liquibase.database.Database;
+import liquibase.exception.ValidationErrors;
+import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.statement.SqlStatement;
+
+/**
+ * Cloud Spanner-specific implementation of {@link RawSQLChange}. The UPDATE and DELETE
+ * statements of the change are executed as Partitioned DML if <code>dmlMode</code> is <code>
+ * partitioned</code>. Other statements are executed normally.
+ */
+@DatabaseChange(
+    name = "sql",
+    description = "Executes custom SQL",
+    priority = ChangeMetaData.PRIORITY_DATABASE)
+public class RawSQLChangeSpanner extends RawSQLChange {
+  private String dmlMode;
+
+  @DatabaseChangeProperty(
+      description =
+          "Set to 'partitioned' to execute UPDATE and DELETE statements with Partitioned DML")
+  public String getDmlMode() {
+    return dmlMode;
+  }
+
+  public void setDmlMode(String dmlMode) {
+    this.dmlMode = dmlMode;
+  }
+
+  @Override
+  public boolean supports(Database database) {
+    return database instanceof ICloudSpanner;
+  }
+
+  @Override
+  public SqlStatement[] generateStatements(Database database) {
+    return SpannerDmlMode.apply(
+        dmlMode, super.generateStatements(database), statement -> true, database);
+  }
+
+  @Override
+  public ValidationErrors validate(Database database) {
+    ValidationErrors errors = super.validate(database);
+    SpannerDmlMode.validate(dmlMode, errors, false);
+    return errors;
+  }
+}
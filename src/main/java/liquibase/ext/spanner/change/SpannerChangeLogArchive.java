@@ -0,0 +1,336 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.change;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.ErrorCode;
+import com.google.cloud.spanner.Key;
+import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.Value;
+import com.google.cloud.spanner.jdbc.CloudSpannerJdbcConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.annotation.Nullable;
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.ext.spanner.SpannerConnections;
+import liquibase.ext.spanner.SpannerErrors;
+
+/**
+ * Moves old rows of the DATABASECHANGELOG table to the DATABASECHANGELOGARCHIVE table, and reads
+ * them back for {@link StandardChangeLogHistoryServiceSpanner}.
+ *
+ * <p>The archive contains one row per change log file and set of change sets. The identifiers,
+ * authors, checksums, exec types and order of the change sets are stored in array columns, and the
+ * row is keyed by the file name and a SHA-256 hash of these values. Each archive row is written in
+ * the same transaction that deletes its change sets from DATABASECHANGELOG, so a change set is
+ * always in exactly one of the two tables. Rows with a tag, and the most recent rows, are never
+ * archived. Archived change sets are reported as run with their original checksums, but cannot be
+ * rolled back.
+ */
+public final class SpannerChangeLogArchive {
+  /** The maximum number of change sets in one archive row, and so in one transaction. */
+  private static final int MAX_CHANGE_SETS_PER_ROW = 2000;
+
+  private SpannerChangeLogArchive() {}
+
+  /** A row of DATABASECHANGELOG that can be archived. */
+  private static final class HistoryRow {
+    private final String id;
+    private final String author;
+    private final String fileName;
+    @Nullable private final String md5sum;
+    @Nullable private final String execType;
+    private final long orderExecuted;
+    @Nullable private final Timestamp dateExecuted;
+
+    private HistoryRow(ResultSet resultSet) {
+      this.id = resultSet.getString(0);
+      this.author = resultSet.getString(1);
+      this.fileName = resultSet.getString(2);
+      this.md5sum = resultSet.isNull(3) ? null : resultSet.getString(3);
+      this.execType = resultSet.isNull(4) ? null : resultSet.getString(4);
+      this.orderExecuted = resultSet.isNull(5) ? 0L : resultSet.getLong(5);
+      this.dateExecuted = resultSet.isNull(6) ? null : resultSet.getTimestamp(6);
+    }
+  }
+
+  /**
+   * Archives all rows of DATABASECHANGELOG of the given database, except the given number of most
+   * recent rows and rows with a tag. Returns the number of archived rows. The caller must hold the
+   * change log lock.
+   */
+  public static int archive(Database database, int keepRows) throws DatabaseException {
+    if (keepRows < 1) {
+      // Liquibase computes the next ORDEREXECUTED from the rows in DATABASECHANGELOG.
+      throw new DatabaseException("At least one row must be kept in the change log table");
+    }
+    CloudSpannerJdbcConnection connection = getConnection(database);
+    Dialect dialect = ((ICloudSpanner) database).getDialect();
+    String changeLogTable = qualify(database, database.getDatabaseChangeLogTableName());
+    String archiveTable = getArchiveTableName(database);
+    DatabaseClient client = connection.getDatabaseClient();
+
+    List<HistoryRow> rows = new ArrayList<>();
+    try (ResultSet resultSet =
+        client
+            .singleUse()
+            .executeQuery(
+                Statement.of(
+                    String.format(
+                        "SELECT ID, AUTHOR, FILENAME, MD5SUM, EXECTYPE, ORDEREXECUTED, "
+                            + "DATEEXECUTED FROM %s WHERE TAG IS NULL "
+                            + "ORDER BY ORDEREXECUTED DESC, DATEEXECUTED DESC",
+                        changeLogTable)))) {
+      int skipped = 0;
+      while (resultSet.next()) {
+        if (skipped < keepRows) {
+          skipped++;
+        } else {
+          rows.add(new HistoryRow(resultSet));
+        }
+      }
+    }
+    if (rows.isEmpty()) {
+      return 0;
+    }
+    rows.sort(Comparator.comparingLong(row -> row.orderExecuted));
+    Map<String, List<HistoryRow>> rowsByFile = new LinkedHashMap<>();
+    for (HistoryRow row : rows) {
+      rowsByFile.computeIfAbsent(row.fileName, fileName -> new ArrayList<>()).add(row);
+    }
+    boolean tableCreated = false;
+    for (List<HistoryRow> fileRows : rowsByFile.values()) {
+      for (int start = 0; start < fileRows.size(); start += MAX_CHANGE_SETS_PER_ROW) {
+        List<Mutation> mutations =
+            createArchiveMutations(
+                dialect,
+                changeLogTable,
+                archiveTable,
+                fileRows.subList(
+                    start, Math.min(start + MAX_CHANGE_SETS_PER_ROW, fileRows.size())));
+        try {
+          client.write(mutations);
+        } catch (SpannerException e) {
+          if (e.getErrorCode() != ErrorCode.NOT_FOUND || tableCreated) {
+            throw new DatabaseException(e);
+          }
+          createTable(connection, dialect, archiveTable);
+          tableCreated = true;
+          client.write(mutations);
+        }
+      }
+    }
+    // The archived rows and the cached rows of DATABASECHANGELOG are outdated.
+    StandardChangeLogHistoryServiceSpanner.clearArchivedRows(database);
+    SpannerChangeLogHistoryCache.invalidate(database, changeLogTable);
+    Scope.getCurrentScope()
+        .getLog(SpannerChangeLogArchive.class)
+        .info("Archived " + rows.size() + " rows of " + changeLogTable + " in " + archiveTable);
+    return rows.size();
+  }
+
+  /**
+   * Returns the archived change sets of the given database as rows of DATABASECHANGELOG, ordered by
+   * ORDEREXECUTED. Returns an empty list if the archive table does not exist.
+   */
+  static List<Map<String, ?>> readArchivedRows(Database database) throws DatabaseException {
+    CloudSpannerJdbcConnection connection = SpannerConnections.getSpannerConnection(database);
+    List<Map<String, ?>> result = new ArrayList<>();
+    if (connection == null) {
+      return result;
+    }
+    String sql =
+        String.format(
+            "SELECT FILENAME, IDS, AUTHORS, MD5SUMS, EXECTYPES, ORDERS, DATEEXECUTED FROM %s",
+            getArchiveTableName(database));
+    try (ResultSet resultSet =
+        connection.getDatabaseClient().singleUse().executeQuery(Statement.of(sql))) {
+      while (resultSet.next()) {
+        String fileName = resultSet.getString(0);
+        List<String> ids = resultSet.getStringList(1);
+        List<String> authors = resultSet.getStringList(2);
+        List<String> md5sums = resultSet.getStringList(3);
+        List<String> execTypes = resultSet.getStringList(4);
+        List<Long> orders = resultSet.getLongList(5);
+        java.sql.Timestamp dateExecuted =
+            resultSet.isNull(6) ? null : resultSet.getTimestamp(6).toSqlTimestamp();
+        for (int i = 0; i < ids.size(); i++) {
+          Map<String, Object> row = new LinkedHashMap<>();
+          row.put("ID", ids.get(i));
+          row.put("AUTHOR", authors.get(i));
+          row.put("FILENAME", fileName);
+          row.put("DATEEXECUTED", dateExecuted);
+          row.put("ORDEREXECUTED", orders.get(i));
+          row.put("EXECTYPE", execTypes.get(i));
+          row.put("MD5SUM", md5sums.get(i));
+          result.add(row);
+        }
+      }
+    } catch (SpannerException e) {
+      if (SpannerErrors.isTableNotFound(e)) {
+        // Nothing has been archived yet.
+        return result;
+      }
+      throw new DatabaseException(e);
+    }
+    result.sort(Comparator.comparingLong(row -> (Long) row.get("ORDEREXECUTED")));
+    return result;
+  }
+
+  private static List<Mutation> createArchiveMutations(
+      Dialect dialect, String changeLogTable, String archiveTable, List<HistoryRow> rows) {
+    List<String> ids = new ArrayList<>(rows.size());
+    List<String> authors = new ArrayList<>(rows.size());
+    List<String> md5sums = new ArrayList<>(rows.size());
+    List<String> execTypes = new ArrayList<>(rows.size());
+    List<Long> orders = new ArrayList<>(rows.size());
+    Timestamp dateExecuted = null;
+    MessageDigest checksum = newDigest();
+    List<Mutation> mutations = new ArrayList<>(rows.size() + 1);
+    for (HistoryRow row : rows) {
+      ids.add(row.id);
+      authors.add(row.author);
+      md5sums.add(row.md5sum);
+      execTypes.add(row.execType);
+      orders.add(row.orderExecuted);
+      if (row.dateExecuted != null
+          && (dateExecuted == null || row.dateExecuted.compareTo(dateExecuted) > 0)) {
+        dateExecuted = row.dateExecuted;
+      }
+      update(checksum, row.id);
+      update(checksum, row.author);
+      update(checksum, row.md5sum);
+      mutations.add(
+          Mutation.delete(
+              name(changeLogTable, dialect), Key.of(row.id, row.author, row.fileName)));
+    }
+    mutations.add(
+        Mutation.newInsertOrUpdateBuilder(name(archiveTable, dialect))
+            .set(name("FILENAME", dialect))
+            .to(rows.get(0).fileName)
+            .set(name("CHECKSUM", dialect))
+            .to(toHex(checksum))
+            .set(name("IDS", dialect))
+            .toStringArray(ids)
+            .set(name("AUTHORS", dialect))
+            .toStringArray(authors)
+            .set(name("MD5SUMS", dialect))
+            .toStringArray(md5sums)
+            .set(name("EXECTYPES", dialect))
+            .toStringArray(execTypes)
+            .set(name("ORDERS", dialect))
+            .toInt64Array(orders)
+            .set(name("DATEEXECUTED", dialect))
+            .to(dateExecuted)
+            .set(name("ARCHIVED", dialect))
+            .to(Value.COMMIT_TIMESTAMP)
+            .build());
+    return mutations;
+  }
+
+  private static void createTable(
+      CloudSpannerJdbcConnection connection, Dialect dialect, String archiveTable)
+      throws DatabaseException {
+    String ddl =
+        dialect == Dialect.POSTGRESQL
+            ? String.format(
+                "CREATE TABLE IF NOT EXISTS %s (FILENAME VARCHAR NOT NULL, "
+                    + "CHECKSUM VARCHAR(64) NOT NULL, IDS VARCHAR[], AUTHORS VARCHAR[], "
+                    + "MD5SUMS VARCHAR[], EXECTYPES VARCHAR[], ORDERS BIGINT[], "
+                    + "DATEEXECUTED TIMESTAMPTZ, ARCHIVED SPANNER.COMMIT_TIMESTAMP NOT NULL, "
+                    + "PRIMARY KEY (FILENAME, CHECKSUM))",
+                archiveTable)
+            : String.format(
+                "CREATE TABLE IF NOT EXISTS %s (FILENAME STRING(MAX) NOT NULL, "
+                    + "CHECKSUM STRING(64) NOT NULL, IDS ARRAY<STRING(MAX)>, "
+                    + "AUTHORS ARRAY<STRING(MAX)>, MD5SUMS ARRAY<STRING(MAX)>, "
+                    + "EXECTYPES ARRAY<STRING(MAX)>, ORDERS ARRAY<INT64>, "
+                    + "DATEEXECUTED TIMESTAMP, "
+                    + "ARCHIVED TIMESTAMP NOT NULL OPTIONS (allow_commit_timestamp=true)) "
+                    + "PRIMARY KEY (FILENAME, CHECKSUM)",
+                archiveTable);
+    try (java.sql.Statement statement = connection.createStatement()) {
+      statement.execute(ddl);
+    } catch (SQLException e) {
+      throw new DatabaseException(e);
+    }
+  }
+
+  private static CloudSpannerJdbcConnection getConnection(Database database)
+      throws DatabaseException {
+    CloudSpannerJdbcConnection connection = SpannerConnections.getSpannerConnection(database);
+    if (connection == null) {
+      throw new DatabaseException("The change log can only be archived on a Spanner connection");
+    }
+    return connection;
+  }
+
+  static String getArchiveTableName(Database database) {
+    return qualify(database, database.getDatabaseChangeLogTableName() + "ARCHIVE");
+  }
+
+  /**
+   * Returns the name of the given table in the Liquibase schema, in the same way as the name of
+   * DATABASECHANGELOG in the queries of Liquibase. The default schema is omitted.
+   */
+  private static String qualify(Database database, String table) {
+    return database.escapeTableName(
+        database.getLiquibaseCatalogName(), database.getLiquibaseSchemaName(), table);
+  }
+
+  /** Unquoted identifiers are folded to lower case in PostgreSQL-dialect databases. */
+  private static String name(String name, Dialect dialect) {
+    return dialect == Dialect.POSTGRESQL ? name.toLowerCase(Locale.ROOT) : name;
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void update(MessageDigest digest, @Nullable String value) {
+    if (value != null) {
+      digest.update(value.getBytes(StandardCharsets.UTF_8));
+    }
+    digest.update((byte) 0);
+  }
+
+  private static String toHex(MessageDigest digest) {
+    StringBuilder result = new StringBuilder();
+    for (byte b : digest.digest()) {
+      result.append(String.format("%02x", b));
+    }
+    return result.toString();
+  }
+}
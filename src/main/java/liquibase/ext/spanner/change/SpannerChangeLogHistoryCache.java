@@ -0,0 +1,425 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.change;
+
+import com.google.cloud.spanner.jdbc.CloudSpannerJdbcConnection;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import javax.annotation.Nullable;
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+import liquibase.executor.Executor;
+import liquibase.executor.ExecutorService;
+import liquibase.ext.spanner.SpannerConfiguration;
+import liquibase.ext.spanner.SpannerConnections;
+import liquibase.statement.core.RawParameterizedSqlStatement;
+
+/**
+ * Caches the rows of the DATABASECHANGELOG table, so a command does not need to read all rows of a
+ * long history. The cache is only used if {@link SpannerConfiguration#CHANGELOG_CACHE} is enabled.
+ *
+ * <p>Each entry contains the rows of one DATABASECHANGELOG table and the highest ORDEREXECUTED of
+ * these rows. Liquibase gives each change set that it runs or reruns an ORDEREXECUTED that is
+ * higher than all existing values, so a later command only reads the rows above that mark and
+ * merges them into the entry. It then compares the number of rows, checksums and tags of the entry
+ * with one aggregate query on the table. The whole table is read again if these differ, e.g.
+ * because rows were deleted by a rollback or checksums were cleared. Edits of existing values that
+ * do not change these counts are only detected if they are made by Liquibase in this process.
+ *
+ * <p>Each entry also contains the archived change sets (see {@link SpannerChangeLogArchive}), so a
+ * command that can use the entry does not query the archive table. These are read again together
+ * with the whole table, as archiving deletes rows from DATABASECHANGELOG and so changes its counts.
+ *
+ * <p>The entries are kept in memory, and are also written to {@link
+ * SpannerConfiguration#CHANGELOG_CACHE_FILE} if it is set, so that subsequent Liquibase commands can
+ * use them.
+ */
+final class SpannerChangeLogHistoryCache {
+  private static final String MARK_SUFFIX = ".mark";
+  private static final String ROW_COUNT_SUFFIX = ".rows";
+  private static final String ROW_SUFFIX = ".row.";
+  private static final String ARCHIVED_ROW_COUNT_SUFFIX = ".archivedRows";
+  private static final String ARCHIVED_ROW_SUFFIX = ".archivedRow.";
+
+  private static final String DATEEXECUTED = "DATEEXECUTED";
+  private static final String ORDEREXECUTED = "ORDEREXECUTED";
+
+  /** The columns of DATABASECHANGELOG that Liquibase reads. */
+  private static final String[] COLUMNS = {
+    "ID",
+    "AUTHOR",
+    "FILENAME",
+    DATEEXECUTED,
+    ORDEREXECUTED,
+    "EXECTYPE",
+    "MD5SUM",
+    "DESCRIPTION",
+    "COMMENTS",
+    "TAG",
+    "LIQUIBASE",
+    "CONTEXTS",
+    "LABELS",
+    "DEPLOYMENT_ID"
+  };
+
+  /** The same order as the query of {@link liquibase.changelog.StandardChangeLogHistoryService}. */
+  private static final Comparator<Map<String, ?>> ORDER =
+      Comparator.comparingLong((Map<String, ?> row) -> toDate(row.get(DATEEXECUTED)).getTime())
+          .thenComparingLong(SpannerChangeLogHistoryCache::getOrderExecuted);
+
+  /** Reads all rows of DATABASECHANGELOG or of the archive. */
+  interface Loader {
+    List<Map<String, ?>> load() throws DatabaseException;
+  }
+
+  private static final class Entry {
+    private final List<Map<String, ?>> rows;
+    private final List<Map<String, ?>> archivedRows;
+    private final long mark;
+
+    private Entry(List<Map<String, ?>> rows, List<Map<String, ?>> archivedRows, long mark) {
+      this.rows = rows;
+      this.archivedRows = archivedRows;
+      this.mark = mark;
+    }
+  }
+
+  /** The cached entries by database and table name. */
+  private static final Map<String, Entry> ENTRIES = new HashMap<>();
+
+  private SpannerChangeLogHistoryCache() {}
+
+  /**
+   * Returns the archived rows followed by the rows of the given DATABASECHANGELOG table, in the
+   * same order as the given loaders. Only the rows that were added or rerun since the rows were
+   * cached are read from the table, and the loaders are only used if there is no valid entry for
+   * the table.
+   */
+  static List<Map<String, ?>> query(
+      Database database, String table, Loader loader, Loader archiveLoader)
+      throws DatabaseException {
+    String key = getKey(database, table);
+    if (key == null) {
+      return concat(archiveLoader.load(), loader.load());
+    }
+    Entry entry;
+    synchronized (ENTRIES) {
+      entry = ENTRIES.get(key);
+      if (entry == null) {
+        entry = readEntry(key);
+      }
+    }
+    List<Map<String, ?>> rows = entry == null ? null : refresh(database, table, entry);
+    if (rows != null && rows == entry.rows) {
+      // No rows were added, so the entry is not written to the cache file again.
+      synchronized (ENTRIES) {
+        ENTRIES.put(key, entry);
+      }
+      return concat(entry.archivedRows, entry.rows);
+    }
+    List<Map<String, ?>> archivedRows;
+    if (rows == null) {
+      rows = new ArrayList<>();
+      for (Map<String, ?> row : loader.load()) {
+        rows.add(normalize(row));
+      }
+      archivedRows = Collections.unmodifiableList(new ArrayList<>(archiveLoader.load()));
+    } else {
+      archivedRows = entry.archivedRows;
+    }
+    long mark = 0L;
+    for (Map<String, ?> row : rows) {
+      mark = Math.max(mark, getOrderExecuted(row));
+    }
+    Entry updated = new Entry(Collections.unmodifiableList(rows), archivedRows, mark);
+    synchronized (ENTRIES) {
+      ENTRIES.put(key, updated);
+      writeEntry(key, updated);
+    }
+    return concat(updated.archivedRows, updated.rows);
+  }
+
+  /** Archived change sets are older than all change sets in DATABASECHANGELOG. */
+  private static List<Map<String, ?>> concat(
+      List<Map<String, ?>> archivedRows, List<Map<String, ?>> rows) {
+    List<Map<String, ?>> result = new ArrayList<>(archivedRows.size() + rows.size());
+    result.addAll(archivedRows);
+    result.addAll(rows);
+    return result;
+  }
+
+  /** Removes the cached rows of the given DATABASECHANGELOG table, if any. */
+  static void invalidate(Database database, String table) {
+    String key;
+    try {
+      key = getKey(database, table);
+    } catch (DatabaseException e) {
+      return;
+    }
+    if (key == null) {
+      return;
+    }
+    synchronized (ENTRIES) {
+      ENTRIES.remove(key);
+      writeEntry(key, null);
+    }
+  }
+
+  /**
+   * Merges the rows above the mark of the given entry into its rows, and returns the result, or
+   * null if the result does not match the current contents of the table. The rows of the entry
+   * itself are returned if there are no rows above the mark.
+   */
+  @Nullable
+  private static List<Map<String, ?>> refresh(Database database, String table, Entry entry)
+      throws DatabaseException {
+    Executor executor =
+        Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database);
+    List<Map<String, ?>> newRows =
+        executor.queryForList(
+            new RawParameterizedSqlStatement(
+                String.format(
+                    "SELECT * FROM %s WHERE ORDEREXECUTED > %d "
+                        + "ORDER BY DATEEXECUTED ASC, ORDEREXECUTED ASC",
+                    table, entry.mark)));
+    List<Map<String, ?>> result = entry.rows;
+    if (!newRows.isEmpty()) {
+      Map<String, Map<String, ?>> rows = new LinkedHashMap<>();
+      for (Map<String, ?> row : entry.rows) {
+        rows.put(getChangeSetKey(row), row);
+      }
+      for (Map<String, ?> row : newRows) {
+        Map<String, ?> normalized = normalize(row);
+        // A change set that was rerun replaces its previous row.
+        rows.put(getChangeSetKey(normalized), normalized);
+      }
+      result = new ArrayList<>(rows.values());
+      result.sort(ORDER);
+    }
+
+    List<Map<String, ?>> counts =
+        executor.queryForList(
+            new RawParameterizedSqlStatement(
+                String.format(
+                    "SELECT COUNT(*) AS TOTAL_ROWS, COUNT(MD5SUM) AS CHECKSUMS, COUNT(TAG) AS TAGS "
+                        + "FROM %s",
+                    table)));
+    if (counts.size() != 1) {
+      return null;
+    }
+    Map<String, ?> row = normalize(counts.get(0));
+    long checksums = result.stream().filter(r -> r.get("MD5SUM") != null).count();
+    long tags = result.stream().filter(r -> r.get("TAG") != null).count();
+    if (toLong(row.get("TOTAL_ROWS")) != result.size()
+        || toLong(row.get("CHECKSUMS")) != checksums
+        || toLong(row.get("TAGS")) != tags) {
+      Scope.getCurrentScope()
+          .getLog(SpannerChangeLogHistoryCache.class)
+          .fine("The cached rows of " + table + " are outdated, reading all rows");
+      return null;
+    }
+    Scope.getCurrentScope()
+        .getLog(SpannerChangeLogHistoryCache.class)
+        .fine("Read " + newRows.size() + " new rows of " + table + " above " + entry.mark);
+    return result;
+  }
+
+  @Nullable
+  private static String getKey(Database database, String table) throws DatabaseException {
+    CloudSpannerJdbcConnection connection = SpannerConnections.getSpannerConnection(database);
+    if (connection == null) {
+      return null;
+    }
+    try {
+      return connection.getDatabaseId().getName() + "/" + table;
+    } catch (UnsupportedOperationException e) {
+      return null;
+    }
+  }
+
+  private static String getChangeSetKey(Map<String, ?> row) {
+    return row.get("ID") + "::" + row.get("AUTHOR") + "::" + row.get("FILENAME");
+  }
+
+  /** Returns a copy of the given row with upper case column names. */
+  private static Map<String, ?> normalize(Map<String, ?> row) {
+    Map<String, Object> result = new LinkedHashMap<>();
+    for (Map.Entry<String, ?> column : row.entrySet()) {
+      result.put(column.getKey().toUpperCase(Locale.ROOT), column.getValue());
+    }
+    return result;
+  }
+
+  private static long getOrderExecuted(Map<String, ?> row) {
+    return toLong(row.get(ORDEREXECUTED));
+  }
+
+  private static long toLong(@Nullable Object value) {
+    return value == null ? 0L : Long.parseLong(value.toString());
+  }
+
+  private static Date toDate(@Nullable Object value) {
+    return value instanceof Date ? (Date) value : new Date(0L);
+  }
+
+  @Nullable
+  private static Path getCacheFile() {
+    String file = SpannerConfiguration.CHANGELOG_CACHE_FILE.getCurrentValue();
+    return file == null || file.trim().isEmpty() ? null : Paths.get(file.trim());
+  }
+
+  /** Reads the entry of the given table from the cache file. */
+  @Nullable
+  private static Entry readEntry(String key) {
+    Path file = getCacheFile();
+    if (file == null || !Files.exists(file)) {
+      return null;
+    }
+    try {
+      Properties properties = load(file);
+      String mark = properties.getProperty(key + MARK_SUFFIX);
+      String count = properties.getProperty(key + ROW_COUNT_SUFFIX);
+      String archivedCount = properties.getProperty(key + ARCHIVED_ROW_COUNT_SUFFIX);
+      if (mark == null || count == null || archivedCount == null) {
+        return null;
+      }
+      return new Entry(
+          readRows(properties, key + ROW_SUFFIX, Integer.parseInt(count)),
+          readRows(properties, key + ARCHIVED_ROW_SUFFIX, Integer.parseInt(archivedCount)),
+          Long.parseLong(mark));
+    } catch (IOException | RuntimeException e) {
+      Scope.getCurrentScope()
+          .getLog(SpannerChangeLogHistoryCache.class)
+          .fine("Could not read the change log cache file " + file, e);
+      return null;
+    }
+  }
+
+  private static List<Map<String, ?>> readRows(Properties properties, String prefix, int count) {
+    List<Map<String, ?>> rows = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Map<String, Object> row = new LinkedHashMap<>();
+      for (String column : COLUMNS) {
+        String value = properties.getProperty(prefix + i + "." + column);
+        if (value != null && column.equals(DATEEXECUTED)) {
+          row.put(column, parseTimestamp(value));
+        } else if (value != null && column.equals(ORDEREXECUTED)) {
+          row.put(column, Long.parseLong(value));
+        } else {
+          row.put(column, value);
+        }
+      }
+      rows.add(row);
+    }
+    return Collections.unmodifiableList(rows);
+  }
+
+  /**
+   * Writes the entry of the given table to the cache file, or removes it from the file if the entry
+   * is null. The file is replaced atomically, so concurrent commands never read a partially written
+   * file.
+   */
+  private static void writeEntry(String key, @Nullable Entry entry) {
+    Path file = getCacheFile();
+    if (file == null || (entry == null && !Files.exists(file))) {
+      return;
+    }
+    try {
+      Properties properties = Files.exists(file) ? load(file) : new Properties();
+      properties.stringPropertyNames().stream()
+          .filter(name -> name.startsWith(key + "."))
+          .forEach(properties::remove);
+      if (entry != null) {
+        properties.setProperty(key + MARK_SUFFIX, String.valueOf(entry.mark));
+        properties.setProperty(key + ROW_COUNT_SUFFIX, String.valueOf(entry.rows.size()));
+        writeRows(properties, key + ROW_SUFFIX, entry.rows);
+        properties.setProperty(
+            key + ARCHIVED_ROW_COUNT_SUFFIX, String.valueOf(entry.archivedRows.size()));
+        writeRows(properties, key + ARCHIVED_ROW_SUFFIX, entry.archivedRows);
+      }
+      Path parent = file.toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+      try {
+        try (OutputStream out = Files.newOutputStream(temp)) {
+          properties.store(out, "Liquibase Spanner change log cache");
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+    } catch (IOException e) {
+      Scope.getCurrentScope()
+          .getLog(SpannerChangeLogHistoryCache.class)
+          .warning("Could not write the change log cache file " + file, e);
+    }
+  }
+
+  private static void writeRows(Properties properties, String prefix, List<Map<String, ?>> rows) {
+    for (int i = 0; i < rows.size(); i++) {
+      Map<String, ?> row = rows.get(i);
+      for (String column : COLUMNS) {
+        Object value = row.get(column);
+        if (value != null) {
+          properties.setProperty(
+              prefix + i + "." + column,
+              value instanceof Date ? formatTimestamp((Date) value) : value.toString());
+        }
+      }
+    }
+  }
+
+  /** Formats a timestamp as epoch milliseconds and nanoseconds, independent of the time zone. */
+  private static String formatTimestamp(Date date) {
+    int nanos = date instanceof Timestamp ? ((Timestamp) date).getNanos() : -1;
+    return date.getTime() + (nanos < 0 ? "" : ":" + nanos);
+  }
+
+  private static Timestamp parseTimestamp(String value) {
+    int separator = value.indexOf(':');
+    Timestamp timestamp =
+        new Timestamp(Long.parseLong(separator < 0 ? value : value.substring(0, separator)));
+    if (separator >= 0) {
+      timestamp.setNanos(Integer.parseInt(value.substring(separator + 1)));
+    }
+    return timestamp;
+  }
+
+  private static Properties load(Path file) throws IOException {
+    Properties properties = new Properties();
+    try (InputStream in = Files.newInputStream(file)) {
+      properties.load(in);
+    }
+    return properties;
+  }
+}
@@ -0,0 +1,238 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.change;
+
+import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.ErrorCode;
+import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.TimestampBound;
+import com.google.cloud.spanner.Value;
+import com.google.cloud.spanner.jdbc.CloudSpannerJdbcConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import liquibase.ChecksumVersion;
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.changelog.ChangeSet;
+import liquibase.changelog.DatabaseChangeLog;
+import liquibase.changelog.RanChangeSet;
+import liquibase.changelog.filter.ChangeSetFilter;
+import liquibase.changelog.filter.ContextChangeSetFilter;
+import liquibase.changelog.filter.DbmsChangeSetFilter;
+import liquibase.changelog.filter.IgnoreChangeSetFilter;
+import liquibase.changelog.filter.LabelChangeSetFilter;
+import liquibase.database.Database;
+
+/**
+ * A summary of the change sets of a change log that apply to a database: the number of change sets
+ * and a SHA-256 hash of their identifiers and checksums. A summary is stored in the
+ * DATABASECHANGELOGSUMMARY table after all change sets have been applied, together with the number
+ * of rows in DATABASECHANGELOG. A later command with the same change log, contexts and labels can
+ * then find that there is nothing to run by reading that one row, and confirm it with the rows of
+ * DATABASECHANGELOG without taking the change log lock.
+ */
+final class SpannerChangeLogSummary {
+  private final String id;
+  private final String checksum;
+  private final List<ChangeSet> changeSets;
+
+  private SpannerChangeLogSummary(String id, String checksum, List<ChangeSet> changeSets) {
+    this.id = id;
+    this.checksum = checksum;
+    this.changeSets = changeSets;
+  }
+
+  /**
+   * Creates the summary of the change sets of the given change log that apply to the database with
+   * the given contexts and labels. Returns null if the change log has a change set that always
+   * runs, as there is always something to run for such a change log.
+   */
+  @Nullable
+  static SpannerChangeLogSummary create(
+      DatabaseChangeLog changeLog, Contexts contexts, LabelExpression labels, Database database) {
+    List<ChangeSetFilter> filters = new ArrayList<>();
+    filters.add(new ContextChangeSetFilter(contexts));
+    filters.add(new LabelChangeSetFilter(labels));
+    filters.add(new DbmsChangeSetFilter(database));
+    filters.add(new IgnoreChangeSetFilter());
+
+    List<ChangeSet> changeSets = new ArrayList<>();
+    MessageDigest checksum = newDigest();
+    for (ChangeSet changeSet : changeLog.getChangeSets()) {
+      if (!filters.stream().allMatch(filter -> filter.accepts(changeSet).isAccepted())) {
+        continue;
+      }
+      if (changeSet.isAlwaysRun()) {
+        return null;
+      }
+      changeSets.add(changeSet);
+      update(checksum, changeSet.getId());
+      update(checksum, changeSet.getAuthor());
+      update(checksum, DatabaseChangeLog.normalizePath(changeSet.getFilePath()));
+      update(checksum, changeSet.generateCheckSum(ChecksumVersion.latest()).toString());
+    }
+    MessageDigest id = newDigest();
+    update(id, DatabaseChangeLog.normalizePath(changeLog.getFilePath()));
+    update(id, contexts == null ? "" : contexts.toString());
+    update(id, labels == null ? "" : labels.toString());
+    return new SpannerChangeLogSummary(
+        toHex(id), toHex(checksum), Collections.unmodifiableList(changeSets));
+  }
+
+  /**
+   * Returns true if all change sets of this summary have been applied to the database with their
+   * current checksums, according to the given list of change sets that have been run.
+   */
+  boolean isApplied(List<RanChangeSet> ranChangeSets) {
+    for (ChangeSet changeSet : changeSets) {
+      RanChangeSet ranChangeSet =
+          ranChangeSets.stream().filter(ran -> ran.isSameAs(changeSet)).findFirst().orElse(null);
+      if (ranChangeSet == null
+          || ranChangeSet.getLastCheckSum() == null
+          || !changeSet.isCheckSumValid(ranChangeSet.getLastCheckSum())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns true if the summary that is stored in the given table is equal to this summary, and
+   * DATABASECHANGELOG still contains the number of rows that it contained when the summary was
+   * stored. The summary is read with a lock-free stale read.
+   */
+  boolean matchesStoredSummary(
+      CloudSpannerJdbcConnection connection,
+      Dialect dialect,
+      String summaryTable,
+      String changeLogTable,
+      int maxStalenessSeconds) {
+    String sql =
+        String.format(
+            "SELECT CHECKSUM, CHANGESETS, TOTAL_ROWS, (SELECT COUNT(*) FROM %s) AS CURRENT_ROWS "
+                + "FROM %s WHERE ID = %s",
+            changeLogTable, summaryTable, dialect == Dialect.POSTGRESQL ? "$1" : "@p1");
+    Statement statement = Statement.newBuilder(sql).bind("p1").to(id).build();
+    TimestampBound bound =
+        maxStalenessSeconds > 0
+            ? TimestampBound.ofMaxStaleness(maxStalenessSeconds, TimeUnit.SECONDS)
+            : TimestampBound.strong();
+    try (ResultSet resultSet =
+        connection.getDatabaseClient().singleUse(bound).executeQuery(statement)) {
+      if (!resultSet.next()) {
+        return false;
+      }
+      return checksum.equals(resultSet.getString(0))
+          && resultSet.getLong(1) == changeSets.size()
+          && resultSet.getLong(2) == resultSet.getLong(3);
+    }
+  }
+
+  /**
+   * Stores this summary in the given table with a mutation. The table is created if it does not
+   * exist.
+   */
+  void write(
+      CloudSpannerJdbcConnection connection, Dialect dialect, String summaryTable, long totalRows)
+      throws SQLException {
+    boolean postgres = dialect == Dialect.POSTGRESQL;
+    Mutation mutation =
+        Mutation.newInsertOrUpdateBuilder(name(summaryTable, postgres))
+            .set(name("ID", postgres))
+            .to(id)
+            .set(name("CHECKSUM", postgres))
+            .to(checksum)
+            .set(name("CHANGESETS", postgres))
+            .to(changeSets.size())
+            .set(name("TOTAL_ROWS", postgres))
+            .to(totalRows)
+            .set(name("UPDATED", postgres))
+            .to(Value.COMMIT_TIMESTAMP)
+            .build();
+    DatabaseClient client = connection.getDatabaseClient();
+    try {
+      client.write(Collections.singletonList(mutation));
+    } catch (SpannerException e) {
+      if (e.getErrorCode() != ErrorCode.NOT_FOUND) {
+        throw e;
+      }
+      createTable(connection, dialect, summaryTable);
+      client.write(Collections.singletonList(mutation));
+    }
+  }
+
+  private static void createTable(
+      CloudSpannerJdbcConnection connection, Dialect dialect, String summaryTable)
+      throws SQLException {
+    String ddl =
+        dialect == Dialect.POSTGRESQL
+            ? String.format(
+                "CREATE TABLE IF NOT EXISTS %s (ID VARCHAR(64) NOT NULL PRIMARY KEY, "
+                    + "CHECKSUM VARCHAR(64) NOT NULL, CHANGESETS BIGINT NOT NULL, "
+                    + "TOTAL_ROWS BIGINT NOT NULL, UPDATED SPANNER.COMMIT_TIMESTAMP NOT NULL)",
+                summaryTable)
+            : String.format(
+                "CREATE TABLE IF NOT EXISTS %s (ID STRING(64) NOT NULL, "
+                    + "CHECKSUM STRING(64) NOT NULL, CHANGESETS INT64 NOT NULL, "
+                    + "TOTAL_ROWS INT64 NOT NULL, "
+                    + "UPDATED TIMESTAMP NOT NULL OPTIONS (allow_commit_timestamp=true)) "
+                    + "PRIMARY KEY (ID)",
+                summaryTable);
+    try (java.sql.Statement statement = connection.createStatement()) {
+      statement.execute(ddl);
+    }
+  }
+
+  /** Unquoted identifiers are folded to lower case in PostgreSQL-dialect databases. */
+  private static String name(String name, boolean postgres) {
+    return postgres ? name.toLowerCase(Locale.ROOT) : name;
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void update(MessageDigest digest, @Nullable String value) {
+    if (value != null) {
+      digest.update(value.getBytes(StandardCharsets.UTF_8));
+    }
+    // Separate the values, so that moving text between values changes the hash.
+    digest.update((byte) 0);
+  }
+
+  private static String toHex(MessageDigest digest) {
+    StringBuilder result = new StringBuilder();
+    for (byte b : digest.digest()) {
+      result.append(String.format("%02x", b));
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.change;
+
+import java.util.function.Predicate;
+import liquibase.database.Database;
+import liquibase.exception.ValidationErrors;
+import liquibase.ext.spanner.sqlgenerator.BackfillStatementSpanner;
+import liquibase.ext.spanner.sqlgenerator.PartitionedDmlStatementSpanner;
+import liquibase.ext.spanner.sqlgenerator.SpannerBackfill;
+import liquibase.statement.SqlStatement;
+import liquibase.statement.core.DeleteStatement;
+import liquibase.statement.core.UpdateStatement;
+
+/**
+ * The values of the <code>dmlMode</code> attribute of the changes that can execute their DML
+ * statements as Partitioned DML: <code>update</code>, <code>delete</code>, <code>addColumn</code>,
+ * <code>mergeColumns</code> and <code>sql</code>. All of these except <code>sql</code> can also
+ * execute their UPDATE and DELETE statements in parallel key ranges, see {@link SpannerBackfill}.
+ */
+final class SpannerDmlMode {
+  static final String TRANSACTIONAL = "transactional";
+  static final String PARTITIONED = "partitioned";
+  static final String PARALLEL = "parallel";
+
+  private SpannerDmlMode() {}
+
+  static boolean isPartitioned(String dmlMode) {
+    return PARTITIONED.equalsIgnoreCase(dmlMode);
+  }
+
+  static boolean isParallel(String dmlMode) {
+    return PARALLEL.equalsIgnoreCase(dmlMode);
+  }
+
+  static void validate(String dmlMode, ValidationErrors errors) {
+    validate(dmlMode, errors, true);
+  }
+
+  static void validate(String dmlMode, ValidationErrors errors, boolean parallelSupported) {
+    if (dmlMode == null
+        || TRANSACTIONAL.equalsIgnoreCase(dmlMode)
+        || PARTITIONED.equalsIgnoreCase(dmlMode)) {
+      return;
+    }
+    if (!parallelSupported || !PARALLEL.equalsIgnoreCase(dmlMode)) {
+      errors.addError(
+          parallelSupported
+              ? String.format(
+                  "Invalid dmlMode '%s', expected '%s', '%s' or '%s'",
+                  dmlMode, TRANSACTIONAL, PARTITIONED, PARALLEL)
+              : String.format(
+                  "Invalid dmlMode '%s', expected '%s' or '%s'",
+                  dmlMode, TRANSACTIONAL, PARTITIONED));
+    }
+  }
+
+  /**
+   * Wraps the statements that match the given predicate in a {@link PartitionedDmlStatementSpanner}
+   * if the given mode is partitioned, and the UPDATE and DELETE statements that match the predicate
+   * in a {@link BackfillStatementSpanner} if the given mode is parallel.
+   */
+  static SqlStatement[] apply(
+      String dmlMode,
+      SqlStatement[] statements,
+      Predicate<SqlStatement> predicate,
+      Database database) {
+    if (!isPartitioned(dmlMode) && !isParallel(dmlMode)) {
+      return statements;
+    }
+    SqlStatement[] result = new SqlStatement[statements.length];
+    for (int i = 0; i < statements.length; i++) {
+      SqlStatement statement = statements[i];
+      if (!predicate.test(statement)) {
+        result[i] = statement;
+      } else if (isPartitioned(dmlMode)) {
+        result[i] = new PartitionedDmlStatementSpanner(statement);
+      } else if (statement instanceof UpdateStatement) {
+        UpdateStatement update = (UpdateStatement) statement;
+        update.setWhereClause(withRangePredicate(update.getWhereClause()));
+        result[i] =
+            new BackfillStatementSpanner(
+                database, update.getSchemaName(), update.getTableName(), update);
+      } else if (statement instanceof DeleteStatement) {
+        DeleteStatement delete = (DeleteStatement) statement;
+        delete.setWhere(withRangePredicate(delete.getWhere()));
+        result[i] =
+            new BackfillStatementSpanner(
+                database, delete.getSchemaName(), delete.getTableName(), delete);
+      } else {
+        result[i] = statement;
+      }
+    }
+    return result;
+  }
+
+  static String withRangePredicate(String where) {
+    return where == null
+        ? SpannerBackfill.RANGE_PREDICATE
+        : "(" + where + ") AND " + SpannerBackfill.RANGE_PREDICATE;
+  }
+}
@@ -13,11 +13,67 @@
  */
 package liquibase.ext.spanner.change;
 
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.jdbc.CloudSpannerJdbcConnection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Scope;
+import liquibase.changelog.ChangeLogHistoryService;
+import liquibase.changelog.ChangeLogHistoryServiceFactory;
+import liquibase.changelog.ChangeSet;
+import liquibase.changelog.DatabaseChangeLog;
+import liquibase.changelog.RanChangeSet;
 import liquibase.changelog.StandardChangeLogHistoryService;
 import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
 import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.ext.spanner.SpannerConfiguration;
+import liquibase.ext.spanner.SpannerConnections;
+import liquibase.ext.spanner.lockservice.LockServiceSpanner;
 
+/**
+ * {@link ChangeLogHistoryService} for Spanner. When {@link SpannerConfiguration#FAST_NO_OP_UPDATE}
+ * is enabled, a summary of the change log is compared with the summary that was stored in the
+ * DATABASECHANGELOGSUMMARY table by the last command that applied all its change sets (see {@link
+ * SpannerChangeLogSummary}). If these are equal, and the rows of DATABASECHANGELOG confirm that all
+ * change sets have been applied, these rows are used without taking the change log lock (see {@link
+ * LockServiceSpanner}). The rows are always the real rows of the table, so commands such as status,
+ * history and rollback report the actual executions.
+ *
+ * <p>The change sets that were moved to the archive table (see {@link SpannerChangeLogArchive}) are
+ * reported as run together with the rows of DATABASECHANGELOG whenever the archive table exists,
+ * so a command cannot run an archived change set again. The archive is read once per command, and
+ * is part of the cached rows if {@link SpannerConfiguration#CHANGELOG_CACHE} is enabled.
+ */
 public class StandardChangeLogHistoryServiceSpanner extends StandardChangeLogHistoryService {
+  private static final class ChangeLogState {
+    private final SpannerChangeLogSummary summary;
+    private List<RanChangeSet> ranChangeSets;
+    private boolean outdated;
+
+    private ChangeLogState(SpannerChangeLogSummary summary) {
+      this.summary = summary;
+    }
+  }
+
+  /**
+   * The summary of the change log of the current command by database. This is kept outside of the
+   * service, as Liquibase resets and recreates the service during a command.
+   */
+  private static final Map<Database, ChangeLogState> STATES =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  /** The archived change sets of the current command by database. */
+  private static final Map<Database, List<Map<String, ?>>> ARCHIVED_ROWS =
+      Collections.synchronizedMap(new WeakHashMap<>());
 
   public StandardChangeLogHistoryServiceSpanner() {}
 
@@ -35,4 +91,215 @@ public class StandardChangeLogHistoryServiceSpanner extends StandardChangeLogHis
   public boolean canCreateChangeLogTable() {
     return true;
   }
+
+  @Override
+  public void upgradeChecksums(
+      DatabaseChangeLog databaseChangeLog, Contexts contexts, LabelExpression labels)
+      throws DatabaseException {
+    if (SpannerConfiguration.FAST_NO_OP_UPDATE.getCurrentValue()) {
+      SpannerChangeLogSummary summary =
+          SpannerChangeLogSummary.create(databaseChangeLog, contexts, labels, getDatabase());
+      if (summary != null) {
+        ChangeLogState state = new ChangeLogState(summary);
+        STATES.put(getDatabase(), state);
+        if (matchesStoredSummary(summary)) {
+          // Reading the rows does not take the lock, as only statements that change the database
+          // do.
+          List<RanChangeSet> ranChangeSets = super.getRanChangeSets();
+          if (summary.isApplied(ranChangeSets)) {
+            state.ranChangeSets = ranChangeSets;
+            Scope.getCurrentScope()
+                .getLog(getClass())
+                .info(
+                    "All change sets of "
+                        + databaseChangeLog.getFilePath()
+                        + " have been applied, skipping the change log lock");
+            return;
+          }
+          // The rows are read again after the lock has been taken.
+          reset();
+        }
+        state.outdated = true;
+      }
+      // The checksums can only be upgraded while holding the lock.
+      LockServiceSpanner.checkChangeLogLock(getDatabase());
+    }
+    super.upgradeChecksums(databaseChangeLog, contexts, labels);
+  }
+
+  @Override
+  public List<Map<String, ?>> queryDatabaseChangeLogTable(Database database)
+      throws DatabaseException {
+    if (SpannerConfiguration.CHANGELOG_CACHE.getCurrentValue()) {
+      return SpannerChangeLogHistoryCache.query(
+          database,
+          getEscapedChangeLogTableName(),
+          () -> super.queryDatabaseChangeLogTable(database),
+          () -> getArchivedRows(database));
+    }
+    // Archived change sets are older than all change sets in DATABASECHANGELOG.
+    List<Map<String, ?>> result = new ArrayList<>(getArchivedRows(database));
+    result.addAll(super.queryDatabaseChangeLogTable(database));
+    return result;
+  }
+
+  private static List<Map<String, ?>> getArchivedRows(Database database) throws DatabaseException {
+    List<Map<String, ?>> rows = ARCHIVED_ROWS.get(database);
+    if (rows == null) {
+      rows = Collections.unmodifiableList(SpannerChangeLogArchive.readArchivedRows(database));
+      ARCHIVED_ROWS.put(database, rows);
+    }
+    return rows;
+  }
+
+  /**
+   * Removes the archived change sets that were read by the current command on the given database.
+   * This is called when change sets are archived.
+   */
+  static void clearArchivedRows(Database database) {
+    ARCHIVED_ROWS.remove(database);
+  }
+
+  @Override
+  public void replaceChecksum(ChangeSet changeSet) throws DatabaseException {
+    // The count of the checksums does not change, so the cached rows cannot detect this update.
+    SpannerChangeLogHistoryCache.invalidate(getDatabase(), getEscapedChangeLogTableName());
+    super.replaceChecksum(changeSet);
+  }
+
+  @Override
+  public void tag(String tagString) throws DatabaseException {
+    SpannerChangeLogHistoryCache.invalidate(getDatabase(), getEscapedChangeLogTableName());
+    super.tag(tagString);
+  }
+
+  @Override
+  public List<RanChangeSet> getRanChangeSets() throws DatabaseException {
+    ChangeLogState state = STATES.get(getDatabase());
+    if (state != null && state.ranChangeSets != null) {
+      return state.ranChangeSets;
+    }
+    LockServiceSpanner.checkChangeLogLock(getDatabase());
+    return super.getRanChangeSets();
+  }
+
+  /**
+   * Returns true if the summary of the change log of the current command on the given database is
+   * equal to the stored summary, and the change log lock has not been taken since.
+   */
+  public static boolean isChangeLogUpToDate(Database database) {
+    ChangeLogState state = STATES.get(database);
+    return state != null && state.ranChangeSets != null;
+  }
+
+  /**
+   * Returns true if the summary of the change log of the current command on the given database was
+   * compared with the stored summary, and these were not equal.
+   */
+  public static boolean isChangeLogOutdated(Database database) {
+    ChangeLogState state = STATES.get(database);
+    return state != null && state.outdated;
+  }
+
+  /**
+   * Stops reporting the change sets of the change log as run without reading DATABASECHANGELOG.
+   * This is called when the change log lock is taken.
+   */
+  public static void clearUpToDate(Database database) {
+    ChangeLogState state = STATES.get(database);
+    if (state != null) {
+      state.ranChangeSets = null;
+    }
+  }
+
+  /**
+   * Removes the summary of the change log and the archived change sets of the current command on
+   * the given database.
+   */
+  public static void clearChangeLogSummary(Database database) {
+    STATES.remove(database);
+    ARCHIVED_ROWS.remove(database);
+  }
+
+  /**
+   * Stores the summary of the change log of the current command on the given database if all its
+   * change sets have now been applied. This is called at the end of an update. Failures are logged
+   * and otherwise ignored, as the summary only allows later commands to skip the lock.
+   */
+  public static void writeChangeLogSummary(Database database) {
+    ChangeLogState state = STATES.get(database);
+    if (!SpannerConfiguration.FAST_NO_OP_UPDATE.getCurrentValue()
+        || state == null
+        || state.ranChangeSets != null) {
+      return;
+    }
+    ChangeLogHistoryService service =
+        Scope.getCurrentScope()
+            .getSingleton(ChangeLogHistoryServiceFactory.class)
+            .getChangeLogService(database);
+    if (service instanceof StandardChangeLogHistoryServiceSpanner) {
+      ((StandardChangeLogHistoryServiceSpanner) service).writeChangeLogSummary(state.summary);
+    }
+  }
+
+  private void writeChangeLogSummary(SpannerChangeLogSummary summary) {
+    try {
+      CloudSpannerJdbcConnection connection =
+          SpannerConnections.getSpannerConnection(getDatabase());
+      if (connection == null || !summary.isApplied(getRanChangeSets())) {
+        return;
+      }
+      long totalRows;
+      try (ResultSet resultSet =
+          connection
+              .getDatabaseClient()
+              .singleUse()
+              .executeQuery(
+                  Statement.of("SELECT COUNT(*) FROM " + getDatabaseChangeLogTableName()))) {
+        if (!resultSet.next()) {
+          return;
+        }
+        totalRows = resultSet.getLong(0);
+      }
+      summary.write(
+          connection,
+          ((ICloudSpanner) getDatabase()).getDialect(),
+          getSummaryTableName(),
+          totalRows);
+    } catch (DatabaseException | SpannerException | SQLException e) {
+      Scope.getCurrentScope()
+          .getLog(getClass())
+          .warning("Could not write the change log summary to " + getSummaryTableName(), e);
+    }
+  }
+
+  private boolean matchesStoredSummary(SpannerChangeLogSummary summary) {
+    try {
+      CloudSpannerJdbcConnection connection =
+          SpannerConnections.getSpannerConnection(getDatabase());
+      return connection != null
+          && summary.matchesStoredSummary(
+              connection,
+              ((ICloudSpanner) getDatabase()).getDialect(),
+              getSummaryTableName(),
+              getDatabaseChangeLogTableName(),
+              SpannerConfiguration.FAST_NO_OP_UPDATE_MAX_STALENESS_SECONDS.getCurrentValue());
+    } catch (DatabaseException | SpannerException e) {
+      // The summary table does not exist until a command has applied all change sets.
+      Scope.getCurrentScope()
+          .getLog(getClass())
+          .fine("Could not read the change log summary from " + getSummaryTableName(), e);
+      return false;
+    }
+  }
+
+  private String getEscapedChangeLogTableName() {
+    return getDatabase()
+        .escapeTableName(
+            getLiquibaseCatalogName(), getLiquibaseSchemaName(), getDatabaseChangeLogTableName());
+  }
+
+  private String getSummaryTableName() {
+    return getDatabaseChangeLogTableName() + "SUMMARY";
+  }
 }
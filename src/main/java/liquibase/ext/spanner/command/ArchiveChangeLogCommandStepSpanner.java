@@ -0,0 +1,98 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.command;
+
+import java.util.Arrays;
+import java.util.List;
+import liquibase.Scope;
+import liquibase.command.AbstractCommandStep;
+import liquibase.command.CommandArgumentDefinition;
+import liquibase.command.CommandBuilder;
+import liquibase.command.CommandDefinition;
+import liquibase.command.CommandResultDefinition;
+import liquibase.command.CommandResultsBuilder;
+import liquibase.database.Database;
+import liquibase.exception.CommandExecutionException;
+import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.ext.spanner.change.SpannerChangeLogArchive;
+import liquibase.ext.spanner.lockservice.LockServiceSpanner;
+import liquibase.lockservice.LockService;
+
+/**
+ * The <code>spannerArchiveChangelog</code> command. Moves all rows of DATABASECHANGELOG except the
+ * most recent ones to the DATABASECHANGELOGARCHIVE table (see {@link SpannerChangeLogArchive}).
+ * Later commands read the archive table whenever it exists, so the archived change sets are not run
+ * again.
+ */
+public class ArchiveChangeLogCommandStepSpanner extends AbstractCommandStep {
+  public static final String[] COMMAND_NAME = {"spannerArchiveChangelog"};
+
+  public static final CommandArgumentDefinition<Integer> KEEP_ROWS_ARG;
+  public static final CommandResultDefinition<Integer> ARCHIVED_ROWS_RESULT;
+
+  static {
+    CommandBuilder builder = new CommandBuilder(COMMAND_NAME);
+    KEEP_ROWS_ARG =
+        builder
+            .argument("keepRows", Integer.class)
+            .defaultValue(1000)
+            .description("The number of most recent DATABASECHANGELOG rows that are not archived")
+            .build();
+    ARCHIVED_ROWS_RESULT =
+        builder
+            .result("archivedRows", Integer.class)
+            .description("The number of rows that were moved to the archive table")
+            .build();
+  }
+
+  @Override
+  public String[][] defineCommandNames() {
+    return new String[][] {COMMAND_NAME};
+  }
+
+  @Override
+  public List<Class<?>> requiredDependencies() {
+    return Arrays.asList(Database.class, LockService.class);
+  }
+
+  @Override
+  public void adjustCommandDefinition(CommandDefinition commandDefinition) {
+    commandDefinition.setShortDescription(
+        "Move old rows of DATABASECHANGELOG on Spanner to the DATABASECHANGELOGARCHIVE table");
+  }
+
+  @Override
+  public void run(CommandResultsBuilder resultsBuilder) throws Exception {
+    Database database = (Database) resultsBuilder.getCommandScope().getDependency(Database.class);
+    if (!(database instanceof ICloudSpanner)) {
+      throw new CommandExecutionException(
+          "spannerArchiveChangelog can only be used with Spanner databases");
+    }
+    // The lock is only taken when it is needed if fastNoOpUpdate is enabled.
+    LockServiceSpanner.checkChangeLogLock(database);
+    int keepRows = resultsBuilder.getCommandScope().getArgumentValue(KEEP_ROWS_ARG);
+    int archived = SpannerChangeLogArchive.archive(database, keepRows);
+    Scope.getCurrentScope()
+        .getUI()
+        .sendMessage(
+            "Archived "
+                + archived
+                + " rows of "
+                + database.getDatabaseChangeLogTableName()
+                + ", kept the most recent "
+                + keepRows
+                + " rows");
+    resultsBuilder.addResult(ARCHIVED_ROWS_RESULT, archived);
+  }
+}
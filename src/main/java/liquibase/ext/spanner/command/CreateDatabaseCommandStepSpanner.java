@@ -0,0 +1,331 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.command;
+
+import com.google.cloud.NoCredentials;
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.DatabaseAdminClient;
+import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.DatabaseId;
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.Spanner;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.SpannerOptions;
+import com.google.cloud.spanner.connection.ConnectionOptions;
+import io.grpc.ManagedChannelBuilder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import liquibase.ChecksumVersion;
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Scope;
+import liquibase.changelog.ChangeLogParameters;
+import liquibase.changelog.ChangeSet;
+import liquibase.changelog.DatabaseChangeLog;
+import liquibase.command.AbstractCommandStep;
+import liquibase.command.CommandArgumentDefinition;
+import liquibase.command.CommandBuilder;
+import liquibase.command.CommandDefinition;
+import liquibase.command.CommandResultDefinition;
+import liquibase.command.CommandResultsBuilder;
+import liquibase.command.CommandScope;
+import liquibase.database.OfflineConnection;
+import liquibase.exception.CommandExecutionException;
+import liquibase.ext.spanner.CloudSpanner;
+import liquibase.ext.spanner.SpannerConfiguration;
+import liquibase.parser.ChangeLogParserFactory;
+import liquibase.resource.ResourceAccessor;
+import liquibase.sql.Sql;
+import liquibase.sqlgenerator.SqlGeneratorFactory;
+import liquibase.statement.SqlStatement;
+import liquibase.statement.core.CreateDatabaseChangeLogLockTableStatement;
+import liquibase.statement.core.CreateDatabaseChangeLogTableStatement;
+import liquibase.util.LiquibaseUtil;
+
+/**
+ * The <code>spannerCreateDatabase</code> command. Creates a new Spanner database with the schema
+ * of a change log in one schema operation, instead of executing each change set separately.
+ *
+ * <p>The change sets at the start of the change log that only contain DDL statements are rendered
+ * with the Spanner generators (see {@link SpannerChangeLogCompiler}), and are passed together with
+ * the DATABASECHANGELOG and DATABASECHANGELOGLOCK tables as the extra statements of the
+ * CreateDatabase request. Spanner does not accept extra statements for PostgreSQL-dialect
+ * databases, so these are created empty and the statements are executed as one DDL batch directly
+ * after. The DATABASECHANGELOG rows of the compiled change sets are then written with mutations.
+ * Change sets after the first change set that could not be compiled are not applied, and can be
+ * applied with a normal update.
+ */
+public class CreateDatabaseCommandStepSpanner extends AbstractCommandStep {
+  public static final String[] COMMAND_NAME = {"spannerCreateDatabase"};
+
+  /** Only certain client library tokens are accepted by Spanner, see CloudSpannerConnection. */
+  private static final String CLIENT_LIB_TOKEN = "sp-liq";
+
+  private static final int CHANGE_LOG_COLUMNS = 13;
+
+  public static final CommandArgumentDefinition<String> URL_ARG;
+  public static final CommandArgumentDefinition<String> CHANGELOG_FILE_ARG;
+  public static final CommandArgumentDefinition<String> CONTEXTS_ARG;
+  public static final CommandArgumentDefinition<String> LABEL_FILTER_ARG;
+  public static final CommandArgumentDefinition<String> DIALECT_ARG;
+  public static final CommandResultDefinition<Integer> COMPILED_CHANGE_SETS_RESULT;
+  public static final CommandResultDefinition<Integer> DDL_STATEMENTS_RESULT;
+
+  static {
+    CommandBuilder builder = new CommandBuilder(COMMAND_NAME);
+    URL_ARG =
+        builder
+            .argument("url", String.class)
+            .required()
+            .description("The JDBC URL of the Spanner database that is created")
+            .build();
+    CHANGELOG_FILE_ARG =
+        builder
+            .argument("changelogFile", String.class)
+            .required()
+            .description("The root changelog file")
+            .build();
+    CONTEXTS_ARG =
+        builder
+            .argument("contexts", String.class)
+            .description("Changeset contexts to match")
+            .build();
+    LABEL_FILTER_ARG =
+        builder
+            .argument("labelFilter", String.class)
+            .description("Changeset labels to match")
+            .build();
+    DIALECT_ARG =
+        builder
+            .argument("dialect", String.class)
+            .defaultValue(Dialect.GOOGLE_STANDARD_SQL.name())
+            .description("The dialect of the new database, GOOGLE_STANDARD_SQL or POSTGRESQL")
+            .build();
+    COMPILED_CHANGE_SETS_RESULT =
+        builder
+            .result("compiledChangeSets", Integer.class)
+            .description("The number of change sets that were applied with the new database")
+            .build();
+    DDL_STATEMENTS_RESULT =
+        builder
+            .result("ddlStatements", Integer.class)
+            .description("The number of DDL statements that the database was created with")
+            .build();
+  }
+
+  @Override
+  public String[][] defineCommandNames() {
+    return new String[][] {COMMAND_NAME};
+  }
+
+  @Override
+  public void adjustCommandDefinition(CommandDefinition commandDefinition) {
+    commandDefinition.setShortDescription(
+        "Create a new Spanner database with the DDL change sets of a changelog in one operation");
+  }
+
+  @Override
+  public void run(CommandResultsBuilder resultsBuilder) throws Exception {
+    CommandScope commandScope = resultsBuilder.getCommandScope();
+    String url = commandScope.getArgumentValue(URL_ARG);
+    String changeLogFile = commandScope.getArgumentValue(CHANGELOG_FILE_ARG);
+    String dialectName = commandScope.getArgumentValue(DIALECT_ARG);
+    Dialect dialect;
+    try {
+      dialect = Dialect.valueOf(dialectName.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new CommandExecutionException("Unknown dialect: " + dialectName);
+    }
+
+    // The statements are generated for a database without a connection, as it does not exist yet.
+    ResourceAccessor resourceAccessor = Scope.getCurrentScope().getResourceAccessor();
+    CloudSpanner database = new CloudSpanner();
+    database.setConnection(new OfflineConnection("offline:cloudspanner", resourceAccessor));
+    database.setOfflineDialect(dialect);
+    DatabaseChangeLog changeLog =
+        ChangeLogParserFactory.getInstance()
+            .getParser(changeLogFile, resourceAccessor)
+            .parse(changeLogFile, new ChangeLogParameters(database), resourceAccessor);
+    if (changeLog.getPreconditions() != null
+        && !changeLog.getPreconditions().getNestedPreconditions().isEmpty()) {
+      throw new CommandExecutionException(
+          "Changelogs with preconditions cannot be applied with spannerCreateDatabase");
+    }
+    SpannerChangeLogCompiler.Result compiled =
+        SpannerChangeLogCompiler.compile(
+            changeLog,
+            database,
+            new Contexts(commandScope.getArgumentValue(CONTEXTS_ARG)),
+            new LabelExpression(commandScope.getArgumentValue(LABEL_FILTER_ARG)));
+    List<String> statements = new ArrayList<>();
+    for (SqlStatement statement :
+        new SqlStatement[] {
+          new CreateDatabaseChangeLogLockTableStatement(),
+          new CreateDatabaseChangeLogTableStatement()
+        }) {
+      for (Sql sql : SqlGeneratorFactory.getInstance().generateSql(statement, database)) {
+        statements.add(sql.toSql());
+      }
+    }
+    statements.addAll(compiled.statements);
+
+    ConnectionOptions options =
+        ConnectionOptions.newBuilder()
+            .setUri(url.startsWith("jdbc:") ? url.substring("jdbc:".length()) : url)
+            .build();
+    DatabaseId databaseId =
+        DatabaseId.of(options.getProjectId(), options.getInstanceId(), options.getDatabaseName());
+    try (Spanner spanner = createSpanner(options)) {
+      createDatabase(spanner.getDatabaseAdminClient(), databaseId, dialect, statements);
+      writeChangeLogRows(
+          spanner.getDatabaseClient(databaseId), database, dialect, compiled.changeSets);
+    } catch (SpannerException e) {
+      throw new CommandExecutionException(e);
+    }
+
+    StringBuilder message =
+        new StringBuilder(
+            String.format(
+                "Created database %s with %d DDL statements for %d change sets in one operation.",
+                databaseId.getDatabase(), statements.size(), compiled.changeSets.size()));
+    if (compiled.firstRemaining != null) {
+      message.append(
+          String.format(
+              " Run update to apply the remaining change sets, starting with %s, which could not"
+                  + " be applied when the database was created as %s.",
+              compiled.firstRemaining.toString(false), compiled.reason));
+    }
+    Scope.getCurrentScope().getUI().sendMessage(message.toString());
+    resultsBuilder.addResult(COMPILED_CHANGE_SETS_RESULT, compiled.changeSets.size());
+    resultsBuilder.addResult(DDL_STATEMENTS_RESULT, statements.size());
+  }
+
+  private static Spanner createSpanner(ConnectionOptions options) {
+    SpannerOptions.Builder builder =
+        SpannerOptions.newBuilder()
+            .setProjectId(options.getProjectId())
+            .setHost(options.getHost())
+            .setClientLibToken(CLIENT_LIB_TOKEN);
+    if (options.isUsePlainText()) {
+      builder
+          .setChannelConfigurator(ManagedChannelBuilder::usePlaintext)
+          .setCredentials(NoCredentials.getInstance());
+    } else if (options.getCredentials() != null) {
+      builder.setCredentials(options.getCredentials());
+    }
+    return builder.build().getService();
+  }
+
+  private static void createDatabase(
+      DatabaseAdminClient client, DatabaseId databaseId, Dialect dialect, List<String> statements)
+      throws CommandExecutionException {
+    String instance = databaseId.getInstanceId().getInstance();
+    try {
+      if (dialect == Dialect.POSTGRESQL) {
+        client
+            .createDatabase(
+                client.newDatabaseBuilder(databaseId).setDialect(dialect).build(),
+                Collections.emptyList())
+            .get();
+        client.updateDatabaseDdl(instance, databaseId.getDatabase(), statements, null).get();
+      } else {
+        client.createDatabase(instance, databaseId.getDatabase(), statements).get();
+      }
+    } catch (ExecutionException e) {
+      throw new CommandExecutionException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CommandExecutionException(e);
+    }
+  }
+
+  /**
+   * Writes the unlocked change log lock row and the DATABASECHANGELOG rows of the given change sets
+   * with the same values as Liquibase writes for change sets that it executes.
+   */
+  private static void writeChangeLogRows(
+      DatabaseClient client, CloudSpanner database, Dialect dialect, List<ChangeSet> changeSets) {
+    List<Mutation> mutations = new ArrayList<>(changeSets.size() + 1);
+    mutations.add(
+        Mutation.newInsertOrUpdateBuilder(
+                name(database.getDatabaseChangeLogLockTableName(), dialect))
+            .set(name("ID", dialect))
+            .to(1L)
+            .set(name("LOCKED", dialect))
+            .to(false)
+            .build());
+    String changeLogTable = name(database.getDatabaseChangeLogTableName(), dialect);
+    Timestamp dateExecuted = Timestamp.now();
+    String deploymentId = String.valueOf(new Date().getTime()).substring(3);
+    int order = 0;
+    for (ChangeSet changeSet : changeSets) {
+      order++;
+      mutations.add(
+          Mutation.newInsertBuilder(changeLogTable)
+              .set(name("ID", dialect))
+              .to(changeSet.getId())
+              .set(name("AUTHOR", dialect))
+              .to(changeSet.getAuthor())
+              .set(name("FILENAME", dialect))
+              .to(changeSet.getStoredFilePath())
+              .set(name("DATEEXECUTED", dialect))
+              .to(dateExecuted)
+              .set(name("ORDEREXECUTED", dialect))
+              .to(order)
+              .set(name("EXECTYPE", dialect))
+              .to(ChangeSet.ExecType.EXECUTED.value)
+              .set(name("MD5SUM", dialect))
+              .to(changeSet.generateCheckSum(ChecksumVersion.latest()).toString())
+              .set(name("DESCRIPTION", dialect))
+              .to(limitSize(changeSet.getDescription()))
+              .set(name("COMMENTS", dialect))
+              .to(limitSize(changeSet.getComments() == null ? "" : changeSet.getComments().trim()))
+              .set(name("LIQUIBASE", dialect))
+              .to(LiquibaseUtil.getBuildVersion())
+              .set(name("CONTEXTS", dialect))
+              .to(
+                  changeSet.getContextFilter() == null || changeSet.getContextFilter().isEmpty()
+                      ? null
+                      : changeSet.getContextFilter().toString())
+              .set(name("LABELS", dialect))
+              .to(
+                  changeSet.getLabels() == null || changeSet.getLabels().isEmpty()
+                      ? null
+                      : changeSet.getLabels().toString())
+              .set(name("DEPLOYMENT_ID", dialect))
+              .to(deploymentId)
+              .build());
+    }
+    int maxMutations = SpannerConfiguration.MAX_MUTATIONS_PER_COMMIT.getCurrentValue();
+    int rowsPerCommit = Math.max(1, maxMutations / CHANGE_LOG_COLUMNS);
+    for (int start = 0; start < mutations.size(); start += rowsPerCommit) {
+      client.write(mutations.subList(start, Math.min(start + rowsPerCommit, mutations.size())));
+    }
+  }
+
+  /** Liquibase limits the description and comments of a change set in the same way. */
+  private static String limitSize(String value) {
+    return value != null && value.length() > 250 ? value.substring(0, 247) + "..." : value;
+  }
+
+  /** Unquoted identifiers are folded to lower case in PostgreSQL-dialect databases. */
+  private static String name(String name, Dialect dialect) {
+    return dialect == Dialect.POSTGRESQL ? name.toLowerCase(Locale.ROOT) : name;
+  }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.command;
+
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.connection.AbstractStatementParser;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nullable;
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.change.Change;
+import liquibase.changelog.ChangeSet;
+import liquibase.changelog.DatabaseChangeLog;
+import liquibase.changelog.filter.ChangeSetFilter;
+import liquibase.changelog.filter.ContextChangeSetFilter;
+import liquibase.changelog.filter.DbmsChangeSetFilter;
+import liquibase.changelog.filter.IgnoreChangeSetFilter;
+import liquibase.changelog.filter.LabelChangeSetFilter;
+import liquibase.database.Database;
+import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.sql.Sql;
+import liquibase.sqlgenerator.SqlGeneratorFactory;
+import liquibase.statement.CallableSqlStatement;
+import liquibase.statement.ExecutablePreparedStatement;
+import liquibase.statement.SqlStatement;
+
+/**
+ * Compiles the change sets at the start of a change log into the DDL statements that the Spanner
+ * generators would execute for them, see {@link CreateDatabaseCommandStepSpanner}.
+ *
+ * <p>A change set can be compiled if it has no preconditions and no modifySql, does not run
+ * always, and all of its changes generate DDL statements without reading the database. Compiling
+ * stops at the first change set that cannot be compiled, so the remaining change sets can be
+ * applied in their original order by a normal update.
+ */
+final class SpannerChangeLogCompiler {
+
+  /** The change sets that were compiled, and the DDL statements for these change sets. */
+  static final class Result {
+    final List<ChangeSet> changeSets = new ArrayList<>();
+    final List<String> statements = new ArrayList<>();
+    /** The first change set that could not be compiled, or null if all could be compiled. */
+    @Nullable ChangeSet firstRemaining;
+    /** The reason why {@link #firstRemaining} could not be compiled. */
+    @Nullable String reason;
+  }
+
+  private SpannerChangeLogCompiler() {}
+
+  static Result compile(
+      DatabaseChangeLog changeLog, Database database, Contexts contexts, LabelExpression labels) {
+    Dialect dialect = ((ICloudSpanner) database).getDialect();
+    AbstractStatementParser parser =
+        AbstractStatementParser.getInstance(
+            dialect == null ? Dialect.GOOGLE_STANDARD_SQL : dialect);
+    List<ChangeSetFilter> filters =
+        Arrays.asList(
+            new ContextChangeSetFilter(contexts),
+            new LabelChangeSetFilter(labels),
+            new DbmsChangeSetFilter(database),
+            new IgnoreChangeSetFilter());
+
+    Result result = new Result();
+    for (ChangeSet changeSet : changeLog.getChangeSets()) {
+      if (!accepts(filters, changeSet)) {
+        continue;
+      }
+      List<String> statements = new ArrayList<>();
+      String reason = compile(changeSet, database, parser, statements);
+      if (reason != null) {
+        result.firstRemaining = changeSet;
+        result.reason = reason;
+        break;
+      }
+      result.changeSets.add(changeSet);
+      result.statements.addAll(statements);
+    }
+    return result;
+  }
+
+  private static boolean accepts(List<ChangeSetFilter> filters, ChangeSet changeSet) {
+    for (ChangeSetFilter filter : filters) {
+      if (!filter.accepts(changeSet).isAccepted()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Adds the DDL statements of the given change set to the given list. Returns the reason why the
+   * change set cannot be compiled, or null if it was compiled.
+   */
+  @Nullable
+  private static String compile(
+      ChangeSet changeSet,
+      Database database,
+      AbstractStatementParser parser,
+      List<String> statements) {
+    if (changeSet.getPreconditions() != null
+        && !changeSet.getPreconditions().getNestedPreconditions().isEmpty()) {
+      return "it has preconditions";
+    }
+    if (!changeSet.getSqlVisitors().isEmpty()) {
+      return "it uses modifySql";
+    }
+    if (changeSet.isAlwaysRun()) {
+      return "it runs always";
+    }
+    for (Change change : changeSet.getChanges()) {
+      if (change.generateStatementsVolatile(database)) {
+        return "its statements depend on the contents of the database";
+      }
+      SqlStatement[] sqlStatements;
+      try {
+        sqlStatements = change.generateStatements(database);
+      } catch (RuntimeException e) {
+        return "its statements could not be generated without a database: " + e.getMessage();
+      }
+      for (SqlStatement sqlStatement : sqlStatements) {
+        if (sqlStatement instanceof ExecutablePreparedStatement
+            || sqlStatement instanceof CallableSqlStatement) {
+          return "it is executed with a prepared statement";
+        }
+        for (Sql sql : SqlGeneratorFactory.getInstance().generateSql(sqlStatement, database)) {
+          String ddl = sql.toSql();
+          if (!parser.parse(Statement.of(ddl)).isDdl()) {
+            return "it contains a statement that is not DDL: " + ddl;
+          }
+          statements.add(ddl);
+        }
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,279 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.executor;
+
+import com.google.cloud.spanner.CommitResponse;
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.ErrorCode;
+import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.Value;
+import com.google.cloud.spanner.jdbc.CloudSpannerJdbcConnection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import liquibase.Scope;
+import liquibase.changelog.ChangeSet;
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.ext.spanner.SpannerConfiguration;
+import liquibase.ext.spanner.SpannerConnections;
+
+/**
+ * Commits the DML statements of a change set in chunks when {@link
+ * SpannerConfiguration#DML_COMMIT_CHUNKING} is enabled, so a change set with many INSERT, UPDATE or
+ * DELETE statements does not exceed the mutation limit of a single transaction.
+ *
+ * <p>The first chunk contains {@link SpannerConfiguration#DML_COMMIT_CHUNK_INITIAL_SIZE}
+ * statements. The size of each following
+ * chunk is computed from the commit statistics of the previous chunk: the number of mutations per
+ * statement determines how many statements fit in {@link
+ * SpannerConfiguration#MAX_MUTATIONS_PER_COMMIT} mutations, and the chunk is made smaller if the
+ * commit took longer than {@link SpannerConfiguration#DML_COMMIT_CHUNK_MAX_MILLIS}. A chunk is at
+ * most twice as large as the previous chunk.
+ *
+ * <p>The number of chunks and mutations of each change set is recorded in the
+ * DATABASECHANGELOGCHUNKS table when the change set is marked as run. The last chunk of a change
+ * set is committed by Liquibase together with the change set, and is included in the count.
+ */
+final class DmlCommitChunker {
+  private final Database database;
+  private int chunkSize;
+  /** The number of statements in the current transaction. */
+  private int chunkStatements;
+  private int statements;
+  private int chunks;
+  private long mutations;
+  /**
+   * The value of returnCommitStats of the connection before it was enabled for the current change
+   * set, or null if it has not been changed.
+   */
+  @Nullable private Boolean previousReturnCommitStats;
+
+  DmlCommitChunker(Database database) {
+    this.database = database;
+    this.chunkSize =
+        Math.max(1, SpannerConfiguration.DML_COMMIT_CHUNK_INITIAL_SIZE.getCurrentValue());
+  }
+
+  static boolean isEnabled() {
+    return Boolean.TRUE.equals(SpannerConfiguration.DML_COMMIT_CHUNKING.getCurrentValue());
+  }
+
+  /**
+   * Resets the statistics at the start of a change set. The chunk size is kept. This also restores
+   * the returnCommitStats setting of the connection if the previous change set failed.
+   */
+  void startChangeSet() {
+    restoreReturnCommitStats();
+    chunkStatements = 0;
+    statements = 0;
+    chunks = 0;
+    mutations = 0L;
+  }
+
+  /**
+   * Counts a DML statement that was executed in the current transaction, and commits the
+   * transaction if the current chunk is full.
+   */
+  void statementExecuted() throws DatabaseException {
+    CloudSpannerJdbcConnection connection = SpannerConnections.getSpannerConnection(database);
+    try {
+      if (connection == null || connection.getAutoCommit()) {
+        return;
+      }
+      // Also returns the commit statistics of the last chunk, which is committed by Liquibase.
+      if (previousReturnCommitStats == null) {
+        previousReturnCommitStats = connection.isReturnCommitStats();
+        connection.setReturnCommitStats(true);
+      }
+      statements++;
+      if (++chunkStatements < chunkSize) {
+        return;
+      }
+      long startNanos = System.nanoTime();
+      connection.commit();
+      long commitMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+      long chunkMutations = getMutationCount(connection);
+      chunks++;
+      mutations += chunkMutations;
+      int previousChunkSize = chunkSize;
+      chunkSize = nextChunkSize(previousChunkSize, chunkMutations, commitMillis);
+      chunkStatements = 0;
+      Scope.getCurrentScope()
+          .getLog(getClass())
+          .fine(
+              String.format(
+                  "Committed DML chunk %d with %d statement(s) and %d mutation(s) in %d ms, "
+                      + "next chunk size is %d",
+                  chunks, previousChunkSize, chunkMutations, commitMillis, chunkSize));
+    } catch (SQLException e) {
+      throw new DatabaseException(
+          String.format(
+              "Failed to commit DML chunk %d, the %d earlier chunk(s) of the change set have "
+                  + "been committed: %s",
+              chunks + 1, chunks, e.getMessage()),
+          e);
+    }
+  }
+
+  /**
+   * Records the number of chunks of the given change set, which has just been committed by
+   * Liquibase. This is a no-op if the change set did not execute any DML statements.
+   */
+  void finishChangeSet(@Nullable ChangeSet changeSet) throws DatabaseException {
+    CloudSpannerJdbcConnection connection = SpannerConnections.getSpannerConnection(database);
+    if (statements == 0 || changeSet == null || connection == null) {
+      return;
+    }
+    // The last chunk was committed by Liquibase after the last statement of the change set.
+    if (chunkStatements > 0) {
+      chunks++;
+      mutations += getMutationCount(connection);
+    }
+    restoreReturnCommitStats();
+    Scope.getCurrentScope()
+        .getLog(getClass())
+        .info(
+            String.format(
+                "Change set %s committed %d DML statement(s) in %d chunk(s) with %d mutation(s)",
+                changeSet.toString(false), statements, chunks, mutations));
+    Dialect dialect = ((ICloudSpanner) database).getDialect();
+    String table = getChunksTableName(database);
+    List<Mutation> record =
+        Collections.singletonList(
+            Mutation.newInsertOrUpdateBuilder(name(table, dialect))
+                .set(name("ID", dialect))
+                .to(changeSet.getId())
+                .set(name("AUTHOR", dialect))
+                .to(changeSet.getAuthor())
+                .set(name("FILENAME", dialect))
+                .to(changeSet.getStoredFilePath())
+                .set(name("STATEMENTS", dialect))
+                .to(statements)
+                .set(name("CHUNKS", dialect))
+                .to(chunks)
+                .set(name("MUTATIONS", dialect))
+                .to(mutations)
+                .set(name("DATEEXECUTED", dialect))
+                .to(Value.COMMIT_TIMESTAMP)
+                .build());
+    try {
+      try {
+        connection.getDatabaseClient().write(record);
+      } catch (SpannerException e) {
+        if (e.getErrorCode() != ErrorCode.NOT_FOUND) {
+          throw e;
+        }
+        createTable(connection, dialect, table);
+        connection.getDatabaseClient().write(record);
+      }
+    } catch (SpannerException | SQLException e) {
+      throw new DatabaseException(
+          String.format(
+              "Failed to record the DML chunks of change set %s in %s: %s",
+              changeSet.toString(false), table, e.getMessage()),
+          e);
+    } finally {
+      startChangeSet();
+    }
+  }
+
+  /** Restores the returnCommitStats setting that the connection had before the change set. */
+  private void restoreReturnCommitStats() {
+    if (previousReturnCommitStats == null) {
+      return;
+    }
+    CloudSpannerJdbcConnection connection = SpannerConnections.getSpannerConnection(database);
+    try {
+      if (connection != null && !connection.isClosed()) {
+        connection.setReturnCommitStats(previousReturnCommitStats);
+      }
+    } catch (SQLException e) {
+      Scope.getCurrentScope()
+          .getLog(getClass())
+          .warning("Failed to restore the returnCommitStats setting of the connection", e);
+    } finally {
+      previousReturnCommitStats = null;
+    }
+  }
+
+  /**
+   * Returns the number of statements of the next chunk, based on the number of statements, the
+   * number of mutations and the commit latency of the previous chunk.
+   */
+  static int nextChunkSize(int chunkSize, long chunkMutations, long commitMillis) {
+    long next = chunkSize * 2L;
+    if (chunkMutations > 0L) {
+      long maxMutations =
+          Math.max(1, SpannerConfiguration.MAX_MUTATIONS_PER_COMMIT.getCurrentValue());
+      next = Math.min(next, maxMutations * chunkSize / chunkMutations);
+    }
+    long maxCommitMillis =
+        Math.max(1, SpannerConfiguration.DML_COMMIT_CHUNK_MAX_MILLIS.getCurrentValue());
+    if (commitMillis > maxCommitMillis) {
+      next = Math.min(next, maxCommitMillis * chunkSize / commitMillis);
+    }
+    return (int) Math.max(1L, Math.min(Integer.MAX_VALUE, next));
+  }
+
+  /** Returns the mutation count of the last commit, or 0 if it is not known. */
+  private static long getMutationCount(CloudSpannerJdbcConnection connection) {
+    try {
+      CommitResponse response = connection.getCommitResponse();
+      return response != null && response.hasCommitStats()
+          ? response.getCommitStats().getMutationCount()
+          : 0L;
+    } catch (SQLException | SpannerException e) {
+      return 0L;
+    }
+  }
+
+  private static void createTable(
+      CloudSpannerJdbcConnection connection, Dialect dialect, String table) throws SQLException {
+    String ddl =
+        dialect == Dialect.POSTGRESQL
+            ? String.format(
+                "CREATE TABLE IF NOT EXISTS %s (ID VARCHAR(255) NOT NULL, "
+                    + "AUTHOR VARCHAR(255) NOT NULL, FILENAME VARCHAR(255) NOT NULL, "
+                    + "STATEMENTS BIGINT, CHUNKS BIGINT, MUTATIONS BIGINT, "
+                    + "DATEEXECUTED SPANNER.COMMIT_TIMESTAMP, PRIMARY KEY (ID, AUTHOR, FILENAME))",
+                table)
+            : String.format(
+                "CREATE TABLE IF NOT EXISTS %s (ID STRING(255) NOT NULL, "
+                    + "AUTHOR STRING(255) NOT NULL, FILENAME STRING(255) NOT NULL, "
+                    + "STATEMENTS INT64, CHUNKS INT64, MUTATIONS INT64, "
+                    + "DATEEXECUTED TIMESTAMP OPTIONS (allow_commit_timestamp=true)) "
+                    + "PRIMARY KEY (ID, AUTHOR, FILENAME)",
+                table);
+    try (java.sql.Statement statement = connection.createStatement()) {
+      statement.execute(ddl);
+    }
+  }
+
+  static String getChunksTableName(Database database) {
+    String table = database.getDatabaseChangeLogTableName() + "CHUNKS";
+    String schema = database.getLiquibaseSchemaName();
+    return schema == null || schema.isEmpty() ? table : schema + "." + table;
+  }
+
+  /** Unquoted identifiers are folded to lower case in PostgreSQL-dialect databases. */
+  private static String name(String name, Dialect dialect) {
+    return dialect == Dialect.POSTGRESQL ? name.toLowerCase(Locale.ROOT) : name;
+  }
+}
@@ -0,0 +1,686 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.executor;
+
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.connection.AbstractStatementParser;
+import com.google.cloud.spanner.connection.AbstractStatementParser.ParsedStatement;
+import com.google.cloud.spanner.connection.AutocommitDmlMode;
+import com.google.cloud.spanner.jdbc.CloudSpannerJdbcConnection;
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import liquibase.Scope;
+import liquibase.changelog.ChangeSet;
+import liquibase.database.Database;
+import liquibase.database.OfflineConnection;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.UnexpectedLiquibaseException;
+import liquibase.executor.jvm.ColumnMapRowMapper;
+import liquibase.executor.jvm.JdbcExecutor;
+import liquibase.executor.jvm.RowMapper;
+import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.ext.spanner.SpannerConfiguration;
+import liquibase.ext.spanner.SpannerConnections;
+import liquibase.ext.spanner.lockservice.LockServiceSpanner;
+import liquibase.ext.spanner.sqlgenerator.PartitionedDmlStatementSpanner;
+import liquibase.ext.spanner.sqlgenerator.PrefetchedQueryStatementSpanner;
+import liquibase.listener.SqlListener;
+import liquibase.sql.Sql;
+import liquibase.sql.visitor.SqlVisitor;
+import liquibase.sqlgenerator.SqlGeneratorFactory;
+import liquibase.statement.CallableSqlStatement;
+import liquibase.statement.ExecutablePreparedStatement;
+import liquibase.statement.SqlStatement;
+import liquibase.statement.core.CreateDatabaseChangeLogLockTableStatement;
+import liquibase.statement.core.CreateDatabaseChangeLogTableStatement;
+import liquibase.statement.core.DeleteStatement;
+import liquibase.statement.core.InsertSetStatement;
+import liquibase.statement.core.InsertStatement;
+import liquibase.statement.core.MarkChangeSetRanStatement;
+import liquibase.statement.core.RawParameterizedSqlStatement;
+import liquibase.statement.core.RawSqlStatement;
+import liquibase.statement.core.UpdateStatement;
+
+/**
+ * {@link JdbcExecutor} for Spanner. When {@link SpannerConfiguration#DDL_BATCHING} is enabled, the
+ * DDL statements of consecutive change sets are buffered and sent to Spanner as one DDL batch. The
+ * batch is executed as soon as any other statement needs to be executed, when a change set with
+ * preconditions is started, or when the update finishes (see {@link
+ * liquibase.ext.spanner.CloudSpanner#afterUpdate()}).
+ *
+ * <p>The DATABASECHANGELOG rows of change sets whose DDL statements are in the batch are only
+ * written after the batch has been executed. If the batch fails halfway, only the change sets whose
+ * DDL statements were all applied are recorded as executed.
+ *
+ * <p>Executing a statement takes the change log lock if it was deferred by {@link
+ * LockServiceSpanner}, and fails if the change log lease of this runner has been lost.
+ *
+ * <p>When {@link SpannerConfiguration#BOOTSTRAP_IN_ONE_BATCH} is enabled, the DATABASECHANGELOGLOCK
+ * table of a new database is created in one DDL batch together with the DATABASECHANGELOG table,
+ * and the lock row is written with a single mutation directly after the batch. Liquibase then finds
+ * both tables and an initialized lock table, so the first run on a database executes one schema
+ * change instead of two.
+ *
+ * <p>The UPDATE and DELETE statements of a {@link PartitionedDmlStatementSpanner} are executed as
+ * Partitioned DML in autocommit mode. The current transaction is committed first, and the
+ * connection is switched back to transactional DML afterwards. The lower bound of the number of
+ * affected rows and the execution time of each statement are logged.
+ *
+ * <p>When {@link SpannerConfiguration#DML_COMMIT_CHUNKING} is enabled, the INSERT, UPDATE and
+ * DELETE statements of a change set are committed in chunks, see {@link DmlCommitChunker}.
+ *
+ * <p>When {@link SpannerConfiguration#DML_BATCHING} is enabled, consecutive DML statements of a
+ * change set are buffered in the same way as DDL statements, and are sent to Spanner as one Batch
+ * DML request when any other statement needs to be executed, when the batch contains {@link
+ * SpannerConfiguration#DML_BATCH_SIZE} statements, or when the transaction is committed. This
+ * includes the DML statements of <code>sql</code> changes. If the batch fails, the error reports
+ * the position and the SQL of the statement that failed.
+ */
+public class JdbcExecutorSpanner extends JdbcExecutor {
+  private static final Pattern START_BATCH_PATTERN =
+      Pattern.compile("(?is)^\\s*START\\s+BATCH\\s+.*");
+  private static final Pattern END_BATCH_PATTERN =
+      Pattern.compile("(?is)^\\s*(RUN|ABORT)\\s+BATCH\\s*;?\\s*$");
+  private static final Pattern CREATE_TABLE_PATTERN =
+      Pattern.compile("(?is)^\\s*CREATE\\s+TABLE\\s+");
+  private static final Pattern PARTITIONED_DML_PATTERN =
+      Pattern.compile("(?is)^\\s*(UPDATE|DELETE)\\b.*");
+
+  private static final class BufferedDdlStatement {
+    private final String sql;
+    private final ChangeSet changeSet;
+
+    private BufferedDdlStatement(String sql, ChangeSet changeSet) {
+      this.sql = sql;
+      this.changeSet = changeSet;
+    }
+  }
+
+  private static final class DeferredMarkChangeSetRan {
+    private final MarkChangeSetRanStatement statement;
+    private final List<SqlVisitor> sqlVisitors;
+    /** The number of DDL statements that must be applied before this row may be written. */
+    private final int requiredDdlStatements;
+
+    private DeferredMarkChangeSetRan(
+        MarkChangeSetRanStatement statement,
+        List<SqlVisitor> sqlVisitors,
+        int requiredDdlStatements) {
+      this.statement = statement;
+      this.sqlVisitors = sqlVisitors;
+      this.requiredDdlStatements = requiredDdlStatements;
+    }
+  }
+
+  private final List<BufferedDdlStatement> ddlBatch = new ArrayList<>();
+  private final List<DeferredMarkChangeSetRan> deferredMarkChangeSetRan = new ArrayList<>();
+  private final List<String> dmlBatch = new ArrayList<>();
+  private ChangeSet currentChangeSet;
+  private boolean inUserBatch;
+  private DmlCommitChunker dmlCommitChunker;
+  /** True if the current change set has executed a statement that may write data. */
+  private boolean changeSetWrites;
+
+  @Override
+  public int getPriority() {
+    return PRIORITY_SPECIALIZED;
+  }
+
+  @Override
+  public boolean supports(Database database) {
+    return database instanceof ICloudSpanner;
+  }
+
+  @Override
+  public void modifyChangeSet(ChangeSet changeSet) {
+    super.modifyChangeSet(changeSet);
+    this.currentChangeSet = changeSet;
+    this.changeSetWrites = false;
+    if (dmlCommitChunker != null) {
+      dmlCommitChunker.startChangeSet();
+    }
+    // Preconditions could depend on the schema changes that are in the current batch.
+    if (changeSet.getPreconditions() != null
+        && !changeSet.getPreconditions().getNestedPreconditions().isEmpty()) {
+      try {
+        flushDdlBatch();
+      } catch (DatabaseException e) {
+        throw new UnexpectedLiquibaseException(e);
+      }
+    }
+  }
+
+  /**
+   * Returns true if the current change set has executed a statement that may have written data in
+   * the current transaction. Statements that only contain DDL are not counted.
+   */
+  public boolean hasChangeSetWrites() {
+    return changeSetWrites;
+  }
+
+  @Override
+  public void execute(SqlStatement sql, List<SqlVisitor> sqlVisitors) throws DatabaseException {
+    executeChangeSetStatement(sql, sqlVisitors);
+    if (currentChangeSet != null && !changeSetWrites && mayWriteData(sql)) {
+      changeSetWrites = true;
+    }
+  }
+
+  private void executeChangeSetStatement(SqlStatement sql, List<SqlVisitor> sqlVisitors)
+      throws DatabaseException {
+    if (isDmlBatchingEnabled() && bufferDml(sql, sqlVisitors)) {
+      return;
+    }
+    flushDmlBatch();
+    if (!DmlCommitChunker.isEnabled() || database.getConnection() instanceof OfflineConnection) {
+      executeStatement(sql, sqlVisitors);
+      return;
+    }
+    if (dmlCommitChunker == null) {
+      dmlCommitChunker = new DmlCommitChunker(database);
+    }
+    if (sql instanceof MarkChangeSetRanStatement) {
+      dmlCommitChunker.finishChangeSet(((MarkChangeSetRanStatement) sql).getChangeSet());
+    }
+    executeStatement(sql, sqlVisitors);
+    if (currentChangeSet != null && !inUserBatch && isDml(sql)) {
+      dmlCommitChunker.statementExecuted();
+    }
+  }
+
+  private void executeStatement(SqlStatement sql, List<SqlVisitor> sqlVisitors)
+      throws DatabaseException {
+    LockServiceSpanner.checkChangeLogLock(database);
+    if (sql instanceof CreateDatabaseChangeLogLockTableStatement
+        && isBootstrapInOneBatchEnabled()) {
+      flushDdlBatch();
+      createTrackingTables(sql, sqlVisitors);
+      return;
+    }
+    if (sql instanceof PartitionedDmlStatementSpanner) {
+      flushDdlBatch();
+      executePartitionedDml((PartitionedDmlStatementSpanner) sql, sqlVisitors);
+      return;
+    }
+    if (!isDdlBatchingEnabled()) {
+      super.execute(sql, sqlVisitors);
+      return;
+    }
+    if (sql instanceof MarkChangeSetRanStatement && !ddlBatch.isEmpty()) {
+      // Do not generate the SQL statement here, as the generator increments the order
+      // number of the change set when it is called.
+      deferredMarkChangeSetRan.add(
+          new DeferredMarkChangeSetRan(
+              (MarkChangeSetRanStatement) sql, sqlVisitors, ddlBatch.size()));
+      return;
+    }
+    if (sql instanceof MarkChangeSetRanStatement || !isBufferable(sql)) {
+      flushDdlBatch();
+      super.execute(sql, sqlVisitors);
+      return;
+    }
+    String[] statements = applyVisitors(sql, sqlVisitors);
+    if (!inUserBatch && statements.length > 0 && allDdl(statements)) {
+      for (String statement : statements) {
+        ddlBatch.add(new BufferedDdlStatement(statement, currentChangeSet));
+      }
+      return;
+    }
+    flushDdlBatch();
+    // Statements between START BATCH and RUN BATCH are batched by the JDBC driver.
+    for (String statement : statements) {
+      if (statement == null) {
+        continue;
+      }
+      if (START_BATCH_PATTERN.matcher(statement).matches()) {
+        inUserBatch = true;
+      } else if (END_BATCH_PATTERN.matcher(statement).matches()) {
+        inUserBatch = false;
+      }
+    }
+    super.execute(sql, sqlVisitors);
+  }
+
+  /**
+   * Adds the SQL of the given statement to the DML batch if all generated statements are DML
+   * statements without a returning clause, and returns false if the statement must be executed
+   * normally.
+   */
+  private boolean bufferDml(SqlStatement sql, List<SqlVisitor> sqlVisitors)
+      throws DatabaseException {
+    if (currentChangeSet == null
+        || inUserBatch
+        || !(isDml(sql) || sql instanceof RawSqlStatement)
+        || !(database.getConnection() instanceof JdbcConnection)) {
+      return false;
+    }
+    String[] statements = applyVisitors(sql, sqlVisitors);
+    if (statements.length == 0 || !allDml(statements)) {
+      return false;
+    }
+    if (!ddlBatch.isEmpty() || !deferredMarkChangeSetRan.isEmpty()) {
+      flushDdlBatch();
+    }
+    LockServiceSpanner.checkChangeLogLock(database);
+    for (String statement : statements) {
+      if (statement != null) {
+        dmlBatch.add(statement);
+      }
+    }
+    if (dmlBatch.size() >= Math.max(1, SpannerConfiguration.DML_BATCH_SIZE.getCurrentValue())) {
+      flushDmlBatch();
+    }
+    return true;
+  }
+
+  /**
+   * Executes the buffered DML statements as one Batch DML request in the current transaction. This
+   * method is a no-op if there are no buffered statements.
+   */
+  public void flushDmlBatch() throws DatabaseException {
+    if (dmlBatch.isEmpty()) {
+      return;
+    }
+    List<String> batch = new ArrayList<>(dmlBatch);
+    dmlBatch.clear();
+    Collection<SqlListener> listeners = Scope.getCurrentScope().getListeners(SqlListener.class);
+    long startNanos = System.nanoTime();
+    int[] updateCounts;
+    try (Statement statement =
+        ((JdbcConnection) database.getConnection()).getUnderlyingConnection().createStatement()) {
+      for (String sql : batch) {
+        for (SqlListener listener : listeners) {
+          listener.writeSqlWillRun(sql);
+        }
+        statement.addBatch(sql);
+      }
+      updateCounts = statement.executeBatch();
+    } catch (BatchUpdateException e) {
+      int applied = countAppliedStatements(e.getUpdateCounts());
+      throw new DatabaseException(
+          String.format(
+              "DML batch failed at statement %d of %d (change set %s): %s [Failed SQL: %s]",
+              applied + 1,
+              batch.size(),
+              currentChangeSet == null ? "<unknown>" : currentChangeSet.toString(false),
+              e.getMessage(),
+              batch.get(Math.min(applied, batch.size() - 1))),
+          e);
+    } catch (SQLException e) {
+      throw new DatabaseException(
+          String.format(
+              "DML batch of %d statement(s) failed (change set %s): %s",
+              batch.size(),
+              currentChangeSet == null ? "<unknown>" : currentChangeSet.toString(false),
+              e.getMessage()),
+          e);
+    }
+    long rowCount = 0L;
+    for (int count : updateCounts) {
+      rowCount += Math.max(0, count);
+    }
+    AtomicInteger rowsAffected =
+        Scope.getCurrentScope().get(ROWS_AFFECTED_SCOPE_KEY, AtomicInteger.class);
+    if (rowsAffected != null) {
+      rowsAffected.addAndGet((int) Math.min(Integer.MAX_VALUE, rowCount));
+    }
+    Scope.getCurrentScope()
+        .getLog(getClass())
+        .info(
+            String.format(
+                "Executed DML batch with %d statement(s) affecting %d row(s) in %d ms",
+                batch.size(),
+                rowCount,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)));
+  }
+
+  /** Drops the buffered DML statements before the transaction is rolled back. */
+  public void discardDmlBatch() {
+    dmlBatch.clear();
+  }
+
+  @Override
+  public List query(SqlStatement sql, RowMapper rowMapper, List<SqlVisitor> sqlVisitors)
+      throws DatabaseException {
+    flushDmlBatch();
+    flushDdlBatch();
+    if (sql instanceof PrefetchedQueryStatementSpanner && rowMapper instanceof ColumnMapRowMapper) {
+      return new ArrayList<>(((PrefetchedQueryStatementSpanner) sql).getRows());
+    }
+    return super.query(sql, rowMapper, sqlVisitors);
+  }
+
+  @Override
+  public int update(SqlStatement sql, List<SqlVisitor> sqlVisitors) throws DatabaseException {
+    flushDmlBatch();
+    LockServiceSpanner.checkChangeLogLock(database);
+    flushDdlBatch();
+    return super.update(sql, sqlVisitors);
+  }
+
+  /**
+   * Executes all buffered DDL statements as one DDL batch and then writes the DATABASECHANGELOG
+   * rows that were waiting for the batch. This method is a no-op if there are no buffered
+   * statements.
+   */
+  public void flushDdlBatch() throws DatabaseException {
+    flushDmlBatch();
+    if (ddlBatch.isEmpty() && deferredMarkChangeSetRan.isEmpty()) {
+      return;
+    }
+    List<BufferedDdlStatement> batch = new ArrayList<>(ddlBatch);
+    List<DeferredMarkChangeSetRan> marks = new ArrayList<>(deferredMarkChangeSetRan);
+    ddlBatch.clear();
+    deferredMarkChangeSetRan.clear();
+
+    int applied = batch.size();
+    BatchUpdateException batchException = null;
+    if (!batch.isEmpty()) {
+      try {
+        executeDdlBatch(batch);
+      } catch (BatchUpdateException e) {
+        batchException = e;
+        applied = countAppliedStatements(e.getUpdateCounts());
+      } catch (SQLException e) {
+        batchException = new BatchUpdateException(e.getMessage(), e.getSQLState(), new int[0], e);
+        applied = 0;
+      }
+    }
+    for (DeferredMarkChangeSetRan mark : marks) {
+      if (mark.requiredDdlStatements > applied) {
+        break;
+      }
+      markChangeSetRan(mark);
+    }
+    if (!marks.isEmpty()) {
+      database.commit();
+    }
+    if (batchException != null) {
+      BufferedDdlStatement failed = batch.get(Math.min(applied, batch.size() - 1));
+      throw new DatabaseException(
+          String.format(
+              "DDL batch failed at statement %d of %d (change set %s): %s [Failed SQL: %s]",
+              applied + 1,
+              batch.size(),
+              failed.changeSet == null ? "<unknown>" : failed.changeSet.toString(false),
+              batchException.getMessage(),
+              failed.sql),
+          batchException);
+    }
+  }
+
+  private void executeDdlBatch(List<BufferedDdlStatement> batch) throws SQLException {
+    if (database.getConnection() instanceof OfflineConnection) {
+      throw new SQLException("Cannot execute commands against an offline database");
+    }
+    Collection<SqlListener> listeners = Scope.getCurrentScope().getListeners(SqlListener.class);
+    try (Statement statement =
+        ((JdbcConnection) database.getConnection()).getUnderlyingConnection().createStatement()) {
+      for (BufferedDdlStatement ddl : batch) {
+        for (SqlListener listener : listeners) {
+          listener.writeSqlWillRun(ddl.sql);
+        }
+        Scope.getCurrentScope()
+            .getLog(getClass())
+            .fine("Adding statement to DDL batch: " + System.lineSeparator() + ddl.sql);
+        statement.addBatch(ddl.sql);
+      }
+      Scope.getCurrentScope()
+          .getLog(getClass())
+          .info(String.format("Executing DDL batch with %d statement(s)", batch.size()));
+      statement.executeBatch();
+    }
+  }
+
+  /**
+   * Creates the DATABASECHANGELOGLOCK table and, if it does not exist yet, the DATABASECHANGELOG
+   * table in one DDL batch, and then inserts the unlocked lock row.
+   */
+  private void createTrackingTables(SqlStatement createLockTable, List<SqlVisitor> sqlVisitors)
+      throws DatabaseException {
+    CloudSpannerJdbcConnection connection = SpannerConnections.getSpannerConnection(database);
+    if (connection == null) {
+      super.execute(createLockTable, sqlVisitors);
+      return;
+    }
+    List<BufferedDdlStatement> batch = new ArrayList<>();
+    for (String statement : applyVisitors(createLockTable, sqlVisitors)) {
+      if (statement != null) {
+        batch.add(new BufferedDdlStatement(statement, currentChangeSet));
+      }
+    }
+    // The change log table is normally created by the history service after the lock has been
+    // taken. IF NOT EXISTS keeps an existing change log table when only the lock table is missing.
+    for (Sql sql :
+        SqlGeneratorFactory.getInstance()
+            .generateSql(new CreateDatabaseChangeLogTableStatement(), database)) {
+      batch.add(
+          new BufferedDdlStatement(
+              CREATE_TABLE_PATTERN.matcher(sql.toSql()).replaceFirst("CREATE TABLE IF NOT EXISTS "),
+              currentChangeSet));
+    }
+    try {
+      executeDdlBatch(batch);
+    } catch (SQLException e) {
+      throw new DatabaseException(e);
+    }
+
+    // DML cannot be part of a DDL batch, so the lock row is written with one blind write instead of
+    // the DELETE and INSERT statements of InitializeDatabaseChangeLogLockTableStatement.
+    Dialect dialect = ((ICloudSpanner) database).getDialect();
+    String lockTable = database.getDatabaseChangeLogLockTableName();
+    String schema = database.getLiquibaseSchemaName();
+    if (schema != null && !schema.isEmpty()) {
+      lockTable = schema + "." + lockTable;
+    }
+    try {
+      connection
+          .getDatabaseClient()
+          .write(
+              Collections.singletonList(
+                  Mutation.newInsertOrUpdateBuilder(name(lockTable, dialect))
+                      .set(name("ID", dialect))
+                      .to(1L)
+                      .set(name("LOCKED", dialect))
+                      .to(false)
+                      .build()));
+    } catch (SpannerException e) {
+      throw new DatabaseException(e);
+    }
+    Scope.getCurrentScope()
+        .getLog(getClass())
+        .info("Created the change log and change log lock tables in one DDL batch");
+  }
+
+  /**
+   * Executes the UPDATE and DELETE statements that are generated for the statement in the given
+   * {@link PartitionedDmlStatementSpanner} as Partitioned DML, and all other generated statements
+   * normally.
+   */
+  private void executePartitionedDml(
+      PartitionedDmlStatementSpanner partitionedDml, List<SqlVisitor> sqlVisitors)
+      throws DatabaseException {
+    if (database.getConnection() instanceof OfflineConnection) {
+      throw new DatabaseException("Cannot execute commands against an offline database");
+    }
+    Dialect dialect = ((ICloudSpanner) database).getDialect();
+    AbstractStatementParser parser =
+        AbstractStatementParser.getInstance(
+            dialect == null ? Dialect.GOOGLE_STANDARD_SQL : dialect);
+    for (String sql : applyVisitors(partitionedDml.getStatement(), sqlVisitors)) {
+      if (sql == null) {
+        continue;
+      }
+      ParsedStatement parsed = parser.parse(com.google.cloud.spanner.Statement.of(sql));
+      if (!parsed.isUpdate()
+          || !PARTITIONED_DML_PATTERN.matcher(parsed.getSqlWithoutComments()).matches()) {
+        super.execute(new RawSqlStatement(sql), Collections.emptyList());
+        continue;
+      }
+      for (SqlListener listener : Scope.getCurrentScope().getListeners(SqlListener.class)) {
+        listener.writeSqlWillRun(sql);
+      }
+      long startNanos = System.nanoTime();
+      long rowCount = executePartitionedUpdate(sql);
+      long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+      AtomicInteger rowsAffected =
+          Scope.getCurrentScope().get(ROWS_AFFECTED_SCOPE_KEY, AtomicInteger.class);
+      if (rowsAffected != null) {
+        rowsAffected.addAndGet((int) Math.min(Integer.MAX_VALUE, rowCount));
+      }
+      Scope.getCurrentScope()
+          .getLog(getClass())
+          .info(
+              String.format(
+                  "Partitioned DML affected at least %d row(s) in %d ms: %s",
+                  rowCount, elapsedMillis, sql));
+    }
+  }
+
+  /** Returns the lower bound of the number of rows that were affected by the statement. */
+  private long executePartitionedUpdate(String sql) throws DatabaseException {
+    try {
+      CloudSpannerJdbcConnection connection =
+          ((JdbcConnection) database.getConnection())
+              .getUnderlyingConnection()
+              .unwrap(CloudSpannerJdbcConnection.class);
+      boolean autoCommit = connection.getAutoCommit();
+      // Switching to autocommit commits the current transaction.
+      connection.setAutoCommit(true);
+      AutocommitDmlMode autocommitDmlMode = connection.getAutocommitDmlMode();
+      try {
+        connection.setAutocommitDmlMode(AutocommitDmlMode.PARTITIONED_NON_ATOMIC);
+        try (Statement statement = connection.createStatement()) {
+          return statement.executeLargeUpdate(sql);
+        }
+      } finally {
+        connection.setAutocommitDmlMode(autocommitDmlMode);
+        connection.setAutoCommit(autoCommit);
+      }
+    } catch (SQLException e) {
+      throw new DatabaseException(
+          String.format("Partitioned DML failed: %s [Failed SQL: %s]", e.getMessage(), sql), e);
+    }
+  }
+
+  /** Unquoted identifiers are folded to lower case in PostgreSQL-dialect databases. */
+  private static String name(String name, Dialect dialect) {
+    return dialect == Dialect.POSTGRESQL ? name.toLowerCase(Locale.ROOT) : name;
+  }
+
+  private void markChangeSetRan(DeferredMarkChangeSetRan mark) throws DatabaseException {
+    try {
+      Scope.child(
+          SHOULD_UPDATE_ROWS_AFFECTED_SCOPE_KEY,
+          false,
+          () -> super.execute(mark.statement, mark.sqlVisitors));
+    } catch (DatabaseException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new DatabaseException(e);
+    }
+  }
+
+  /** Returns the number of leading statements in a DDL batch that were applied. */
+  static int countAppliedStatements(int[] updateCounts) {
+    int applied = 0;
+    while (applied < updateCounts.length && updateCounts[applied] != Statement.EXECUTE_FAILED) {
+      applied++;
+    }
+    return applied;
+  }
+
+  private boolean isDdlBatchingEnabled() {
+    return Boolean.TRUE.equals(SpannerConfiguration.DDL_BATCHING.getCurrentValue())
+        && database instanceof ICloudSpanner
+        && !(database.getConnection() instanceof OfflineConnection);
+  }
+
+  private boolean isBootstrapInOneBatchEnabled() {
+    return Boolean.TRUE.equals(SpannerConfiguration.BOOTSTRAP_IN_ONE_BATCH.getCurrentValue())
+        && !(database.getConnection() instanceof OfflineConnection);
+  }
+
+  private boolean isDmlBatchingEnabled() {
+    return Boolean.TRUE.equals(SpannerConfiguration.DML_BATCHING.getCurrentValue())
+        && !DmlCommitChunker.isEnabled();
+  }
+
+  private static boolean isDml(SqlStatement sql) {
+    return sql instanceof InsertStatement
+        || sql instanceof InsertSetStatement
+        || sql instanceof UpdateStatement
+        || sql instanceof DeleteStatement;
+  }
+
+  private boolean mayWriteData(SqlStatement sql) {
+    if (sql instanceof RawSqlStatement) {
+      return !allDdl(new String[] {((RawSqlStatement) sql).getSql()});
+    }
+    if (sql instanceof RawParameterizedSqlStatement) {
+      return !allDdl(new String[] {((RawParameterizedSqlStatement) sql).getSql()});
+    }
+    return isDml(sql) || sql instanceof ExecutablePreparedStatement;
+  }
+
+  private static boolean isBufferable(SqlStatement sql) {
+    return !(sql instanceof RawParameterizedSqlStatement
+        || sql instanceof ExecutablePreparedStatement
+        || sql instanceof CallableSqlStatement);
+  }
+
+  /** Returns true if all statements are DML statements that do not return any rows. */
+  private boolean allDml(String[] statements) {
+    Dialect dialect = ((ICloudSpanner) database).getDialect();
+    AbstractStatementParser parser =
+        AbstractStatementParser.getInstance(
+            dialect == null ? Dialect.GOOGLE_STANDARD_SQL : dialect);
+    for (String statement : statements) {
+      if (statement == null) {
+        continue;
+      }
+      ParsedStatement parsed = parser.parse(com.google.cloud.spanner.Statement.of(statement));
+      if (!parsed.isUpdate() || parsed.hasReturningClause()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean allDdl(String[] statements) {
+    Dialect dialect = ((ICloudSpanner) database).getDialect();
+    AbstractStatementParser parser =
+        AbstractStatementParser.getInstance(
+            dialect == null ? Dialect.GOOGLE_STANDARD_SQL : dialect);
+    for (String statement : statements) {
+      if (statement == null
+          || !parser.parse(com.google.cloud.spanner.Statement.of(statement)).isDdl()) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
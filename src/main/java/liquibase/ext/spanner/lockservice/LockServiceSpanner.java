@@ -0,0 +1,369 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.lockservice;
+
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.jdbc.CloudSpannerJdbcConnection;
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import liquibase.GlobalConfiguration;
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.LockException;
+import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.ext.spanner.SpannerConfiguration;
+import liquibase.ext.spanner.SpannerConnections;
+import liquibase.ext.spanner.change.StandardChangeLogHistoryServiceSpanner;
+import liquibase.ext.spanner.snapshotgenerator.SnapshotReadTimestampGeneratorSpanner;
+import liquibase.lockservice.DatabaseChangeLogLock;
+import liquibase.lockservice.LockService;
+import liquibase.lockservice.LockServiceFactory;
+import liquibase.lockservice.StandardLockService;
+
+/**
+ * {@link LockService} for Spanner. When {@link SpannerConfiguration#FAST_NO_OP_UPDATE} is enabled,
+ * the change log lock is not taken when a command asks for it, but only when the command actually
+ * needs it. That is when it reads the DATABASECHANGELOG table, or when it executes a statement on
+ * the database (see {@link liquibase.ext.spanner.executor.JdbcExecutorSpanner}). A command that
+ * finds that there is nothing to run (see {@link StandardChangeLogHistoryServiceSpanner}) therefore
+ * never takes the lock.
+ *
+ * <p>When {@link SpannerConfiguration#LEASE_LOCK} is enabled, the lock is a lease in the
+ * DATABASECHANGELOGLOCKLEASE table instead of a row in DATABASECHANGELOGLOCK (see {@link
+ * SpannerChangeLogLease}). The lease is renewed by a heartbeat while the lock is held. A waiting
+ * runner acquires the lease as soon as the holder releases it or stops renewing it. If the lease of
+ * this runner is lost, the next statement fails instead of being executed without the lock.
+ */
+public class LockServiceSpanner extends StandardLockService {
+  private static final long POLL_INTERVAL_MILLIS = 500L;
+
+  /** True if the lock has been requested, but has not been taken yet. */
+  private boolean deferred;
+
+  @Nullable private SpannerChangeLogLease lease;
+  @Nullable private ScheduledExecutorService heartbeat;
+
+  /**
+   * Set by the heartbeat thread when the lease was taken over by another runner. The heartbeat
+   * thread does not change any other state of the lock service, so the hasChangeLogLock field is
+   * only written by the thread of Liquibase.
+   */
+  private volatile boolean leaseLost;
+
+  private long acquiredNanos;
+
+  @Override
+  public int getPriority() {
+    return PRIORITY_DATABASE;
+  }
+
+  @Override
+  public boolean supports(Database database) {
+    return database instanceof ICloudSpanner;
+  }
+
+  @Override
+  public void init() throws DatabaseException {
+    if (deferred
+        || StandardChangeLogHistoryServiceSpanner.isChangeLogUpToDate(database)
+        || getLease() != null) {
+      // The lock table is initialized when the lock is actually taken, and the lease table is
+      // created by the first runner that acquires a lease.
+      return;
+    }
+    super.init();
+  }
+
+  @Override
+  public void waitForLock() throws LockException {
+    if (SpannerConfiguration.FAST_NO_OP_UPDATE.getCurrentValue()
+        && !hasChangeLogLock
+        && !StandardChangeLogHistoryServiceSpanner.isChangeLogOutdated(database)) {
+      deferred = true;
+      return;
+    }
+    lock();
+  }
+
+  @Override
+  public boolean acquireLock() throws LockException {
+    SpannerChangeLogLease lease = getLease();
+    if (lease == null) {
+      return super.acquireLock();
+    }
+    if (holdsLease()) {
+      return true;
+    }
+    try {
+      if (lease.tryAcquire() > 0L) {
+        return false;
+      }
+    } catch (SpannerException | SQLException e) {
+      throw new LockException(e);
+    }
+    onLeaseAcquired(lease, 0L);
+    return true;
+  }
+
+  private void lock() throws LockException {
+    SpannerChangeLogLease lease = getLease();
+    if (lease == null) {
+      super.waitForLock();
+      return;
+    }
+    if (holdsLease()) {
+      return;
+    }
+    long startNanos = System.nanoTime();
+    long timeoutNanos =
+        TimeUnit.MINUTES.toNanos(GlobalConfiguration.CHANGELOGLOCK_WAIT_TIME.getCurrentValue());
+    while (true) {
+      long remainingMillis;
+      try {
+        remainingMillis = lease.tryAcquire();
+      } catch (SpannerException | SQLException e) {
+        throw new LockException(e);
+      }
+      if (remainingMillis == 0L) {
+        onLeaseAcquired(lease, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return;
+      }
+      if (System.nanoTime() - startNanos >= timeoutNanos) {
+        DatabaseChangeLogLock[] locks = lease.listLocks();
+        throw new LockException(
+            "Could not acquire change log lock. Currently locked by "
+                + (locks.length == 0 ? "another runner" : locks[0].getLockedBy()));
+      }
+      Scope.getCurrentScope().getLog(getClass()).info("Waiting for changelog lock....");
+      try {
+        // The lease can be acquired as soon as it expires, or earlier if it is released.
+        Thread.sleep(Math.max(1L, Math.min(remainingMillis, POLL_INTERVAL_MILLIS)));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new LockException(e);
+      }
+    }
+  }
+
+  /** Returns true if this runner holds the lease and has not lost it. */
+  private boolean holdsLease() {
+    return hasChangeLogLock && !leaseLost;
+  }
+
+  private void onLeaseAcquired(SpannerChangeLogLease lease, long waitMillis) {
+    stopHeartbeat();
+    hasChangeLogLock = true;
+    leaseLost = false;
+    acquiredNanos = System.nanoTime();
+    SpannerLockMetrics.recordWaitTime(waitMillis);
+    Scope.getCurrentScope()
+        .getLog(getClass())
+        .info("Successfully acquired change log lease after " + waitMillis + " ms");
+    int leaseSeconds = SpannerConfiguration.LEASE_LOCK_DURATION_SECONDS.getCurrentValue();
+    long intervalMillis = Math.max(1L, TimeUnit.SECONDS.toMillis(leaseSeconds) / 3L);
+    ScheduledExecutorService executor =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "liquibase-spanner-lock-heartbeat");
+              thread.setDaemon(true);
+              return thread;
+            });
+    heartbeat = executor;
+    executor.scheduleWithFixedDelay(
+        () -> renewLease(lease, executor), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /** Executed on the heartbeat thread. */
+  private void renewLease(SpannerChangeLogLease lease, ScheduledExecutorService executor) {
+    try {
+      if (!lease.heartbeat()) {
+        leaseLost = true;
+        Scope.getCurrentScope()
+            .getLog(getClass())
+            .severe("The change log lease was taken over by another runner");
+        executor.shutdown();
+      }
+    } catch (SpannerException e) {
+      // The lease is still held until it expires, so the next heartbeat can still renew it.
+      Scope.getCurrentScope().getLog(getClass()).warning("Could not renew the change log lease", e);
+    }
+  }
+
+  private void stopHeartbeat() {
+    if (heartbeat != null) {
+      heartbeat.shutdownNow();
+      heartbeat = null;
+    }
+  }
+
+  /** Takes the change log lock if it was requested, but has not been taken yet. */
+  public void acquireDeferredLock() throws LockException {
+    if (!deferred) {
+      return;
+    }
+    deferred = false;
+    // Anything that is read after this point must come from the DATABASECHANGELOG table.
+    StandardChangeLogHistoryServiceSpanner.clearUpToDate(database);
+    lock();
+  }
+
+  /**
+   * Takes the change log lock of the given database if it was requested, but has not been taken
+   * yet, and fails if the change log lease of this runner has been lost. Statements that are
+   * executed while a snapshot is being taken do not need the lock.
+   */
+  public static void checkChangeLogLock(Database database) throws DatabaseException {
+    if ((!SpannerConfiguration.FAST_NO_OP_UPDATE.getCurrentValue()
+            && !SpannerConfiguration.LEASE_LOCK.getCurrentValue())
+        || SnapshotReadTimestampGeneratorSpanner.isSnapshotInProgress()) {
+      return;
+    }
+    LockService lockService = LockServiceFactory.getInstance().getLockService(database);
+    if (lockService instanceof LockServiceSpanner) {
+      LockServiceSpanner spannerLockService = (LockServiceSpanner) lockService;
+      try {
+        spannerLockService.acquireDeferredLock();
+      } catch (LockException e) {
+        throw new DatabaseException(e);
+      }
+      if (spannerLockService.leaseLost) {
+        throw new DatabaseException(
+            "The change log lease of this runner expired and was taken over by another runner");
+      }
+    }
+  }
+
+  @Override
+  public boolean hasChangeLogLock() {
+    return deferred || (super.hasChangeLogLock() && !leaseLost);
+  }
+
+  @Override
+  public void releaseLock() throws LockException {
+    StandardChangeLogHistoryServiceSpanner.clearChangeLogSummary(database);
+    if (deferred) {
+      deferred = false;
+      return;
+    }
+    if (lease == null) {
+      super.releaseLock();
+      return;
+    }
+    stopHeartbeat();
+    if (!hasChangeLogLock) {
+      return;
+    }
+    hasChangeLogLock = false;
+    SpannerLockMetrics.recordHoldTime(
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - acquiredNanos));
+    try {
+      if (lease.release()) {
+        Scope.getCurrentScope().getLog(getClass()).info("Successfully released change log lease");
+      } else {
+        Scope.getCurrentScope()
+            .getLog(getClass())
+            .warning("The change log lease was no longer held by this runner");
+      }
+    } catch (SpannerException e) {
+      throw new LockException(e);
+    } finally {
+      leaseLost = false;
+    }
+  }
+
+  @Override
+  public DatabaseChangeLogLock[] listLocks() throws LockException {
+    SpannerChangeLogLease lease = getLease();
+    if (lease == null) {
+      return super.listLocks();
+    }
+    try {
+      return lease.listLocks();
+    } catch (SpannerException e) {
+      throw new LockException(e);
+    }
+  }
+
+  @Override
+  public void forceReleaseLock() throws LockException, DatabaseException {
+    SpannerChangeLogLease lease = getLease();
+    if (lease == null) {
+      super.forceReleaseLock();
+      return;
+    }
+    stopHeartbeat();
+    hasChangeLogLock = false;
+    leaseLost = false;
+    try {
+      lease.forceRelease();
+    } catch (SpannerException e) {
+      throw new LockException(e);
+    }
+  }
+
+  @Override
+  public void destroy() throws DatabaseException {
+    super.destroy();
+    SpannerChangeLogLease lease = getLease();
+    if (lease != null) {
+      try {
+        lease.dropTable();
+      } catch (SpannerException | SQLException e) {
+        throw new DatabaseException(e);
+      }
+    }
+  }
+
+  @Override
+  public void reset() {
+    deferred = false;
+    stopHeartbeat();
+    lease = null;
+    leaseLost = false;
+    super.reset();
+  }
+
+  /**
+   * Returns the change log lease of this runner, or null if the lock should be taken in the
+   * DATABASECHANGELOGLOCK table.
+   */
+  @Nullable
+  private SpannerChangeLogLease getLease() {
+    if (lease == null && SpannerConfiguration.LEASE_LOCK.getCurrentValue()) {
+      try {
+        CloudSpannerJdbcConnection connection = SpannerConnections.getSpannerConnection(database);
+        if (connection != null) {
+          lease =
+              new SpannerChangeLogLease(
+                  connection,
+                  ((ICloudSpanner) database).getDialect(),
+                  database.getDatabaseChangeLogLockTableName() + "LEASE",
+                  ManagementFactory.getRuntimeMXBean().getName() + " " + UUID.randomUUID(),
+                  SpannerConfiguration.LEASE_LOCK_DURATION_SECONDS.getCurrentValue());
+        }
+      } catch (DatabaseException e) {
+        Scope.getCurrentScope()
+            .getLog(getClass())
+            .warning("Could not use a change log lease, using DATABASECHANGELOGLOCK instead", e);
+      }
+    }
+    return lease;
+  }
+}
@@ -0,0 +1,317 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.lockservice;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.ErrorCode;
+import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.ReadContext;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.TransactionRunner;
+import com.google.cloud.spanner.Value;
+import com.google.cloud.spanner.jdbc.CloudSpannerJdbcConnection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import liquibase.lockservice.DatabaseChangeLogLock;
+
+/**
+ * A lease on the change log lock, stored in one row of the DATABASECHANGELOGLOCKLEASE table.
+ *
+ * <p>The lease is acquired, renewed and released in single read-write transactions. Both the time
+ * the lease was granted and the last heartbeat are commit timestamps. The commit timestamp of the
+ * transaction that acquired the lease is the fencing token of the holder: a heartbeat or release
+ * only changes the row if it still contains that token, so a runner whose lease expired and was
+ * taken over cannot renew or release the lease of the new holder. The lease expires when the
+ * holder has not written a heartbeat for the lease duration that it stored in the row, so a runner
+ * that crashed does not keep the lock.
+ */
+final class SpannerChangeLogLease {
+  private static final long ID = 1L;
+
+  private final CloudSpannerJdbcConnection connection;
+  private final Dialect dialect;
+  private final String table;
+  private final String owner;
+  private final int leaseSeconds;
+
+  /**
+   * The commit timestamp of the transaction that acquired the lease, or null if not held. This is
+   * read by the heartbeat thread.
+   */
+  @Nullable private volatile Timestamp token;
+
+  /** True once the lease table is known to exist. */
+  private boolean tableExists;
+
+  SpannerChangeLogLease(
+      CloudSpannerJdbcConnection connection,
+      Dialect dialect,
+      String table,
+      String owner,
+      int leaseSeconds) {
+    this.connection = connection;
+    this.dialect = dialect;
+    this.table = table;
+    this.owner = owner;
+    this.leaseSeconds = leaseSeconds;
+  }
+
+  /** The state of the lease row as seen by a read-write transaction. */
+  private static final class LeaseRow {
+    @Nullable private final String lockedBy;
+    @Nullable private final Timestamp granted;
+    private final long remainingMillis;
+
+    private LeaseRow(@Nullable String lockedBy, @Nullable Timestamp granted, long remainingMillis) {
+      this.lockedBy = lockedBy;
+      this.granted = granted;
+      this.remainingMillis = remainingMillis;
+    }
+  }
+
+  /**
+   * Tries to acquire the lease. Returns 0 if the lease was acquired, and otherwise the number of
+   * milliseconds until the lease of the current holder expires if it does not write a heartbeat.
+   */
+  long tryAcquire() throws SQLException {
+    if (!tableExists()) {
+      createTable();
+      tableExists = true;
+    }
+    DatabaseClient client = connection.getDatabaseClient();
+    TransactionRunner runner = client.readWriteTransaction();
+    Long remaining =
+        runner.run(
+            transaction -> {
+              LeaseRow row = readRow(transaction);
+              if (row != null && row.lockedBy != null && row.remainingMillis > 0L) {
+                return row.remainingMillis;
+              }
+              transaction.buffer(
+                  Mutation.newInsertOrUpdateBuilder(name(table))
+                      .set(name("ID"))
+                      .to(ID)
+                      .set(name("LOCKEDBY"))
+                      .to(owner)
+                      .set(name("GRANTED"))
+                      .to(Value.COMMIT_TIMESTAMP)
+                      .set(name("HEARTBEAT"))
+                      .to(Value.COMMIT_TIMESTAMP)
+                      .set(name("LEASE_SECONDS"))
+                      .to((long) leaseSeconds)
+                      .build());
+              return 0L;
+            });
+    if (remaining == 0L) {
+      token = runner.getCommitTimestamp();
+    }
+    return remaining;
+  }
+
+  /**
+   * Renews the lease by writing a heartbeat. Returns false if the lease is no longer held by this
+   * runner, because it expired and was acquired by another runner or was released by force.
+   */
+  boolean heartbeat() {
+    return updateIfHeld(
+        Mutation.newUpdateBuilder(name(table))
+            .set(name("ID"))
+            .to(ID)
+            .set(name("HEARTBEAT"))
+            .to(Value.COMMIT_TIMESTAMP)
+            .build());
+  }
+
+  /**
+   * Releases the lease. Returns false if the lease was no longer held by this runner, in which case
+   * the row is not changed.
+   */
+  boolean release() {
+    try {
+      return updateIfHeld(
+          Mutation.newUpdateBuilder(name(table))
+              .set(name("ID"))
+              .to(ID)
+              .set(name("LOCKEDBY"))
+              .to((String) null)
+              .set(name("HEARTBEAT"))
+              .to(Value.COMMIT_TIMESTAMP)
+              .build());
+    } finally {
+      token = null;
+    }
+  }
+
+  private boolean updateIfHeld(Mutation mutation) {
+    Timestamp heldToken = token;
+    if (heldToken == null) {
+      return false;
+    }
+    Boolean held =
+        connection
+            .getDatabaseClient()
+            .readWriteTransaction()
+            .run(
+                transaction -> {
+                  LeaseRow row = readRow(transaction);
+                  if (row == null
+                      || !owner.equals(row.lockedBy)
+                      || !heldToken.equals(row.granted)) {
+                    return false;
+                  }
+                  transaction.buffer(mutation);
+                  return true;
+                });
+    return held;
+  }
+
+  /**
+   * Returns the lease as a change log lock if it is held and has not expired. There is no lock if
+   * the lease table does not exist.
+   */
+  DatabaseChangeLogLock[] listLocks() {
+    if (!tableExists()) {
+      return new DatabaseChangeLogLock[0];
+    }
+    LeaseRow row = readRow(connection.getDatabaseClient().singleUse());
+    if (row == null || row.lockedBy == null || row.remainingMillis == 0L) {
+      return new DatabaseChangeLogLock[0];
+    }
+    return new DatabaseChangeLogLock[] {
+      new DatabaseChangeLogLock((int) ID, row.granted.toDate(), row.lockedBy)
+    };
+  }
+
+  /** Clears the lease, regardless of which runner holds it. */
+  void forceRelease() {
+    token = null;
+    try {
+      connection
+          .getDatabaseClient()
+          .write(
+              Collections.singletonList(
+                  Mutation.newInsertOrUpdateBuilder(name(table))
+                      .set(name("ID"))
+                      .to(ID)
+                      .set(name("LOCKEDBY"))
+                      .to((String) null)
+                      .set(name("HEARTBEAT"))
+                      .to(Value.COMMIT_TIMESTAMP)
+                      .build()));
+    } catch (SpannerException e) {
+      if (e.getErrorCode() != ErrorCode.NOT_FOUND) {
+        throw e;
+      }
+    }
+  }
+
+  /** Drops the lease table if it exists. */
+  void dropTable() throws SQLException {
+    try (java.sql.Statement statement = connection.createStatement()) {
+      statement.execute("DROP TABLE IF EXISTS " + table);
+    }
+    tableExists = false;
+  }
+
+  /** Returns the fencing token of the lease, or null if the lease is not held by this runner. */
+  @Nullable
+  Timestamp getToken() {
+    return token;
+  }
+
+  /**
+   * Returns true if the lease table exists. A query on a table that does not exist fails with
+   * INVALID_ARGUMENT instead of NOT_FOUND, so the table is looked up in INFORMATION_SCHEMA until it
+   * has been found once.
+   */
+  private boolean tableExists() {
+    if (!tableExists) {
+      String sql =
+          dialect == Dialect.POSTGRESQL
+              ? "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES "
+                  + "WHERE TABLE_SCHEMA = 'public' AND TABLE_NAME = $1"
+              : "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES "
+                  + "WHERE TABLE_SCHEMA = '' AND TABLE_NAME = @p1";
+      Statement statement = Statement.newBuilder(sql).bind("p1").to(name(table)).build();
+      try (ResultSet resultSet =
+          connection.getDatabaseClient().singleUse().executeQuery(statement)) {
+        tableExists = resultSet.next() && resultSet.getLong(0) > 0L;
+      }
+    }
+    return tableExists;
+  }
+
+  /**
+   * Reads the lease row and the remaining lease time. The remaining time is computed with the clock
+   * of Spanner, as the heartbeat is a commit timestamp.
+   */
+  @Nullable
+  private LeaseRow readRow(ReadContext context) {
+    String sql =
+        String.format(
+            "SELECT LOCKEDBY, GRANTED, HEARTBEAT, LEASE_SECONDS, %s AS NOW FROM %s WHERE ID = %d",
+            dialect == Dialect.POSTGRESQL ? "now()" : "CURRENT_TIMESTAMP()", table, ID);
+    try (ResultSet resultSet = context.executeQuery(Statement.of(sql))) {
+      if (!resultSet.next()) {
+        return null;
+      }
+      String lockedBy = resultSet.isNull(0) ? null : resultSet.getString(0);
+      Timestamp granted = resultSet.isNull(1) ? null : resultSet.getTimestamp(1);
+      long remainingMillis = 0L;
+      if (!resultSet.isNull(2)) {
+        long expires =
+            toMillis(resultSet.getTimestamp(2))
+                + TimeUnit.SECONDS.toMillis(resultSet.isNull(3) ? 0L : resultSet.getLong(3));
+        remainingMillis = Math.max(0L, expires - toMillis(resultSet.getTimestamp(4)));
+      }
+      return new LeaseRow(lockedBy, granted, remainingMillis);
+    }
+  }
+
+  private void createTable() throws SQLException {
+    String ddl =
+        dialect == Dialect.POSTGRESQL
+            ? String.format(
+                "CREATE TABLE IF NOT EXISTS %s (ID BIGINT NOT NULL PRIMARY KEY, "
+                    + "LOCKEDBY VARCHAR(255), GRANTED SPANNER.COMMIT_TIMESTAMP, "
+                    + "HEARTBEAT SPANNER.COMMIT_TIMESTAMP, LEASE_SECONDS BIGINT)",
+                table)
+            : String.format(
+                "CREATE TABLE IF NOT EXISTS %s (ID INT64 NOT NULL, LOCKEDBY STRING(255), "
+                    + "GRANTED TIMESTAMP OPTIONS (allow_commit_timestamp=true), "
+                    + "HEARTBEAT TIMESTAMP OPTIONS (allow_commit_timestamp=true), "
+                    + "LEASE_SECONDS INT64) PRIMARY KEY (ID)",
+                table);
+    try (java.sql.Statement statement = connection.createStatement()) {
+      statement.execute(ddl);
+    }
+  }
+
+  private static long toMillis(Timestamp timestamp) {
+    return TimeUnit.SECONDS.toMillis(timestamp.getSeconds())
+        + TimeUnit.NANOSECONDS.toMillis(timestamp.getNanos());
+  }
+
+  /** Unquoted identifiers are folded to lower case in PostgreSQL-dialect databases. */
+  private String name(String name) {
+    return dialect == Dialect.POSTGRESQL ? name.toLowerCase(Locale.ROOT) : name;
+  }
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.lockservice;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.Meter;
+
+/**
+ * Records the time that runners wait for and hold the change log lease. The histograms are
+ * registered with {@link GlobalOpenTelemetry}, so they are exported by the OpenTelemetry SDK of the
+ * application if it has one, in the same way as the metrics of the Spanner client. They are no-ops
+ * otherwise. The histograms are looked up for each recording, which only happens once per lock, so
+ * an SDK that is registered after the first lock is also used.
+ */
+final class SpannerLockMetrics {
+  static final String WAIT_TIME = "liquibase.spanner.lock.wait_time";
+  static final String HOLD_TIME = "liquibase.spanner.lock.hold_time";
+
+  private SpannerLockMetrics() {}
+
+  static void recordWaitTime(long millis) {
+    histogram(WAIT_TIME, "The time a runner waited before it acquired the change log lock")
+        .record(millis);
+  }
+
+  static void recordHoldTime(long millis) {
+    histogram(HOLD_TIME, "The time a runner held the change log lock").record(millis);
+  }
+
+  private static LongHistogram histogram(String name, String description) {
+    Meter meter = GlobalOpenTelemetry.getMeter("liquibase-spanner");
+    return meter.histogramBuilder(name).setDescription(description).setUnit("ms").ofLongs().build();
+  }
+}
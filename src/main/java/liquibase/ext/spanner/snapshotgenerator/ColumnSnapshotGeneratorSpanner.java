@@ -13,7 +13,15 @@
  */
 package liquibase.ext.spanner.snapshotgenerator;
 
+import com.google.cloud.spanner.DatabaseClient;
 import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.TimestampBound;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import javax.annotation.Nullable;
 import liquibase.Scope;
 import liquibase.database.Database;
@@ -21,15 +29,42 @@ import liquibase.exception.DatabaseException;
 import liquibase.executor.ExecutorService;
 import liquibase.ext.spanner.ICloudSpanner;
 import liquibase.snapshot.CachedRow;
+import liquibase.snapshot.DatabaseSnapshot;
 import liquibase.snapshot.SnapshotGenerator;
 import liquibase.snapshot.jvm.ColumnSnapshotGenerator;
 import liquibase.statement.DatabaseFunction;
-import liquibase.statement.core.RawParameterizedSqlStatement;
+import liquibase.statement.core.RawSqlStatement;
 import liquibase.structure.DatabaseObject;
 import liquibase.structure.core.Column;
 import liquibase.structure.core.DataType;
 
 public class ColumnSnapshotGeneratorSpanner extends ColumnSnapshotGenerator {
+  // TODO: Remove COLUMN_DEFAULT when COLUMN_DEF is included in the results for getColumns
+  private static final String GET_COLUMN_METADATA =
+      "SELECT TABLE_SCHEMA, TABLE_NAME, COLUMN_NAME, COLUMN_DEFAULT, SPANNER_TYPE "
+          + "FROM INFORMATION_SCHEMA.COLUMNS "
+          + "WHERE TABLE_SCHEMA NOT IN ('INFORMATION_SCHEMA', 'SPANNER_SYS')";
+  private static final String GET_COLUMN_METADATA_PG =
+      "SELECT TABLE_SCHEMA, TABLE_NAME, COLUMN_NAME, COLUMN_DEFAULT, SPANNER_TYPE "
+          + "FROM INFORMATION_SCHEMA.COLUMNS "
+          + "WHERE TABLE_SCHEMA NOT IN ('information_schema', 'spanner_sys', 'pg_catalog')";
+
+  private static final String COLUMN_METADATA_SCRATCH_KEY = "spanner.columnMetadata";
+
+  /** The snapshot that is being generated on this thread, if any. */
+  private static final ThreadLocal<DatabaseSnapshot> CURRENT_SNAPSHOT = new ThreadLocal<>();
+
+  /** The default value and Spanner type of a column in INFORMATION_SCHEMA.COLUMNS. */
+  private static final class ColumnMetadata {
+    @Nullable final String defaultValue;
+    @Nullable final String spannerType;
+
+    ColumnMetadata(@Nullable String defaultValue, @Nullable String spannerType) {
+      this.defaultValue = defaultValue;
+      this.spannerType = spannerType;
+    }
+  }
+
   @Override
   public int getPriority(Class<? extends DatabaseObject> objectType, Database database) {
     if (database instanceof ICloudSpanner) {
@@ -38,36 +73,37 @@ public class ColumnSnapshotGeneratorSpanner extends ColumnSnapshotGenerator {
     return PRIORITY_NONE;
   }
 
+  @Override
+  protected DatabaseObject snapshotObject(DatabaseObject example, DatabaseSnapshot snapshot)
+      throws DatabaseException {
+    DatabaseSnapshot previous = CURRENT_SNAPSHOT.get();
+    CURRENT_SNAPSHOT.set(snapshot);
+    try {
+      return super.snapshotObject(example, snapshot);
+    } finally {
+      CURRENT_SNAPSHOT.set(previous);
+    }
+  }
+
+  @Override
+  protected void addTo(DatabaseObject foundObject, DatabaseSnapshot snapshot)
+      throws DatabaseException {
+    DatabaseSnapshot previous = CURRENT_SNAPSHOT.get();
+    CURRENT_SNAPSHOT.set(snapshot);
+    try {
+      super.addTo(foundObject, snapshot);
+    } finally {
+      CURRENT_SNAPSHOT.set(previous);
+    }
+  }
+
   @Override
   protected Object readDefaultValue(
       CachedRow columnMetadataResultSet, Column columnInfo, Database database) {
     if (database instanceof ICloudSpanner) {
       try {
-        // TODO: Remove when COLUMN_DEF is included in the results for getColumns
-        String selectQuery =
-            "SELECT DISTINCT COLUMN_DEFAULT AS COLUMN_DEF FROM INFORMATION_SCHEMA.COLUMNS "
-                + "WHERE LOWER(TABLE_CATALOG) = ? "
-                + "AND LOWER(TABLE_SCHEMA) = ? "
-                + "AND LOWER(TABLE_NAME) = ? "
-                + "AND LOWER(COLUMN_NAME) = ?";
-        String schemaName =
-            columnInfo.getRelation().getSchema().getName() == null
-                ? database.getDefaultSchemaName()
-                : columnInfo.getRelation().getSchema().getName();
-        String defaultValue =
-            Scope.getCurrentScope()
-                .getSingleton(ExecutorService.class)
-                .getExecutor("jdbc", database)
-                .queryForObject(
-                    new RawParameterizedSqlStatement(
-                        selectQuery,
-                        new Object[] {
-                          lower(columnInfo.getRelation().getSchema().getCatalog().getName()),
-                          lower(schemaName),
-                          lower(columnInfo.getRelation().getName()),
-                          lower(columnInfo.getName())
-                        }),
-                    String.class);
+        ColumnMetadata metadata = getColumnMetadata(columnInfo, database);
+        String defaultValue = metadata == null ? null : metadata.defaultValue;
         if (defaultValue != null) {
           if (database.isFunction(defaultValue)) {
             columnMetadataResultSet.set("COLUMN_DEF", new DatabaseFunction((defaultValue)));
@@ -84,10 +120,6 @@ public class ColumnSnapshotGeneratorSpanner extends ColumnSnapshotGenerator {
     return super.readDefaultValue(columnMetadataResultSet, columnInfo, database);
   }
 
-  private String lower(@Nullable String value) {
-    return value == null ? null : value.toLowerCase();
-  }
-
   @Override
   protected DataType readDataType(
       CachedRow columnMetadataResultSet, Column column, Database database)
@@ -95,41 +127,165 @@ public class ColumnSnapshotGeneratorSpanner extends ColumnSnapshotGenerator {
     if (database instanceof ICloudSpanner) {
       Dialect dialect = ((ICloudSpanner) database).getDialect();
       if (dialect == Dialect.POSTGRESQL) {
+        ColumnMetadata metadata;
         try {
-          String sql =
-              "SELECT SPANNER_TYPE FROM INFORMATION_SCHEMA.COLUMNS "
-                  + "WHERE LOWER(TABLE_SCHEMA) = ? "
-                  + "AND LOWER(TABLE_NAME) = ? "
-                  + "AND LOWER(COLUMN_NAME) = ?";
-
-          String dataType =
-              Scope.getCurrentScope()
-                  .getSingleton(ExecutorService.class)
-                  .getExecutor("jdbc", database)
-                  .queryForObject(
-                      new RawParameterizedSqlStatement(
-                          sql,
-                          lower(column.getSchema().getName()),
-                          lower(column.getRelation().getName()),
-                          lower(column.getName())),
-                      String.class);
-
-          dataType = dataType.replace("character varying", "varchar");
-          dataType = dataType.replace("timestamp with time zone", "timestamptz");
-          dataType = dataType.replace("double precision", "float8");
-          dataType = dataType.replace("double precision[]", "float8[]");
-          return new DataType(dataType);
+          metadata = getColumnMetadata(column, database);
         } catch (DatabaseException databaseException) {
           Scope.getCurrentScope()
               .getLog(getClass())
               .warning("Error fetching data type column", databaseException);
           throw databaseException;
         }
+        if (metadata != null && metadata.spannerType != null) {
+          return new DataType(toPostgreSQLDataType(metadata.spannerType));
+        }
       }
     }
     return super.readDataType(columnMetadataResultSet, column, database);
   }
 
+  /** Returns the short form of a PostgreSQL-dialect Spanner type that Liquibase uses. */
+  static String toPostgreSQLDataType(String spannerType) {
+    String dataType = spannerType;
+    dataType = dataType.replace("character varying", "varchar");
+    dataType = dataType.replace("timestamp with time zone", "timestamptz");
+    dataType = dataType.replace("double precision", "float8");
+    dataType = dataType.replace("double precision[]", "float8[]");
+    return dataType;
+  }
+
+  /**
+   * Returns the INFORMATION_SCHEMA metadata of the given column. The metadata of all columns in the
+   * database is loaded with a single query the first time that a column is read during a snapshot,
+   * and all later columns in the same snapshot are served from memory.
+   */
+  @Nullable
+  private ColumnMetadata getColumnMetadata(Column column, Database database)
+      throws DatabaseException {
+    DatabaseSnapshot snapshot = CURRENT_SNAPSHOT.get();
+    Map<String, Map<String, Map<String, ColumnMetadata>>> allColumns = null;
+    if (snapshot != null && snapshot.getDatabase() == database) {
+      allColumns = getCachedColumnMetadata(snapshot);
+    }
+    if (allColumns == null) {
+      allColumns = SnapshotPrefetchSpanner.get(snapshot, SnapshotPrefetchSpanner.COLUMN_METADATA);
+      if (allColumns == null) {
+        allColumns = loadColumnMetadata(database);
+      }
+      if (snapshot != null && snapshot.getDatabase() == database) {
+        snapshot.setScratchData(COLUMN_METADATA_SCRATCH_KEY, allColumns);
+      }
+    }
+    Map<String, Map<String, ColumnMetadata>> tables =
+        allColumns.get(getSchemaName(column, database));
+    Map<String, ColumnMetadata> columns =
+        tables == null ? null : tables.get(column.getRelation().getName());
+    return columns == null ? null : columns.get(column.getName());
+  }
+
+  @SuppressWarnings("unchecked")
+  @Nullable
+  private static Map<String, Map<String, Map<String, ColumnMetadata>>> getCachedColumnMetadata(
+      DatabaseSnapshot snapshot) {
+    return (Map<String, Map<String, Map<String, ColumnMetadata>>>)
+        snapshot.getScratchData(COLUMN_METADATA_SCRATCH_KEY);
+  }
+
+  /**
+   * Loads the default value and type of all user columns in the database. The result is keyed by
+   * schema, table and column name. All keys are case-insensitive, as Liquibase can change the case
+   * of the names of the objects that are being snapshotted.
+   */
+  private static Map<String, Map<String, Map<String, ColumnMetadata>>> loadColumnMetadata(
+      Database database) throws DatabaseException {
+    Dialect dialect = ((ICloudSpanner) database).getDialect();
+    List<Map<String, ?>> rows =
+        Scope.getCurrentScope()
+            .getSingleton(ExecutorService.class)
+            .getExecutor("jdbc", database)
+            .queryForList(
+                new RawSqlStatement(
+                    dialect == Dialect.POSTGRESQL ? GET_COLUMN_METADATA_PG : GET_COLUMN_METADATA));
+    Map<String, Map<String, Map<String, ColumnMetadata>>> result =
+        new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    for (Map<String, ?> row : rows) {
+      // Use the position of the values, as the case of the column labels depends on the dialect.
+      Iterator<?> values = row.values().iterator();
+      addColumnMetadata(
+          result,
+          toString(values.next()),
+          toString(values.next()),
+          toString(values.next()),
+          toString(values.next()),
+          toString(values.next()));
+    }
+    return result;
+  }
+
+  /**
+   * Loads the same metadata as {@link #loadColumnMetadata(Database)} with the given client. This is
+   * used to prefetch the metadata on another thread than the thread that uses the JDBC connection.
+   */
+  static Map<String, Map<String, Map<String, ColumnMetadata>>> prefetchColumnMetadata(
+      DatabaseClient client, TimestampBound bound, Dialect dialect) {
+    Map<String, Map<String, Map<String, ColumnMetadata>>> result =
+        new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    try (ResultSet resultSet =
+        client
+            .singleUse(bound)
+            .executeQuery(
+                Statement.of(
+                    dialect == Dialect.POSTGRESQL
+                        ? GET_COLUMN_METADATA_PG
+                        : GET_COLUMN_METADATA))) {
+      while (resultSet.next()) {
+        addColumnMetadata(
+            result,
+            getString(resultSet, 0),
+            getString(resultSet, 1),
+            getString(resultSet, 2),
+            getString(resultSet, 3),
+            getString(resultSet, 4));
+      }
+    }
+    return result;
+  }
+
+  private static void addColumnMetadata(
+      Map<String, Map<String, Map<String, ColumnMetadata>>> result,
+      @Nullable String schema,
+      String table,
+      String column,
+      @Nullable String defaultValue,
+      @Nullable String spannerType) {
+    result
+        .computeIfAbsent(
+            schema == null ? "" : schema, key -> new TreeMap<>(String.CASE_INSENSITIVE_ORDER))
+        .computeIfAbsent(table, key -> new TreeMap<>(String.CASE_INSENSITIVE_ORDER))
+        .put(column, new ColumnMetadata(defaultValue, spannerType));
+  }
+
+  @Nullable
+  private static String getString(ResultSet resultSet, int index) {
+    return resultSet.isNull(index) ? null : resultSet.getString(index);
+  }
+
+  private static String getSchemaName(Column column, Database database) {
+    String schemaName = column.getRelation().getSchema().getName();
+    if (schemaName == null) {
+      schemaName = database.getDefaultSchemaName();
+    }
+    if (schemaName == null) {
+      schemaName = ((ICloudSpanner) database).getDialect() == Dialect.POSTGRESQL ? "public" : "";
+    }
+    return schemaName;
+  }
+
+  @Nullable
+  private static String toString(@Nullable Object value) {
+    return value == null ? null : value.toString();
+  }
+
   @Override
   public Class<? extends SnapshotGenerator>[] replaces() {
     return new Class[] {ColumnSnapshotGenerator.class};
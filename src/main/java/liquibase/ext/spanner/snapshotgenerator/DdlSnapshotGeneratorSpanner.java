@@ -0,0 +1,407 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.snapshotgenerator;
+
+import com.google.cloud.spanner.DatabaseId;
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.jdbc.CloudSpannerJdbcConnection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import javax.annotation.Nullable;
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.ext.spanner.SpannerConfiguration;
+import liquibase.ext.spanner.SpannerConnections;
+import liquibase.snapshot.DatabaseSnapshot;
+import liquibase.snapshot.InvalidExampleException;
+import liquibase.snapshot.SnapshotControl;
+import liquibase.snapshot.SnapshotGenerator;
+import liquibase.snapshot.SnapshotGeneratorChain;
+import liquibase.snapshot.jvm.ColumnSnapshotGenerator;
+import liquibase.snapshot.jvm.ForeignKeySnapshotGenerator;
+import liquibase.snapshot.jvm.IndexSnapshotGenerator;
+import liquibase.snapshot.jvm.PrimaryKeySnapshotGenerator;
+import liquibase.snapshot.jvm.SequenceSnapshotGenerator;
+import liquibase.snapshot.jvm.TableSnapshotGenerator;
+import liquibase.snapshot.jvm.UniqueConstraintSnapshotGenerator;
+import liquibase.snapshot.jvm.ViewSnapshotGenerator;
+import liquibase.structure.DatabaseObject;
+import liquibase.structure.core.Column;
+import liquibase.structure.core.ForeignKey;
+import liquibase.structure.core.Index;
+import liquibase.structure.core.PrimaryKey;
+import liquibase.structure.core.Relation;
+import liquibase.structure.core.Schema;
+import liquibase.structure.core.Sequence;
+import liquibase.structure.core.Table;
+import liquibase.structure.core.UniqueConstraint;
+import liquibase.structure.core.View;
+
+/**
+ * Builds database snapshots from the DDL statements of the database instead of INFORMATION_SCHEMA
+ * queries. This generator is only used if {@link SpannerConfiguration#SNAPSHOT_FROM_DDL} is
+ * enabled.
+ *
+ * <p>The DDL statements are read with a single GetDatabaseDdl call the first time that the
+ * generator is called for a snapshot, and parsed with {@link SpannerDdlParser}. All tables, views,
+ * columns, primary keys, indexes, foreign keys and sequences of the snapshot are then served from
+ * the parsed statements, and the generators that read these from INFORMATION_SCHEMA are replaced.
+ * Schemas are still read with the default Liquibase generator, as the DDL statements do not contain
+ * the catalog.
+ *
+ * <p>The parsed objects contain the following Spanner-specific attributes, which are not available
+ * in snapshots from INFORMATION_SCHEMA:
+ *
+ * <ul>
+ *   <li>{@link #INTERLEAVE_IN} and {@link #INTERLEAVE_ON_DELETE} for interleaved tables and
+ *       indexes.
+ *   <li>{@link #ROW_DELETION_POLICY} for tables.
+ *   <li>{@link #NULL_FILTERED} for indexes.
+ *   <li>{@link #INCLUDED_COLUMNS} for the STORING (GoogleSQL) or INCLUDE (PostgreSQL) columns of
+ *       indexes.
+ *   <li>{@link #GENERATION_EXPRESSION} for generated columns.
+ * </ul>
+ *
+ * <p>GetDatabaseDdl always returns the current schema, and not the schema at the read timestamp of
+ * the snapshot. The columns of views are not included in the snapshot, as the DDL statements do not
+ * contain them. If the DDL statements cannot be read or parsed, the snapshot falls back to the
+ * normal generators.
+ */
+public class DdlSnapshotGeneratorSpanner implements SnapshotGenerator {
+  /** The name of the parent of an interleaved table or index. */
+  public static final String INTERLEAVE_IN = "interleaveIn";
+
+  /**
+   * The ON DELETE action (CASCADE or NO ACTION) of a table that is interleaved with INTERLEAVE IN
+   * PARENT. This attribute is not set for tables that are interleaved with INTERLEAVE IN.
+   */
+  public static final String INTERLEAVE_ON_DELETE = "interleaveOnDelete";
+
+  /** The row deletion policy of a table, e.g. {@code OLDER_THAN(CreatedAt, INTERVAL 7 DAY)}. */
+  public static final String ROW_DELETION_POLICY = "rowDeletionPolicy";
+
+  /** True for NULL_FILTERED indexes. */
+  public static final String NULL_FILTERED = "nullFiltered";
+
+  /** The names of the STORING columns of an index. */
+  public static final String INCLUDED_COLUMNS = "includedColumns";
+
+  /** The expression of a generated column. */
+  public static final String GENERATION_EXPRESSION = "generationExpression";
+
+  private static final String MODEL_SCRATCH_KEY = "spanner.ddlModel";
+
+  @Override
+  public int getPriority(Class<? extends DatabaseObject> objectType, Database database) {
+    if (database instanceof ICloudSpanner) {
+      // Directly after SnapshotReadTimestampGeneratorSpanner, so the other generators in the chain
+      // can be skipped.
+      return Integer.MAX_VALUE - 1;
+    }
+    return PRIORITY_NONE;
+  }
+
+  @Override
+  public <T extends DatabaseObject> T snapshot(
+      T example, DatabaseSnapshot snapshot, SnapshotGeneratorChain chain)
+      throws DatabaseException, InvalidExampleException {
+    if (!SpannerConfiguration.SNAPSHOT_FROM_DDL.getCurrentValue() || !isSupported(example)) {
+      return chain.snapshot(example, snapshot);
+    }
+    SpannerDdlModel model = getModel(snapshot);
+    if (model == null) {
+      // The generators that are replaced by this generator have been removed from the chain, so
+      // snapshot the object with a new chain that contains all generators except this one. The
+      // rest of the current chain is skipped, as the new chain also contains those generators.
+      return createFallbackChain(example.getClass(), snapshot.getDatabase())
+          .snapshot(example, snapshot);
+    }
+    if (example instanceof Schema) {
+      return snapshotSchema(example, snapshot, chain, model);
+    }
+    @SuppressWarnings("unchecked")
+    T result = (T) find(example, model);
+    return result;
+  }
+
+  private static boolean isSupported(DatabaseObject example) {
+    return example instanceof Schema
+        || example instanceof Relation
+        || example instanceof Column
+        || example instanceof PrimaryKey
+        || example instanceof Index
+        || example instanceof ForeignKey
+        || example instanceof UniqueConstraint
+        || example instanceof Sequence;
+  }
+
+  /**
+   * Reads the schema with the default Liquibase generator, and adds the tables, views and sequences
+   * of the schema from the DDL statements.
+   */
+  private <T extends DatabaseObject> T snapshotSchema(
+      T example, DatabaseSnapshot snapshot, SnapshotGeneratorChain chain, SpannerDdlModel model)
+      throws DatabaseException, InvalidExampleException {
+    // Only the default generator for schemas is left in the chain.
+    T result = chain.snapshot(example, snapshot);
+    if (result == null) {
+      return null;
+    }
+    Schema schema = (Schema) result;
+    SnapshotControl control = snapshot.getSnapshotControl();
+    for (Relation relation : model.getRelations(schema.getName())) {
+      if (control.shouldInclude(relation.getClass())) {
+        schema.addDatabaseObject(relation);
+      }
+    }
+    if (control.shouldInclude(Sequence.class)) {
+      for (Sequence sequence : model.getSequences(schema.getName())) {
+        schema.addDatabaseObject(sequence);
+      }
+    }
+    return result;
+  }
+
+  /** Returns the parsed object that matches the given example, or null if there is none. */
+  @Nullable
+  private static DatabaseObject find(DatabaseObject example, SpannerDdlModel model) {
+    if (example instanceof Table) {
+      return model.getTable(getSchemaName(example), example.getName());
+    }
+    if (example instanceof View) {
+      return model.getView(getSchemaName(example), example.getName());
+    }
+    if (example instanceof Sequence) {
+      return model.getSequence(getSchemaName(example), example.getName());
+    }
+    if (example instanceof Column) {
+      Relation relation = findRelation(((Column) example).getRelation(), model);
+      return relation == null ? null : relation.getColumn(example.getName());
+    }
+    if (example instanceof PrimaryKey) {
+      Table table = (Table) findRelation(((PrimaryKey) example).getTable(), model);
+      PrimaryKey primaryKey = table == null ? null : table.getPrimaryKey();
+      if (primaryKey == null
+          || (example.getName() != null
+              && !example.getName().equalsIgnoreCase(primaryKey.getName()))) {
+        return null;
+      }
+      return primaryKey;
+    }
+    if (example instanceof Index) {
+      return findIndex((Index) example, model);
+    }
+    if (example instanceof ForeignKey) {
+      return findForeignKey((ForeignKey) example, model);
+    }
+    // Spanner uses unique indexes instead of unique constraints.
+    return null;
+  }
+
+  @Nullable
+  private static Relation findRelation(@Nullable Relation example, SpannerDdlModel model) {
+    if (example == null) {
+      return null;
+    }
+    Relation relation = model.getRelation(getSchemaName(example), example.getName());
+    if (relation == null || (example instanceof View) != (relation instanceof View)) {
+      return null;
+    }
+    return relation;
+  }
+
+  /**
+   * Returns the index with the name of the example, or the index on the columns of the example if
+   * the example has no name. Primary keys take precedence over secondary indexes on the same
+   * columns, in the same way as in {@link IndexSnapshotGeneratorSpanner}.
+   */
+  @Nullable
+  private static Index findIndex(Index example, SpannerDdlModel model) {
+    Relation exampleRelation = example.getRelation();
+    Iterable<Relation> relations;
+    if (exampleRelation == null) {
+      relations = model.getRelations(getSchemaName(example));
+    } else {
+      Relation relation = findRelation(exampleRelation, model);
+      if (relation == null) {
+        return null;
+      }
+      relations = Collections.singletonList(relation);
+    }
+    for (Relation relation : relations) {
+      for (Index index : relation.getIndexes()) {
+        if (example.getName() != null) {
+          if (example.getName().equalsIgnoreCase(index.getName())) {
+            return index;
+          }
+        } else if (exampleRelation != null && hasSameColumns(index, example)) {
+          return index;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static boolean hasSameColumns(Index index, Index example) {
+    List<Column> columns = index.getColumns();
+    List<Column> exampleColumns = example.getColumns();
+    if (exampleColumns.isEmpty() || columns.size() != exampleColumns.size()) {
+      return false;
+    }
+    for (int i = 0; i < columns.size(); i++) {
+      if (!columns.get(i).getName().equalsIgnoreCase(exampleColumns.get(i).getName())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Nullable
+  private static ForeignKey findForeignKey(ForeignKey example, SpannerDdlModel model) {
+    // Interleaved tables are the only foreign keys without a name, see
+    // ForeignKeySnapshotGeneratorSpanner.
+    if (example.getName() == null) {
+      return null;
+    }
+    Iterable<Relation> relations;
+    if (example.getForeignKeyTable() == null) {
+      relations = model.getRelations(getSchemaName(example));
+    } else {
+      Relation relation = findRelation(example.getForeignKeyTable(), model);
+      if (relation == null) {
+        return null;
+      }
+      relations = Collections.singletonList(relation);
+    }
+    for (Relation relation : relations) {
+      if (relation instanceof Table) {
+        for (ForeignKey foreignKey : ((Table) relation).getOutgoingForeignKeys()) {
+          if (example.getName().equalsIgnoreCase(foreignKey.getName())) {
+            return foreignKey;
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  @Nullable
+  private static String getSchemaName(DatabaseObject example) {
+    Schema schema = example.getSchema();
+    return schema == null ? null : schema.getName();
+  }
+
+  /**
+   * Returns the parsed DDL statements of the database of the snapshot, or null if these could not
+   * be read. The statements are read once per snapshot.
+   */
+  @Nullable
+  private static SpannerDdlModel getModel(DatabaseSnapshot snapshot) throws DatabaseException {
+    Object cached = snapshot.getScratchData(MODEL_SCRATCH_KEY);
+    if (cached != null) {
+      return cached instanceof SpannerDdlModel ? (SpannerDdlModel) cached : null;
+    }
+    SpannerDdlModel model = null;
+    Database database = snapshot.getDatabase();
+    CloudSpannerJdbcConnection connection = SpannerConnections.getSpannerConnection(database);
+    if (connection != null) {
+      try {
+        Dialect dialect = ((ICloudSpanner) database).getDialect();
+        DatabaseId databaseId = connection.getDatabaseId();
+        List<String> statements =
+            connection
+                .getSpanner()
+                .getDatabaseAdminClient()
+                .getDatabaseDdl(databaseId.getInstanceId().getInstance(), databaseId.getDatabase());
+        model =
+            new SpannerDdlParser(
+                    dialect,
+                    dialect == Dialect.POSTGRESQL ? "public" : "",
+                    database,
+                    snapshot.getSnapshotControl())
+                .parse(statements);
+      } catch (SpannerException | UnsupportedOperationException | IllegalArgumentException e) {
+        Scope.getCurrentScope()
+            .getLog(DdlSnapshotGeneratorSpanner.class)
+            .warning(
+                "Could not build the snapshot from the DDL statements of the database, "
+                    + "falling back to INFORMATION_SCHEMA",
+                e);
+      }
+    }
+    // The scratch data cannot contain null values.
+    snapshot.setScratchData(MODEL_SCRATCH_KEY, model == null ? Boolean.FALSE : model);
+    return model;
+  }
+
+  @Override
+  public Class<? extends DatabaseObject>[] addsTo() {
+    return new Class[0];
+  }
+
+  /**
+   * Creates a chain with all generators for the given type except this generator, in the same order
+   * as Liquibase.
+   */
+  private static SnapshotGeneratorChain createFallbackChain(
+      Class<? extends DatabaseObject> type, Database database) {
+    SortedSet<SnapshotGenerator> generators =
+        new TreeSet<>(
+            Comparator.comparingInt(
+                    (SnapshotGenerator generator) -> generator.getPriority(type, database))
+                .reversed()
+                .thenComparing(generator -> generator.getClass().getName()));
+    for (SnapshotGenerator generator :
+        Scope.getCurrentScope().getServiceLocator().findInstances(SnapshotGenerator.class)) {
+      if (!(generator instanceof DdlSnapshotGeneratorSpanner)
+          && generator.getPriority(type, database) > 0) {
+        generators.add(generator);
+      }
+    }
+    return new SnapshotGeneratorChain(generators);
+  }
+
+  /**
+   * Replaces the generators that read tables, views, sequences and their nested objects from
+   * INFORMATION_SCHEMA if {@link SpannerConfiguration#SNAPSHOT_FROM_DDL} is enabled. Liquibase
+   * calls this method each time that it creates a chain.
+   */
+  @Override
+  public Class<? extends SnapshotGenerator>[] replaces() {
+    if (!SpannerConfiguration.SNAPSHOT_FROM_DDL.getCurrentValue()) {
+      return new Class[0];
+    }
+    return new Class[] {
+      TableSnapshotGenerator.class,
+      ViewSnapshotGenerator.class,
+      ColumnSnapshotGenerator.class,
+      ColumnSnapshotGeneratorSpanner.class,
+      PrimaryKeySnapshotGenerator.class,
+      IndexSnapshotGenerator.class,
+      IndexSnapshotGeneratorSpanner.class,
+      ForeignKeySnapshotGenerator.class,
+      ForeignKeySnapshotGeneratorSpanner.class,
+      UniqueConstraintSnapshotGenerator.class,
+      UniqueConstraintSnapshotGeneratorSpanner.class,
+      SequenceSnapshotGenerator.class,
+      SequenceSnapshotGeneratorSpanner.class
+    };
+  }
+}
@@ -13,31 +13,83 @@
  */
 package liquibase.ext.spanner.snapshotgenerator;
 
+import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.TimestampBound;
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import liquibase.CatalogAndSchema;
 import liquibase.database.AbstractJdbcDatabase;
 import liquibase.database.Database;
-import liquibase.database.core.*;
+import liquibase.database.jvm.JdbcConnection;
 import liquibase.diff.compare.DatabaseObjectComparatorFactory;
 import liquibase.exception.DatabaseException;
 import liquibase.ext.spanner.ICloudSpanner;
 import liquibase.snapshot.CachedRow;
 import liquibase.snapshot.DatabaseSnapshot;
 import liquibase.snapshot.InvalidExampleException;
-import liquibase.snapshot.JdbcDatabaseSnapshot;
 import liquibase.snapshot.SnapshotGenerator;
 import liquibase.snapshot.jvm.IndexSnapshotGenerator;
 import liquibase.structure.DatabaseObject;
-import liquibase.structure.core.*;
+import liquibase.structure.core.Column;
+import liquibase.structure.core.Index;
+import liquibase.structure.core.Relation;
+import liquibase.structure.core.Schema;
+import liquibase.structure.core.Table;
+import liquibase.structure.core.View;
 import liquibase.util.StringUtil;
 
 /**
  * Analyses the properties of a database index and creates an object representation ("snapshot").
+ *
+ * <p>The index metadata of a schema is read with a single query the first time that an index of
+ * that schema is needed in a snapshot. The result is kept in the scratch data of the snapshot and
+ * indexed by table and index name, and by table and column list, so each example is resolved with a
+ * map lookup instead of a query per table and a scan of all indexes.
  */
 public class IndexSnapshotGeneratorSpanner extends IndexSnapshotGenerator {
+  private static final String INDEXES_SCRATCH_KEY_PREFIX = "spanner.indexes.";
+
+  /**
+   * Selects the same index metadata as {@link DatabaseMetaData#getIndexInfo} of the Spanner JDBC
+   * driver for all user schemas, in the same order within each schema.
+   */
+  private static final String GET_INDEXES =
+      "SELECT IDX.TABLE_SCHEMA, IDX.TABLE_NAME, IDX.INDEX_NAME, "
+          + "CASE WHEN IDX.IS_UNIQUE THEN FALSE ELSE TRUE END AS NON_UNIQUE, "
+          + "COL.ORDINAL_POSITION, COL.COLUMN_NAME, COL.COLUMN_ORDERING "
+          + "FROM INFORMATION_SCHEMA.INDEXES IDX "
+          + "INNER JOIN INFORMATION_SCHEMA.INDEX_COLUMNS COL "
+          + "ON IDX.TABLE_SCHEMA = COL.TABLE_SCHEMA AND IDX.TABLE_NAME = COL.TABLE_NAME "
+          + "AND IDX.INDEX_NAME = COL.INDEX_NAME "
+          + "WHERE IDX.TABLE_SCHEMA NOT IN ('INFORMATION_SCHEMA', 'SPANNER_SYS') "
+          + "ORDER BY IDX.TABLE_SCHEMA, IDX.TABLE_NAME, IDX.IS_UNIQUE DESC, IDX.INDEX_NAME, "
+          + "CASE WHEN COL.ORDINAL_POSITION IS NULL THEN 0 ELSE COL.ORDINAL_POSITION END";
+
+  private static final String GET_INDEXES_PG =
+      "SELECT IDX.TABLE_SCHEMA, IDX.TABLE_NAME, IDX.INDEX_NAME, "
+          + "CASE WHEN IDX.IS_UNIQUE = 'YES' THEN FALSE ELSE TRUE END AS NON_UNIQUE, "
+          + "COL.ORDINAL_POSITION, COL.COLUMN_NAME, COL.COLUMN_ORDERING "
+          + "FROM INFORMATION_SCHEMA.INDEXES IDX "
+          + "INNER JOIN INFORMATION_SCHEMA.INDEX_COLUMNS COL "
+          + "ON IDX.TABLE_SCHEMA = COL.TABLE_SCHEMA AND IDX.TABLE_NAME = COL.TABLE_NAME "
+          + "AND IDX.INDEX_NAME = COL.INDEX_NAME "
+          + "WHERE IDX.TABLE_SCHEMA NOT IN ('information_schema', 'spanner_sys', 'pg_catalog') "
+          + "ORDER BY IDX.TABLE_SCHEMA, IDX.TABLE_NAME, IDX.IS_UNIQUE DESC, IDX.INDEX_NAME, "
+          + "CASE WHEN COL.ORDINAL_POSITION IS NULL THEN 0 ELSE COL.ORDINAL_POSITION END";
 
   /**
    * This generator will be in all chains that import the Cloud Spanner provider, also if it is used
@@ -68,154 +120,312 @@ public class IndexSnapshotGeneratorSpanner extends IndexSnapshotGenerator {
       schema = new Schema(database.getDefaultCatalogName(), database.getDefaultSchemaName());
     }
 
-    for (int i = 0; i < ((Index) example).getColumns().size(); i++) {
-      ((Index) example).getColumns().set(i, ((Index) example).getColumns().get(i));
-    }
-
     String exampleName = example.getName();
     if (exampleName != null) {
       exampleName = database.correctObjectName(exampleName, Index.class);
     }
 
-    Map<String, Index> foundIndexes = new HashMap<>();
-    JdbcDatabaseSnapshot.CachingDatabaseMetaData databaseMetaData = null;
-    List<CachedRow> rs = null;
-    try {
-      databaseMetaData = ((JdbcDatabaseSnapshot) snapshot).getMetaDataFromCache();
-
-      rs =
-          databaseMetaData.getIndexInfo(
-              ((AbstractJdbcDatabase) database).getJdbcCatalogName(schema),
-              ((AbstractJdbcDatabase) database).getJdbcSchemaName(schema),
-              tableName,
-              exampleName);
-
-      for (CachedRow row : rs) {
-        String rawIndexName = row.getString("INDEX_NAME");
-        String indexName = cleanNameFromDatabase(rawIndexName, database);
-        String correctedIndexName = database.correctObjectName(indexName, Index.class);
+    SchemaIndexes indexes = getSchemaIndexes(schema, snapshot);
+    if (exampleName != null) {
+      List<CachedRow> rows = indexes.findByName(tableName, exampleName);
+      return rows == null ? null : buildIndex(rows, null, schema, database);
+    }
+    if (tableName == null) {
+      return null;
+    }
+    // prefer clustered version of the index
+    List<List<CachedRow>> candidates =
+        indexes.findByColumns(tableName, ((Index) example).getColumns());
+    List<CachedRow> found = null;
+    for (List<CachedRow> rows : candidates) {
+      if (isClustered(rows)) {
+        found = rows;
+        break;
+      }
+      if (found == null) {
+        found = rows;
+      }
+    }
+    if (found == null) {
+      return null;
+    }
+    return finalizeIndex(schema, tableName, buildIndex(found, null, schema, database), snapshot);
+  }
 
-        if (indexName == null) {
-          continue;
+  @Override
+  protected void addTo(DatabaseObject foundObject, DatabaseSnapshot snapshot)
+      throws DatabaseException, InvalidExampleException {
+    if (!(foundObject instanceof Table)
+        || !snapshot.getSnapshotControl().shouldInclude(Index.class)
+        || !snapshot.getDatabase().supports(Index.class)) {
+      super.addTo(foundObject, snapshot);
+      return;
+    }
+    Table table = (Table) foundObject;
+    Database database = snapshot.getDatabase();
+    SchemaIndexes indexes = getSchemaIndexes(table.getSchema(), snapshot);
+    List<Index> nonClusteredIndexes = new ArrayList<>();
+    for (List<CachedRow> rows : indexes.findByTable(table.getName())) {
+      Index index = buildIndex(rows, table, table.getSchema(), database);
+      if (Boolean.TRUE.equals(index.getClustered())) {
+        table.getIndexes().add(index);
+      } else {
+        nonClusteredIndexes.add(index);
+      }
+    }
+    for (Index index : nonClusteredIndexes) {
+      boolean alreadyAdded = false;
+      for (Index existing : table.getIndexes()) {
+        if (DatabaseObjectComparatorFactory.getInstance()
+            .isSameObject(existing, index, null, database)) {
+          alreadyAdded = true;
+          break;
         }
-        if ((exampleName != null) && !exampleName.equals(correctedIndexName)) {
-          continue;
+      }
+      if (!alreadyAdded) {
+        table.getIndexes().add(index);
+      }
+    }
+  }
+
+  /**
+   * Returns the indexes of the given schema, and reads these from the database if this is the first
+   * time that the schema is used in the snapshot.
+   */
+  private SchemaIndexes getSchemaIndexes(Schema schema, DatabaseSnapshot snapshot)
+      throws DatabaseException {
+    Database database = snapshot.getDatabase();
+    // Use the same catalog and schema names as JdbcDatabaseSnapshot.CachingDatabaseMetaData.
+    CatalogAndSchema catalogAndSchema =
+        new CatalogAndSchema(
+                ((AbstractJdbcDatabase) database).getJdbcCatalogName(schema),
+                ((AbstractJdbcDatabase) database).getJdbcSchemaName(schema))
+            .customize(database);
+    String jdbcCatalog = ((AbstractJdbcDatabase) database).getJdbcCatalogName(catalogAndSchema);
+    String jdbcSchema = ((AbstractJdbcDatabase) database).getJdbcSchemaName(catalogAndSchema);
+    String key = INDEXES_SCRATCH_KEY_PREFIX + jdbcCatalog + "." + jdbcSchema;
+    SchemaIndexes indexes = (SchemaIndexes) snapshot.getScratchData(key);
+    if (indexes == null) {
+      indexes = new SchemaIndexes(database);
+      Map<String, List<CachedRow>> prefetched =
+          SnapshotPrefetchSpanner.get(snapshot, SnapshotPrefetchSpanner.INDEXES);
+      if (prefetched != null) {
+        List<CachedRow> rows = prefetched.get(jdbcSchema == null ? "" : jdbcSchema);
+        if (rows != null) {
+          rows.forEach(indexes::addRow);
         }
-        Short type = row.getShort("TYPE");
-        Boolean nonUnique = row.getBoolean("NON_UNIQUE");
-        if (nonUnique == null) {
-          nonUnique = true;
+      } else {
+        readIndexInfo(database, jdbcCatalog, jdbcSchema, indexes);
+      }
+      indexes.buildColumnIndex(schema);
+      snapshot.setScratchData(key, indexes);
+    }
+    return indexes;
+  }
+
+  private static void readIndexInfo(
+      Database database, String jdbcCatalog, String jdbcSchema, SchemaIndexes indexes)
+      throws DatabaseException {
+    Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+    try (ResultSet resultSet =
+        connection.getMetaData().getIndexInfo(jdbcCatalog, jdbcSchema, null, false, true)) {
+      ResultSetMetaData metaData = resultSet.getMetaData();
+      while (resultSet.next()) {
+        Map<String, Object> values = new HashMap<>();
+        for (int col = 1; col <= metaData.getColumnCount(); col++) {
+          values.put(
+              metaData.getColumnLabel(col).toUpperCase(Locale.ROOT), resultSet.getObject(col));
         }
+        indexes.addRow(new CachedRow(values));
+      }
+    } catch (SQLException e) {
+      throw new DatabaseException(e);
+    }
+  }
+
+  /**
+   * Loads the index metadata of all user schemas with the given client, in the same form as the
+   * rows that are returned by {@link DatabaseMetaData#getIndexInfo}. The result is keyed by schema.
+   * This is used to prefetch the metadata on another thread than the thread that uses the JDBC
+   * connection.
+   */
+  static Map<String, List<CachedRow>> prefetchIndexes(
+      DatabaseClient client, TimestampBound bound, Dialect dialect) {
+    Map<String, List<CachedRow>> result = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    try (com.google.cloud.spanner.ResultSet resultSet =
+        client
+            .singleUse(bound)
+            .executeQuery(
+                Statement.of(dialect == Dialect.POSTGRESQL ? GET_INDEXES_PG : GET_INDEXES))) {
+      while (resultSet.next()) {
+        String indexName = resultSet.getString(2);
+        Map<String, Object> values = new HashMap<>();
+        values.put("TABLE_NAME", resultSet.getString(1));
+        values.put("INDEX_NAME", indexName);
+        values.put("NON_UNIQUE", resultSet.getBoolean(3));
+        // The JDBC driver only reports the primary key of GoogleSQL databases as clustered.
+        values.put(
+            "TYPE",
+            dialect == Dialect.GOOGLE_STANDARD_SQL && "PRIMARY_KEY".equals(indexName)
+                ? (long) DatabaseMetaData.tableIndexClustered
+                : (long) DatabaseMetaData.tableIndexHashed);
+        values.put("ORDINAL_POSITION", resultSet.isNull(4) ? null : resultSet.getLong(4));
+        values.put("COLUMN_NAME", resultSet.getString(5));
+        values.put(
+            "ASC_OR_DESC",
+            resultSet.isNull(6) || resultSet.getString(6).isEmpty()
+                ? null
+                : resultSet.getString(6).substring(0, 1));
+        result
+            .computeIfAbsent(resultSet.getString(0), key -> new ArrayList<>())
+            .add(new CachedRow(values));
+      }
+    }
+    return result;
+  }
+
+  private static boolean isClustered(List<CachedRow> rows) {
+    Short type = rows.get(0).getShort("TYPE");
+    return type != null && type == DatabaseMetaData.tableIndexClustered;
+  }
+
+  /**
+   * Creates a new index from the metadata rows of the index. The relation of the index is created
+   * from the rows if it is null.
+   */
+  private Index buildIndex(
+      List<CachedRow> rows, Relation relation, Schema schema, Database database) {
+    CachedRow first = rows.get(0);
+    if (relation == null) {
+      relation = new Table();
+      if ("V".equals(first.getString("INTERNAL_OBJECT_TYPE"))) {
+        relation = new View();
+      }
+      relation.setName(first.getString("TABLE_NAME")).setSchema(schema);
+    }
+    Boolean nonUnique = first.getBoolean("NON_UNIQUE");
+    if (nonUnique == null) {
+      nonUnique = true;
+    }
+    Index index = new Index();
+    index.setRelation(relation);
+    index.setName(cleanNameFromDatabase(first.getString("INDEX_NAME"), database));
+    index.setUnique(!nonUnique);
+    String tablespaceName = first.getString("TABLESPACE_NAME");
+    if ((tablespaceName != null) && database.supportsTablespaces()) {
+      index.setTablespace(tablespaceName);
+    }
+    if (isClustered(rows)) {
+      index.setClustered(true);
+    }
 
-        String columnName = cleanNameFromDatabase(row.getString("COLUMN_NAME"), database);
-        Short position = row.getShort("ORDINAL_POSITION");
-        String definition = StringUtil.trimToNull(row.getString("FILTER_CONDITION"));
-
-        // Have we already seen/found this index? If not, let's read its properties!
-        Index returnIndex = foundIndexes.get(correctedIndexName);
-        if (returnIndex == null) {
-          returnIndex = new Index();
-          Relation relation = new Table();
-          if ("V".equals(row.getString("INTERNAL_OBJECT_TYPE"))) {
-            relation = new View();
-          }
-          returnIndex.setRelation(relation.setName(row.getString("TABLE_NAME")).setSchema(schema));
-          returnIndex.setName(indexName);
-          returnIndex.setUnique(!nonUnique);
-
-          String tablespaceName = row.getString("TABLESPACE_NAME");
-          if ((tablespaceName != null) && database.supportsTablespaces()) {
-            returnIndex.setTablespace(tablespaceName);
-          }
-
-          if (type == DatabaseMetaData.tableIndexClustered) {
-            returnIndex.setClustered(true);
-          }
-          foundIndexes.put(correctedIndexName, returnIndex);
+    for (CachedRow row : rows) {
+      String columnName = cleanNameFromDatabase(row.getString("COLUMN_NAME"), database);
+      Short position = row.getShort("ORDINAL_POSITION");
+      String definition = StringUtil.trimToNull(row.getString("FILTER_CONDITION"));
+      if (position == null) {
+        List<String> includedColumns = index.getAttribute("includedColumns", List.class);
+        if (includedColumns == null) {
+          includedColumns = new ArrayList<>();
+          index.setAttribute("includedColumns", includedColumns);
+        }
+        includedColumns.add(columnName);
+      } else if (position != 0) { // if really a column, position is 1-based.
+        for (int i = index.getColumns().size(); i < position; i++) {
+          index.getColumns().add(null);
         }
 
-        if (position == null) {
-          List<String> includedColumns = returnIndex.getAttribute("includedColumns", List.class);
-          if (includedColumns == null) {
-            includedColumns = new ArrayList<>();
-            returnIndex.setAttribute("includedColumns", includedColumns);
-          }
-          includedColumns.add(columnName);
+        // Is this column a simple column (definition == null)
+        // or is it a computed expression (definition != null)
+        if (definition == null) {
+          String ascOrDesc = row.getString("ASC_OR_DESC");
+          Boolean descending =
+              "D".equals(ascOrDesc) ? Boolean.TRUE : ("A".equals(ascOrDesc) ? Boolean.FALSE : null);
+          index
+              .getColumns()
+              .set(
+                  position - 1,
+                  new Column(columnName).setDescending(descending).setRelation(relation));
         } else {
-          if (position != 0) { // if really a column, position is 1-based.
-            for (int i = returnIndex.getColumns().size(); i < position; i++) {
-              returnIndex.getColumns().add(null);
-            }
-
-            // Is this column a simple column (definition == null)
-            // or is it a computed expression (definition != null)
-            if (definition == null) {
-              String ascOrDesc;
-              if (database instanceof Db2zDatabase) {
-                ascOrDesc = row.getString("ORDER");
-              } else {
-                ascOrDesc = row.getString("ASC_OR_DESC");
-              }
-              Boolean descending =
-                  "D".equals(ascOrDesc)
-                      ? Boolean.TRUE
-                      : ("A".equals(ascOrDesc) ? Boolean.FALSE : null);
-              returnIndex
-                  .getColumns()
-                  .set(
-                      position - 1,
-                      new Column(columnName)
-                          .setDescending(descending)
-                          .setRelation(returnIndex.getRelation()));
-            } else {
-              returnIndex
-                  .getColumns()
-                  .set(
-                      position - 1,
-                      new Column()
-                          .setRelation(returnIndex.getRelation())
-                          .setName(definition, true));
-            }
-          }
+          index
+              .getColumns()
+              .set(position - 1, new Column().setRelation(relation).setName(definition, true));
         }
       }
+    }
+    return index;
+  }
 
-    } catch (Exception e) {
-      throw new DatabaseException(e);
+  /** The index metadata rows of one schema, indexed by table and index name and by column list. */
+  private final class SchemaIndexes {
+    private final Database database;
+    /** Table key -> corrected index name -> metadata rows of the index in ordinal order. */
+    private final Map<String, Map<String, List<CachedRow>>> byTable = new LinkedHashMap<>();
+    /** Corrected index name -> metadata rows, used for examples without a table. */
+    private final Map<String, List<CachedRow>> byName = new HashMap<>();
+    /** Table key and column names -> indexes on exactly those columns. */
+    private final Map<String, List<List<CachedRow>>> byColumns = new HashMap<>();
+
+    private SchemaIndexes(Database database) {
+      this.database = database;
     }
 
-    if (exampleName != null) {
-      return foundIndexes.get(exampleName);
-    } else {
-      // prefer clustered version of the index
-      List<Index> nonClusteredIndexes = new ArrayList<>();
-      for (Index index : foundIndexes.values()) {
-        if (DatabaseObjectComparatorFactory.getInstance()
-            .isSameObject(
-                index.getRelation(), exampleIndex, snapshot.getSchemaComparisons(), database)) {
-          boolean actuallyMatches = false;
-          if (database.isCaseSensitive()) {
-            if (index.getColumnNames().equals(((Index) example).getColumnNames())) {
-              actuallyMatches = true;
-            }
-          } else {
-            if (index.getColumnNames().equalsIgnoreCase(((Index) example).getColumnNames())) {
-              actuallyMatches = true;
-            }
-          }
-          if (actuallyMatches) {
-            if ((index.getClustered() != null) && index.getClustered()) {
-              return finalizeIndex(schema, tableName, index, snapshot);
-            } else {
-              nonClusteredIndexes.add(index);
-            }
-          }
+    private String key(String name) {
+      return name == null || database.isCaseSensitive() ? name : name.toUpperCase(Locale.ROOT);
+    }
+
+    private void addRow(CachedRow row) {
+      String indexName = cleanNameFromDatabase(row.getString("INDEX_NAME"), database);
+      if (indexName == null) {
+        return;
+      }
+      String correctedIndexName = database.correctObjectName(indexName, Index.class);
+      List<CachedRow> rows =
+          byTable
+              .computeIfAbsent(key(row.getString("TABLE_NAME")), k -> new LinkedHashMap<>())
+              .computeIfAbsent(correctedIndexName, k -> new ArrayList<>());
+      if (rows.isEmpty()) {
+        byName.putIfAbsent(correctedIndexName, rows);
+      }
+      rows.add(row);
+    }
+
+    private void buildColumnIndex(Schema schema) {
+      for (Map.Entry<String, Map<String, List<CachedRow>>> table : byTable.entrySet()) {
+        for (List<CachedRow> rows : table.getValue().values()) {
+          List<Column> columns = buildIndex(rows, null, schema, database).getColumns();
+          byColumns
+              .computeIfAbsent(table.getKey() + ":" + columnsKey(columns), k -> new ArrayList<>())
+              .add(rows);
         }
       }
-      if (!nonClusteredIndexes.isEmpty()) {
-        return finalizeIndex(schema, tableName, nonClusteredIndexes.get(0), snapshot);
+    }
+
+    private List<CachedRow> findByName(String tableName, String correctedIndexName) {
+      if (tableName == null) {
+        return byName.get(correctedIndexName);
       }
-      return null;
+      Map<String, List<CachedRow>> tableIndexes = byTable.get(key(tableName));
+      return tableIndexes == null ? null : tableIndexes.get(correctedIndexName);
+    }
+
+    /** The column names of an index without the table name, as the table is already in the key. */
+    private String columnsKey(List<Column> columns) {
+      StringJoiner joiner = new StringJoiner(", ");
+      for (Column column : columns) {
+        joiner.add(column == null ? "null" : key(column.getName()));
+      }
+      return joiner.toString();
+    }
+
+    private List<List<CachedRow>> findByColumns(String tableName, List<Column> columns) {
+      List<List<CachedRow>> indexes = byColumns.get(key(tableName) + ":" + columnsKey(columns));
+      return indexes == null ? Collections.emptyList() : indexes;
+    }
+
+    private Iterable<List<CachedRow>> findByTable(String tableName) {
+      Map<String, List<CachedRow>> tableIndexes = byTable.get(key(tableName));
+      return tableIndexes == null ? Collections.emptyList() : tableIndexes.values();
     }
   }
 
@@ -13,12 +13,28 @@
  */
 package liquibase.ext.spanner.snapshotgenerator;
 
+import com.google.cloud.spanner.DatabaseClient;
 import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.TimestampBound;
+import com.google.cloud.spanner.Type;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
 import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
 import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.ext.spanner.sqlgenerator.PrefetchedQueryStatementSpanner;
+import liquibase.snapshot.DatabaseSnapshot;
+import liquibase.snapshot.InvalidExampleException;
 import liquibase.snapshot.SnapshotGenerator;
+import liquibase.snapshot.SnapshotGeneratorChain;
 import liquibase.snapshot.jvm.SequenceSnapshotGenerator;
 import liquibase.statement.SqlStatement;
 import liquibase.statement.core.RawParameterizedSqlStatement;
@@ -26,6 +42,8 @@ import liquibase.structure.DatabaseObject;
 import liquibase.structure.core.Schema;
 
 public class SequenceSnapshotGeneratorSpanner extends SequenceSnapshotGenerator {
+  /** The snapshot that is being generated on this thread. */
+  private static final ThreadLocal<DatabaseSnapshot> CURRENT_SNAPSHOT = new ThreadLocal<>();
 
   /**
    * This generator will be in all chains relating to CloudSpanner, whether or not the objectType is
@@ -39,56 +57,140 @@ public class SequenceSnapshotGeneratorSpanner extends SequenceSnapshotGenerator
     return PRIORITY_NONE;
   }
 
+  @Override
+  public <T extends DatabaseObject> T snapshot(
+      T example, DatabaseSnapshot snapshot, SnapshotGeneratorChain chain)
+      throws DatabaseException, InvalidExampleException {
+    DatabaseSnapshot previous = CURRENT_SNAPSHOT.get();
+    CURRENT_SNAPSHOT.set(snapshot);
+    try {
+      return super.snapshot(example, snapshot, chain);
+    } finally {
+      CURRENT_SNAPSHOT.set(previous);
+    }
+  }
+
   @Override
   protected SqlStatement getSelectSequenceStatement(Schema schema, Database database) {
     if (database instanceof ICloudSpanner) {
+      String schemaName = schema.isDefault() ? database.getDefaultSchemaName() : schema.getName();
       List<String> parameter = new ArrayList<>(2);
       parameter.add(schema.getCatalog().getName());
-      parameter.add(schema.isDefault() ? database.getDefaultSchemaName() : schema.getName());
-      Dialect dialect = ((ICloudSpanner) database).getDialect();
-      StringBuilder sql =
-          dialect == Dialect.POSTGRESQL
-              ? new StringBuilder("SELECT ")
-                  .append("sequence_name AS SEQUENCE_NAME, ")
-                  .append("sequence_kind AS SEQUENCE_KIND, ")
-                  .append("skip_range_max AS SKIP_RANGE_MAX, ")
-                  .append("skip_range_min AS SKIP_RANGE_MIN, ")
-                  .append("counter_start_value AS START_VALUE ")
-                  .append("FROM information_schema.sequences ")
-                  .append("WHERE sequence_catalog = ? AND sequence_schema = ?")
-              : new StringBuilder("SELECT seq.NAME AS SEQUENCE_NAME, ")
-                  .append("seq_kind.OPTION_VALUE AS SEQUENCE_KIND, ")
-                  .append("skip_max.OPTION_VALUE AS SKIP_RANGE_MAX, ")
-                  .append("skip_min.OPTION_VALUE AS SKIP_RANGE_MIN, ")
-                  .append("start_counter.OPTION_VALUE AS START_VALUE ")
-                  .append("FROM INFORMATION_SCHEMA.SEQUENCES AS seq ")
-                  .append("LEFT JOIN INFORMATION_SCHEMA.SEQUENCE_OPTIONS AS seq_kind ")
-                  .append("ON seq.CATALOG = seq_kind.CATALOG ")
-                  .append("AND seq.SCHEMA = seq_kind.SCHEMA ")
-                  .append("AND seq.NAME = seq_kind.NAME ")
-                  .append("AND seq_kind.OPTION_NAME = 'sequence_kind' ")
-                  .append("LEFT JOIN INFORMATION_SCHEMA.SEQUENCE_OPTIONS AS skip_max ")
-                  .append("ON seq.CATALOG = skip_max.CATALOG ")
-                  .append("AND seq.SCHEMA = skip_max.SCHEMA ")
-                  .append("AND seq.NAME = skip_max.NAME ")
-                  .append("AND skip_max.OPTION_NAME = 'skip_range_max' ")
-                  .append("LEFT JOIN INFORMATION_SCHEMA.SEQUENCE_OPTIONS AS skip_min ")
-                  .append("ON seq.CATALOG = skip_min.CATALOG ")
-                  .append("AND seq.SCHEMA = skip_min.SCHEMA ")
-                  .append("AND seq.NAME = skip_min.NAME ")
-                  .append("AND skip_min.OPTION_NAME = 'skip_range_min' ")
-                  .append("LEFT JOIN INFORMATION_SCHEMA.SEQUENCE_OPTIONS AS start_counter ")
-                  .append("ON seq.CATALOG = start_counter.CATALOG ")
-                  .append("AND seq.SCHEMA = start_counter.SCHEMA ")
-                  .append("AND seq.NAME = start_counter.NAME ")
-                  .append("AND start_counter.OPTION_NAME = 'start_with_counter' ")
-                  .append("WHERE seq.CATALOG = ? AND seq.SCHEMA = ?;");
-
-      return new RawParameterizedSqlStatement(sql.toString(), parameter.toArray());
+      parameter.add(schemaName);
+      String sql = getSelectSequencesSql(((ICloudSpanner) database).getDialect(), false);
+      DatabaseSnapshot snapshot = CURRENT_SNAPSHOT.get();
+      Map<String, List<Map<String, ?>>> prefetched =
+          snapshot == null || snapshot.getDatabase() != database
+              ? null
+              : SnapshotPrefetchSpanner.get(snapshot, SnapshotPrefetchSpanner.SEQUENCES);
+      if (prefetched != null) {
+        List<Map<String, ?>> rows =
+            prefetched.getOrDefault(schemaName == null ? "" : schemaName, Collections.emptyList());
+        return new PrefetchedQueryStatementSpanner(
+            sql, new ArrayList<>(rows), parameter.toArray());
+      }
+      return new RawParameterizedSqlStatement(sql, parameter.toArray());
     }
     return super.getSelectSequenceStatement(schema, database);
   }
 
+  /**
+   * Returns the query for the sequences of one schema, or for the sequences of all schemas with the
+   * name of the schema in the first column.
+   */
+  private static String getSelectSequencesSql(Dialect dialect, boolean allSchemas) {
+    StringBuilder sql = new StringBuilder("SELECT ");
+    if (dialect == Dialect.POSTGRESQL) {
+      if (allSchemas) {
+        sql.append("sequence_schema AS SEQUENCE_SCHEMA, ");
+      }
+      sql.append("sequence_name AS SEQUENCE_NAME, ")
+          .append("sequence_kind AS SEQUENCE_KIND, ")
+          .append("skip_range_max AS SKIP_RANGE_MAX, ")
+          .append("skip_range_min AS SKIP_RANGE_MIN, ")
+          .append("counter_start_value AS START_VALUE ")
+          .append("FROM information_schema.sequences");
+      if (!allSchemas) {
+        sql.append(" WHERE sequence_catalog = ? AND sequence_schema = ?");
+      }
+      return sql.toString();
+    }
+    if (allSchemas) {
+      sql.append("seq.SCHEMA AS SEQUENCE_SCHEMA, ");
+    }
+    sql.append("seq.NAME AS SEQUENCE_NAME, ")
+        .append("seq_kind.OPTION_VALUE AS SEQUENCE_KIND, ")
+        .append("skip_max.OPTION_VALUE AS SKIP_RANGE_MAX, ")
+        .append("skip_min.OPTION_VALUE AS SKIP_RANGE_MIN, ")
+        .append("start_counter.OPTION_VALUE AS START_VALUE ")
+        .append("FROM INFORMATION_SCHEMA.SEQUENCES AS seq ")
+        .append("LEFT JOIN INFORMATION_SCHEMA.SEQUENCE_OPTIONS AS seq_kind ")
+        .append("ON seq.CATALOG = seq_kind.CATALOG ")
+        .append("AND seq.SCHEMA = seq_kind.SCHEMA ")
+        .append("AND seq.NAME = seq_kind.NAME ")
+        .append("AND seq_kind.OPTION_NAME = 'sequence_kind' ")
+        .append("LEFT JOIN INFORMATION_SCHEMA.SEQUENCE_OPTIONS AS skip_max ")
+        .append("ON seq.CATALOG = skip_max.CATALOG ")
+        .append("AND seq.SCHEMA = skip_max.SCHEMA ")
+        .append("AND seq.NAME = skip_max.NAME ")
+        .append("AND skip_max.OPTION_NAME = 'skip_range_max' ")
+        .append("LEFT JOIN INFORMATION_SCHEMA.SEQUENCE_OPTIONS AS skip_min ")
+        .append("ON seq.CATALOG = skip_min.CATALOG ")
+        .append("AND seq.SCHEMA = skip_min.SCHEMA ")
+        .append("AND seq.NAME = skip_min.NAME ")
+        .append("AND skip_min.OPTION_NAME = 'skip_range_min' ")
+        .append("LEFT JOIN INFORMATION_SCHEMA.SEQUENCE_OPTIONS AS start_counter ")
+        .append("ON seq.CATALOG = start_counter.CATALOG ")
+        .append("AND seq.SCHEMA = start_counter.SCHEMA ")
+        .append("AND seq.NAME = start_counter.NAME ")
+        .append("AND start_counter.OPTION_NAME = 'start_with_counter'");
+    if (!allSchemas) {
+      sql.append(" WHERE seq.CATALOG = ? AND seq.SCHEMA = ?;");
+    }
+    return sql.toString();
+  }
+
+  /**
+   * Loads the sequences of all schemas with the given client, keyed by schema. The rows have the
+   * same keys and values as the rows that Liquibase reads with the query of {@link
+   * #getSelectSequenceStatement(Schema, Database)}. This is used to prefetch the sequences on
+   * another thread than the thread that uses the JDBC connection.
+   */
+  static Map<String, List<Map<String, ?>>> prefetchSequences(
+      DatabaseClient client, TimestampBound bound, Dialect dialect) {
+    Map<String, List<Map<String, ?>>> result = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    try (ResultSet resultSet =
+        client.singleUse(bound).executeQuery(Statement.of(getSelectSequencesSql(dialect, true)))) {
+      while (resultSet.next()) {
+        List<Type.StructField> fields = resultSet.getType().getStructFields();
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 1; i < fields.size(); i++) {
+          // Liquibase uses upper case keys, as Spanner is not case-sensitive.
+          row.put(fields.get(i).getName().toUpperCase(Locale.US), getValue(resultSet, i));
+        }
+        result
+            .computeIfAbsent(
+                resultSet.isNull(0) ? "" : resultSet.getString(0), key -> new ArrayList<>())
+            .add(row);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the value of the given column in the same form as the JDBC driver. The columns of the
+   * query are either INT64 or STRING.
+   */
+  @Nullable
+  private static Object getValue(ResultSet resultSet, int column) {
+    if (resultSet.isNull(column)) {
+      return null;
+    }
+    return resultSet.getColumnType(column).getCode() == Type.Code.INT64
+        ? (Object) resultSet.getLong(column)
+        : resultSet.getString(column);
+  }
+
   /*
    * If there is a SequenceSnapshotGenerator in the chain, we replace it. Otherwise
    * the chain will execute like normal.
@@ -0,0 +1,156 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.snapshotgenerator;
+
+import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.TimestampBound;
+import com.google.cloud.spanner.jdbc.CloudSpannerJdbcConnection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import liquibase.Scope;
+import liquibase.ext.spanner.SpannerConfiguration;
+import liquibase.snapshot.DatabaseSnapshot;
+
+/**
+ * Prefetches the metadata that the Spanner snapshot generators read in bulk, in parallel on a
+ * bounded pool of threads.
+ *
+ * <p>Each kind of metadata (columns, indexes and sequences) is read with one query for all tables
+ * of the database, so the pool has at most one thread per kind. Liquibase itself still snapshots
+ * the tables one by one on the JDBC connection, and reads e.g. the primary and foreign keys of each
+ * table with JDBC, while the prefetch queries run.
+ *
+ * <p>The prefetch is started at the beginning of a snapshot if {@link
+ * SpannerConfiguration#SNAPSHOT_PARALLELISM} is larger than 1. The queries are executed with the
+ * thread-safe {@link DatabaseClient} of the JDBC connection, at the read timestamp of the snapshot
+ * if there is one, while Liquibase continues the snapshot on the JDBC connection. The snapshot
+ * generators then take the results from the snapshot instead of executing the queries themselves. A
+ * prefetch that fails is logged and ignored, and the generator reads the metadata in the same way
+ * as in serial mode.
+ */
+final class SnapshotPrefetchSpanner {
+  private static final String STARTED_SCRATCH_KEY = "spanner.prefetchStarted";
+  private static final String PREFETCH_SCRATCH_KEY_PREFIX = "spanner.prefetch.";
+
+  /** A bulk metadata query that can be executed on any thread. */
+  interface Prefetch<T> {
+    T load(DatabaseClient client, TimestampBound bound, Dialect dialect) throws Exception;
+  }
+
+  static final String COLUMN_METADATA = "columnMetadata";
+  static final String INDEXES = "indexes";
+  static final String SEQUENCES = "sequences";
+
+  private static final Map<String, Prefetch<?>> PREFETCHES = new LinkedHashMap<>();
+
+  static {
+    PREFETCHES.put(COLUMN_METADATA, ColumnSnapshotGeneratorSpanner::prefetchColumnMetadata);
+    PREFETCHES.put(INDEXES, IndexSnapshotGeneratorSpanner::prefetchIndexes);
+    PREFETCHES.put(SEQUENCES, SequenceSnapshotGeneratorSpanner::prefetchSequences);
+  }
+
+  private SnapshotPrefetchSpanner() {}
+
+  /**
+   * Starts the prefetch for the given snapshot, unless parallel prefetching is disabled, the
+   * snapshot is built from the DDL statements of the database, or the prefetch for the snapshot has
+   * already been started.
+   */
+  static void start(
+      DatabaseSnapshot snapshot, CloudSpannerJdbcConnection connection, TimestampBound bound) {
+    int parallelism = SpannerConfiguration.SNAPSHOT_PARALLELISM.getCurrentValue();
+    if (parallelism <= 1
+        || SpannerConfiguration.SNAPSHOT_FROM_DDL.getCurrentValue()
+        || snapshot.getScratchData(STARTED_SCRATCH_KEY) != null) {
+      return;
+    }
+    snapshot.setScratchData(STARTED_SCRATCH_KEY, Boolean.TRUE);
+    DatabaseClient client;
+    Dialect dialect;
+    try {
+      client = connection.getDatabaseClient();
+      dialect = connection.getDialect();
+    } catch (UnsupportedOperationException e) {
+      return;
+    }
+    // More threads than prefetch queries would stay idle.
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            Math.min(parallelism, PREFETCHES.size()), createThreadFactory());
+    try {
+      for (Map.Entry<String, Prefetch<?>> prefetch : PREFETCHES.entrySet()) {
+        snapshot.setScratchData(
+            PREFETCH_SCRATCH_KEY_PREFIX + prefetch.getKey(),
+            executor.submit(() -> prefetch.getValue().load(client, bound, dialect)));
+      }
+    } finally {
+      // The threads stop when the prefetch queries have finished.
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Waits for and returns the result of the given prefetch, or returns null if the metadata was not
+   * prefetched for this snapshot or the prefetch failed.
+   */
+  @SuppressWarnings("unchecked")
+  @Nullable
+  static <T> T get(@Nullable DatabaseSnapshot snapshot, String name) {
+    if (snapshot == null) {
+      return null;
+    }
+    Object value = snapshot.getScratchData(PREFETCH_SCRATCH_KEY_PREFIX + name);
+    if (!(value instanceof Future)) {
+      return null;
+    }
+    try {
+      return ((Future<T>) value).get();
+    } catch (ExecutionException e) {
+      Scope.getCurrentScope()
+          .getLog(SnapshotPrefetchSpanner.class)
+          .fine("Prefetching " + name + " failed, reading it serially", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return null;
+  }
+
+  /**
+   * Returns a factory for virtual threads if the JVM supports these (Java 21 and higher), and
+   * otherwise a factory for daemon threads.
+   */
+  private static ThreadFactory createThreadFactory() {
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      return (ThreadFactory)
+          Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+    } catch (ReflectiveOperationException e) {
+      AtomicInteger counter = new AtomicInteger();
+      return runnable -> {
+        Thread thread =
+            new Thread(runnable, "spanner-snapshot-prefetch-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      };
+    }
+  }
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.snapshotgenerator;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.TimestampBound;
+import com.google.cloud.spanner.jdbc.CloudSpannerJdbcConnection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.ext.spanner.SpannerConfiguration;
+import liquibase.ext.spanner.SpannerConnections;
+import liquibase.snapshot.DatabaseSnapshot;
+import liquibase.snapshot.InvalidExampleException;
+import liquibase.snapshot.SnapshotGenerator;
+import liquibase.snapshot.SnapshotGeneratorChain;
+import liquibase.structure.DatabaseObject;
+
+/**
+ * Executes all queries of a database snapshot at the same read timestamp.
+ *
+ * <p>This generator is at the head of every snapshot generator chain for Cloud Spanner. The first
+ * time it is called for a snapshot, it executes a query to choose the read timestamp of the
+ * snapshot. This is a strong read, or a read with a bounded staleness if {@link
+ * SpannerConfiguration#SNAPSHOT_MAX_STALENESS_SECONDS} is set. The read-only staleness of the
+ * connection is then set to that exact timestamp while the rest of the chain is executed, which
+ * means that all queries of the snapshot generators see the same version of the schema.
+ *
+ * <p>The JDBC driver executes the queries for {@link java.sql.DatabaseMetaData} as single-use reads
+ * outside of the current transaction, with the read-only staleness of the connection. The snapshot
+ * is therefore always read in autocommit mode, so these queries and the queries of the snapshot
+ * generators use the same read timestamp. A connection that is not in autocommit mode is switched
+ * to autocommit mode for the snapshot, unless its current transaction has already executed a
+ * statement. The snapshot is then read in that transaction, without a single read timestamp for the
+ * queries of {@link java.sql.DatabaseMetaData}.
+ *
+ * <p>This generator also starts the parallel prefetch of the metadata of the snapshot, see {@link
+ * SnapshotPrefetchSpanner}.
+ *
+ * <p>Liquibase does not notify snapshot generators when a snapshot is finished. The original
+ * read-only staleness and autocommit mode of the connection are therefore restored every time the
+ * outermost snapshot generator chain on this thread finishes, and set for the snapshot again by the
+ * next chain of the same snapshot.
+ */
+public class SnapshotReadTimestampGeneratorSpanner implements SnapshotGenerator {
+  private static final String READ_TIMESTAMP_SCRATCH_KEY = "spanner.snapshotReadTimestamp";
+
+  /** The number of snapshot generator chains that are being executed on this thread. */
+  private static final ThreadLocal<int[]> CHAIN_DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+  /** The original settings of the connections that use a snapshot read timestamp. */
+  private static final Map<CloudSpannerJdbcConnection, ConnectionSettings> ORIGINAL_SETTINGS =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  private static final class ConnectionSettings {
+    private final TimestampBound readOnlyStaleness;
+    private final boolean autoCommit;
+
+    private ConnectionSettings(TimestampBound readOnlyStaleness, boolean autoCommit) {
+      this.readOnlyStaleness = readOnlyStaleness;
+      this.autoCommit = autoCommit;
+    }
+  }
+
+  @Override
+  public int getPriority(Class<? extends DatabaseObject> objectType, Database database) {
+    if (database instanceof ICloudSpanner) {
+      // Always be the first generator in the chain, so the read timestamp is also used for the
+      // generators with PRIORITY_ADDITIONAL.
+      return Integer.MAX_VALUE;
+    }
+    return PRIORITY_NONE;
+  }
+
+  @Override
+  public <T extends DatabaseObject> T snapshot(
+      T example, DatabaseSnapshot snapshot, SnapshotGeneratorChain chain)
+      throws DatabaseException, InvalidExampleException {
+    CloudSpannerJdbcConnection connection =
+        SpannerConnections.getSpannerConnection(snapshot.getDatabase());
+    if (connection == null) {
+      return chain.snapshot(example, snapshot);
+    }
+    int[] depth = CHAIN_DEPTH.get();
+    depth[0]++;
+    try {
+      if (!SpannerConfiguration.SNAPSHOT_SINGLE_READ_TIMESTAMP.getCurrentValue()) {
+        SnapshotPrefetchSpanner.start(snapshot, connection, TimestampBound.strong());
+        return chain.snapshot(example, snapshot);
+      }
+      useSnapshotReadTimestamp(connection, snapshot);
+      Timestamp readTimestamp = (Timestamp) snapshot.getScratchData(READ_TIMESTAMP_SCRATCH_KEY);
+      SnapshotPrefetchSpanner.start(
+          snapshot,
+          connection,
+          readTimestamp == null
+              ? TimestampBound.strong()
+              : TimestampBound.ofReadTimestamp(readTimestamp));
+      return chain.snapshot(example, snapshot);
+    } finally {
+      if (--depth[0] == 0) {
+        restoreConnectionSettings(connection);
+      }
+    }
+  }
+
+  /** Returns true if a snapshot generator chain is being executed on this thread. */
+  public static boolean isSnapshotInProgress() {
+    return CHAIN_DEPTH.get()[0] > 0;
+  }
+
+  /**
+   * Restores the original read-only staleness and autocommit mode of the connection if it is using
+   * the read timestamp of a snapshot.
+   */
+  private static void restoreConnectionSettings(CloudSpannerJdbcConnection connection)
+      throws DatabaseException {
+    ConnectionSettings original = ORIGINAL_SETTINGS.remove(connection);
+    if (original != null) {
+      try {
+        connection.setReadOnlyStaleness(original.readOnlyStaleness);
+        if (!original.autoCommit) {
+          connection.setAutoCommit(false);
+        }
+      } catch (SQLException e) {
+        throw new DatabaseException(e);
+      }
+    }
+  }
+
+  private static void useSnapshotReadTimestamp(
+      CloudSpannerJdbcConnection connection, DatabaseSnapshot snapshot) throws DatabaseException {
+    try {
+      ConnectionSettings original;
+      synchronized (ORIGINAL_SETTINGS) {
+        original = ORIGINAL_SETTINGS.get(connection);
+        if (original == null) {
+          boolean autoCommit = connection.getAutoCommit();
+          // Do not commit a transaction that has already executed statements, and do not leave an
+          // explicit transaction in autocommit mode.
+          if (autoCommit ? connection.isInTransaction() : connection.isTransactionStarted()) {
+            return;
+          }
+          original = new ConnectionSettings(connection.getReadOnlyStaleness(), autoCommit);
+          ORIGINAL_SETTINGS.put(connection, original);
+          if (!autoCommit) {
+            connection.setAutoCommit(true);
+          }
+        }
+      }
+      Timestamp readTimestamp = (Timestamp) snapshot.getScratchData(READ_TIMESTAMP_SCRATCH_KEY);
+      if (readTimestamp == null) {
+        readTimestamp = chooseReadTimestamp(connection, original.readOnlyStaleness);
+        if (readTimestamp == null) {
+          return;
+        }
+        snapshot.setScratchData(READ_TIMESTAMP_SCRATCH_KEY, readTimestamp);
+      }
+      connection.setReadOnlyStaleness(TimestampBound.ofReadTimestamp(readTimestamp));
+    } catch (SQLException e) {
+      throw new DatabaseException(e);
+    }
+  }
+
+  /** Executes a query to determine the read timestamp of a new snapshot. */
+  @Nullable
+  private static Timestamp chooseReadTimestamp(
+      CloudSpannerJdbcConnection connection, TimestampBound original) throws SQLException {
+    int maxStalenessSeconds = SpannerConfiguration.SNAPSHOT_MAX_STALENESS_SECONDS.getCurrentValue();
+    TimestampBound bound =
+        maxStalenessSeconds > 0
+            ? TimestampBound.ofMaxStaleness(maxStalenessSeconds, TimeUnit.SECONDS)
+            : original;
+    connection.setReadOnlyStaleness(bound);
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT 1")) {
+      while (resultSet.next()) {
+        // Consume the result to get the read timestamp.
+      }
+    }
+    java.sql.Timestamp readTimestamp = connection.getReadTimestamp();
+    if (readTimestamp == null) {
+      Scope.getCurrentScope()
+          .getLog(SnapshotReadTimestampGeneratorSpanner.class)
+          .fine("Spanner did not return a read timestamp, snapshot queries use " + bound);
+      return null;
+    }
+    return Timestamp.of(readTimestamp);
+  }
+
+  @Override
+  public Class<? extends DatabaseObject>[] addsTo() {
+    return new Class[0];
+  }
+
+  @Override
+  public Class<? extends SnapshotGenerator>[] replaces() {
+    return new Class[0];
+  }
+}
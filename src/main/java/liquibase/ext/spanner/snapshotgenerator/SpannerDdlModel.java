@@ -0,0 +1,103 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.snapshotgenerator;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import javax.annotation.Nullable;
+import liquibase.structure.core.Relation;
+import liquibase.structure.core.Sequence;
+import liquibase.structure.core.Table;
+import liquibase.structure.core.View;
+
+/**
+ * The tables, views and sequences of a database, as parsed from its DDL statements by {@link
+ * SpannerDdlParser}. The objects are kept in the order of the DDL statements. All lookups are
+ * case-insensitive, as Liquibase can change the case of the names of the objects that are being
+ * snapshotted. A null or empty schema name means the default schema.
+ */
+final class SpannerDdlModel {
+  private final String defaultSchemaName;
+  private final Map<String, Map<String, Relation>> relations = new LinkedHashMap<>();
+  private final Map<String, Map<String, Sequence>> sequences = new LinkedHashMap<>();
+
+  SpannerDdlModel(String defaultSchemaName) {
+    this.defaultSchemaName = defaultSchemaName;
+  }
+
+  /** Returns the name of the given schema, or the name of the default schema if it is empty. */
+  String getSchemaName(@Nullable String schemaName) {
+    return schemaName == null || schemaName.isEmpty() ? defaultSchemaName : schemaName;
+  }
+
+  void addRelation(Relation relation) {
+    relations
+        .computeIfAbsent(
+            key(getSchemaName(relation.getSchema().getName())), k -> new LinkedHashMap<>())
+        .put(key(relation.getName()), relation);
+  }
+
+  void addSequence(Sequence sequence) {
+    sequences
+        .computeIfAbsent(
+            key(getSchemaName(sequence.getSchema().getName())), k -> new LinkedHashMap<>())
+        .put(key(sequence.getName()), sequence);
+  }
+
+  @Nullable
+  Relation getRelation(@Nullable String schemaName, @Nullable String name) {
+    return name == null ? null : getRelationsMap(schemaName).get(key(name));
+  }
+
+  @Nullable
+  Table getTable(@Nullable String schemaName, @Nullable String name) {
+    Relation relation = getRelation(schemaName, name);
+    return relation instanceof Table ? (Table) relation : null;
+  }
+
+  @Nullable
+  View getView(@Nullable String schemaName, @Nullable String name) {
+    Relation relation = getRelation(schemaName, name);
+    return relation instanceof View ? (View) relation : null;
+  }
+
+  @Nullable
+  Sequence getSequence(@Nullable String schemaName, @Nullable String name) {
+    return name == null ? null : getSequencesMap(schemaName).get(key(name));
+  }
+
+  /** Returns the tables and views in the given schema. */
+  Collection<Relation> getRelations(@Nullable String schemaName) {
+    return getRelationsMap(schemaName).values();
+  }
+
+  Collection<Sequence> getSequences(@Nullable String schemaName) {
+    return getSequencesMap(schemaName).values();
+  }
+
+  private Map<String, Relation> getRelationsMap(@Nullable String schemaName) {
+    return relations.getOrDefault(key(getSchemaName(schemaName)), Collections.emptyMap());
+  }
+
+  private Map<String, Sequence> getSequencesMap(@Nullable String schemaName) {
+    return sequences.getOrDefault(key(getSchemaName(schemaName)), Collections.emptyMap());
+  }
+
+  private static String key(String name) {
+    return name.toUpperCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,792 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.snapshotgenerator;
+
+import static liquibase.ext.spanner.snapshotgenerator.DdlSnapshotGeneratorSpanner.GENERATION_EXPRESSION;
+import static liquibase.ext.spanner.snapshotgenerator.DdlSnapshotGeneratorSpanner.INCLUDED_COLUMNS;
+import static liquibase.ext.spanner.snapshotgenerator.DdlSnapshotGeneratorSpanner.INTERLEAVE_IN;
+import static liquibase.ext.spanner.snapshotgenerator.DdlSnapshotGeneratorSpanner.INTERLEAVE_ON_DELETE;
+import static liquibase.ext.spanner.snapshotgenerator.DdlSnapshotGeneratorSpanner.NULL_FILTERED;
+import static liquibase.ext.spanner.snapshotgenerator.DdlSnapshotGeneratorSpanner.ROW_DELETION_POLICY;
+
+import com.google.cloud.spanner.Dialect;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import liquibase.database.Database;
+import liquibase.snapshot.SnapshotControl;
+import liquibase.statement.DatabaseFunction;
+import liquibase.structure.core.Column;
+import liquibase.structure.core.DataType;
+import liquibase.structure.core.ForeignKey;
+import liquibase.structure.core.ForeignKeyConstraintType;
+import liquibase.structure.core.Index;
+import liquibase.structure.core.PrimaryKey;
+import liquibase.structure.core.Schema;
+import liquibase.structure.core.Sequence;
+import liquibase.structure.core.Table;
+import liquibase.structure.core.View;
+import liquibase.util.SqlUtil;
+
+/**
+ * Parses the DDL statements that are returned by GetDatabaseDdl into Liquibase database objects.
+ *
+ * <p>The parser understands the statements that Spanner returns for tables, indexes, foreign keys,
+ * sequences and views in both dialects. Other statements, like change streams and roles, are
+ * ignored. Expressions, like default values and view definitions, are kept as text. Objects are
+ * only created for the types that are included by the {@link SnapshotControl}.
+ */
+final class SpannerDdlParser {
+  /** The name of the primary key of a table in INFORMATION_SCHEMA.INDEXES. */
+  static final String PRIMARY_KEY_NAME = "PRIMARY_KEY";
+
+  /** The keywords that end the data type of a column definition. */
+  private static final Set<String> COLUMN_OPTION_KEYWORDS =
+      new HashSet<>(
+          Arrays.asList(
+              "NOT",
+              "NULL",
+              "DEFAULT",
+              "AS",
+              "GENERATED",
+              "AUTO_INCREMENT",
+              "IDENTITY",
+              "OPTIONS",
+              "HIDDEN",
+              "PRIMARY",
+              "REFERENCES",
+              "CONSTRAINT",
+              "CHECK",
+              "UNIQUE"));
+
+  private enum TokenType {
+    WORD,
+    QUOTED_IDENTIFIER,
+    STRING,
+    NUMBER,
+    SYMBOL
+  }
+
+  private static final class Token {
+    final TokenType type;
+    /** The text of the token, without the quotes for quoted identifiers. */
+    final String value;
+
+    final int start;
+    final int end;
+
+    Token(TokenType type, String value, int start, int end) {
+      this.type = type;
+      this.value = value;
+      this.start = start;
+      this.end = end;
+    }
+  }
+
+  private static final class KeyColumn {
+    final String name;
+    final boolean descending;
+
+    KeyColumn(String name, boolean descending) {
+      this.name = name;
+      this.descending = descending;
+    }
+  }
+
+  private final Dialect dialect;
+  private final Database database;
+  private final SnapshotControl control;
+  private final SpannerDdlModel model;
+  private final Map<String, Schema> schemas = new HashMap<>();
+  private final List<ForeignKey> foreignKeys = new ArrayList<>();
+
+  private String sql;
+  private List<Token> tokens;
+  private int pos;
+
+  SpannerDdlParser(
+      Dialect dialect, String defaultSchemaName, Database database, SnapshotControl control) {
+    this.dialect = dialect;
+    this.database = database;
+    this.control = control;
+    this.model = new SpannerDdlModel(defaultSchemaName);
+  }
+
+  /**
+   * Parses the given DDL statements.
+   *
+   * @throws IllegalArgumentException if one of the statements cannot be parsed
+   */
+  SpannerDdlModel parse(Iterable<String> statements) {
+    for (String statement : statements) {
+      parseStatement(statement);
+    }
+    // Foreign keys can reference tables that are created by later statements.
+    for (ForeignKey foreignKey : foreignKeys) {
+      Table placeholder = foreignKey.getPrimaryKeyTable();
+      Table table = model.getTable(placeholder.getSchema().getName(), placeholder.getName());
+      if (table != null) {
+        foreignKey.setPrimaryKeyTable(table);
+        for (Column column : foreignKey.getPrimaryKeyColumns()) {
+          column.setRelation(table);
+        }
+      }
+    }
+    return model;
+  }
+
+  private void parseStatement(String statement) {
+    sql = statement;
+    tokens = tokenize(statement);
+    pos = 0;
+    if (acceptKeywords("CREATE")) {
+      acceptKeywords("OR", "REPLACE");
+      if (acceptKeywords("TABLE")) {
+        createTable();
+      } else if (isKeyword(0, "UNIQUE") || isKeyword(0, "NULL_FILTERED") || isKeyword(0, "INDEX")) {
+        createIndex();
+      } else if (acceptKeywords("SEQUENCE")) {
+        createSequence();
+      } else if (acceptKeywords("VIEW")) {
+        createView();
+      }
+    } else if (acceptKeywords("ALTER", "TABLE")) {
+      alterTable();
+    }
+  }
+
+  private void createTable() {
+    acceptKeywords("IF", "NOT", "EXISTS");
+    String[] name = qualifiedName();
+    Table table = new Table();
+    table.setName(name[1]);
+    table.setSchema(getSchema(name[0]));
+    List<KeyColumn> primaryKey = new ArrayList<>();
+    expectSymbol('(');
+    // GoogleSQL-dialect databases return a comma after the last column.
+    while (!acceptSymbol(')')) {
+      tableElement(table, primaryKey);
+      if (!acceptSymbol(',')) {
+        expectSymbol(')');
+        break;
+      }
+    }
+    while (!atEnd()) {
+      if (acceptKeywords("PRIMARY", "KEY")) {
+        primaryKey.addAll(keyColumns());
+      } else if (acceptKeywords("INTERLEAVE", "IN")) {
+        boolean parent = acceptKeywords("PARENT");
+        table.setAttribute(INTERLEAVE_IN, qualifiedNameText());
+        String onDelete = onDelete();
+        if (parent) {
+          table.setAttribute(INTERLEAVE_ON_DELETE, onDelete == null ? "NO ACTION" : onDelete);
+        }
+      } else if (acceptKeywords("ROW", "DELETION", "POLICY")) {
+        table.setAttribute(ROW_DELETION_POLICY, parenthesized());
+      } else if (acceptKeywords("TTL")) {
+        table.setAttribute(ROW_DELETION_POLICY, readUntil(Collections.emptySet(), false));
+      } else if (acceptKeywords("OPTIONS")) {
+        parenthesized();
+      } else {
+        pos++;
+      }
+    }
+    if (!primaryKey.isEmpty() && control.shouldInclude(PrimaryKey.class)) {
+      PrimaryKey key = new PrimaryKey();
+      key.setName(PRIMARY_KEY_NAME);
+      key.setTable(table);
+      Index backingIndex = new Index();
+      backingIndex.setName(PRIMARY_KEY_NAME);
+      backingIndex.setRelation(table);
+      backingIndex.setUnique(true);
+      backingIndex.setClustered(true);
+      for (int i = 0; i < primaryKey.size(); i++) {
+        KeyColumn column = primaryKey.get(i);
+        key.addColumn(
+            i,
+            new Column(column.name)
+                .setDescending(column.descending ? Boolean.TRUE : null)
+                .setRelation(table));
+        backingIndex.addColumn(
+            new Column(column.name).setDescending(column.descending).setRelation(table));
+      }
+      key.setBackingIndex(backingIndex);
+      table.setPrimaryKey(key);
+      if (control.shouldInclude(Index.class)) {
+        table.getIndexes().add(backingIndex);
+      }
+    }
+    model.addRelation(table);
+  }
+
+  /** Parses a column definition or a table constraint. */
+  private void tableElement(Table table, List<KeyColumn> primaryKey) {
+    String constraintName = null;
+    if (isKeyword(0, "CONSTRAINT")
+        && (isKeyword(2, "FOREIGN") || isKeyword(2, "CHECK") || isKeyword(2, "PRIMARY"))) {
+      pos++;
+      constraintName = identifier();
+    }
+    if (acceptKeywords("FOREIGN", "KEY")) {
+      foreignKey(table, constraintName);
+    } else if (acceptKeywords("PRIMARY", "KEY")) {
+      primaryKey.addAll(keyColumns());
+    } else if (isKeyword(0, "CHECK") && isSymbol(1, '(')) {
+      pos++;
+      parenthesized();
+    } else if (isKeyword(0, "SYNONYM") && isSymbol(1, '(')) {
+      pos++;
+      parenthesized();
+    } else {
+      column(table, primaryKey);
+    }
+    // Skip the remainder of the element, e.g. NOT ENFORCED.
+    readUntil(Collections.emptySet(), false);
+  }
+
+  private void column(Table table, List<KeyColumn> primaryKey) {
+    String name = identifier();
+    String type =
+        readUntil(COLUMN_OPTION_KEYWORDS, dialect == Dialect.GOOGLE_STANDARD_SQL)
+            .trim()
+            .replaceAll("\\s+", " ");
+    boolean nullable = true;
+    String defaultValue = null;
+    String generationExpression = null;
+    while (!atEnd() && !isSymbol(0, ',') && !isSymbol(0, ')')) {
+      if (acceptKeywords("NOT", "NULL")) {
+        nullable = false;
+      } else if (acceptKeywords("NULL")) {
+        nullable = true;
+      } else if (acceptKeywords("DEFAULT")) {
+        // GoogleSQL requires parentheses around default values, PostgreSQL does not.
+        defaultValue =
+            dialect == Dialect.POSTGRESQL
+                ? readUntil(COLUMN_OPTION_KEYWORDS, false).trim()
+                : parenthesized();
+      } else if (acceptKeywords("AS")) {
+        generationExpression = parenthesized();
+      } else if (acceptKeywords("GENERATED")) {
+        if (!acceptKeywords("ALWAYS")) {
+          acceptKeywords("BY", "DEFAULT");
+        }
+        expectKeywords("AS");
+        if (acceptKeywords("IDENTITY")) {
+          if (isSymbol(0, '(')) {
+            parenthesized();
+          }
+        } else {
+          generationExpression = parenthesized();
+        }
+      } else if (acceptKeywords("IDENTITY")) {
+        if (isSymbol(0, '(')) {
+          parenthesized();
+        }
+      } else if (acceptKeywords("PRIMARY", "KEY")) {
+        primaryKey.add(new KeyColumn(name, false));
+      } else if (acceptKeywords("OPTIONS") || acceptKeywords("CHECK")) {
+        parenthesized();
+      } else if (acceptKeywords("REFERENCES")) {
+        qualifiedName();
+        if (isSymbol(0, '(')) {
+          parenthesized();
+        }
+        onDelete();
+      } else {
+        // STORED, HIDDEN, AUTO_INCREMENT, CONSTRAINT <name>, ...
+        pos++;
+      }
+    }
+    if (!control.shouldInclude(Column.class)) {
+      return;
+    }
+    Column column = new Column();
+    column.setName(name);
+    column.setRelation(table);
+    column.setOrder(table.getColumns().size() + 1);
+    column.setType(
+        new DataType(
+            dialect == Dialect.POSTGRESQL
+                ? ColumnSnapshotGeneratorSpanner.toPostgreSQLDataType(type)
+                : type));
+    column.setNullable(nullable);
+    if (defaultValue != null) {
+      column.setDefaultValue(toDefaultValue(defaultValue, column.getType()));
+    }
+    if (generationExpression != null) {
+      column.setAttribute(GENERATION_EXPRESSION, generationExpression);
+    }
+    table.addColumn(column);
+  }
+
+  /** Converts a default value expression in the same way as for INFORMATION_SCHEMA snapshots. */
+  private Object toDefaultValue(String expression, DataType type) {
+    if (database.isFunction(expression)) {
+      return new DatabaseFunction(
+          expression.matches("\\w+") ? expression.toUpperCase(Locale.ROOT) : expression);
+    }
+    return SqlUtil.parseValue(database, expression, type);
+  }
+
+  private void foreignKey(Table table, @Nullable String name) {
+    List<String> columns = identifierList();
+    expectKeywords("REFERENCES");
+    String[] referencedName = qualifiedName();
+    List<String> referencedColumns = identifierList();
+    String onDelete = onDelete();
+    // Spanner always returns the generated names of unnamed foreign keys.
+    if (name == null || !control.shouldInclude(ForeignKey.class)) {
+      return;
+    }
+    Table referencedTable = new Table();
+    referencedTable.setName(referencedName[1]);
+    referencedTable.setSchema(getSchema(referencedName[0]));
+    ForeignKey foreignKey = new ForeignKey();
+    foreignKey.setName(name);
+    foreignKey.setForeignKeyTable(table);
+    for (String column : columns) {
+      foreignKey.addForeignKeyColumn(new Column(column).setRelation(table));
+    }
+    foreignKey.setPrimaryKeyTable(referencedTable);
+    for (String column : referencedColumns) {
+      foreignKey.addPrimaryKeyColumn(new Column(column).setRelation(referencedTable));
+    }
+    foreignKey.setDeleteRule(
+        "CASCADE".equals(onDelete)
+            ? ForeignKeyConstraintType.importedKeyCascade
+            : ForeignKeyConstraintType.importedKeyNoAction);
+    foreignKey.setUpdateRule(ForeignKeyConstraintType.importedKeyNoAction);
+    table.getOutgoingForeignKeys().add(foreignKey);
+    foreignKeys.add(foreignKey);
+  }
+
+  private void alterTable() {
+    String[] name = qualifiedName();
+    Table table = model.getTable(name[0], name[1]);
+    if (table == null || !acceptKeywords("ADD")) {
+      return;
+    }
+    String constraintName = null;
+    if (acceptKeywords("CONSTRAINT")) {
+      constraintName = identifier();
+    }
+    if (acceptKeywords("FOREIGN", "KEY")) {
+      foreignKey(table, constraintName);
+    } else if (acceptKeywords("ROW", "DELETION", "POLICY")) {
+      table.setAttribute(ROW_DELETION_POLICY, parenthesized());
+    } else if (acceptKeywords("TTL")) {
+      table.setAttribute(ROW_DELETION_POLICY, readUntil(Collections.emptySet(), false));
+    }
+  }
+
+  private void createIndex() {
+    boolean unique = acceptKeywords("UNIQUE");
+    boolean nullFiltered = acceptKeywords("NULL_FILTERED");
+    expectKeywords("INDEX");
+    acceptKeywords("IF", "NOT", "EXISTS");
+    String[] name = qualifiedName();
+    expectKeywords("ON");
+    String[] tableName = qualifiedName();
+    if (acceptKeywords("USING")) {
+      identifier();
+    }
+    List<KeyColumn> columns = keyColumns();
+    List<String> includedColumns = null;
+    String interleaveIn = null;
+    while (!atEnd()) {
+      if (acceptKeywords("STORING") || acceptKeywords("INCLUDE")) {
+        includedColumns = identifierList();
+      } else if (acceptKeywords("INTERLEAVE", "IN")) {
+        interleaveIn = qualifiedNameText();
+      } else if (acceptKeywords("WHERE")) {
+        // PostgreSQL-dialect databases only support IS NOT NULL filters.
+        nullFiltered = true;
+        pos = tokens.size();
+      } else if (acceptKeywords("OPTIONS")) {
+        parenthesized();
+      } else {
+        pos++;
+      }
+    }
+    Table table = model.getTable(tableName[0], tableName[1]);
+    if (table == null || !control.shouldInclude(Index.class)) {
+      return;
+    }
+    Index index = new Index();
+    index.setName(name[1]);
+    index.setRelation(table);
+    index.setUnique(unique);
+    for (KeyColumn column : columns) {
+      index.addColumn(new Column(column.name).setDescending(column.descending).setRelation(table));
+    }
+    if (includedColumns != null) {
+      index.setAttribute(INCLUDED_COLUMNS, includedColumns);
+    }
+    if (nullFiltered) {
+      index.setAttribute(NULL_FILTERED, true);
+    }
+    if (interleaveIn != null) {
+      index.setAttribute(INTERLEAVE_IN, interleaveIn);
+    }
+    table.getIndexes().add(index);
+  }
+
+  private void createSequence() {
+    acceptKeywords("IF", "NOT", "EXISTS");
+    String[] name = qualifiedName();
+    BigInteger startValue = null;
+    while (!atEnd()) {
+      if (acceptKeywords("OPTIONS")) {
+        expectSymbol('(');
+        do {
+          String option = identifier();
+          expectSymbol('=');
+          String value = readUntil(Collections.emptySet(), false).trim();
+          if ("start_with_counter".equalsIgnoreCase(option)) {
+            startValue = new BigInteger(value);
+          }
+        } while (acceptSymbol(','));
+        expectSymbol(')');
+      } else if (acceptKeywords("START", "COUNTER")) {
+        acceptKeywords("WITH");
+        startValue = new BigInteger(readUntil(Collections.emptySet(), false).trim());
+      } else {
+        // BIT_REVERSED_POSITIVE, SKIP RANGE <min> <max>
+        pos++;
+      }
+    }
+    if (!control.shouldInclude(Sequence.class)) {
+      return;
+    }
+    Sequence sequence = new Sequence();
+    sequence.setName(name[1]);
+    sequence.setSchema(getSchema(name[0]));
+    sequence.setStartValue(startValue);
+    model.addSequence(sequence);
+  }
+
+  private void createView() {
+    String[] name = qualifiedName();
+    // Skip SQL SECURITY INVOKER|DEFINER.
+    while (!atEnd() && !acceptKeywords("AS")) {
+      pos++;
+    }
+    if (atEnd()) {
+      throw error("Missing view definition");
+    }
+    if (!control.shouldInclude(View.class)) {
+      return;
+    }
+    View view = new View();
+    view.setName(name[1]);
+    view.setSchema(getSchema(name[0]));
+    view.setDefinition(text(pos, tokens.size()));
+    model.addRelation(view);
+  }
+
+  private Schema getSchema(@Nullable String schemaName) {
+    String name = model.getSchemaName(schemaName);
+    return schemas.computeIfAbsent(
+        name.toUpperCase(Locale.ROOT), key -> new Schema(database.getDefaultCatalogName(), name));
+  }
+
+  /** Parses an optional ON DELETE clause and returns its action. */
+  @Nullable
+  private String onDelete() {
+    if (!acceptKeywords("ON", "DELETE")) {
+      return null;
+    }
+    if (acceptKeywords("CASCADE")) {
+      return "CASCADE";
+    }
+    expectKeywords("NO", "ACTION");
+    return "NO ACTION";
+  }
+
+  /** Parses a parenthesized list of key columns with an optional sort order. */
+  private List<KeyColumn> keyColumns() {
+    List<KeyColumn> columns = new ArrayList<>();
+    expectSymbol('(');
+    if (acceptSymbol(')')) {
+      return columns;
+    }
+    do {
+      String name = identifier();
+      boolean descending = acceptKeywords("DESC");
+      if (!descending) {
+        acceptKeywords("ASC");
+      }
+      if (acceptKeywords("NULLS") && !acceptKeywords("FIRST")) {
+        expectKeywords("LAST");
+      }
+      columns.add(new KeyColumn(name, descending));
+    } while (acceptSymbol(','));
+    expectSymbol(')');
+    return columns;
+  }
+
+  private List<String> identifierList() {
+    List<String> identifiers = new ArrayList<>();
+    expectSymbol('(');
+    if (acceptSymbol(')')) {
+      return identifiers;
+    }
+    do {
+      identifiers.add(identifier());
+    } while (acceptSymbol(','));
+    expectSymbol(')');
+    return identifiers;
+  }
+
+  /** Parses a name that can be qualified with a schema, and returns the schema and the name. */
+  private String[] qualifiedName() {
+    String schema = null;
+    String name = identifier();
+    while (acceptSymbol('.')) {
+      schema = schema == null ? name : schema + "." + name;
+      name = identifier();
+    }
+    return new String[] {schema, name};
+  }
+
+  private String qualifiedNameText() {
+    String[] name = qualifiedName();
+    return name[0] == null ? name[1] : name[0] + "." + name[1];
+  }
+
+  private String identifier() {
+    Token token = atEnd() ? null : tokens.get(pos);
+    if (token == null
+        || (token.type != TokenType.WORD && token.type != TokenType.QUOTED_IDENTIFIER)) {
+      throw error("Expected an identifier");
+    }
+    pos++;
+    return token.value;
+  }
+
+  /** Parses a parenthesized expression and returns the text between the parentheses. */
+  private String parenthesized() {
+    expectSymbol('(');
+    int start = pos;
+    int depth = 1;
+    while (true) {
+      if (atEnd()) {
+        throw error("Missing )");
+      }
+      Token token = tokens.get(pos++);
+      if (token.type == TokenType.SYMBOL) {
+        if (token.value.equals("(")) {
+          depth++;
+        } else if (token.value.equals(")") && --depth == 0) {
+          return text(start, pos - 1);
+        }
+      }
+    }
+  }
+
+  /**
+   * Skips to the next comma or closing parenthesis at the current level, or to the next of the
+   * given keywords, and returns the skipped text. Angle brackets are only counted as brackets if
+   * {@code angleBrackets} is true, which is used for GoogleSQL types like ARRAY&lt;STRUCT&lt;a
+   * INT64, b INT64&gt;&gt;.
+   */
+  private String readUntil(Set<String> stopKeywords, boolean angleBrackets) {
+    int start = pos;
+    int parentheses = 0;
+    int brackets = 0;
+    while (!atEnd()) {
+      Token token = tokens.get(pos);
+      boolean topLevel = parentheses == 0 && brackets == 0;
+      if (token.type == TokenType.SYMBOL) {
+        char symbol = token.value.charAt(0);
+        if (topLevel && (symbol == ',' || symbol == ')')) {
+          break;
+        }
+        if (symbol == '(') {
+          parentheses++;
+        } else if (symbol == ')') {
+          parentheses--;
+        } else if (angleBrackets && parentheses == 0 && symbol == '<') {
+          brackets++;
+        } else if (angleBrackets && parentheses == 0 && symbol == '>' && brackets > 0) {
+          brackets--;
+        }
+      } else if (topLevel
+          && token.type == TokenType.WORD
+          && stopKeywords.contains(token.value.toUpperCase(Locale.ROOT))) {
+        break;
+      }
+      pos++;
+    }
+    return text(start, pos);
+  }
+
+  /** Returns the original text of the tokens from {@code from} (inclusive) to {@code to}. */
+  private String text(int from, int to) {
+    return from >= to ? "" : sql.substring(tokens.get(from).start, tokens.get(to - 1).end);
+  }
+
+  private boolean atEnd() {
+    return pos >= tokens.size();
+  }
+
+  private boolean isKeyword(int offset, String keyword) {
+    int index = pos + offset;
+    return index < tokens.size()
+        && tokens.get(index).type == TokenType.WORD
+        && tokens.get(index).value.equalsIgnoreCase(keyword);
+  }
+
+  private boolean acceptKeywords(String... keywords) {
+    for (int i = 0; i < keywords.length; i++) {
+      if (!isKeyword(i, keywords[i])) {
+        return false;
+      }
+    }
+    pos += keywords.length;
+    return true;
+  }
+
+  private void expectKeywords(String... keywords) {
+    if (!acceptKeywords(keywords)) {
+      throw error("Expected " + String.join(" ", keywords));
+    }
+  }
+
+  private boolean isSymbol(int offset, char symbol) {
+    int index = pos + offset;
+    return index < tokens.size()
+        && tokens.get(index).type == TokenType.SYMBOL
+        && tokens.get(index).value.charAt(0) == symbol;
+  }
+
+  private boolean acceptSymbol(char symbol) {
+    if (isSymbol(0, symbol)) {
+      pos++;
+      return true;
+    }
+    return false;
+  }
+
+  private void expectSymbol(char symbol) {
+    if (!acceptSymbol(symbol)) {
+      throw error("Expected " + symbol);
+    }
+  }
+
+  private IllegalArgumentException error(String message) {
+    int offset = atEnd() ? sql.length() : tokens.get(pos).start;
+    return new IllegalArgumentException(
+        message + " at position " + offset + " of DDL statement: " + sql);
+  }
+
+  private List<Token> tokenize(String statement) {
+    List<Token> result = new ArrayList<>();
+    int length = statement.length();
+    int i = 0;
+    while (i < length) {
+      char c = statement.charAt(i);
+      int start = i;
+      if (Character.isWhitespace(c)) {
+        i++;
+      } else if (statement.startsWith("--", i)
+          || (c == '#' && dialect == Dialect.GOOGLE_STANDARD_SQL)) {
+        int end = statement.indexOf('\n', i);
+        i = end < 0 ? length : end + 1;
+      } else if (statement.startsWith("/*", i)) {
+        int end = statement.indexOf("*/", i + 2);
+        i = end < 0 ? length : end + 2;
+      } else if (Character.isLetter(c) || c == '_') {
+        while (i < length
+            && (Character.isLetterOrDigit(statement.charAt(i))
+                || statement.charAt(i) == '_'
+                || statement.charAt(i) == '$')) {
+          i++;
+        }
+        result.add(new Token(TokenType.WORD, statement.substring(start, i), start, i));
+      } else if (Character.isDigit(c)) {
+        while (i < length
+            && (Character.isLetterOrDigit(statement.charAt(i)) || statement.charAt(i) == '.')) {
+          i++;
+        }
+        result.add(new Token(TokenType.NUMBER, statement.substring(start, i), start, i));
+      } else if (c == '`' || (c == '"' && dialect == Dialect.POSTGRESQL)) {
+        StringBuilder value = new StringBuilder();
+        i++;
+        while (true) {
+          if (i >= length) {
+            throw new IllegalArgumentException("Unterminated identifier in: " + statement);
+          }
+          char next = statement.charAt(i++);
+          if (next == c) {
+            if (i < length && statement.charAt(i) == c) {
+              value.append(c);
+              i++;
+            } else {
+              break;
+            }
+          } else {
+            value.append(next);
+          }
+        }
+        result.add(new Token(TokenType.QUOTED_IDENTIFIER, value.toString(), start, i));
+      } else if (c == '\'' || c == '"') {
+        i = skipString(statement, i);
+        result.add(new Token(TokenType.STRING, statement.substring(start, i), start, i));
+      } else {
+        i++;
+        result.add(new Token(TokenType.SYMBOL, String.valueOf(c), start, i));
+      }
+    }
+    return result;
+  }
+
+  /** Returns the position after the string literal that starts at the given position. */
+  private int skipString(String statement, int start) {
+    char quote = statement.charAt(start);
+    boolean googleSql = dialect == Dialect.GOOGLE_STANDARD_SQL;
+    String tripleQuote = new String(new char[] {quote, quote, quote});
+    boolean triple = googleSql && statement.startsWith(tripleQuote, start);
+    int i = start + (triple ? 3 : 1);
+    while (i < statement.length()) {
+      char c = statement.charAt(i);
+      if (googleSql && c == '\\') {
+        i += 2;
+      } else if (triple) {
+        if (statement.startsWith(tripleQuote, i)) {
+          return i + 3;
+        }
+        i++;
+      } else if (c == quote) {
+        // PostgreSQL escapes quotes by doubling them.
+        if (!googleSql && i + 1 < statement.length() && statement.charAt(i + 1) == quote) {
+          i += 2;
+        } else {
+          return i + 1;
+        }
+      } else {
+        i++;
+      }
+    }
+    throw new IllegalArgumentException("Unterminated string literal in: " + statement);
+  }
+}
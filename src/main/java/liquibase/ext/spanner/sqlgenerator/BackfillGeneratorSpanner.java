@@ -0,0 +1,51 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.sqlgenerator;
+
+import liquibase.database.Database;
+import liquibase.exception.ValidationErrors;
+import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.sql.Sql;
+import liquibase.sqlgenerator.SqlGeneratorChain;
+import liquibase.sqlgenerator.SqlGeneratorFactory;
+import liquibase.sqlgenerator.core.AbstractSqlGenerator;
+
+/**
+ * {@link BackfillStatementSpanner} is executed directly by the executor. The generated SQL is the
+ * statement for the whole table, in which {@link SpannerBackfill#RANGE_PREDICATE} evaluates to
+ * TRUE, and is used for update-sql.
+ */
+public class BackfillGeneratorSpanner extends AbstractSqlGenerator<BackfillStatementSpanner> {
+
+  @Override
+  public boolean supports(BackfillStatementSpanner statement, Database database) {
+    return database instanceof ICloudSpanner;
+  }
+
+  @Override
+  public ValidationErrors validate(
+      BackfillStatementSpanner statement,
+      Database database,
+      SqlGeneratorChain<BackfillStatementSpanner> sqlGeneratorChain) {
+    return SqlGeneratorFactory.getInstance().validate(statement.getStatement(), database);
+  }
+
+  @Override
+  public Sql[] generateSql(
+      BackfillStatementSpanner statement,
+      Database database,
+      SqlGeneratorChain<BackfillStatementSpanner> sqlGeneratorChain) {
+    return SqlGeneratorFactory.getInstance().generateSql(statement.getStatement(), database);
+  }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.sqlgenerator;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.database.PreparedStatementFactory;
+import liquibase.exception.DatabaseException;
+import liquibase.executor.jvm.JdbcExecutor;
+import liquibase.sql.Sql;
+import liquibase.sqlgenerator.SqlGeneratorFactory;
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.ExecutablePreparedStatement;
+import liquibase.statement.SqlStatement;
+
+/**
+ * Executes the UPDATE or DELETE statement that is generated for another statement with {@link
+ * SpannerBackfill}, i.e. in parallel transactions that each cover a range of primary keys. The
+ * WHERE clause of the generated statement must contain {@link SpannerBackfill#RANGE_PREDICATE}.
+ */
+public class BackfillStatementSpanner extends AbstractSqlStatement
+    implements ExecutablePreparedStatement {
+  private final Database database;
+  private final String schemaName;
+  private final String tableName;
+  private final SqlStatement statement;
+
+  public BackfillStatementSpanner(
+      Database database,
+      @Nullable String schemaName,
+      String tableName,
+      SqlStatement statement) {
+    this.database = database;
+    this.schemaName = schemaName;
+    this.tableName = tableName;
+    this.statement = statement;
+  }
+
+  public String getTableName() {
+    return tableName;
+  }
+
+  /** The statement whose generated SQL is executed in key ranges. */
+  public SqlStatement getStatement() {
+    return statement;
+  }
+
+  @Override
+  public void execute(PreparedStatementFactory factory) throws DatabaseException {
+    long rows = 0L;
+    for (Sql sql : SqlGeneratorFactory.getInstance().generateSql(statement, database)) {
+      rows += SpannerBackfill.run(database, schemaName, tableName, sql.toSql());
+    }
+    AtomicInteger rowsAffected =
+        Scope.getCurrentScope().get(JdbcExecutor.ROWS_AFFECTED_SCOPE_KEY, AtomicInteger.class);
+    if (rowsAffected != null) {
+      rowsAffected.addAndGet((int) Math.min(Integer.MAX_VALUE, rows));
+    }
+  }
+}
@@ -17,10 +17,12 @@ import com.google.cloud.spanner.Dialect;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 import liquibase.database.Database;
 import liquibase.exception.LiquibaseException;
 import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.ext.spanner.SpannerConfiguration;
 import liquibase.sql.Sql;
 import liquibase.sql.UnparsedSql;
 import liquibase.sqlgenerator.SqlGeneratorChain;
@@ -38,13 +40,22 @@ public class InsertOrUpdateGeneratorSpanner extends InsertOrUpdateGenerator {
       InsertOrUpdateStatement insertOrUpdateStatement,
       Database database,
       SqlGeneratorChain sqlGeneratorChain) {
-    // Cloud Spanner does not have an UPSERT / MERGE DML statement, so we will generate both an
-    // INSERT and an UPDATE statement. The INSERT statement will check whether the record already
-    // exists, and only insert it in that case. The record is always updated.
+    // By default, we generate both an INSERT and an UPDATE statement. The INSERT statement will
+    // check whether the record already exists, and only insert it in that case. The record is
+    // always updated.
     //
-    // The most efficient way to do this in Cloud Spanner would be to use an InsertOrUpdate
-    // mutation. That is however not supported through Liquibase, as it requires the update to use
-    // SQL.
+    // If insertOrUpdateDml has been enabled, a single INSERT OR UPDATE (GoogleSQL) or
+    // INSERT ... ON CONFLICT DO UPDATE (PostgreSQL) statement is generated instead. The most
+    // efficient way to do this in Cloud Spanner is an InsertOrUpdate mutation. That is used by
+    // loadUpdateData if loadDataWithMutations has been enabled, see LoadUpdateDataChangeSpanner.
+    if (useInsertOrUpdateDml(insertOrUpdateStatement, database)) {
+      return new Sql[] {
+        new UnparsedSql(
+            getInsertOrUpdateStatement(insertOrUpdateStatement, database, sqlGeneratorChain),
+            "",
+            getAffectedTable(insertOrUpdateStatement))
+      };
+    }
     ArrayList<Sql> sqlList = new ArrayList<>(2);
     if (!insertOrUpdateStatement.getOnlyUpdate()) {
       sqlList.add(
@@ -70,6 +81,38 @@ public class InsertOrUpdateGeneratorSpanner extends InsertOrUpdateGenerator {
     return sqlList.toArray(new Sql[sqlList.size()]);
   }
 
+  private boolean useInsertOrUpdateDml(
+      InsertOrUpdateStatement insertOrUpdateStatement, Database database) {
+    if (!Boolean.TRUE.equals(SpannerConfiguration.INSERT_OR_UPDATE_DML.getCurrentValue())
+        || insertOrUpdateStatement.getOnlyUpdate()) {
+      return false;
+    }
+    if (((ICloudSpanner) database).getDialect() == Dialect.POSTGRESQL) {
+      // ON CONFLICT DO UPDATE only updates the columns that allow updates.
+      return true;
+    }
+    // INSERT OR UPDATE always updates all columns.
+    for (String column : insertOrUpdateStatement.getColumnValues().keySet()) {
+      if (!insertOrUpdateStatement.getAllowColumnUpdate(column)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String getInsertOrUpdateStatement(
+      InsertOrUpdateStatement insertOrUpdateStatement,
+      Database database,
+      SqlGeneratorChain sqlGeneratorChain) {
+    if (((ICloudSpanner) database).getDialect() == Dialect.POSTGRESQL) {
+      return getInsertStatement(insertOrUpdateStatement, database, sqlGeneratorChain);
+    }
+    String insert =
+        new InsertWithSelectGeneratorSpanner()
+            .generateSql(insertOrUpdateStatement, database, sqlGeneratorChain)[0].toSql();
+    return "INSERT OR UPDATE " + insert.substring("INSERT ".length());
+  }
+
   @Override
   protected String getInsertStatement(
       InsertOrUpdateStatement insertOrUpdateStatement,
@@ -84,27 +127,7 @@ public class InsertOrUpdateGeneratorSpanner extends InsertOrUpdateGenerator {
     StringBuilder sql = new StringBuilder(baseInsertSql);
 
     if (dialect == Dialect.POSTGRESQL) {
-      // This ensures that if the row already exists, it will be updated with new values.
-      sql.append(" ON CONFLICT (")
-          .append(
-              Arrays.stream(insertOrUpdateStatement.getPrimaryKey().split(","))
-                  .map(String::trim)
-                  .collect(Collectors.joining(", ")))
-          .append(") DO ");
-      List<String> updateClauses = new ArrayList<>();
-      for (String columnKey : insertOrUpdateStatement.getColumnValues().keySet()) {
-        if (insertOrUpdateStatement.getAllowColumnUpdate(columnKey)) {
-          String escapedCol = database.escapeColumnName(null, null, null, columnKey);
-          updateClauses.add(escapedCol + " = excluded." + escapedCol);
-        }
-      }
-      if (updateClauses.isEmpty()) {
-        // If there's nothing to update, fall back to DO NOTHING
-        sql.append("NOTHING");
-      } else {
-        sql.append("UPDATE SET ").append(String.join(", ", updateClauses));
-      }
-
+      appendOnConflict(sql, insertOrUpdateStatement, database);
     } else {
       // Cloud Spanner workaround: simulate "INSERT IF NOT EXISTS" using SELECT-FROM-UNNEST.
       // This logic predates Spanner's native UPSERT support and is kept for backward compatibility.
@@ -126,6 +149,114 @@ public class InsertOrUpdateGeneratorSpanner extends InsertOrUpdateGenerator {
     return sql.toString();
   }
 
+  private void appendOnConflict(
+      StringBuilder sql, InsertOrUpdateStatement insertOrUpdateStatement, Database database) {
+    // This ensures that if the row already exists, it will be updated with new values.
+    sql.append(" ON CONFLICT (")
+        .append(String.join(", ", getPrimaryKeyColumns(insertOrUpdateStatement)))
+        .append(") DO ");
+    List<String> updateClauses = new ArrayList<>();
+    for (String columnKey : insertOrUpdateStatement.getColumnValues().keySet()) {
+      if (insertOrUpdateStatement.getAllowColumnUpdate(columnKey)) {
+        String escapedCol = database.escapeColumnName(null, null, null, columnKey);
+        updateClauses.add(escapedCol + " = excluded." + escapedCol);
+      }
+    }
+    if (updateClauses.isEmpty()) {
+      // If there's nothing to update, fall back to DO NOTHING
+      sql.append("NOTHING");
+    } else {
+      sql.append("UPDATE SET ").append(String.join(", ", updateClauses));
+    }
+  }
+
+  private static List<String> getPrimaryKeyColumns(
+      InsertOrUpdateStatement insertOrUpdateStatement) {
+    return Arrays.stream(insertOrUpdateStatement.getPrimaryKey().split(","))
+        .map(String::trim)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Generates the same statements as {@link #generateSql}, but with positional query parameters
+   * instead of literals. The values of the statement are ignored, which means that the same SQL
+   * strings are generated for all rows with the same columns.
+   */
+  public List<ParameterizedSql> generateParameterizedSql(
+      InsertOrUpdateStatement insertOrUpdateStatement, Database database) {
+    Dialect dialect = ((ICloudSpanner) database).getDialect();
+    ParameterizedSql insert =
+        new InsertWithSelectGeneratorSpanner()
+            .generateParameterizedSql(insertOrUpdateStatement, database);
+    List<ParameterizedSql> result = new ArrayList<>(2);
+    if (useInsertOrUpdateDml(insertOrUpdateStatement, database)) {
+      if (dialect == Dialect.POSTGRESQL) {
+        StringBuilder sql = new StringBuilder(insert.getSql());
+        appendOnConflict(sql, insertOrUpdateStatement, database);
+        result.add(new ParameterizedSql(sql.toString(), insert.getParameterColumns()));
+      } else {
+        result.add(
+            new ParameterizedSql(
+                "INSERT OR UPDATE " + insert.getSql().substring("INSERT ".length()),
+                insert.getParameterColumns()));
+      }
+      return result;
+    }
+
+    String table =
+        database.escapeTableName(
+            insertOrUpdateStatement.getCatalogName(),
+            insertOrUpdateStatement.getSchemaName(),
+            insertOrUpdateStatement.getTableName());
+    List<String> primaryKey = getPrimaryKeyColumns(insertOrUpdateStatement);
+    StringBuilder where = new StringBuilder();
+    for (String column : primaryKey) {
+      where
+          .append(where.length() == 0 ? "" : " AND ")
+          .append(database.escapeColumnName(null, null, null, column))
+          .append(" = ?");
+    }
+    if (!insertOrUpdateStatement.getOnlyUpdate()) {
+      StringBuilder sql = new StringBuilder(insert.getSql());
+      List<String> parameters = new ArrayList<>(insert.getParameterColumns());
+      if (dialect == Dialect.POSTGRESQL) {
+        appendOnConflict(sql, insertOrUpdateStatement, database);
+      } else {
+        sql.append(" FROM UNNEST([1]) WHERE NOT EXISTS (SELECT ")
+            .append(insertOrUpdateStatement.getPrimaryKey())
+            .append(" FROM ")
+            .append(table)
+            .append(" WHERE ")
+            .append(where)
+            .append(")");
+        parameters.addAll(primaryKey);
+      }
+      result.add(new ParameterizedSql(sql.toString(), parameters));
+    }
+
+    // The UPDATE statement uses the same column order as the UpdateGenerator.
+    List<String> updateColumns = new ArrayList<>();
+    for (String column : new TreeSet<>(insertOrUpdateStatement.getColumnValues().keySet())) {
+      if (insertOrUpdateStatement.getAllowColumnUpdate(column)
+          && primaryKey.stream().noneMatch(column::equalsIgnoreCase)) {
+        updateColumns.add(column);
+      }
+    }
+    if (!updateColumns.isEmpty()) {
+      StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" SET ");
+      for (int i = 0; i < updateColumns.size(); i++) {
+        sql.append(i == 0 ? "" : ", ")
+            .append(database.escapeColumnName(null, null, null, updateColumns.get(i)))
+            .append(" = ?");
+      }
+      sql.append(" WHERE ").append(where);
+      List<String> parameters = new ArrayList<>(updateColumns);
+      parameters.addAll(primaryKey);
+      result.add(new ParameterizedSql(sql.toString(), parameters));
+    }
+    return result;
+  }
+
   @Override
   protected String getRecordCheck(
       InsertOrUpdateStatement insertOrUpdateStatement, Database database, String whereClause) {
@@ -14,7 +14,9 @@
 package liquibase.ext.spanner.sqlgenerator;
 
 import com.google.cloud.spanner.Dialect;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import liquibase.database.Database;
 import liquibase.datatype.DataTypeFactory;
 import liquibase.ext.spanner.ICloudSpanner;
@@ -45,30 +47,11 @@ public class InsertWithSelectGeneratorSpanner extends InsertGenerator {
     // Generate INSERT INTO (...) header.
     Dialect dialect = ((ICloudSpanner) database).getDialect();
     StringBuilder sql = new StringBuilder();
-    sql.append("INSERT INTO ")
-        .append(
-            database.escapeTableName(
-                statement.getCatalogName(), statement.getSchemaName(), statement.getTableName()))
-        .append(" (");
-    boolean first = true;
-    for (String column : statement.getColumnValues().keySet()) {
-      if (first) {
-        first = false;
-      } else {
-        sql.append(", ");
-      }
-      sql.append(
-          database.escapeColumnName(
-              statement.getCatalogName(),
-              statement.getSchemaName(),
-              statement.getTableName(),
-              column));
-    }
-    sql.append(")");
+    appendInsertInto(sql, statement, database);
 
     // Generate SELECT ... statement.
     sql.append(" SELECT ");
-    first = true;
+    boolean first = true;
     for (String column : statement.getColumnValues().keySet()) {
       if (first) {
         first = false;
@@ -104,4 +87,43 @@ public class InsertWithSelectGeneratorSpanner extends InsertGenerator {
 
     return new Sql[] {new UnparsedSql(sql.toString(), getAffectedTable(statement))};
   }
+
+  /**
+   * Generates an INSERT statement in the form 'INSERT INTO FOO (..) SELECT ?, ...' with one query
+   * parameter for each column of the statement. The values of the statement are ignored, which
+   * means that the same SQL string is generated for all rows with the same columns.
+   */
+  public ParameterizedSql generateParameterizedSql(InsertStatement statement, Database database) {
+    StringBuilder sql = new StringBuilder();
+    appendInsertInto(sql, statement, database);
+    sql.append(" SELECT ");
+    List<String> columns = new ArrayList<>(statement.getColumnValues().keySet());
+    for (int i = 0; i < columns.size(); i++) {
+      sql.append(i == 0 ? "?" : ", ?");
+    }
+    return new ParameterizedSql(sql.toString(), columns);
+  }
+
+  private void appendInsertInto(StringBuilder sql, InsertStatement statement, Database database) {
+    sql.append("INSERT INTO ")
+        .append(
+            database.escapeTableName(
+                statement.getCatalogName(), statement.getSchemaName(), statement.getTableName()))
+        .append(" (");
+    boolean first = true;
+    for (String column : statement.getColumnValues().keySet()) {
+      if (first) {
+        first = false;
+      } else {
+        sql.append(", ");
+      }
+      sql.append(
+          database.escapeColumnName(
+              statement.getCatalogName(),
+              statement.getSchemaName(),
+              statement.getTableName(),
+              column));
+    }
+    sql.append(")");
+  }
 }
@@ -0,0 +1,176 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.sqlgenerator;
+
+import com.google.cloud.spanner.BatchClient;
+import com.google.cloud.spanner.BatchReadOnlyTransaction;
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.Partition;
+import com.google.cloud.spanner.PartitionOptions;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.TimestampBound;
+import com.google.cloud.spanner.Value;
+import com.google.cloud.spanner.jdbc.CloudSpannerJdbcConnection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.database.PreparedStatementFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.ext.spanner.SpannerConfiguration;
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.ExecutablePreparedStatement;
+import liquibase.statement.SqlStatement;
+
+/**
+ * Fills a lookup table with the distinct non-null values of a column of a large table. The values
+ * are read with a partitioned query, so the read is not bound by the limits of a single
+ * transaction, and are deduplicated in memory. The lookup rows are then written with InsertOrUpdate
+ * mutations that are committed in chunks that stay below {@link
+ * SpannerConfiguration#MAX_MUTATIONS_PER_COMMIT}, so a load that failed halfway can be repeated.
+ *
+ * <p>A partitioned query cannot contain DISTINCT, so all non-null values of the column are read.
+ * The distinct values must fit in memory, which is normally the case for the values of a lookup
+ * table. The SQL of {@link LoadLookupTableGeneratorSpanner} is the equivalent transactional INSERT
+ * statement.
+ */
+public class LoadLookupTableStatementSpanner extends AbstractSqlStatement
+    implements ExecutablePreparedStatement {
+  private final Database database;
+  private final String schemaName;
+  private final String tableName;
+  private final String columnName;
+  private final String query;
+  private final SqlStatement insertStatement;
+
+  /**
+   * @param query the query that selects the values of the lookup table
+   * @param insertStatement the transactional statement that has the same effect as this statement
+   */
+  public LoadLookupTableStatementSpanner(
+      Database database,
+      String schemaName,
+      String tableName,
+      String columnName,
+      String query,
+      SqlStatement insertStatement) {
+    this.database = database;
+    this.schemaName = schemaName;
+    this.tableName = tableName;
+    this.columnName = columnName;
+    this.query = query;
+    this.insertStatement = insertStatement;
+  }
+
+  public String getTableName() {
+    return tableName;
+  }
+
+  public String getQuery() {
+    return query;
+  }
+
+  public SqlStatement getInsertStatement() {
+    return insertStatement;
+  }
+
+  @Override
+  public void execute(PreparedStatementFactory factory) throws DatabaseException {
+    Dialect dialect = ((ICloudSpanner) database).getDialect();
+    String table =
+        schemaName == null || schemaName.isEmpty() ? tableName : schemaName + "." + tableName;
+    // The lookup table has one column and no secondary indexes.
+    int rowsPerCommit =
+        Math.max(1, SpannerConfiguration.MAX_MUTATIONS_PER_COMMIT.getCurrentValue());
+
+    long startNanos = System.nanoTime();
+    int partitions = 0;
+    int commits = 0;
+    Set<Value> values = new LinkedHashSet<>();
+    try {
+      CloudSpannerJdbcConnection connection =
+          ((JdbcConnection) database.getConnection())
+              .getUnderlyingConnection()
+              .unwrap(CloudSpannerJdbcConnection.class);
+      BatchClient batchClient =
+          connection.getSpanner().getBatchClient(connection.getDatabaseId());
+      try (BatchReadOnlyTransaction transaction =
+          batchClient.batchReadOnlyTransaction(TimestampBound.strong())) {
+        List<Partition> partitionList =
+            transaction.partitionQuery(PartitionOptions.getDefaultInstance(), Statement.of(query));
+        partitions = partitionList.size();
+        for (Partition partition : partitionList) {
+          try (ResultSet resultSet = transaction.execute(partition)) {
+            while (resultSet.next()) {
+              values.add(resultSet.getValue(0));
+            }
+          }
+        }
+      }
+
+      List<Mutation> chunk = new ArrayList<>(Math.min(rowsPerCommit, values.size()));
+      for (Value value : values) {
+        chunk.add(
+            Mutation.newInsertOrUpdateBuilder(name(table, dialect))
+                .set(name(columnName, dialect))
+                .to(value)
+                .build());
+        if (chunk.size() == rowsPerCommit) {
+          write(connection, chunk);
+          commits++;
+          chunk.clear();
+        }
+      }
+      if (!chunk.isEmpty()) {
+        write(connection, chunk);
+        commits++;
+      }
+    } catch (SQLException | SpannerException e) {
+      throw new DatabaseException(
+          String.format("Failed to load lookup table %s: %s", table, e.getMessage()), e);
+    }
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    Scope.getCurrentScope()
+        .getLog(getClass())
+        .info(
+            String.format(
+                "Loaded %d distinct value(s) from %d partition(s) into %s in %d commit(s) in %d ms",
+                values.size(), partitions, table, commits, elapsedMillis));
+  }
+
+  private static void write(CloudSpannerJdbcConnection connection, List<Mutation> mutations)
+      throws SQLException {
+    if (connection.getAutoCommit()) {
+      connection.write(mutations);
+    } else {
+      connection.bufferedWrite(mutations);
+      connection.commit();
+    }
+  }
+
+  /** Unquoted identifiers are folded to lower case in PostgreSQL-dialect databases. */
+  private static String name(String name, Dialect dialect) {
+    return dialect == Dialect.POSTGRESQL ? name.toLowerCase(Locale.ROOT) : name;
+  }
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.sqlgenerator;
+
+import com.google.cloud.spanner.Type;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.database.PreparedStatementFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.executor.Executor;
+import liquibase.executor.ExecutorService;
+import liquibase.executor.jvm.JdbcExecutor;
+import liquibase.ext.spanner.SpannerConfiguration;
+import liquibase.logging.Logger;
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.DatabaseFunction;
+import liquibase.statement.ExecutablePreparedStatement;
+import liquibase.statement.SqlStatement;
+
+/**
+ * Executes a fixed set of parameterized DML statements for each row of a table, instead of one SQL
+ * string with literals per row. All rows use the same SQL strings, so Spanner can reuse the query
+ * plans of the statements. The values are bound as typed query parameters, based on the column
+ * types in INFORMATION_SCHEMA.
+ *
+ * <p>The rows are executed in JDBC batches. The statement falls back to executing the given
+ * statements if the table contains a column with a type that is not supported by {@link
+ * SpannerValues}, or if a row contains a {@link DatabaseFunction}.
+ */
+public class ParameterizedDmlStatementSpanner extends AbstractSqlStatement
+    implements ExecutablePreparedStatement {
+  private final Database database;
+  private final String schemaName;
+  private final String tableName;
+  private final List<ParameterizedSql> statements;
+  private final List<Map<String, Object>> rows;
+  private final SqlStatement[] fallbackStatements;
+
+  public ParameterizedDmlStatementSpanner(
+      Database database,
+      String schemaName,
+      String tableName,
+      List<ParameterizedSql> statements,
+      List<Map<String, Object>> rows,
+      SqlStatement[] fallbackStatements) {
+    this.database = database;
+    this.schemaName = schemaName;
+    this.tableName = tableName;
+    this.statements = statements;
+    this.rows = rows;
+    this.fallbackStatements = fallbackStatements;
+  }
+
+  public String getSchemaName() {
+    return schemaName;
+  }
+
+  public String getTableName() {
+    return tableName;
+  }
+
+  public List<ParameterizedSql> getStatements() {
+    return Collections.unmodifiableList(statements);
+  }
+
+  public List<Map<String, Object>> getRows() {
+    return Collections.unmodifiableList(rows);
+  }
+
+  public SqlStatement[] getFallbackStatements() {
+    return fallbackStatements;
+  }
+
+  @Override
+  public void execute(PreparedStatementFactory factory) throws DatabaseException {
+    Logger log = Scope.getCurrentScope().getLog(getClass());
+    Executor executor =
+        Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database);
+    Map<String, Type> columnTypes =
+        SpannerValues.getColumnTypes(executor, database, schemaName, tableName);
+    String unsupportedColumn = findUnsupportedColumn(columnTypes);
+    if (unsupportedColumn != null) {
+      log.info(
+          String.format(
+              "Column %s of table %s cannot be bound as a query parameter, falling back to "
+                  + "literals",
+              unsupportedColumn, tableName));
+      for (SqlStatement statement : fallbackStatements) {
+        executor.execute(statement);
+      }
+      return;
+    }
+
+    int maxColumns = 1;
+    for (Map<String, Object> row : rows) {
+      maxColumns = Math.max(maxColumns, row.size());
+    }
+    int rowsPerBatch =
+        Math.max(1, SpannerConfiguration.MAX_MUTATIONS_PER_COMMIT.getCurrentValue() / maxColumns);
+
+    long startNanos = System.nanoTime();
+    int batches = 0;
+    long updateCount = 0L;
+    String currentSql = null;
+    List<PreparedStatement> preparedStatements = new ArrayList<>(statements.size());
+    try {
+      Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+      for (ParameterizedSql statement : statements) {
+        preparedStatements.add(connection.prepareStatement(statement.getSql()));
+      }
+      for (int start = 0; start < rows.size(); start += rowsPerBatch) {
+        List<Map<String, Object>> batch =
+            rows.subList(start, Math.min(rows.size(), start + rowsPerBatch));
+        for (int i = 0; i < statements.size(); i++) {
+          ParameterizedSql statement = statements.get(i);
+          PreparedStatement preparedStatement = preparedStatements.get(i);
+          currentSql = statement.getSql();
+          for (Map<String, Object> row : batch) {
+            bind(preparedStatement, statement, row, columnTypes);
+            preparedStatement.addBatch();
+          }
+          for (int count : preparedStatement.executeBatch()) {
+            updateCount += Math.max(0, count);
+          }
+          batches++;
+        }
+      }
+    } catch (SQLException | IllegalArgumentException e) {
+      throw new DatabaseException(
+          String.format("Failed to execute %s: %s", currentSql, e.getMessage()), e);
+    } finally {
+      for (PreparedStatement preparedStatement : preparedStatements) {
+        try {
+          preparedStatement.close();
+        } catch (SQLException ignore) {
+          // Closing a prepared statement does not communicate with Spanner.
+        }
+      }
+    }
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    AtomicInteger rowsAffected =
+        Scope.getCurrentScope().get(JdbcExecutor.ROWS_AFFECTED_SCOPE_KEY, AtomicInteger.class);
+    if (rowsAffected != null) {
+      rowsAffected.addAndGet((int) updateCount);
+    }
+    log.info(
+        String.format(
+            "Executed %d parameterized statement(s) for %d row(s) of %s in %d batch(es) in %d ms",
+            statements.size(), rows.size(), tableName, batches, elapsedMillis));
+  }
+
+  private String findUnsupportedColumn(Map<String, Type> columnTypes) {
+    for (ParameterizedSql statement : statements) {
+      for (String column : statement.getParameterColumns()) {
+        if (columnTypes.get(column.toUpperCase(Locale.ENGLISH)) == null) {
+          return column;
+        }
+      }
+    }
+    for (Map<String, Object> row : rows) {
+      for (Map.Entry<String, Object> column : row.entrySet()) {
+        if (column.getValue() instanceof DatabaseFunction) {
+          return column.getKey();
+        }
+      }
+    }
+    return null;
+  }
+
+  private static void bind(
+      PreparedStatement preparedStatement,
+      ParameterizedSql statement,
+      Map<String, Object> row,
+      Map<String, Type> columnTypes)
+      throws SQLException {
+    List<String> columns = statement.getParameterColumns();
+    for (int i = 0; i < columns.size(); i++) {
+      Object value = row.get(columns.get(i));
+      if (value instanceof String && "NULL".equalsIgnoreCase((String) value)) {
+        // The literal generators also convert the string NULL to a NULL value.
+        value = null;
+      }
+      Type type = columnTypes.get(columns.get(i).toUpperCase(Locale.ENGLISH));
+      preparedStatement.setObject(i + 1, SpannerValues.toValue(value, type, columns.get(i)));
+    }
+  }
+}
@@ -0,0 +1,45 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.sqlgenerator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A SQL statement with positional query parameters, and the names of the columns whose values
+ * should be bound to the parameters. The same column can be bound to multiple parameters.
+ */
+public final class ParameterizedSql {
+  private final String sql;
+  private final List<String> parameterColumns;
+
+  public ParameterizedSql(String sql, List<String> parameterColumns) {
+    this.sql = sql;
+    this.parameterColumns = Collections.unmodifiableList(new ArrayList<>(parameterColumns));
+  }
+
+  public String getSql() {
+    return sql;
+  }
+
+  public List<String> getParameterColumns() {
+    return parameterColumns;
+  }
+
+  @Override
+  public String toString() {
+    return sql;
+  }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.sqlgenerator;
+
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.SqlStatement;
+
+/**
+ * Executes the UPDATE and DELETE statements that are generated for another statement as Partitioned
+ * DML. Partitioned DML is not bound by the mutation limit of a transaction, but is not atomic and
+ * is committed directly, independently of the other statements of the change set. Generated
+ * statements that are not UPDATE or DELETE statements are executed normally.
+ *
+ * <p>The statement is executed by {@link liquibase.ext.spanner.executor.JdbcExecutorSpanner}. The
+ * SQL of {@link PartitionedDmlGeneratorSpanner} switches the JDBC connection to Partitioned DML
+ * with SET statements, so scripts that are generated with update-sql have the same effect.
+ */
+public class PartitionedDmlStatementSpanner extends AbstractSqlStatement {
+  private final SqlStatement statement;
+
+  public PartitionedDmlStatementSpanner(SqlStatement statement) {
+    this.statement = statement;
+  }
+
+  /** The statement whose generated SQL is executed as Partitioned DML. */
+  public SqlStatement getStatement() {
+    return statement;
+  }
+
+  @Override
+  public boolean skipOnUnsupported() {
+    return statement.skipOnUnsupported();
+  }
+
+  @Override
+  public boolean continueOnError() {
+    return statement.continueOnError();
+  }
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.sqlgenerator;
+
+import java.util.List;
+import java.util.Map;
+import liquibase.statement.core.RawParameterizedSqlStatement;
+
+/**
+ * A query whose rows have already been read on another thread, e.g. by the prefetch of a snapshot.
+ * {@link liquibase.ext.spanner.executor.JdbcExecutorSpanner} returns these rows when the query is
+ * executed with {@link liquibase.executor.Executor#queryForList}, and executes the query normally
+ * otherwise.
+ */
+public class PrefetchedQueryStatementSpanner extends RawParameterizedSqlStatement {
+  private final List<Map<String, ?>> rows;
+
+  public PrefetchedQueryStatementSpanner(
+      String sql, List<Map<String, ?>> rows, Object... parameters) {
+    super(sql, parameters);
+    this.rows = rows;
+  }
+
+  /** The rows of the query, with the same keys and values as the rows that are read with JDBC. */
+  public List<Map<String, ?>> getRows() {
+    return rows;
+  }
+}
@@ -0,0 +1,686 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.sqlgenerator;
+
+import com.google.cloud.spanner.BatchReadOnlyTransaction;
+import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.ErrorCode;
+import com.google.cloud.spanner.Key;
+import com.google.cloud.spanner.KeySet;
+import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.Partition;
+import com.google.cloud.spanner.PartitionOptions;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.TimestampBound;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Value;
+import com.google.cloud.spanner.jdbc.CloudSpannerJdbcConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.ext.spanner.SpannerConfiguration;
+import liquibase.ext.spanner.SpannerConnections;
+import liquibase.ext.spanner.SpannerErrors;
+import liquibase.logging.Logger;
+
+/**
+ * Executes an UPDATE or DELETE statement on a large table as many small transactions that each
+ * cover a range of primary keys.
+ *
+ * <p>The key ranges are computed from a sample of the primary keys of the table. The keys are read
+ * with a partitioned query, and every {@link SpannerConfiguration#BACKFILL_RANGE_SIZE}th key of a
+ * partition is used as the boundary between two ranges. The first and the last range are unbounded,
+ * so the ranges always cover the whole table. The ranges are then updated in parallel by {@link
+ * SpannerConfiguration#BACKFILL_PARALLELISM} threads, each range in a read-write transaction that
+ * also marks the range as completed in the DATABASECHANGELOGBACKFILL table.
+ *
+ * <p>The ranges of a backfill are stored in DATABASECHANGELOGBACKFILL before the first range is
+ * updated. A backfill that is interrupted, e.g. because the process is stopped or a range fails,
+ * continues with the remaining ranges when the same statement is executed again. The rows of a
+ * backfill are deleted when all ranges have been completed.
+ *
+ * <p>The statement must contain {@link #RANGE_PREDICATE} in its WHERE clause. Tables with a
+ * nullable or descending primary key column, or with a key column type that cannot be compared
+ * on the client (e.g. FLOAT64), are updated with one Partitioned DML statement instead.
+ */
+public final class SpannerBackfill {
+  /**
+   * The expression in the WHERE clause of a backfill statement that is replaced by the predicate of
+   * a key range. The expression is valid SQL, so the statement can also be executed as is.
+   */
+  public static final String RANGE_PREDICATE = "TRUE /* spanner_backfill_range */";
+
+  private static final String PRIMARY_KEY_QUERY =
+      "SELECT C.COLUMN_NAME, C.SPANNER_TYPE, C.IS_NULLABLE, I.COLUMN_ORDERING "
+          + "FROM INFORMATION_SCHEMA.INDEX_COLUMNS I "
+          + "JOIN INFORMATION_SCHEMA.COLUMNS C ON C.TABLE_SCHEMA = I.TABLE_SCHEMA "
+          + "AND C.TABLE_NAME = I.TABLE_NAME AND C.COLUMN_NAME = I.COLUMN_NAME "
+          + "WHERE I.TABLE_SCHEMA = %s AND I.TABLE_NAME = %s AND I.INDEX_NAME = 'PRIMARY_KEY' "
+          + "ORDER BY I.ORDINAL_POSITION";
+
+  private static final class KeyColumn {
+    private final String name;
+    private final Type type;
+
+    private KeyColumn(String name, Type type) {
+      this.name = name;
+      this.type = type;
+    }
+  }
+
+  /** A range of primary keys. A null start or end means that the range is unbounded. */
+  private static final class KeyRange {
+    private final long index;
+    @Nullable private final List<Value> start;
+    @Nullable private final List<Value> end;
+
+    private KeyRange(long index, @Nullable List<Value> start, @Nullable List<Value> end) {
+      this.index = index;
+      this.start = start;
+      this.end = end;
+    }
+  }
+
+  private static final class Progress {
+    private final List<KeyRange> pending = new ArrayList<>();
+    private int completedRanges;
+    private long completedRows;
+  }
+
+  private SpannerBackfill() {}
+
+  /**
+   * Executes the given UPDATE or DELETE statement on the given table in key ranges, and returns the
+   * number of rows that were updated or deleted. Rows that were updated before an interrupted
+   * backfill was resumed are included in the count.
+   */
+  public static long run(
+      Database database, @Nullable String schemaName, String tableName, String sql)
+      throws DatabaseException {
+    if (!sql.contains(RANGE_PREDICATE)) {
+      throw new DatabaseException("A backfill statement must contain " + RANGE_PREDICATE);
+    }
+    CloudSpannerJdbcConnection connection = SpannerConnections.getSpannerConnection(database);
+    if (connection == null) {
+      throw new DatabaseException("A backfill can only be executed on a Spanner connection");
+    }
+    Logger log = Scope.getCurrentScope().getLog(SpannerBackfill.class);
+    Dialect dialect = ((ICloudSpanner) database).getDialect();
+    String escapedTable = database.escapeTableName(null, schemaName, tableName);
+    int parallelism = Math.max(1, SpannerConfiguration.BACKFILL_PARALLELISM.getCurrentValue());
+    int rangeSize = Math.max(1, SpannerConfiguration.BACKFILL_RANGE_SIZE.getCurrentValue());
+    int maxMutations = SpannerConfiguration.MAX_MUTATIONS_PER_COMMIT.getCurrentValue();
+    String progressTable = getProgressTableName(database);
+    long startNanos = System.nanoTime();
+    try {
+      // The range transactions must see the changes of the earlier statements of the change set.
+      if (!connection.getAutoCommit()) {
+        connection.commit();
+      }
+      DatabaseClient client = connection.getDatabaseClient();
+      List<KeyColumn> keyColumns = readKeyColumns(client, dialect, schemaName, tableName);
+      if (keyColumns == null) {
+        log.info(
+            String.format(
+                "The primary key of %s cannot be split into ranges, using Partitioned DML",
+                escapedTable));
+        return client.executePartitionedUpdate(
+            Statement.of(sql.replace(RANGE_PREDICATE, "TRUE")));
+      }
+
+      String id = getBackfillId(escapedTable, sql);
+      ExecutorService executor = Executors.newFixedThreadPool(parallelism, createThreadFactory());
+      try {
+        Progress progress = readProgress(client, dialect, progressTable, id, keyColumns);
+        if (progress == null) {
+          List<KeyRange> ranges =
+              computeRanges(connection, executor, dialect, escapedTable, keyColumns, rangeSize);
+          writeRanges(connection, dialect, progressTable, id, ranges, maxMutations);
+          progress = new Progress();
+          progress.pending.addAll(ranges);
+        } else {
+          log.info(
+              String.format(
+                  "Resuming backfill of %s, %d range(s) were already completed",
+                  escapedTable, progress.completedRanges));
+        }
+        int total = progress.completedRanges + progress.pending.size();
+        long rows =
+            progress.completedRows
+                + updateRanges(
+                    client, executor, dialect, sql, keyColumns, progressTable, id, progress, total);
+        client.write(
+            Collections.singletonList(
+                Mutation.delete(name(progressTable, dialect), KeySet.prefixRange(Key.of(id)))));
+        log.info(
+            String.format(
+                "Backfilled %d row(s) of %s in %d key range(s) with %d thread(s) in %d ms",
+                rows,
+                escapedTable,
+                total,
+                parallelism,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)));
+        return rows;
+      } finally {
+        executor.shutdownNow();
+      }
+    } catch (SQLException | SpannerException e) {
+      throw new DatabaseException(
+          String.format("Backfill of %s failed: %s", escapedTable, e.getMessage()), e);
+    }
+  }
+
+  /**
+   * Returns the primary key columns of the given table, or null if the primary key cannot be split
+   * into ranges.
+   */
+  @Nullable
+  private static List<KeyColumn> readKeyColumns(
+      DatabaseClient client, Dialect dialect, @Nullable String schemaName, String tableName) {
+    String schema = schemaName;
+    if (schema == null || schema.isEmpty()) {
+      schema = dialect == Dialect.POSTGRESQL ? "public" : "";
+    }
+    Statement statement =
+        Statement.newBuilder(
+                dialect == Dialect.POSTGRESQL
+                    ? String.format(PRIMARY_KEY_QUERY, "$1", "$2")
+                    : String.format(PRIMARY_KEY_QUERY, "@p1", "@p2"))
+            .bind("p1")
+            .to(schema)
+            .bind("p2")
+            .to(name(tableName, dialect))
+            .build();
+    List<KeyColumn> columns = new ArrayList<>();
+    try (ResultSet resultSet = client.singleUse().executeQuery(statement)) {
+      while (resultSet.next()) {
+        Type type = SpannerValues.parseColumnType(resultSet.getString(1), dialect);
+        if (type == null
+            || !isComparable(type)
+            || "YES".equalsIgnoreCase(resultSet.getString(2))
+            || "DESC".equalsIgnoreCase(resultSet.getString(3))) {
+          return null;
+        }
+        columns.add(new KeyColumn(resultSet.getString(0), type));
+      }
+    }
+    return columns.isEmpty() ? null : columns;
+  }
+
+  /**
+   * Returns true for the types that are compared in the same way by the client and by Spanner.
+   * Floating point keys are excluded, as NaN is not included in any range.
+   */
+  static boolean isComparable(Type type) {
+    switch (type.getCode()) {
+      case BOOL:
+      case INT64:
+      case NUMERIC:
+      case STRING:
+      case BYTES:
+      case DATE:
+      case TIMESTAMP:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Returns the stored progress of the given backfill, or null if the backfill has not been
+   * started.
+   */
+  @Nullable
+  private static Progress readProgress(
+      DatabaseClient client,
+      Dialect dialect,
+      String progressTable,
+      String id,
+      List<KeyColumn> keyColumns) {
+    Progress progress = new Progress();
+    boolean found = false;
+    Statement statement =
+        Statement.newBuilder(
+                String.format(
+                    "SELECT RANGE_INDEX, START_KEY, END_KEY, ROW_COUNT, COMPLETED FROM %s "
+                        + "WHERE BACKFILL_ID = %s ORDER BY RANGE_INDEX",
+                    progressTable,
+                    dialect == Dialect.POSTGRESQL ? "$1" : "@p1"))
+            .bind("p1")
+            .to(id)
+            .build();
+    try (ResultSet resultSet = client.singleUse().executeQuery(statement)) {
+      while (resultSet.next()) {
+        found = true;
+        if (!resultSet.isNull(4)) {
+          progress.completedRanges++;
+          progress.completedRows += resultSet.isNull(3) ? 0L : resultSet.getLong(3);
+        } else {
+          progress.pending.add(
+              new KeyRange(
+                  resultSet.getLong(0),
+                  resultSet.isNull(1) ? null : parseKey(resultSet.getStringList(1), keyColumns),
+                  resultSet.isNull(2) ? null : parseKey(resultSet.getStringList(2), keyColumns)));
+        }
+      }
+    } catch (SpannerException e) {
+      if (SpannerErrors.isTableNotFound(e)) {
+        // No backfill has been started on this database.
+        return null;
+      }
+      throw e;
+    }
+    return found ? progress : null;
+  }
+
+  /** Reads a sample of the primary keys of the table and splits the table into key ranges. */
+  private static List<KeyRange> computeRanges(
+      CloudSpannerJdbcConnection connection,
+      ExecutorService executor,
+      Dialect dialect,
+      String escapedTable,
+      List<KeyColumn> keyColumns,
+      int rangeSize)
+      throws SQLException {
+    StringBuilder select = new StringBuilder("SELECT ");
+    for (int i = 0; i < keyColumns.size(); i++) {
+      select.append(i == 0 ? "" : ", ").append(quote(keyColumns.get(i).name, dialect));
+    }
+    select.append(" FROM ").append(escapedTable);
+    List<List<Value>> boundaries = new ArrayList<>();
+    try (BatchReadOnlyTransaction transaction =
+        connection
+            .getSpanner()
+            .getBatchClient(connection.getDatabaseId())
+            .batchReadOnlyTransaction(TimestampBound.strong())) {
+      List<Future<List<List<Value>>>> samples = new ArrayList<>();
+      for (Partition partition :
+          transaction.partitionQuery(
+              PartitionOptions.getDefaultInstance(), Statement.of(select.toString()))) {
+        samples.add(
+            executor.submit(
+                () -> {
+                  List<List<Value>> sample = new ArrayList<>();
+                  long rows = 0L;
+                  try (ResultSet resultSet = transaction.execute(partition)) {
+                    while (resultSet.next()) {
+                      if (++rows % rangeSize == 0) {
+                        List<Value> key = new ArrayList<>(keyColumns.size());
+                        for (int i = 0; i < keyColumns.size(); i++) {
+                          key.add(resultSet.getValue(i));
+                        }
+                        sample.add(key);
+                      }
+                    }
+                  }
+                  return sample;
+                }));
+      }
+      for (Future<List<List<Value>>> sample : samples) {
+        boundaries.addAll(get(sample));
+      }
+    }
+    boundaries.sort(SpannerBackfill::compareKeys);
+    List<KeyRange> ranges = new ArrayList<>(boundaries.size() + 1);
+    List<Value> start = null;
+    for (List<Value> boundary : boundaries) {
+      if (start != null && compareKeys(start, boundary) == 0) {
+        continue;
+      }
+      ranges.add(new KeyRange(ranges.size(), start, boundary));
+      start = boundary;
+    }
+    ranges.add(new KeyRange(ranges.size(), start, null));
+    return ranges;
+  }
+
+  private static void writeRanges(
+      CloudSpannerJdbcConnection connection,
+      Dialect dialect,
+      String progressTable,
+      String id,
+      List<KeyRange> ranges,
+      int maxMutations)
+      throws SQLException {
+    int rowsPerCommit = Math.max(1, maxMutations / 4);
+    boolean tableCreated = false;
+    for (int start = 0; start < ranges.size(); start += rowsPerCommit) {
+      List<Mutation> mutations = new ArrayList<>();
+      for (KeyRange range : ranges.subList(start, Math.min(start + rowsPerCommit, ranges.size()))) {
+        mutations.add(
+            Mutation.newInsertOrUpdateBuilder(name(progressTable, dialect))
+                .set(name("BACKFILL_ID", dialect))
+                .to(id)
+                .set(name("RANGE_INDEX", dialect))
+                .to(range.index)
+                .set(name("START_KEY", dialect))
+                .toStringArray(range.start == null ? null : formatKey(range.start))
+                .set(name("END_KEY", dialect))
+                .toStringArray(range.end == null ? null : formatKey(range.end))
+                .build());
+      }
+      try {
+        connection.getDatabaseClient().write(mutations);
+      } catch (SpannerException e) {
+        if (e.getErrorCode() != ErrorCode.NOT_FOUND || tableCreated) {
+          throw e;
+        }
+        createTable(connection, dialect, progressTable);
+        tableCreated = true;
+        connection.getDatabaseClient().write(mutations);
+      }
+    }
+  }
+
+  /**
+   * Updates the pending ranges of the given backfill in parallel, and returns the number of rows
+   * that were updated.
+   */
+  private static long updateRanges(
+      DatabaseClient client,
+      ExecutorService executor,
+      Dialect dialect,
+      String sql,
+      List<KeyColumn> keyColumns,
+      String progressTable,
+      String id,
+      Progress progress,
+      int totalRanges)
+      throws SQLException {
+    List<Future<Long>> results = new ArrayList<>(progress.pending.size());
+    for (KeyRange range : progress.pending) {
+      Statement statement = createRangeStatement(sql, dialect, keyColumns, range);
+      results.add(
+          executor.submit(
+              () ->
+                  client
+                      .readWriteTransaction()
+                      .run(
+                          transaction -> {
+                            long count = transaction.executeUpdate(statement);
+                            transaction.buffer(
+                                Mutation.newUpdateBuilder(name(progressTable, dialect))
+                                    .set(name("BACKFILL_ID", dialect))
+                                    .to(id)
+                                    .set(name("RANGE_INDEX", dialect))
+                                    .to(range.index)
+                                    .set(name("ROW_COUNT", dialect))
+                                    .to(count)
+                                    .set(name("COMPLETED", dialect))
+                                    .to(Value.COMMIT_TIMESTAMP)
+                                    .build());
+                            return count;
+                          })));
+    }
+    long rows = 0L;
+    for (int i = 0; i < results.size(); i++) {
+      try {
+        rows += get(results.get(i));
+      } catch (SQLException | SpannerException e) {
+        executor.shutdownNow();
+        throw new SQLException(
+            String.format(
+                "Key range %d of %d failed, the completed ranges are skipped when the change "
+                    + "set is run again: %s",
+                progress.pending.get(i).index + 1, totalRanges, e.getMessage()),
+            e);
+      }
+    }
+    return rows;
+  }
+
+  /** Replaces {@link #RANGE_PREDICATE} in the given statement with the predicate of the range. */
+  private static Statement createRangeStatement(
+      String sql, Dialect dialect, List<KeyColumn> keyColumns, KeyRange range) {
+    List<String> columns = new ArrayList<>(keyColumns.size());
+    for (KeyColumn column : keyColumns) {
+      columns.add(quote(column.name, dialect));
+    }
+    List<Value> parameters = new ArrayList<>();
+    List<String> predicates = new ArrayList<>();
+    if (range.start != null) {
+      predicates.add(compare(columns, range.start, ">", ">=", dialect, parameters));
+    }
+    if (range.end != null) {
+      predicates.add(compare(columns, range.end, "<", "<", dialect, parameters));
+    }
+    Statement.Builder builder =
+        Statement.newBuilder(
+            sql.replace(
+                RANGE_PREDICATE, predicates.isEmpty() ? "TRUE" : String.join(" AND ", predicates)));
+    for (int i = 0; i < parameters.size(); i++) {
+      builder.bind("p" + (i + 1)).to(parameters.get(i));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns a predicate that compares the key columns with the given key in lexicographic order,
+   * e.g. <code>(a > @p1 OR (a = @p1 AND b >= @p2))</code> for a lower bound.
+   */
+  private static String compare(
+      List<String> columns,
+      List<Value> key,
+      String operator,
+      String lastOperator,
+      Dialect dialect,
+      List<Value> parameters) {
+    List<String> parameterNames = new ArrayList<>(key.size());
+    for (Value value : key) {
+      parameters.add(value);
+      parameterNames.add(
+          dialect == Dialect.POSTGRESQL ? "$" + parameters.size() : "@p" + parameters.size());
+    }
+    StringBuilder predicate = new StringBuilder("(");
+    for (int i = 0; i < columns.size(); i++) {
+      if (i > 0) {
+        predicate.append(" OR ");
+      }
+      predicate.append("(");
+      for (int j = 0; j < i; j++) {
+        predicate
+            .append(columns.get(j))
+            .append(" = ")
+            .append(parameterNames.get(j))
+            .append(" AND ");
+      }
+      predicate
+          .append(columns.get(i))
+          .append(' ')
+          .append(i == columns.size() - 1 ? lastOperator : operator)
+          .append(' ')
+          .append(parameterNames.get(i))
+          .append(")");
+    }
+    return predicate.append(")").toString();
+  }
+
+  /** Compares two keys in the same order as Spanner. NULL is ordered before all other values. */
+  static int compareKeys(List<Value> key1, List<Value> key2) {
+    for (int i = 0; i < key1.size(); i++) {
+      Value value1 = key1.get(i);
+      Value value2 = key2.get(i);
+      int result =
+          value1.isNull() || value2.isNull()
+              ? Boolean.compare(!value1.isNull(), !value2.isNull())
+              : compare(value1, value2);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+
+  private static int compare(Value value1, Value value2) {
+    switch (value1.getType().getCode()) {
+      case BOOL:
+        return Boolean.compare(value1.getBool(), value2.getBool());
+      case INT64:
+        return Long.compare(value1.getInt64(), value2.getInt64());
+      case NUMERIC:
+        return value1.getNumeric().compareTo(value2.getNumeric());
+      case STRING:
+        // Spanner orders strings by their UTF-8 bytes.
+        return compareBytes(
+            value1.getString().getBytes(StandardCharsets.UTF_8),
+            value2.getString().getBytes(StandardCharsets.UTF_8));
+      case BYTES:
+        return compareBytes(value1.getBytes().toByteArray(), value2.getBytes().toByteArray());
+      case DATE:
+        return value1.getDate().compareTo(value2.getDate());
+      case TIMESTAMP:
+        return value1.getTimestamp().compareTo(value2.getTimestamp());
+      default:
+        throw new IllegalArgumentException("Unsupported key type: " + value1.getType());
+    }
+  }
+
+  private static int compareBytes(byte[] bytes1, byte[] bytes2) {
+    for (int i = 0; i < Math.min(bytes1.length, bytes2.length); i++) {
+      int result = Integer.compare(bytes1[i] & 0xff, bytes2[i] & 0xff);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return Integer.compare(bytes1.length, bytes2.length);
+  }
+
+  private static List<String> formatKey(List<Value> key) {
+    List<String> result = new ArrayList<>(key.size());
+    for (Value value : key) {
+      switch (value.getType().getCode()) {
+        case BYTES:
+          result.add(value.getBytes().toBase64());
+          break;
+        case STRING:
+          result.add(value.getString());
+          break;
+        case NUMERIC:
+          result.add(value.getNumeric().toPlainString());
+          break;
+        default:
+          result.add(value.toString());
+      }
+    }
+    return result;
+  }
+
+  private static List<Value> parseKey(List<String> key, List<KeyColumn> keyColumns) {
+    List<Value> result = new ArrayList<>(key.size());
+    for (int i = 0; i < key.size(); i++) {
+      result.add(SpannerValues.toValue(key.get(i), keyColumns.get(i).type));
+    }
+    return result;
+  }
+
+  private static <T> T get(Future<T> future) throws SQLException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for the backfill", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof SpannerException) {
+        throw (SpannerException) e.getCause();
+      }
+      throw new SQLException(e.getCause());
+    }
+  }
+
+  private static void createTable(
+      CloudSpannerJdbcConnection connection, Dialect dialect, String progressTable)
+      throws SQLException {
+    String ddl =
+        dialect == Dialect.POSTGRESQL
+            ? String.format(
+                "CREATE TABLE IF NOT EXISTS %s (BACKFILL_ID VARCHAR(64) NOT NULL, "
+                    + "RANGE_INDEX BIGINT NOT NULL, START_KEY VARCHAR[], END_KEY VARCHAR[], "
+                    + "ROW_COUNT BIGINT, COMPLETED SPANNER.COMMIT_TIMESTAMP, "
+                    + "PRIMARY KEY (BACKFILL_ID, RANGE_INDEX))",
+                progressTable)
+            : String.format(
+                "CREATE TABLE IF NOT EXISTS %s (BACKFILL_ID STRING(64) NOT NULL, "
+                    + "RANGE_INDEX INT64 NOT NULL, START_KEY ARRAY<STRING(MAX)>, "
+                    + "END_KEY ARRAY<STRING(MAX)>, ROW_COUNT INT64, "
+                    + "COMPLETED TIMESTAMP OPTIONS (allow_commit_timestamp=true)) "
+                    + "PRIMARY KEY (BACKFILL_ID, RANGE_INDEX)",
+                progressTable);
+    try (java.sql.Statement statement = connection.createStatement()) {
+      statement.execute(ddl);
+    }
+  }
+
+  /** Returns an identifier for a backfill that is the same each time the statement is executed. */
+  private static String getBackfillId(String table, String sql) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(table.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+      digest.update(sql.getBytes(StandardCharsets.UTF_8));
+      StringBuilder id = new StringBuilder();
+      for (byte b : digest.digest()) {
+        id.append(String.format("%02x", b));
+      }
+      return id.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** Returns the name of the progress table. The default schema is omitted from the name. */
+  static String getProgressTableName(Database database) {
+    return database.escapeTableName(
+        database.getLiquibaseCatalogName(),
+        database.getLiquibaseSchemaName(),
+        database.getDatabaseChangeLogTableName() + "BACKFILL");
+  }
+
+  private static ThreadFactory createThreadFactory() {
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, "spanner-backfill-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private static String quote(String column, Dialect dialect) {
+    return dialect == Dialect.POSTGRESQL ? "\"" + column + "\"" : "`" + column + "`";
+  }
+
+  /** Unquoted identifiers are folded to lower case in PostgreSQL-dialect databases. */
+  private static String name(String name, Dialect dialect) {
+    return dialect == Dialect.POSTGRESQL ? name.toLowerCase(Locale.ROOT) : name;
+  }
+}
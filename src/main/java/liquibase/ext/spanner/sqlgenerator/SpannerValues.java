@@ -0,0 +1,386 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.sqlgenerator;
+
+import com.google.cloud.ByteArray;
+import com.google.cloud.Date;
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Value;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+import liquibase.executor.Executor;
+import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.statement.core.RawParameterizedSqlStatement;
+import liquibase.util.BooleanUtil;
+
+/**
+ * Converts the Java values that Liquibase produces for changes like loadData (strings, numbers,
+ * booleans and dates) to typed Spanner {@link Value}s for a given Spanner column type.
+ */
+public final class SpannerValues {
+  private static final String COLUMN_TYPES_QUERY =
+      "SELECT COLUMN_NAME, SPANNER_TYPE FROM INFORMATION_SCHEMA.COLUMNS "
+          + "WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ?";
+
+  private SpannerValues() {}
+
+  /**
+   * Returns the types of the columns of the given table. The keys of the map are the upper case
+   * column names. Columns with a type that cannot be converted by {@link #toValue} are included
+   * with a null value.
+   */
+  public static Map<String, Type> getColumnTypes(
+      Executor executor, Database database, @Nullable String schemaName, String tableName)
+      throws DatabaseException {
+    Dialect dialect = ((ICloudSpanner) database).getDialect();
+    String schema = schemaName;
+    if (schema == null) {
+      schema = database.getDefaultSchemaName();
+    }
+    if (schema == null) {
+      schema = dialect == Dialect.POSTGRESQL ? "public" : "";
+    }
+    Map<String, Type> columnTypes = new HashMap<>();
+    List<Map<String, ?>> result =
+        executor.queryForList(
+            new RawParameterizedSqlStatement(COLUMN_TYPES_QUERY, schema, tableName));
+    for (Map<String, ?> row : result) {
+      Iterator<?> values = row.values().iterator();
+      String columnName = String.valueOf(values.next());
+      columnTypes.put(
+          columnName.toUpperCase(Locale.ENGLISH),
+          parseColumnType(String.valueOf(values.next()), dialect));
+    }
+    return columnTypes;
+  }
+
+  /**
+   * Returns the {@link Type} for a type name as it is returned in the SPANNER_TYPE column of
+   * INFORMATION_SCHEMA.COLUMNS, or null if values of the type cannot be converted.
+   */
+  @Nullable
+  public static Type parseColumnType(@Nullable String spannerType, Dialect dialect) {
+    if (spannerType == null) {
+      return null;
+    }
+    String type = spannerType.trim().toLowerCase(Locale.ENGLISH);
+    if (type.startsWith("array<") && type.endsWith(">")) {
+      return toArrayType(parseColumnType(type.substring(6, type.length() - 1), dialect));
+    }
+    if (type.endsWith("[]")) {
+      return toArrayType(parseColumnType(type.substring(0, type.length() - 2), dialect));
+    }
+    int paren = type.indexOf('(');
+    if (paren > -1) {
+      type = type.substring(0, paren).trim();
+    }
+    switch (type) {
+      case "bool":
+      case "boolean":
+        return Type.bool();
+      case "int64":
+      case "bigint":
+        return Type.int64();
+      case "float32":
+      case "real":
+        return Type.float32();
+      case "float64":
+      case "double precision":
+        return Type.float64();
+      case "numeric":
+        return dialect == Dialect.POSTGRESQL ? Type.pgNumeric() : Type.numeric();
+      case "string":
+      case "character varying":
+      case "text":
+        return Type.string();
+      case "bytes":
+      case "bytea":
+        return Type.bytes();
+      case "json":
+      case "jsonb":
+        return dialect == Dialect.POSTGRESQL ? Type.pgJsonb() : Type.json();
+      case "date":
+        return Type.date();
+      case "timestamp":
+      case "timestamp with time zone":
+        return Type.timestamp();
+      default:
+        return null;
+    }
+  }
+
+  @Nullable
+  private static Type toArrayType(@Nullable Type elementType) {
+    if (elementType == null || elementType.getCode() == Type.Code.ARRAY) {
+      return null;
+    }
+    return Type.array(elementType);
+  }
+
+  /**
+   * Converts the given value to a {@link Value} of the given type. Array values can be given as a
+   * {@link Collection}, a Java array or a string literal in the form <code>[a, b]</code> or <code>
+   * {a,b}</code>.
+   *
+   * @throws IllegalArgumentException if the value cannot be converted to the given type
+   */
+  public static Value toValue(@Nullable Object value, Type type) {
+    switch (type.getCode()) {
+      case BOOL:
+        return Value.bool(value == null ? null : toBoolean(value));
+      case INT64:
+        return Value.int64(value == null ? null : toLong(value));
+      case FLOAT32:
+        return Value.float32(value == null ? null : toNumber(value, type).floatValue());
+      case FLOAT64:
+        return Value.float64(value == null ? null : toNumber(value, type).doubleValue());
+      case NUMERIC:
+        return Value.numeric(value == null ? null : toBigDecimal(value));
+      case PG_NUMERIC:
+        return Value.pgNumeric(value == null ? null : value.toString().trim());
+      case STRING:
+        return Value.string(value == null ? null : value.toString());
+      case BYTES:
+        return Value.bytes(value == null ? null : toBytes(value));
+      case JSON:
+        return Value.json(value == null ? null : value.toString());
+      case PG_JSONB:
+        return Value.pgJsonb(value == null ? null : value.toString());
+      case DATE:
+        return Value.date(value == null ? null : toDate(value));
+      case TIMESTAMP:
+        return Value.timestamp(value == null ? null : toTimestamp(value));
+      case ARRAY:
+        return toArrayValue(value, type.getArrayElementType());
+      default:
+        throw new IllegalArgumentException("Unsupported column type: " + type);
+    }
+  }
+
+  /**
+   * Converts the given value of the given column to a {@link Value} of the given type, see {@link
+   * #toValue(Object, Type)}.
+   *
+   * @throws IllegalArgumentException with the name of the column if the value cannot be converted
+   */
+  public static Value toValue(@Nullable Object value, Type type, String column) {
+    try {
+      return toValue(value, type);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+          String.format("Invalid value for column %s: %s", column, e.getMessage()), e);
+    }
+  }
+
+  private static Value toArrayValue(@Nullable Object value, Type elementType) {
+    List<Object> elements = value == null ? null : toList(value);
+    switch (elementType.getCode()) {
+      case BOOL:
+        return Value.boolArray(convert(elements, SpannerValues::toBoolean));
+      case INT64:
+        return Value.int64Array(convert(elements, SpannerValues::toLong));
+      case FLOAT32:
+        return Value.float32Array(convert(elements, e -> toNumber(e, elementType).floatValue()));
+      case FLOAT64:
+        return Value.float64Array(convert(elements, e -> toNumber(e, elementType).doubleValue()));
+      case NUMERIC:
+        return Value.numericArray(convert(elements, SpannerValues::toBigDecimal));
+      case PG_NUMERIC:
+        return Value.pgNumericArray(convert(elements, e -> e.toString().trim()));
+      case STRING:
+        return Value.stringArray(convert(elements, Object::toString));
+      case BYTES:
+        return Value.bytesArray(convert(elements, SpannerValues::toBytes));
+      case JSON:
+        return Value.jsonArray(convert(elements, Object::toString));
+      case PG_JSONB:
+        return Value.pgJsonbArray(convert(elements, Object::toString));
+      case DATE:
+        return Value.dateArray(convert(elements, SpannerValues::toDate));
+      case TIMESTAMP:
+        return Value.timestampArray(convert(elements, SpannerValues::toTimestamp));
+      default:
+        throw new IllegalArgumentException("Unsupported array element type: " + elementType);
+    }
+  }
+
+  @Nullable
+  private static <T> List<T> convert(@Nullable List<Object> elements, Function<Object, T> f) {
+    if (elements == null) {
+      return null;
+    }
+    List<T> result = new ArrayList<>(elements.size());
+    for (Object element : elements) {
+      result.add(element == null ? null : f.apply(element));
+    }
+    return result;
+  }
+
+  private static List<Object> toList(Object value) {
+    if (value instanceof Collection) {
+      return new ArrayList<>((Collection<?>) value);
+    }
+    if (value instanceof Object[]) {
+      return Arrays.asList((Object[]) value);
+    }
+    return parseArrayLiteral(value.toString().trim());
+  }
+
+  /** Parses an array literal in the form [a, 'b', NULL] (GoogleSQL) or {a,"b",NULL} (PG). */
+  private static List<Object> parseArrayLiteral(String literal) {
+    if (literal.length() < 2
+        || !((literal.startsWith("[") && literal.endsWith("]"))
+            || (literal.startsWith("{") && literal.endsWith("}")))) {
+      throw new IllegalArgumentException("Invalid array value: " + literal);
+    }
+    List<Object> result = new ArrayList<>();
+    String content = literal.substring(1, literal.length() - 1).trim();
+    if (content.isEmpty()) {
+      return result;
+    }
+    StringBuilder element = new StringBuilder();
+    char quote = 0;
+    boolean quoted = false;
+    for (int i = 0; i <= content.length(); i++) {
+      char c = i < content.length() ? content.charAt(i) : ',';
+      if (quote != 0) {
+        if (c == '\\' && i + 1 < content.length()) {
+          element.append(content.charAt(++i));
+        } else if (c == quote && i + 1 < content.length() && content.charAt(i + 1) == quote) {
+          element.append(content.charAt(++i));
+        } else if (c == quote) {
+          quote = 0;
+        } else {
+          element.append(c);
+        }
+      } else if (c == '\'' || c == '"') {
+        quote = c;
+        quoted = true;
+        if (element.toString().trim().isEmpty()) {
+          element.setLength(0);
+        }
+      } else if (c == ',') {
+        String trimmed = quoted ? element.toString() : element.toString().trim();
+        result.add(!quoted && "NULL".equalsIgnoreCase(trimmed) ? null : trimmed);
+        element.setLength(0);
+        quoted = false;
+      } else if (!quoted) {
+        element.append(c);
+      }
+    }
+    if (quote != 0) {
+      throw new IllegalArgumentException("Invalid array value: " + literal);
+    }
+    return result;
+  }
+
+  private static boolean toBoolean(Object value) {
+    if (value instanceof Boolean) {
+      return (Boolean) value;
+    }
+    return BooleanUtil.parseBoolean(value.toString().trim());
+  }
+
+  /**
+   * Converts the given value to a long. Values with a fractional part and values outside the range
+   * of INT64 are rejected instead of being truncated.
+   */
+  private static long toLong(Object value) {
+    if (value instanceof Long
+        || value instanceof Integer
+        || value instanceof Short
+        || value instanceof Byte) {
+      return ((Number) value).longValue();
+    }
+    BigDecimal decimal;
+    if (value instanceof BigDecimal) {
+      decimal = (BigDecimal) value;
+    } else if (value instanceof BigInteger) {
+      decimal = new BigDecimal((BigInteger) value);
+    } else {
+      try {
+        decimal = new BigDecimal(value.toString().trim());
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid INT64 value: " + value, e);
+      }
+    }
+    try {
+      return decimal.longValueExact();
+    } catch (ArithmeticException e) {
+      throw new IllegalArgumentException(
+          "Invalid INT64 value: " + value + " is not an integer in the range of INT64", e);
+    }
+  }
+
+  private static Number toNumber(Object value, Type type) {
+    if (value instanceof Number) {
+      return (Number) value;
+    }
+    String string = value.toString().trim();
+    try {
+      return Double.valueOf(string);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(String.format("Invalid %s value: %s", type, string), e);
+    }
+  }
+
+  private static BigDecimal toBigDecimal(Object value) {
+    if (value instanceof BigDecimal) {
+      return (BigDecimal) value;
+    }
+    try {
+      return new BigDecimal(value.toString().trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid NUMERIC value: " + value, e);
+    }
+  }
+
+  private static ByteArray toBytes(Object value) {
+    if (value instanceof byte[]) {
+      return ByteArray.copyFrom((byte[]) value);
+    }
+    return ByteArray.fromBase64(value.toString());
+  }
+
+  private static Date toDate(Object value) {
+    if (value instanceof java.util.Date) {
+      return Date.fromJavaUtilDate((java.util.Date) value);
+    }
+    return Date.parseDate(value.toString().trim());
+  }
+
+  private static Timestamp toTimestamp(Object value) {
+    if (value instanceof java.sql.Timestamp) {
+      return Timestamp.of((java.sql.Timestamp) value);
+    }
+    if (value instanceof java.util.Date) {
+      return Timestamp.of((java.util.Date) value);
+    }
+    return Timestamp.parseTimestamp(value.toString().trim());
+  }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.sqlgenerator;
+
+import liquibase.database.Database;
+import liquibase.exception.ValidationErrors;
+import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.sql.Sql;
+import liquibase.sqlgenerator.SqlGeneratorChain;
+import liquibase.sqlgenerator.core.AbstractSqlGenerator;
+
+/**
+ * {@link StreamLoadDataStatementSpanner} is executed directly by the executor and does not generate
+ * any SQL.
+ */
+public class StreamLoadDataGeneratorSpanner
+    extends AbstractSqlGenerator<StreamLoadDataStatementSpanner> {
+
+  @Override
+  public boolean supports(StreamLoadDataStatementSpanner statement, Database database) {
+    return database instanceof ICloudSpanner;
+  }
+
+  @Override
+  public ValidationErrors validate(
+      StreamLoadDataStatementSpanner statement,
+      Database database,
+      SqlGeneratorChain<StreamLoadDataStatementSpanner> sqlGeneratorChain) {
+    return new ValidationErrors();
+  }
+
+  @Override
+  public Sql[] generateSql(
+      StreamLoadDataStatementSpanner statement,
+      Database database,
+      SqlGeneratorChain<StreamLoadDataStatementSpanner> sqlGeneratorChain) {
+    return EMPTY_SQL;
+  }
+}
@@ -0,0 +1,679 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.sqlgenerator;
+
+import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.Mutation.WriteBuilder;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Value;
+import com.google.cloud.spanner.jdbc.CloudSpannerJdbcConnection;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.sql.SQLException;
+import java.text.ParseException;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import javax.annotation.Nullable;
+import liquibase.Scope;
+import liquibase.change.core.LoadDataColumnConfig;
+import liquibase.database.Database;
+import liquibase.database.PreparedStatementFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.executor.Executor;
+import liquibase.executor.ExecutorService;
+import liquibase.executor.jvm.JdbcExecutor;
+import liquibase.ext.spanner.ICloudSpanner;
+import liquibase.ext.spanner.SpannerConfiguration;
+import liquibase.logging.Logger;
+import liquibase.resource.Resource;
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.ExecutablePreparedStatement;
+import liquibase.statement.SqlStatement;
+import liquibase.util.ISODateFormat;
+import liquibase.util.csv.CSVReader;
+
+/**
+ * Loads a CSV file into a table with Insert mutations while the file is being read, so the memory
+ * use does not depend on the size of the file. The file is read and converted to typed mutations
+ * by a background thread, which hands the mutations to the writing thread in chunks through a
+ * bounded queue. Each chunk stays below {@link SpannerConfiguration#MAX_MUTATIONS_PER_COMMIT} and
+ * is committed separately, and at most {@link #QUEUED_CHUNKS} chunks per writer are waiting to be
+ * written.
+ *
+ * <p>Files that start with the gzip magic number are decompressed while they are read. The values
+ * are converted to the types of the columns in INFORMATION_SCHEMA with {@link SpannerValues}. Empty
+ * values and the value <code>NULL</code> are written as the default value of the column config,
+ * or as NULL.
+ *
+ * <p>The chunks are committed by {@link SpannerConfiguration#LOAD_DATA_WRITERS} threads. With more
+ * than one writer, the reader sorts the rows by primary key in windows of {@link
+ * #SORT_WINDOW_CHUNKS} chunks per writer before it cuts them into chunks, so each commit covers a
+ * small key range and is less likely to span multiple splits. Rows of an interleaved table with the
+ * same parent key are kept in the same chunk if they fit, as they are stored in the split of the
+ * parent row. The rows are written in file order if a primary key column is not in the file or
+ * cannot be compared on the client.
+ *
+ * <p>The statement falls back to the statements of the given supplier, which read the whole file
+ * into memory, if the file contains a column with a type that cannot be written with a mutation.
+ */
+public class StreamLoadDataStatementSpanner extends AbstractSqlStatement
+    implements ExecutablePreparedStatement {
+  static final int QUEUED_CHUNKS = 2;
+  static final int SORT_WINDOW_CHUNKS = 4;
+  private static final int BUFFER_SIZE = 1 << 20;
+  private static final List<Mutation> END_OF_FILE = Collections.emptyList();
+  private static final String PRIMARY_KEY_QUERY =
+      "SELECT I.COLUMN_NAME, "
+          + "(SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES T "
+          + "JOIN INFORMATION_SCHEMA.INDEX_COLUMNS P ON P.TABLE_SCHEMA = T.TABLE_SCHEMA "
+          + "AND P.TABLE_NAME = T.PARENT_TABLE_NAME AND P.INDEX_NAME = 'PRIMARY_KEY' "
+          + "WHERE T.TABLE_SCHEMA = I.TABLE_SCHEMA AND T.TABLE_NAME = I.TABLE_NAME) "
+          + "AS PARENT_KEY_COLUMNS "
+          + "FROM INFORMATION_SCHEMA.INDEX_COLUMNS I "
+          + "WHERE I.TABLE_SCHEMA = %s AND I.TABLE_NAME = %s AND I.INDEX_NAME = 'PRIMARY_KEY' "
+          + "ORDER BY I.ORDINAL_POSITION";
+
+  private final Database database;
+  private final String schemaName;
+  private final String tableName;
+  private final Resource resource;
+  private final String encoding;
+  private final char separator;
+  private final char quote;
+  @Nullable private final String commentLineStartsWith;
+  private final List<LoadDataColumnConfig> columns;
+  private final Supplier<SqlStatement[]> fallbackStatements;
+
+  /** A column of the CSV file that is written to the table. */
+  private static final class CsvColumn {
+    private final int index;
+    private final String name;
+    private final Type type;
+    @Nullable private final String defaultValue;
+
+    private CsvColumn(int index, String name, Type type, @Nullable String defaultValue) {
+      this.index = index;
+      this.name = name;
+      this.type = type;
+      this.defaultValue = defaultValue;
+    }
+  }
+
+  /** The positions of the primary key columns of the table in the columns of the file. */
+  private static final class KeyLayout {
+    private final int[] positions;
+    /** The number of leading key columns that rows of the same group have in common. */
+    private final int groupColumns;
+
+    private KeyLayout(int[] positions, int groupColumns) {
+      this.positions = positions;
+      this.groupColumns = groupColumns;
+    }
+
+    private List<Value> getKey(Value[] values) {
+      Value[] key = new Value[positions.length];
+      for (int i = 0; i < positions.length; i++) {
+        key[i] = values[positions[i]];
+      }
+      return Arrays.asList(key);
+    }
+
+    private boolean isSameGroup(List<Value> key1, List<Value> key2) {
+      return SpannerBackfill.compareKeys(
+              key1.subList(0, groupColumns), key2.subList(0, groupColumns))
+          == 0;
+    }
+  }
+
+  private static final class KeyedMutation {
+    private final List<Value> key;
+    private final Mutation mutation;
+
+    private KeyedMutation(List<Value> key, Mutation mutation) {
+      this.key = key;
+      this.mutation = mutation;
+    }
+  }
+
+  public StreamLoadDataStatementSpanner(
+      Database database,
+      String schemaName,
+      String tableName,
+      Resource resource,
+      String encoding,
+      char separator,
+      char quote,
+      @Nullable String commentLineStartsWith,
+      List<LoadDataColumnConfig> columns,
+      Supplier<SqlStatement[]> fallbackStatements) {
+    this.database = database;
+    this.schemaName = schemaName;
+    this.tableName = tableName;
+    this.resource = resource;
+    this.encoding = encoding;
+    this.separator = separator;
+    this.quote = quote;
+    this.commentLineStartsWith = commentLineStartsWith;
+    this.columns = columns;
+    this.fallbackStatements = fallbackStatements;
+  }
+
+  public String getTableName() {
+    return tableName;
+  }
+
+  public Resource getResource() {
+    return resource;
+  }
+
+  @Override
+  public void execute(PreparedStatementFactory factory) throws DatabaseException {
+    Logger log = Scope.getCurrentScope().getLog(getClass());
+    Executor executor =
+        Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database);
+    Map<String, Type> columnTypes =
+        SpannerValues.getColumnTypes(executor, database, schemaName, tableName);
+    String table =
+        schemaName == null || schemaName.isEmpty() ? tableName : schemaName + "." + tableName;
+    int maxMutations = SpannerConfiguration.MAX_MUTATIONS_PER_COMMIT.getCurrentValue();
+    int writers = Math.max(1, SpannerConfiguration.LOAD_DATA_WRITERS.getCurrentValue());
+
+    long startNanos = System.nanoTime();
+    AtomicLong rows = new AtomicLong();
+    AtomicInteger commits = new AtomicInteger();
+    CSVReader reader = openReader();
+    try {
+      String[] header = readLine(reader);
+      List<CsvColumn> csvColumns = new ArrayList<>();
+      String unsupportedColumn =
+          header == null ? null : mapColumns(header, columnTypes, csvColumns);
+      if (unsupportedColumn != null) {
+        log.info(
+            String.format(
+                "Column %s of table %s cannot be written with mutations, falling back to DML",
+                unsupportedColumn, tableName));
+        close(reader);
+        for (SqlStatement statement : fallbackStatements.get()) {
+          executor.execute(statement);
+        }
+        return;
+      }
+      if (header == null) {
+        return;
+      }
+      int rowsPerCommit = Math.max(1, maxMutations / Math.max(1, csvColumns.size()));
+      CloudSpannerJdbcConnection connection =
+          ((JdbcConnection) database.getConnection())
+              .getUnderlyingConnection()
+              .unwrap(CloudSpannerJdbcConnection.class);
+      KeyLayout keyLayout =
+          writers > 1 ? readKeyLayout(connection.getDatabaseClient(), csvColumns) : null;
+      if (writers > 1) {
+        if (keyLayout == null) {
+          log.info(
+              String.format(
+                  "The primary key of %s cannot be sorted on the client, writing in file order",
+                  table));
+        }
+        // The writers use separate transactions, which must see the earlier changes.
+        if (!connection.getAutoCommit()) {
+          connection.commit();
+        }
+      }
+      BlockingQueue<List<Mutation>> queue = new ArrayBlockingQueue<>(QUEUED_CHUNKS * writers);
+      AtomicReference<Exception> readError = new AtomicReference<>();
+      int windowRows = rowsPerCommit * SORT_WINDOW_CHUNKS * writers;
+      Thread readerThread =
+          new Thread(
+              () ->
+                  readMutations(
+                      reader,
+                      table,
+                      csvColumns,
+                      rowsPerCommit,
+                      keyLayout,
+                      windowRows,
+                      queue,
+                      readError),
+              "spanner-load-data-reader");
+      readerThread.setDaemon(true);
+      readerThread.start();
+      try {
+        if (writers == 1) {
+          writeChunks(connection, queue, rows, commits);
+        } else {
+          writeChunksInParallel(connection.getDatabaseClient(), queue, writers, rows, commits);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new DatabaseException("Interrupted while loading " + resource.getPath(), e);
+      } finally {
+        readerThread.interrupt();
+      }
+      if (readError.get() != null) {
+        throw readError.get();
+      }
+    } catch (DatabaseException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new DatabaseException(
+          String.format(
+              "Failed to load %s into %s after %d row(s) in %d commit(s): %s",
+              resource.getPath(), table, rows.get(), commits.get(), e.getMessage()),
+          e);
+    } finally {
+      close(reader);
+    }
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    AtomicInteger rowsAffected =
+        Scope.getCurrentScope().get(JdbcExecutor.ROWS_AFFECTED_SCOPE_KEY, AtomicInteger.class);
+    if (rowsAffected != null) {
+      rowsAffected.addAndGet((int) Math.min(Integer.MAX_VALUE, rows.get()));
+    }
+    log.info(
+        String.format(
+            "Streamed %d row(s) from %s to %s in %d commit(s) with %d writer(s) in %d ms "
+                + "(%.1f rows/s, %.1f commits/s)",
+            rows.get(),
+            resource.getPath(),
+            table,
+            commits.get(),
+            writers,
+            elapsedMillis,
+            rows.get() * 1000.0d / Math.max(1L, elapsedMillis),
+            commits.get() * 1000.0d / Math.max(1L, elapsedMillis)));
+  }
+
+  /** Commits the chunks on the queue with the connection of Liquibase. */
+  private static void writeChunks(
+      CloudSpannerJdbcConnection connection,
+      BlockingQueue<List<Mutation>> queue,
+      AtomicLong rows,
+      AtomicInteger commits)
+      throws InterruptedException, SQLException {
+    for (List<Mutation> chunk = queue.take(); chunk != END_OF_FILE; chunk = queue.take()) {
+      if (connection.getAutoCommit()) {
+        connection.write(chunk);
+      } else {
+        connection.bufferedWrite(chunk);
+        connection.commit();
+      }
+      rows.addAndGet(chunk.size());
+      commits.incrementAndGet();
+    }
+  }
+
+  /**
+   * Commits the chunks on the queue with the given number of writer threads, each of which commits
+   * one chunk at a time in its own transaction. The first failed commit stops all writers.
+   */
+  private static void writeChunksInParallel(
+      DatabaseClient client,
+      BlockingQueue<List<Mutation>> queue,
+      int writers,
+      AtomicLong rows,
+      AtomicInteger commits)
+      throws InterruptedException, SQLException {
+    java.util.concurrent.ExecutorService executor =
+        Executors.newFixedThreadPool(writers, createThreadFactory());
+    try {
+      CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+      for (int i = 0; i < writers; i++) {
+        completionService.submit(
+            () -> {
+              for (List<Mutation> chunk = queue.take();
+                  chunk != END_OF_FILE;
+                  chunk = queue.take()) {
+                client.write(chunk);
+                rows.addAndGet(chunk.size());
+                commits.incrementAndGet();
+              }
+              // Leave the end of the file on the queue for the other writers.
+              queue.put(END_OF_FILE);
+              return null;
+            });
+      }
+      for (int i = 0; i < writers; i++) {
+        try {
+          completionService.take().get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof SpannerException) {
+            throw (SpannerException) e.getCause();
+          }
+          throw new SQLException(e.getCause());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Returns the positions of the primary key columns of the table in the given columns, or null if
+   * a key column is not in the file or cannot be compared on the client.
+   */
+  @Nullable
+  private KeyLayout readKeyLayout(DatabaseClient client, List<CsvColumn> csvColumns) {
+    Dialect dialect = ((ICloudSpanner) database).getDialect();
+    String schema = schemaName;
+    if (schema == null || schema.isEmpty()) {
+      schema = dialect == Dialect.POSTGRESQL ? "public" : "";
+    }
+    Statement statement =
+        Statement.newBuilder(
+                dialect == Dialect.POSTGRESQL
+                    ? String.format(PRIMARY_KEY_QUERY, "$1", "$2")
+                    : String.format(PRIMARY_KEY_QUERY, "@p1", "@p2"))
+            .bind("p1")
+            .to(schema)
+            .bind("p2")
+            .to(dialect == Dialect.POSTGRESQL ? tableName.toLowerCase(Locale.ROOT) : tableName)
+            .build();
+    List<Integer> positions = new ArrayList<>();
+    int parentKeyColumns = 0;
+    try (ResultSet resultSet = client.singleUse().executeQuery(statement)) {
+      while (resultSet.next()) {
+        int position = indexOf(csvColumns, resultSet.getString(0));
+        if (position < 0 || !SpannerBackfill.isComparable(csvColumns.get(position).type)) {
+          return null;
+        }
+        positions.add(position);
+        parentKeyColumns = (int) resultSet.getLong(1);
+      }
+    }
+    if (positions.isEmpty()) {
+      return null;
+    }
+    int[] result = new int[positions.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = positions.get(i);
+    }
+    boolean interleaved = parentKeyColumns > 0 && parentKeyColumns < result.length;
+    return new KeyLayout(result, interleaved ? parentKeyColumns : result.length);
+  }
+
+  private static int indexOf(List<CsvColumn> csvColumns, String name) {
+    for (int i = 0; i < csvColumns.size(); i++) {
+      if (csvColumns.get(i).name.equalsIgnoreCase(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Reads the rows of the file, converts them to mutations and puts them on the queue in chunks.
+   * If a key layout is given, the rows are sorted and grouped by key in windows of the given size
+   * first. The end of the file is marked with {@link #END_OF_FILE}, also if reading the file
+   * failed.
+   */
+  private void readMutations(
+      CSVReader reader,
+      String table,
+      List<CsvColumn> csvColumns,
+      int rowsPerCommit,
+      @Nullable KeyLayout keyLayout,
+      int windowRows,
+      BlockingQueue<List<Mutation>> queue,
+      AtomicReference<Exception> readError) {
+    try {
+      List<Mutation> chunk = new ArrayList<>(rowsPerCommit);
+      List<KeyedMutation> window = new ArrayList<>(keyLayout == null ? 0 : windowRows);
+      long line = 1L;
+      for (String[] row = readLine(reader); row != null; row = readLine(reader)) {
+        line++;
+        Value[] values = toValues(row, csvColumns, line);
+        Mutation mutation = toMutation(table, csvColumns, values);
+        if (keyLayout != null) {
+          window.add(new KeyedMutation(keyLayout.getKey(values), mutation));
+          if (window.size() == windowRows) {
+            putGroupedChunks(window, keyLayout, rowsPerCommit, queue);
+            window.clear();
+          }
+        } else {
+          chunk.add(mutation);
+          if (chunk.size() == rowsPerCommit) {
+            queue.put(chunk);
+            chunk = new ArrayList<>(rowsPerCommit);
+          }
+        }
+      }
+      if (!window.isEmpty()) {
+        putGroupedChunks(window, keyLayout, rowsPerCommit, queue);
+      }
+      if (!chunk.isEmpty()) {
+        queue.put(chunk);
+      }
+    } catch (InterruptedException e) {
+      // The writer has stopped. Keep the interrupt, so the end of the file is not waited for.
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      // Any error, e.g. a malformed value, must also end the stream, or the writers wait forever.
+      readError.set(e);
+    } finally {
+      putEndOfFile(queue);
+    }
+  }
+
+  private static void putEndOfFile(BlockingQueue<List<Mutation>> queue) {
+    try {
+      queue.put(END_OF_FILE);
+    } catch (InterruptedException e) {
+      // The writer has stopped.
+    }
+  }
+
+  /**
+   * Sorts the rows of the window by key and puts them on the queue in chunks of consecutive keys.
+   * A chunk is closed before a group of rows with the same parent key that does not fit in it, so
+   * only groups that are larger than a chunk are split.
+   */
+  private static void putGroupedChunks(
+      List<KeyedMutation> window,
+      KeyLayout keyLayout,
+      int rowsPerCommit,
+      BlockingQueue<List<Mutation>> queue)
+      throws InterruptedException {
+    window.sort((row1, row2) -> SpannerBackfill.compareKeys(row1.key, row2.key));
+    List<Mutation> chunk = new ArrayList<>(rowsPerCommit);
+    int start = 0;
+    while (start < window.size()) {
+      int end = start + 1;
+      while (end < window.size()
+          && keyLayout.isSameGroup(window.get(start).key, window.get(end).key)) {
+        end++;
+      }
+      if (!chunk.isEmpty() && chunk.size() + end - start > rowsPerCommit) {
+        queue.put(chunk);
+        chunk = new ArrayList<>(rowsPerCommit);
+      }
+      for (int i = start; i < end; i++) {
+        chunk.add(window.get(i).mutation);
+        if (chunk.size() == rowsPerCommit) {
+          queue.put(chunk);
+          chunk = new ArrayList<>(rowsPerCommit);
+        }
+      }
+      start = end;
+    }
+    if (!chunk.isEmpty()) {
+      queue.put(chunk);
+    }
+  }
+
+  private Value[] toValues(String[] row, List<CsvColumn> csvColumns, long line) {
+    Value[] values = new Value[csvColumns.size()];
+    for (int i = 0; i < values.length; i++) {
+      CsvColumn column = csvColumns.get(i);
+      String value = column.index < row.length ? row[column.index] : null;
+      if (value == null || value.isEmpty() || "NULL".equalsIgnoreCase(value)) {
+        value = column.defaultValue;
+      }
+      try {
+        values[i] = SpannerValues.toValue(convert(value, column.type), column.type);
+      } catch (IllegalArgumentException | DateTimeException e) {
+        throw new IllegalArgumentException(
+            String.format(
+                "Invalid value for column %s in line %d of %s: %s",
+                column.name, line, resource.getPath(), e.getMessage()),
+            e);
+      }
+    }
+    return values;
+  }
+
+  private static Mutation toMutation(String table, List<CsvColumn> csvColumns, Value[] values) {
+    WriteBuilder builder = Mutation.newInsertBuilder(table);
+    for (int i = 0; i < values.length; i++) {
+      builder.set(csvColumns.get(i).name).to(values[i]);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Timestamps without a time zone are interpreted in the local time zone, in the same way as by
+   * the loadData change of Liquibase.
+   */
+  @Nullable
+  private static Object convert(@Nullable String value, Type type) {
+    if (value != null && type.getCode() == Type.Code.TIMESTAMP) {
+      try {
+        return new ISODateFormat().parse(value.trim());
+      } catch (ParseException | IllegalArgumentException e) {
+        return value;
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Maps the columns of the header to table columns, and returns the name of the first column that
+   * cannot be written with a mutation, or null if all columns can be written.
+   */
+  @Nullable
+  private String mapColumns(
+      String[] header, Map<String, Type> columnTypes, List<CsvColumn> csvColumns) {
+    for (int index = 0; index < header.length; index++) {
+      String headerName = header[index].trim();
+      LoadDataColumnConfig config = getColumnConfig(index, headerName);
+      if (config != null && "SKIP".equalsIgnoreCase(config.getType())) {
+        continue;
+      }
+      String name = config == null || config.getName() == null ? headerName : config.getName();
+      Type type = columnTypes.get(name.toUpperCase(Locale.ENGLISH));
+      if (type == null) {
+        return name;
+      }
+      csvColumns.add(
+          new CsvColumn(index, name, type, config == null ? null : config.getDefaultValue()));
+    }
+    return null;
+  }
+
+  @Nullable
+  private LoadDataColumnConfig getColumnConfig(int index, String header) {
+    for (LoadDataColumnConfig config : columns) {
+      if (config.getIndex() != null && config.getIndex() == index) {
+        return config;
+      }
+      if (config.getHeader() != null && config.getHeader().equalsIgnoreCase(header)) {
+        return config;
+      }
+      if (config.getIndex() == null
+          && config.getHeader() == null
+          && config.getName() != null
+          && config.getName().equalsIgnoreCase(header)) {
+        return config;
+      }
+    }
+    return null;
+  }
+
+  private CSVReader openReader() throws DatabaseException {
+    try {
+      InputStream input = new BufferedInputStream(resource.openInputStream(), BUFFER_SIZE);
+      input.mark(2);
+      int first = input.read();
+      int second = input.read();
+      input.reset();
+      if (first == (GZIPInputStream.GZIP_MAGIC & 0xff)
+          && second == (GZIPInputStream.GZIP_MAGIC >> 8)) {
+        input = new GZIPInputStream(input, BUFFER_SIZE);
+      }
+      Reader reader = new InputStreamReader(input, Charset.forName(encoding));
+      return new CSVReader(reader, separator, quote);
+    } catch (IOException e) {
+      throw new DatabaseException("Failed to open " + resource.getPath(), e);
+    }
+  }
+
+  /** Returns the next line of the file that is not a comment, or null at the end of the file. */
+  @Nullable
+  private String[] readLine(CSVReader reader) throws IOException {
+    String[] line = reader.readNext();
+    while (line != null
+        && commentLineStartsWith != null
+        && !commentLineStartsWith.isEmpty()
+        && line.length > 0
+        && line[0].startsWith(commentLineStartsWith)) {
+      line = reader.readNext();
+    }
+    return line;
+  }
+
+  private static ThreadFactory createThreadFactory() {
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, "spanner-load-data-writer-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private static void close(CSVReader reader) {
+    try {
+      reader.close();
+    } catch (IOException e) {
+      // Ignore, the file has been read or the load has failed.
+    }
+  }
+}
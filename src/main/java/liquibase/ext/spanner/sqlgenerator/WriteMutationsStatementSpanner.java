@@ -0,0 +1,253 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.sqlgenerator;
+
+import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.Mutation.WriteBuilder;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.jdbc.CloudSpannerJdbcConnection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.database.PreparedStatementFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.executor.Executor;
+import liquibase.executor.ExecutorService;
+import liquibase.executor.jvm.JdbcExecutor;
+import liquibase.ext.spanner.executor.JdbcExecutorSpanner;
+import liquibase.ext.spanner.SpannerConfiguration;
+import liquibase.logging.Logger;
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.ExecutablePreparedStatement;
+import liquibase.statement.SqlStatement;
+
+/**
+ * Writes rows to a table using Spanner mutations instead of DML statements.
+ *
+ * <p>If the change set runs in a transaction, the mutations are buffered in that transaction and
+ * are committed by Liquibase together with the other statements of the change set. The rows must
+ * then fit in {@link SpannerConfiguration#MAX_MUTATIONS_PER_COMMIT} mutations, unless {@link
+ * SpannerConfiguration#LOAD_DATA_SPLIT_COMMITS} is enabled. In autocommit mode, and when splitting
+ * is enabled, the mutations are committed in chunks that stay below that limit.
+ *
+ * <p>The types of the columns are read from INFORMATION_SCHEMA when the statement is executed. The
+ * statement falls back to executing the given DML statements if the table contains a column with a
+ * type that cannot be written with a mutation by this statement.
+ */
+public class WriteMutationsStatementSpanner extends AbstractSqlStatement
+    implements ExecutablePreparedStatement {
+  private final Database database;
+  private final String schemaName;
+  private final String tableName;
+  private final Mutation.Op operation;
+  private final List<Map<String, Object>> rows;
+  private final SqlStatement[] fallbackStatements;
+
+  public WriteMutationsStatementSpanner(
+      Database database,
+      String schemaName,
+      String tableName,
+      Mutation.Op operation,
+      List<Map<String, Object>> rows,
+      SqlStatement[] fallbackStatements) {
+    this.database = database;
+    this.schemaName = schemaName;
+    this.tableName = tableName;
+    this.operation = operation;
+    this.rows = rows;
+    this.fallbackStatements = fallbackStatements;
+  }
+
+  public String getSchemaName() {
+    return schemaName;
+  }
+
+  public String getTableName() {
+    return tableName;
+  }
+
+  public Mutation.Op getOperation() {
+    return operation;
+  }
+
+  public List<Map<String, Object>> getRows() {
+    return Collections.unmodifiableList(rows);
+  }
+
+  public SqlStatement[] getFallbackStatements() {
+    return fallbackStatements;
+  }
+
+  @Override
+  public void execute(PreparedStatementFactory factory) throws DatabaseException {
+    Logger log = Scope.getCurrentScope().getLog(getClass());
+    Executor executor =
+        Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database);
+    Map<String, Type> columnTypes =
+        SpannerValues.getColumnTypes(executor, database, schemaName, tableName);
+    String unsupportedColumn = findUnsupportedColumn(columnTypes);
+    if (unsupportedColumn != null) {
+      log.info(
+          String.format(
+              "Column %s of table %s cannot be written with mutations, falling back to DML",
+              unsupportedColumn, tableName));
+      for (SqlStatement statement : fallbackStatements) {
+        executor.execute(statement);
+      }
+      return;
+    }
+
+    String table =
+        schemaName == null || schemaName.isEmpty() ? tableName : schemaName + "." + tableName;
+    int maxMutations = Math.max(1, SpannerConfiguration.MAX_MUTATIONS_PER_COMMIT.getCurrentValue());
+    int maxColumns = 1;
+    long mutationCount = 0L;
+    for (Map<String, Object> row : rows) {
+      maxColumns = Math.max(maxColumns, row.size());
+      mutationCount += Math.max(1, row.size());
+    }
+    int rowsPerCommit = Math.max(1, maxMutations / maxColumns);
+
+    long startNanos = System.nanoTime();
+    int commits = 0;
+    try {
+      CloudSpannerJdbcConnection connection =
+          ((JdbcConnection) database.getConnection())
+              .getUnderlyingConnection()
+              .unwrap(CloudSpannerJdbcConnection.class);
+      boolean autoCommit = connection.getAutoCommit();
+      if (!autoCommit && mutationCount <= maxMutations) {
+        // Liquibase commits the mutations together with the other statements of the change set.
+        List<Mutation> mutations = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+          mutations.add(toMutation(table, row, columnTypes));
+        }
+        connection.bufferedWrite(mutations);
+      } else {
+        if (!autoCommit) {
+          checkSplitCommits(executor, table, mutationCount, maxMutations);
+        }
+        List<Mutation> chunk = new ArrayList<>(Math.min(rowsPerCommit, rows.size()));
+        Iterator<Map<String, Object>> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+          chunk.add(toMutation(table, iterator.next(), columnTypes));
+          if (chunk.size() == rowsPerCommit || !iterator.hasNext()) {
+            if (autoCommit) {
+              connection.write(chunk);
+            } else {
+              connection.bufferedWrite(chunk);
+              connection.commit();
+            }
+            commits++;
+            chunk.clear();
+          }
+        }
+      }
+    } catch (SQLException | IllegalArgumentException e) {
+      throw new DatabaseException(
+          String.format("Failed to write mutations to %s: %s", table, e.getMessage()), e);
+    }
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    AtomicInteger rowsAffected =
+        Scope.getCurrentScope().get(JdbcExecutor.ROWS_AFFECTED_SCOPE_KEY, AtomicInteger.class);
+    if (rowsAffected != null) {
+      rowsAffected.addAndGet(rows.size());
+    }
+    log.info(
+        String.format(
+            "Wrote %d row(s) to %s in %d commit(s) in %d ms (%.1f rows/s)",
+            rows.size(),
+            table,
+            commits,
+            elapsedMillis,
+            rows.size() * 1000.0d / Math.max(1L, elapsedMillis)));
+  }
+
+  /**
+   * Fails if the rows of this statement may not be committed in chunks in the transaction of the
+   * change set. Committing a chunk also commits all earlier statements of the change set.
+   */
+  private static void checkSplitCommits(
+      Executor executor, String table, long mutationCount, int maxMutations)
+      throws DatabaseException {
+    if (!SpannerConfiguration.LOAD_DATA_SPLIT_COMMITS.getCurrentValue()) {
+      throw new DatabaseException(
+          String.format(
+              "The %d mutations for %s do not fit in one commit of at most %d mutations. Set "
+                  + "runInTransaction: false on the change set, or enable %s to commit the rows "
+                  + "in chunks",
+              mutationCount,
+              table,
+              maxMutations,
+              SpannerConfiguration.LOAD_DATA_SPLIT_COMMITS.getKey()));
+    }
+    if (executor instanceof JdbcExecutorSpanner
+        && ((JdbcExecutorSpanner) executor).hasChangeSetWrites()) {
+      throw new DatabaseException(
+          String.format(
+              "The rows for %s cannot be committed in chunks, because the change set has "
+                  + "executed statements before them that would be committed with the first "
+                  + "chunk. Move the change to a separate change set",
+              table));
+    }
+  }
+
+  private String findUnsupportedColumn(Map<String, Type> columnTypes) {
+    for (Map<String, Object> row : rows) {
+      for (String column : row.keySet()) {
+        if (columnTypes.get(column.toUpperCase(Locale.ENGLISH)) == null) {
+          return column;
+        }
+      }
+    }
+    return null;
+  }
+
+  private Mutation toMutation(
+      String table, Map<String, Object> row, Map<String, Type> columnTypes) {
+    WriteBuilder builder;
+    switch (operation) {
+      case INSERT_OR_UPDATE:
+        builder = Mutation.newInsertOrUpdateBuilder(table);
+        break;
+      case REPLACE:
+        builder = Mutation.newReplaceBuilder(table);
+        break;
+      case UPDATE:
+        builder = Mutation.newUpdateBuilder(table);
+        break;
+      case INSERT:
+        builder = Mutation.newInsertBuilder(table);
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported mutation operation: " + operation);
+    }
+    for (Map.Entry<String, Object> column : row.entrySet()) {
+      Type type = columnTypes.get(column.getKey().toUpperCase(Locale.ENGLISH));
+      builder
+          .set(column.getKey())
+          .to(SpannerValues.toValue(column.getValue(), type, column.getKey()));
+    }
+    return builder.build();
+  }
+}
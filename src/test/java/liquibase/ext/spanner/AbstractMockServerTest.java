@@ -36,6 +36,7 @@ import io.grpc.Server;
 import io.grpc.ServerCall;
 import io.grpc.ServerCallHandler;
 import io.grpc.ServerInterceptor;
+import io.grpc.Status;
 import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
 import java.io.IOException;
 import java.net.InetSocketAddress;
@@ -44,6 +45,8 @@ import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nullable;
@@ -83,14 +86,60 @@ public abstract class AbstractMockServerTest {
   static final Statement SELECT_MD5SUM =
       Statement.of(
           "SELECT MD5SUM FROM DATABASECHANGELOG WHERE MD5SUM IS NOT NULL AND MD5SUM NOT LIKE '9:%'");
+  static final Statement SELECT_SNAPSHOT_READ_TIMESTAMP = Statement.of("SELECT 1");
   static final Statement SELECT_MAX_ORDER_EXEC =
       Statement.of("SELECT MAX(ORDEREXECUTED) FROM DATABASECHANGELOG");
+  static final Statement SELECT_DATABASECHANGELOGARCHIVE =
+      Statement.of(
+          "SELECT FILENAME, IDS, AUTHORS, MD5SUMS, EXECTYPES, ORDERS, DATEEXECUTED "
+              + "FROM DATABASECHANGELOGARCHIVE");
   static final Statement INSERT_DATABASECHANGELOG =
       Statement.of(
           "INSERT INTO DATABASECHANGELOG (ID, AUTHOR, FILENAME, DATEEXECUTED, ORDEREXECUTED, MD5SUM, DESCRIPTION, COMMENTS, EXECTYPE, CONTEXTS, LABELS, LIQUIBASE, DEPLOYMENT_ID)");
 
-  static final String GET_COLUMN_DEFAULT_STATEMENT =
-      "SELECT DISTINCT COLUMN_DEFAULT AS COLUMN_DEF FROM INFORMATION_SCHEMA.COLUMNS WHERE LOWER(TABLE_CATALOG) = ? AND LOWER(TABLE_SCHEMA) = ? AND LOWER(TABLE_NAME) = ? AND LOWER(COLUMN_NAME) = ?";
+  static final String GET_COLUMN_METADATA_STATEMENT =
+      "SELECT TABLE_SCHEMA, TABLE_NAME, COLUMN_NAME, COLUMN_DEFAULT, SPANNER_TYPE "
+          + "FROM INFORMATION_SCHEMA.COLUMNS "
+          + "WHERE TABLE_SCHEMA NOT IN ('INFORMATION_SCHEMA', 'SPANNER_SYS')";
+
+  static final String GET_COLUMN_METADATA_STATEMENT_PG =
+      "SELECT TABLE_SCHEMA, TABLE_NAME, COLUMN_NAME, COLUMN_DEFAULT, SPANNER_TYPE "
+          + "FROM INFORMATION_SCHEMA.COLUMNS "
+          + "WHERE TABLE_SCHEMA NOT IN ('information_schema', 'spanner_sys', 'pg_catalog')";
+
+  static String getColumnMetadataStatement(Dialect dialect) {
+    return dialect == Dialect.POSTGRESQL
+        ? GET_COLUMN_METADATA_STATEMENT_PG
+        : GET_COLUMN_METADATA_STATEMENT;
+  }
+
+  static final String GET_INDEXES_STATEMENT =
+      "SELECT IDX.TABLE_SCHEMA, IDX.TABLE_NAME, IDX.INDEX_NAME, "
+          + "CASE WHEN IDX.IS_UNIQUE THEN FALSE ELSE TRUE END AS NON_UNIQUE, "
+          + "COL.ORDINAL_POSITION, COL.COLUMN_NAME, COL.COLUMN_ORDERING "
+          + "FROM INFORMATION_SCHEMA.INDEXES IDX "
+          + "INNER JOIN INFORMATION_SCHEMA.INDEX_COLUMNS COL "
+          + "ON IDX.TABLE_SCHEMA = COL.TABLE_SCHEMA AND IDX.TABLE_NAME = COL.TABLE_NAME "
+          + "AND IDX.INDEX_NAME = COL.INDEX_NAME "
+          + "WHERE IDX.TABLE_SCHEMA NOT IN ('INFORMATION_SCHEMA', 'SPANNER_SYS') "
+          + "ORDER BY IDX.TABLE_SCHEMA, IDX.TABLE_NAME, IDX.IS_UNIQUE DESC, IDX.INDEX_NAME, "
+          + "CASE WHEN COL.ORDINAL_POSITION IS NULL THEN 0 ELSE COL.ORDINAL_POSITION END";
+
+  static final String GET_INDEXES_STATEMENT_PG =
+      "SELECT IDX.TABLE_SCHEMA, IDX.TABLE_NAME, IDX.INDEX_NAME, "
+          + "CASE WHEN IDX.IS_UNIQUE = 'YES' THEN FALSE ELSE TRUE END AS NON_UNIQUE, "
+          + "COL.ORDINAL_POSITION, COL.COLUMN_NAME, COL.COLUMN_ORDERING "
+          + "FROM INFORMATION_SCHEMA.INDEXES IDX "
+          + "INNER JOIN INFORMATION_SCHEMA.INDEX_COLUMNS COL "
+          + "ON IDX.TABLE_SCHEMA = COL.TABLE_SCHEMA AND IDX.TABLE_NAME = COL.TABLE_NAME "
+          + "AND IDX.INDEX_NAME = COL.INDEX_NAME "
+          + "WHERE IDX.TABLE_SCHEMA NOT IN ('information_schema', 'spanner_sys', 'pg_catalog') "
+          + "ORDER BY IDX.TABLE_SCHEMA, IDX.TABLE_NAME, IDX.IS_UNIQUE DESC, IDX.INDEX_NAME, "
+          + "CASE WHEN COL.ORDINAL_POSITION IS NULL THEN 0 ELSE COL.ORDINAL_POSITION END";
+
+  static String getIndexesStatement(Dialect dialect) {
+    return dialect == Dialect.POSTGRESQL ? GET_INDEXES_STATEMENT_PG : GET_INDEXES_STATEMENT;
+  }
 
   static final String GET_SPANNER_TYPE_STATEMENT =
       "SELECT SPANNER_TYPE FROM INFORMATION_SCHEMA.COLUMNS "
@@ -232,26 +281,36 @@ public abstract class AbstractMockServerTest {
         stmt.getSql().replace(" DATABASECHANGELOG", " " + schema + ".DATABASECHANGELOG"));
   }
 
+  private static final Map<String, String> DATABASECHANGELOG_COLUMN_TYPES =
+      ImmutableMap.<String, String>builder()
+          .put("ID", "character varying")
+          .put("AUTHOR", "character varying")
+          .put("FILENAME", "character varying")
+          .put("DATEEXECUTED", "timestamptz")
+          .put("ORDEREXECUTED", "bigint")
+          .put("EXECTYPE", "character varying")
+          .put("MD5SUM", "character varying")
+          .put("DESCRIPTION", "character varying")
+          .put("COMMENTS", "character varying")
+          .put("TAG", "character varying")
+          .put("LIQUIBASE", "character varying")
+          .put("CONTEXTS", "character varying")
+          .put("LABELS", "character varying")
+          .put("DEPLOYMENT_ID", "character varying")
+          .build();
+
+  static List<ColumnInfoMetadata> createDatabaseChangeLogColumnMetadata(String schema) {
+    List<ColumnInfoMetadata> columns = new ArrayList<>();
+    for (Map.Entry<String, String> entry : DATABASECHANGELOG_COLUMN_TYPES.entrySet()) {
+      columns.add(
+          new ColumnInfoMetadata(
+              schema, "DATABASECHANGELOG", entry.getKey(), null, entry.getValue()));
+    }
+    return columns;
+  }
+
   private static void registerDefaultResults(
       @Nullable String liquibaseSchema, @Nullable String defaultSchema) {
-    Map<String, String> databaseChangeLogColumnTypes =
-        ImmutableMap.<String, String>builder()
-            .put("ID", "character varying")
-            .put("AUTHOR", "character varying")
-            .put("FILENAME", "character varying")
-            .put("DATEEXECUTED", "timestamptz")
-            .put("ORDEREXECUTED", "bigint")
-            .put("EXECTYPE", "character varying")
-            .put("MD5SUM", "character varying")
-            .put("DESCRIPTION", "character varying")
-            .put("COMMENTS", "character varying")
-            .put("TAG", "character varying")
-            .put("LIQUIBASE", "character varying")
-            .put("CONTEXTS", "character varying")
-            .put("LABELS", "character varying")
-            .put("DEPLOYMENT_ID", "character varying")
-            .build();
-
     for (Dialect dialect : Dialect.values()) {
       String catalog = dialect == Dialect.POSTGRESQL ? "DB_PG" : "";
       String schema = defaultSchema;
@@ -301,6 +360,7 @@ public abstract class AbstractMockServerTest {
                   .to("%")
                   .build(),
               JdbcMetadataQueries.createGetSchemasResultSet("")));
+      List<ColumnInfoMetadata> columnMetadata = new ArrayList<>();
       for (String schemaName : new String[] {schema, liquibaseSchema}) {
         sql =
             dialect == Dialect.POSTGRESQL
@@ -469,85 +529,16 @@ public abstract class AbstractMockServerTest {
                             0,
                             DatabaseMetaData.columnNoNulls)))));
 
-        AbstractStatementParser.ParametersInfo paramsSpannerType =
-            parser.convertPositionalParametersToNamedParameters('?', GET_SPANNER_TYPE_STATEMENT);
-
-        AbstractStatementParser.ParametersInfo paramsSpannerDefault =
-            parser.convertPositionalParametersToNamedParameters('?', GET_COLUMN_DEFAULT_STATEMENT);
-
-        for (Map.Entry<String, String> entry : databaseChangeLogColumnTypes.entrySet()) {
-          String column = entry.getKey();
-          String type = entry.getValue();
-
-          if (dialect == Dialect.POSTGRESQL) {
-            mockSpanner.putStatementResult(
-                StatementResult.query(
-                    Statement.newBuilder(paramsSpannerType.sqlWithNamedParameters)
-                        .bind("p1")
-                        .to(schemaName.toLowerCase())
-                        .bind("p2")
-                        .to("databasechangelog")
-                        .bind("p3")
-                        .to(column.toLowerCase())
-                        .build(),
-                    ResultSet.newBuilder()
-                        .setMetadata(
-                            ResultSetMetadata.newBuilder()
-                                .setRowType(
-                                    StructType.newBuilder()
-                                        .addFields(
-                                            Field.newBuilder()
-                                                .setName("SPANNER_TYPE")
-                                                .setType(
-                                                    Type.newBuilder()
-                                                        .setCode(TypeCode.STRING)
-                                                        .build())
-                                                .build())
-                                        .build())
-                                .build())
-                        .addRows(
-                            ListValue.newBuilder()
-                                .addValues(Value.newBuilder().setStringValue(type).build())
-                                .build())
-                        .build()));
-          }
-
-          // TODO: Remove when the JDBC driver includes the column default in getColumns
-          mockSpanner.putStatementResult(
-              StatementResult.query(
-                  Statement.newBuilder(paramsSpannerDefault.sqlWithNamedParameters)
-                      .bind("p1")
-                      .to(catalog.toLowerCase())
-                      .bind("p2")
-                      .to(schemaName.toLowerCase())
-                      .bind("p3")
-                      .to("databasechangelog")
-                      .bind("p4")
-                      .to(column.toLowerCase())
-                      .build(),
-                  ResultSet.newBuilder()
-                      .setMetadata(
-                          ResultSetMetadata.newBuilder()
-                              .setRowType(
-                                  StructType.newBuilder()
-                                      .addFields(
-                                          Field.newBuilder()
-                                              .setName("COLUMN_DEF")
-                                              .setType(
-                                                  Type.newBuilder()
-                                                      .setCode(TypeCode.STRING)
-                                                      .build())
-                                              .build())
-                                      .build())
-                              .build())
-                      .addRows(
-                          ListValue.newBuilder()
-                              .addValues(
-                                  Value.newBuilder().setNullValue(NullValue.NULL_VALUE).build())
-                              .build())
-                      .build()));
-        }
+        columnMetadata.addAll(createDatabaseChangeLogColumnMetadata(schemaName));
       }
+      mockSpanner.putStatementResult(
+          StatementResult.query(
+              Statement.of(getColumnMetadataStatement(dialect)),
+              createGetColumnMetadataResultSet(columnMetadata)));
+
+      // Used to choose the read timestamp of a database snapshot.
+      mockSpanner.putStatementResult(
+          StatementResult.query(SELECT_SNAPSHOT_READ_TIMESTAMP, createInt64ResultSet(1L)));
 
       // Register results for an empty Liquibase database.
       mockSpanner.putStatementResult(
@@ -583,6 +574,13 @@ public abstract class AbstractMockServerTest {
               applySchema(SELECT_MAX_ORDER_EXEC, liquibaseSchema), createInt64ResultSet(0L)));
       mockSpanner.putPartialStatementResult(
           StatementResult.update(applySchema(INSERT_DATABASECHANGELOG, liquibaseSchema), 1L));
+      // The change log has not been archived.
+      mockSpanner.putStatementResult(
+          StatementResult.exception(
+              applySchema(SELECT_DATABASECHANGELOGARCHIVE, liquibaseSchema),
+              Status.INVALID_ARGUMENT
+                  .withDescription("Table not found: DATABASECHANGELOGARCHIVE")
+                  .asRuntimeException()));
     }
   }
 
@@ -627,6 +625,31 @@ public abstract class AbstractMockServerTest {
         .build();
   }
 
+  static ResultSet createStringResultSet(
+      Iterable<String> columnNames, Iterable<? extends Iterable<String>> rows) {
+    StructType.Builder rowType = StructType.newBuilder();
+    for (String columnName : columnNames) {
+      rowType.addFields(
+          Field.newBuilder()
+              .setName(columnName)
+              .setType(Type.newBuilder().setCode(TypeCode.STRING).build())
+              .build());
+    }
+    ResultSet.Builder builder =
+        ResultSet.newBuilder().setMetadata(ResultSetMetadata.newBuilder().setRowType(rowType));
+    for (Iterable<String> row : rows) {
+      ListValue.Builder values = ListValue.newBuilder();
+      for (String value : row) {
+        values.addValues(
+            value == null
+                ? Value.newBuilder().setNullValue(NullValue.NULL_VALUE).build()
+                : Value.newBuilder().setStringValue(value).build());
+      }
+      builder.addRows(values.build());
+    }
+    return builder.build();
+  }
+
   static ResultSet createMd5SumResultSet(Iterable<String> sums) {
     ResultSet.Builder builder = ResultSet.newBuilder().setMetadata(MD5SUM_METADATA);
     for (String sum : sums) {
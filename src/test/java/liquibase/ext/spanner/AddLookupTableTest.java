@@ -20,9 +20,22 @@ import com.google.cloud.spanner.MockSpannerServiceImpl.StatementResult;
 import com.google.cloud.spanner.Statement;
 import com.google.common.base.Predicate;
 import com.google.protobuf.AbstractMessage;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Value;
 import com.google.spanner.admin.database.v1.UpdateDatabaseDdlRequest;
+import com.google.spanner.v1.CommitRequest;
 import com.google.spanner.v1.ExecuteSqlRequest;
+import com.google.spanner.v1.Mutation;
+import com.google.spanner.v1.PartitionQueryRequest;
+import com.google.spanner.v1.ResultSet;
+import com.google.spanner.v1.ResultSetMetadata;
+import com.google.spanner.v1.StructType;
+import com.google.spanner.v1.StructType.Field;
+import com.google.spanner.v1.Type;
+import com.google.spanner.v1.TypeCode;
 import java.sql.Connection;
+import java.util.List;
+import java.util.stream.Collectors;
 import liquibase.Contexts;
 import liquibase.Liquibase;
 import org.junit.jupiter.api.BeforeEach;
@@ -87,4 +100,74 @@ public class AddLookupTableTest extends AbstractMockServerTest {
       assertThat(request.getStatementsList().get(0)).isEqualTo(expectedSql[i]);
     }
   }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testAddLookupTableForLargeTableFromYaml(Dialect dialect) throws Exception {
+    String[] expectedSql =
+        dialect == Dialect.POSTGRESQL
+            ? new String[] {
+              "CREATE TABLE Countries (Name varchar(100) NOT NULL, PRIMARY KEY (Name))",
+              "ALTER TABLE Singers ADD CONSTRAINT FK_Singers_Countries FOREIGN KEY (Country) REFERENCES Countries (Name)",
+            }
+            : new String[] {
+              "CREATE TABLE Countries (Name STRING(100) NOT NULL) PRIMARY KEY (Name)",
+              "ALTER TABLE Singers ADD CONSTRAINT FK_Singers_Countries FOREIGN KEY (Country) REFERENCES Countries (Name)",
+            };
+    for (String sql : expectedSql) {
+      addUpdateDdlStatementsResponse(dialect, sql);
+    }
+    ResultSet.Builder countries =
+        ResultSet.newBuilder()
+            .setMetadata(
+                ResultSetMetadata.newBuilder()
+                    .setRowType(
+                        StructType.newBuilder()
+                            .addFields(
+                                Field.newBuilder()
+                                    .setName("Country")
+                                    .setType(Type.newBuilder().setCode(TypeCode.STRING)))));
+    for (String country : new String[] {"NL", "US", "NL", "DE", "US"}) {
+      countries.addRows(
+          ListValue.newBuilder().addValues(Value.newBuilder().setStringValue(country)));
+    }
+    mockSpanner.putStatementResult(
+        StatementResult.query(
+            Statement.of("SELECT Country FROM Singers WHERE Country IS NOT NULL"),
+            countries.build()));
+
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase =
+            getLiquibase(con, "add-lookup-table-singers-countries-large.spanner.yaml")) {
+      liquibase.update(new Contexts("test"));
+    }
+
+    assertThat(mockSpanner.getRequestsOfType(PartitionQueryRequest.class)).hasSize(1);
+    assertThat(
+            mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+                .anyMatch(request -> request.getSql().startsWith("INSERT INTO Countries")))
+        .isFalse();
+    List<Mutation> mutations =
+        mockSpanner.getRequestsOfType(CommitRequest.class).stream()
+            .flatMap(request -> request.getMutationsList().stream())
+            .filter(Mutation::hasInsertOrUpdate)
+            .filter(
+                mutation -> mutation.getInsertOrUpdate().getTable().equalsIgnoreCase("Countries"))
+            .collect(Collectors.toList());
+    // The duplicate values are removed before the rows are written.
+    assertThat(
+            mutations.stream()
+                .map(
+                    mutation ->
+                        mutation.getInsertOrUpdate().getValues(0).getValues(0).getStringValue())
+                .collect(Collectors.toList()))
+        .containsExactly("NL", "US", "DE")
+        .inOrder();
+    // The foreign key is created after the lookup table has been filled.
+    assertThat(mockAdmin.getRequests()).hasSize(expectedSql.length);
+    for (int i = 0; i < expectedSql.length; i++) {
+      UpdateDatabaseDdlRequest request = (UpdateDatabaseDdlRequest) mockAdmin.getRequests().get(i);
+      assertThat(request.getStatementsList()).containsExactly(expectedSql[i]);
+    }
+  }
 }
@@ -0,0 +1,379 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.MockSpannerServiceImpl.StatementResult;
+import com.google.cloud.spanner.Statement;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.NullValue;
+import com.google.protobuf.Value;
+import com.google.spanner.v1.BeginTransactionRequest;
+import com.google.spanner.v1.CommitRequest;
+import com.google.spanner.v1.ExecuteSqlRequest;
+import com.google.spanner.v1.Mutation;
+import com.google.spanner.v1.PartitionQueryRequest;
+import com.google.spanner.v1.ResultSet;
+import com.google.spanner.v1.ResultSetMetadata;
+import com.google.spanner.v1.StructType;
+import com.google.spanner.v1.StructType.Field;
+import com.google.spanner.v1.Type;
+import com.google.spanner.v1.TypeCode;
+import io.grpc.Status;
+import java.sql.Connection;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import liquibase.Contexts;
+import liquibase.Liquibase;
+import liquibase.Scope;
+import liquibase.exception.LiquibaseException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+@Execution(ExecutionMode.SAME_THREAD)
+public class BackfillTest extends AbstractMockServerTest {
+  private static final String PRIMARY_KEY_QUERY =
+      "SELECT C.COLUMN_NAME, C.SPANNER_TYPE, C.IS_NULLABLE, I.COLUMN_ORDERING "
+          + "FROM INFORMATION_SCHEMA.INDEX_COLUMNS I "
+          + "JOIN INFORMATION_SCHEMA.COLUMNS C ON C.TABLE_SCHEMA = I.TABLE_SCHEMA "
+          + "AND C.TABLE_NAME = I.TABLE_NAME AND C.COLUMN_NAME = I.COLUMN_NAME "
+          + "WHERE I.TABLE_SCHEMA = %s AND I.TABLE_NAME = %s AND I.INDEX_NAME = 'PRIMARY_KEY' "
+          + "ORDER BY I.ORDINAL_POSITION";
+  private static final String SELECT_PROGRESS =
+      "SELECT RANGE_INDEX, START_KEY, END_KEY, ROW_COUNT, COMPLETED "
+          + "FROM DATABASECHANGELOGBACKFILL WHERE BACKFILL_ID = %s ORDER BY RANGE_INDEX";
+
+  @BeforeEach
+  void resetServer() {
+    mockSpanner.reset();
+    mockAdmin.reset();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testParallelUpdateFromYaml(Dialect dialect) throws Exception {
+    putPrimaryKeyResult(dialect, "NO");
+    putKeysResult(dialect, 5);
+    // The progress of a backfill that has not been started is empty for any backfill id.
+    mockSpanner.putPartialStatementResult(
+        StatementResult.query(
+            Statement.of(getProgressSql(dialect)), createProgressResult().build()));
+    mockSpanner.putPartialStatementResult(
+        StatementResult.update(Statement.of("UPDATE Singers"), 2L));
+
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "parallel-dml.spanner.yaml")) {
+      Scope.child(
+          SpannerConfiguration.BACKFILL_RANGE_SIZE.getKey(),
+          2,
+          () -> liquibase.update(new Contexts("test")));
+    }
+
+    assertThat(mockSpanner.getRequestsOfType(PartitionQueryRequest.class)).hasSize(1);
+    // Every second key is a range boundary, so the 5 keys are split into 3 ranges.
+    List<String> updates =
+        mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+            .map(ExecuteSqlRequest::getSql)
+            .filter(sql -> sql.startsWith("UPDATE Singers"))
+            .collect(Collectors.toList());
+    assertThat(updates).hasSize(3);
+    for (String sql : updates) {
+      assertThat(sql)
+          .startsWith("UPDATE Singers SET LastName = 'Unknown' WHERE (LastName IS NULL) AND (");
+      assertThat(sql).doesNotContain("spanner_backfill_range");
+    }
+    assertThat(
+            mockSpanner.getRequestsOfType(BeginTransactionRequest.class).stream()
+                .anyMatch(request -> request.getOptions().hasPartitionedDml()))
+        .isFalse();
+
+    List<Mutation> mutations =
+        mockSpanner.getRequestsOfType(CommitRequest.class).stream()
+            .flatMap(request -> request.getMutationsList().stream())
+            .collect(Collectors.toList());
+    // The ranges are stored before the first range is updated, each range transaction marks its
+    // range as completed, and the progress rows are deleted at the end.
+    assertThat(
+            mutations.stream()
+                .filter(Mutation::hasInsertOrUpdate)
+                .filter(
+                    mutation ->
+                        mutation
+                            .getInsertOrUpdate()
+                            .getTable()
+                            .equalsIgnoreCase("DATABASECHANGELOGBACKFILL"))
+                .mapToInt(mutation -> mutation.getInsertOrUpdate().getValuesCount())
+                .sum())
+        .isEqualTo(3);
+    assertThat(mutations.stream().filter(Mutation::hasUpdate).count()).isEqualTo(3L);
+    assertThat(
+            mutations.stream()
+                .filter(Mutation::hasDelete)
+                .map(mutation -> mutation.getDelete().getTable())
+                .filter(table -> table.equalsIgnoreCase("DATABASECHANGELOGBACKFILL"))
+                .count())
+        .isEqualTo(1L);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testResumeBackfill(Dialect dialect) throws Exception {
+    putPrimaryKeyResult(dialect, "NO");
+    putKeysResult(dialect, 5);
+    // Spanner returns INVALID_ARGUMENT, and not NOT_FOUND, for a query on a missing table. The
+    // first run therefore starts a new backfill.
+    mockSpanner.putPartialStatementResult(
+        StatementResult.exception(
+            Statement.of(getProgressSql(dialect)),
+            Status.INVALID_ARGUMENT
+                .withDescription("Table not found: DATABASECHANGELOGBACKFILL")
+                .asRuntimeException()));
+    mockSpanner.putPartialStatementResult(
+        StatementResult.exception(
+            Statement.of("UPDATE Singers"),
+            Status.FAILED_PRECONDITION.withDescription("range failed").asRuntimeException()));
+
+    assertThrows(LiquibaseException.class, () -> update(dialect));
+
+    // The ranges were stored before the first range was updated.
+    List<Mutation.Write> ranges =
+        mockSpanner.getRequestsOfType(CommitRequest.class).stream()
+            .flatMap(request -> request.getMutationsList().stream())
+            .filter(Mutation::hasInsertOrUpdate)
+            .map(Mutation::getInsertOrUpdate)
+            .filter(write -> write.getTable().equalsIgnoreCase("DATABASECHANGELOGBACKFILL"))
+            .collect(Collectors.toList());
+    assertThat(ranges).hasSize(1);
+    assertThat(ranges.get(0).getValuesCount()).isEqualTo(3);
+    String id = ranges.get(0).getValues(0).getValues(0).getStringValue();
+
+    // Continue as if the first range had been completed before the run failed.
+    mockSpanner.clearRequests();
+    Statement progress = Statement.newBuilder(getProgressSql(dialect)).bind("p1").to(id).build();
+    mockSpanner.putStatementResult(
+        StatementResult.query(
+            progress,
+            createProgressResult()
+                .addRows(progressRow(0L, null, "2", Timestamp.now()))
+                .addRows(progressRow(1L, "2", "4", null))
+                .addRows(progressRow(2L, "4", null, null))
+                .build()));
+    mockSpanner.putPartialStatementResult(
+        StatementResult.update(Statement.of("UPDATE Singers"), 2L));
+
+    update(dialect);
+
+    // The progress is read for this backfill only.
+    ExecuteSqlRequest progressRequest =
+        mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+            .filter(request -> request.getSql().equals(progress.getSql()))
+            .findFirst()
+            .get();
+    assertThat(progressRequest.getParams().getFieldsMap().get("p1").getStringValue())
+        .isEqualTo(id);
+    // The keys are not sampled again, and only the pending ranges are updated with the keys that
+    // were stored for them.
+    assertThat(mockSpanner.getRequestsOfType(PartitionQueryRequest.class)).isEmpty();
+    List<ExecuteSqlRequest> updates =
+        mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+            .filter(request -> request.getSql().startsWith("UPDATE Singers"))
+            .collect(Collectors.toList());
+    assertThat(updates).hasSize(2);
+    assertThat(
+            updates.stream()
+                .map(
+                    request ->
+                        request.getParams().getFieldsMap().values().stream()
+                            .map(Value::getStringValue)
+                            .sorted()
+                            .collect(Collectors.toList()))
+                .collect(Collectors.toList()))
+        .containsExactly(ImmutableList.of("2", "4"), ImmutableList.of("4"));
+    List<Mutation> mutations =
+        mockSpanner.getRequestsOfType(CommitRequest.class).stream()
+            .flatMap(request -> request.getMutationsList().stream())
+            .collect(Collectors.toList());
+    // The ranges are not stored again, and the pending ranges are marked as completed.
+    assertThat(
+            mutations.stream()
+                .filter(Mutation::hasInsertOrUpdate)
+                .map(mutation -> mutation.getInsertOrUpdate().getTable())
+                .filter(table -> table.equalsIgnoreCase("DATABASECHANGELOGBACKFILL"))
+                .count())
+        .isEqualTo(0L);
+    assertThat(
+            mutations.stream()
+                .filter(Mutation::hasUpdate)
+                .map(Mutation::getUpdate)
+                .filter(write -> write.getTable().equalsIgnoreCase("DATABASECHANGELOGBACKFILL"))
+                .map(write -> write.getValues(0).getValues(1).getStringValue())
+                .collect(Collectors.toList()))
+        .containsExactly("1", "2");
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testNullableKeyUsesPartitionedDml(Dialect dialect) throws Exception {
+    putPrimaryKeyResult(dialect, "YES");
+    mockSpanner.putPartialStatementResult(
+        StatementResult.update(Statement.of("UPDATE Singers"), 5L));
+
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "parallel-dml.spanner.yaml")) {
+      liquibase.update(new Contexts("test"));
+    }
+
+    assertThat(mockSpanner.getRequestsOfType(PartitionQueryRequest.class)).isEmpty();
+    assertThat(
+            mockSpanner.getRequestsOfType(BeginTransactionRequest.class).stream()
+                .filter(request -> request.getOptions().hasPartitionedDml())
+                .count())
+        .isEqualTo(1L);
+    assertThat(
+            mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+                .map(ExecuteSqlRequest::getSql)
+                .filter(sql -> sql.startsWith("UPDATE Singers"))
+                .collect(Collectors.toList()))
+        .containsExactly(
+            "UPDATE Singers SET LastName = 'Unknown' WHERE (LastName IS NULL) AND TRUE");
+  }
+
+  private static void putPrimaryKeyResult(Dialect dialect, String nullable) {
+    Statement statement =
+        Statement.newBuilder(
+                dialect == Dialect.POSTGRESQL
+                    ? String.format(PRIMARY_KEY_QUERY, "$1", "$2")
+                    : String.format(PRIMARY_KEY_QUERY, "@p1", "@p2"))
+            .bind("p1")
+            .to(dialect == Dialect.POSTGRESQL ? "public" : "")
+            .bind("p2")
+            .to(dialect == Dialect.POSTGRESQL ? "singers" : "Singers")
+            .build();
+    ResultSet resultSet =
+        ResultSet.newBuilder()
+            .setMetadata(
+                ResultSetMetadata.newBuilder()
+                    .setRowType(
+                        StructType.newBuilder()
+                            .addFields(field("COLUMN_NAME", TypeCode.STRING))
+                            .addFields(field("SPANNER_TYPE", TypeCode.STRING))
+                            .addFields(field("IS_NULLABLE", TypeCode.STRING))
+                            .addFields(field("COLUMN_ORDERING", TypeCode.STRING))))
+            .addRows(
+                ListValue.newBuilder()
+                    .addValues(string("SingerId"))
+                    .addValues(string(dialect == Dialect.POSTGRESQL ? "bigint" : "INT64"))
+                    .addValues(string(nullable))
+                    .addValues(string("ASC")))
+            .build();
+    mockSpanner.putStatementResult(StatementResult.query(statement, resultSet));
+  }
+
+  private static void putKeysResult(Dialect dialect, int rows) {
+    ResultSet.Builder resultSet =
+        ResultSet.newBuilder()
+            .setMetadata(
+                ResultSetMetadata.newBuilder()
+                    .setRowType(
+                        StructType.newBuilder().addFields(field("SingerId", TypeCode.INT64))));
+    for (int id = 1; id <= rows; id++) {
+      resultSet.addRows(ListValue.newBuilder().addValues(string(String.valueOf(id))));
+    }
+    mockSpanner.putStatementResult(
+        StatementResult.query(
+            Statement.of(
+                dialect == Dialect.POSTGRESQL
+                    ? "SELECT \"SingerId\" FROM Singers"
+                    : "SELECT `SingerId` FROM Singers"),
+            resultSet.build()));
+  }
+
+  private static void update(Dialect dialect) throws Exception {
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "parallel-dml.spanner.yaml")) {
+      Scope.child(
+          SpannerConfiguration.BACKFILL_RANGE_SIZE.getKey(),
+          2,
+          () -> liquibase.update(new Contexts("test")));
+    }
+  }
+
+  private static String getProgressSql(Dialect dialect) {
+    return String.format(SELECT_PROGRESS, dialect == Dialect.POSTGRESQL ? "$1" : "@p1");
+  }
+
+  private static ListValue progressRow(
+      long index, @Nullable String start, @Nullable String end, @Nullable Timestamp completed) {
+    return ListValue.newBuilder()
+        .addValues(string(String.valueOf(index)))
+        .addValues(keyValue(start))
+        .addValues(keyValue(end))
+        .addValues(
+            completed == null
+                ? Value.newBuilder().setNullValue(NullValue.NULL_VALUE).build()
+                : string("2"))
+        .addValues(
+            completed == null
+                ? Value.newBuilder().setNullValue(NullValue.NULL_VALUE).build()
+                : string(completed.toString()))
+        .build();
+  }
+
+  private static Value keyValue(@Nullable String key) {
+    if (key == null) {
+      return Value.newBuilder().setNullValue(NullValue.NULL_VALUE).build();
+    }
+    return Value.newBuilder()
+        .setListValue(ListValue.newBuilder().addValues(string(key)))
+        .build();
+  }
+
+  private static ResultSet.Builder createProgressResult() {
+    StructType.Builder rowType =
+        StructType.newBuilder()
+            .addFields(field("RANGE_INDEX", TypeCode.INT64))
+            .addFields(arrayField("START_KEY", TypeCode.STRING))
+            .addFields(arrayField("END_KEY", TypeCode.STRING))
+            .addFields(field("ROW_COUNT", TypeCode.INT64))
+            .addFields(field("COMPLETED", TypeCode.TIMESTAMP));
+    return ResultSet.newBuilder().setMetadata(ResultSetMetadata.newBuilder().setRowType(rowType));
+  }
+
+  private static Value string(String value) {
+    return Value.newBuilder().setStringValue(value).build();
+  }
+
+  private static Field field(String name, TypeCode code) {
+    return Field.newBuilder().setName(name).setType(Type.newBuilder().setCode(code)).build();
+  }
+
+  private static Field arrayField(String name, TypeCode elementCode) {
+    return Field.newBuilder()
+        .setName(name)
+        .setType(
+            Type.newBuilder()
+                .setCode(TypeCode.ARRAY)
+                .setArrayElementType(Type.newBuilder().setCode(elementCode)))
+        .build();
+  }
+}
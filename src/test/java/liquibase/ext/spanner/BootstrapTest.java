@@ -0,0 +1,153 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.cloud.spanner.Dialect;
+import com.google.common.collect.ImmutableList;
+import com.google.spanner.v1.CommitRequest;
+import com.google.spanner.v1.ExecuteSqlRequest;
+import com.google.spanner.v1.Mutation;
+import java.sql.Connection;
+import java.util.List;
+import java.util.stream.Collectors;
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.executor.Executor;
+import liquibase.executor.ExecutorService;
+import liquibase.statement.core.CreateDatabaseChangeLogLockTableStatement;
+import liquibase.statement.core.CreateDatabaseChangeLogTableStatement;
+import liquibase.statement.core.InitializeDatabaseChangeLogLockTableStatement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+@Execution(ExecutionMode.SAME_THREAD)
+public class BootstrapTest extends AbstractMockServerTest {
+
+  @BeforeEach
+  void resetServer() {
+    mockSpanner.reset();
+    mockAdmin.reset();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testTrackingTablesAreCreatedInOneBatch(Dialect dialect) throws Exception {
+    addUpdateDdlStatementsResponse(
+        dialect,
+        ImmutableList.of(
+            "CREATE TABLE DATABASECHANGELOGLOCK", "CREATE TABLE IF NOT EXISTS DATABASECHANGELOG"));
+
+    Scope.child(
+        SpannerConfiguration.BOOTSTRAP_IN_ONE_BATCH.getKey(), true, () -> createLockTable(dialect));
+
+    assertThat(mockAdmin.getRequests()).hasSize(1);
+    List<String> statements = ImmutableList.copyOf(getUpdateDdlStatementsList(0));
+    assertThat(statements).hasSize(2);
+    assertThat(statements.get(0)).matches("(?is)CREATE TABLE DATABASECHANGELOGLOCK\\b.*");
+    assertThat(statements.get(1)).matches("(?is)CREATE TABLE IF NOT EXISTS DATABASECHANGELOG\\b.*");
+
+    // The lock row is written with one mutation instead of a DELETE and an INSERT statement.
+    List<Mutation> mutations =
+        mockSpanner.getRequestsOfType(CommitRequest.class).stream()
+            .flatMap(commit -> commit.getMutationsList().stream())
+            .collect(Collectors.toList());
+    assertThat(mutations).hasSize(1);
+    assertThat(mutations.get(0).getInsertOrUpdate().getTable())
+        .ignoringCase()
+        .isEqualTo("DATABASECHANGELOGLOCK");
+    assertThat(
+            mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+                .map(ExecuteSqlRequest::getSql)
+                .collect(Collectors.toList()))
+        .containsNoneOf(
+            DELETE_FROM_DATABASECHANGELOGLOCK.getSql(), INSERT_DATABASECHANGELOGLOCK.getSql());
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testOnlyLockTableIsCreatedByDefault(Dialect dialect) throws Exception {
+    addUpdateDdlStatementsResponse(dialect, "CREATE TABLE DATABASECHANGELOGLOCK");
+
+    createLockTable(dialect);
+
+    assertThat(mockAdmin.getRequests()).hasSize(1);
+    assertThat(getUpdateDdlStatementsList(0)).hasSize(1);
+    assertThat(mockSpanner.getRequestsOfType(CommitRequest.class)).isEmpty();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testOneBatchNeedsFewerRequests(Dialect dialect) throws Exception {
+    addUpdateDdlStatementsResponse(dialect, "CREATE TABLE DATABASECHANGELOGLOCK");
+    addUpdateDdlStatementsResponse(dialect, "CREATE TABLE DATABASECHANGELOG");
+    bootstrap(dialect, false);
+    assertThat(mockAdmin.getRequests()).hasSize(2);
+    int separateRequests = mockAdmin.getRequests().size() + mockSpanner.getRequests().size();
+
+    mockSpanner.reset();
+    mockAdmin.reset();
+    addUpdateDdlStatementsResponse(
+        dialect,
+        ImmutableList.of(
+            "CREATE TABLE DATABASECHANGELOGLOCK", "CREATE TABLE IF NOT EXISTS DATABASECHANGELOG"));
+    Scope.child(
+        SpannerConfiguration.BOOTSTRAP_IN_ONE_BATCH.getKey(), true, () -> bootstrap(dialect, true));
+    // One schema change instead of two, and one commit for the lock row.
+    assertThat(mockAdmin.getRequests()).hasSize(1);
+    assertThat(mockSpanner.getRequestsOfType(CommitRequest.class)).hasSize(1);
+    assertThat(mockAdmin.getRequests().size() + mockSpanner.getRequests().size())
+        .isLessThan(separateRequests);
+  }
+
+  /**
+   * Executes the statements that Liquibase executes on a database without tracking tables, in the
+   * same order. The lock row and the change log table are created separately unless both tables
+   * are created in one batch.
+   */
+  private static void bootstrap(Dialect dialect, boolean oneBatch) throws Exception {
+    try (Connection con = createConnection(dialect)) {
+      Database database =
+          DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(con));
+      mockSpanner.clearRequests();
+      Executor executor =
+          Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database);
+      executor.execute(new CreateDatabaseChangeLogLockTableStatement());
+      database.commit();
+      if (!oneBatch) {
+        executor.execute(new InitializeDatabaseChangeLogLockTableStatement());
+        database.commit();
+        executor.execute(new CreateDatabaseChangeLogTableStatement());
+        database.commit();
+      }
+    }
+  }
+
+  private static void createLockTable(Dialect dialect) throws Exception {
+    try (Connection con = createConnection(dialect)) {
+      Database database =
+          DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(con));
+      Scope.getCurrentScope()
+          .getSingleton(ExecutorService.class)
+          .getExecutor("jdbc", database)
+          .execute(new CreateDatabaseChangeLogLockTableStatement());
+    }
+  }
+}
@@ -0,0 +1,242 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.MockSpannerServiceImpl.StatementResult;
+import com.google.cloud.spanner.Statement;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Value;
+import com.google.spanner.v1.CommitRequest;
+import com.google.spanner.v1.ExecuteSqlRequest;
+import com.google.spanner.v1.Mutation;
+import com.google.spanner.v1.ResultSet;
+import com.google.spanner.v1.ResultSetMetadata;
+import com.google.spanner.v1.StructType;
+import com.google.spanner.v1.StructType.Field;
+import com.google.spanner.v1.Type;
+import com.google.spanner.v1.TypeCode;
+import io.grpc.Status;
+import java.sql.Connection;
+import java.util.List;
+import java.util.stream.Collectors;
+import liquibase.Contexts;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.LiquibaseException;
+import liquibase.ext.spanner.change.SpannerChangeLogArchive;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+@Execution(ExecutionMode.SAME_THREAD)
+public class ChangeLogArchiveTest extends AbstractMockServerTest {
+  private static final Statement SELECT_HISTORY =
+      Statement.of(
+          "SELECT ID, AUTHOR, FILENAME, MD5SUM, EXECTYPE, ORDEREXECUTED, DATEEXECUTED "
+              + "FROM DATABASECHANGELOG WHERE TAG IS NULL "
+              + "ORDER BY ORDEREXECUTED DESC, DATEEXECUTED DESC");
+  private static final Statement SELECT_ARCHIVE = SELECT_DATABASECHANGELOGARCHIVE;
+
+  @BeforeEach
+  void resetServer() {
+    mockSpanner.reset();
+    mockAdmin.reset();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testArchiveKeepsRecentRows(Dialect dialect) throws Exception {
+    putHistoryResult();
+
+    try (Connection con = createConnection(dialect)) {
+      Database database =
+          DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(con));
+      assertThat(SpannerChangeLogArchive.archive(database, 1)).isEqualTo(2);
+    }
+
+    List<CommitRequest> commits = mockSpanner.getRequestsOfType(CommitRequest.class);
+    assertThat(commits).hasSize(1);
+    List<Mutation> mutations = commits.get(0).getMutationsList();
+    // The two oldest rows are deleted in the same transaction that archives them.
+    assertThat(mutations.stream().filter(Mutation::hasDelete).count()).isEqualTo(2L);
+    List<Mutation.Write> archived =
+        mutations.stream()
+            .filter(Mutation::hasInsertOrUpdate)
+            .map(Mutation::getInsertOrUpdate)
+            .collect(Collectors.toList());
+    assertThat(archived).hasSize(1);
+    assertThat(archived.get(0).getTable()).ignoringCase().isEqualTo("DATABASECHANGELOGARCHIVE");
+    ListValue ids = archived.get(0).getValues(0).getValues(2).getListValue();
+    assertThat(
+            ids.getValuesList().stream().map(Value::getStringValue).collect(Collectors.toList()))
+        .containsExactly("1", "2")
+        .inOrder();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testUpdateReadsArchive(Dialect dialect) throws Exception {
+    mockSpanner.putStatementResult(StatementResult.query(SELECT_ARCHIVE, createArchiveResult()));
+    addCreateSingersResponse(dialect);
+
+    // The archive is read whenever it exists, without any configuration.
+    update(dialect);
+
+    assertThat(getExecutedSql()).contains(SELECT_ARCHIVE.getSql());
+    assertThat(mockAdmin.getRequests()).hasSize(1);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testUpdateWithoutArchiveTable(Dialect dialect) throws Exception {
+    // Spanner returns INVALID_ARGUMENT, and not NOT_FOUND, for a query on a missing table.
+    mockSpanner.putStatementResult(
+        StatementResult.exception(
+            SELECT_ARCHIVE,
+            Status.INVALID_ARGUMENT
+                .withDescription("Table not found: DATABASECHANGELOGARCHIVE")
+                .asRuntimeException()));
+    addCreateSingersResponse(dialect);
+
+    update(dialect);
+
+    assertThat(getExecutedSql()).contains(SELECT_ARCHIVE.getSql());
+    assertThat(mockAdmin.getRequests()).hasSize(1);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testUpdateReadsMissingArchiveOnce(Dialect dialect) throws Exception {
+    mockSpanner.putStatementResult(
+        StatementResult.exception(
+            SELECT_ARCHIVE,
+            Status.INVALID_ARGUMENT
+                .withDescription("Table not found: DATABASECHANGELOGARCHIVE")
+                .asRuntimeException()));
+    addCreateSingersResponse(dialect);
+
+    update(dialect);
+
+    // Liquibase reads DATABASECHANGELOG several times during an update, but the archive is only
+    // queried once per command.
+    assertThat(
+            getExecutedSql().stream().filter(sql -> sql.equals(SELECT_ARCHIVE.getSql())).count())
+        .isEqualTo(1L);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testUpdateFailsOnArchiveError(Dialect dialect) throws Exception {
+    mockSpanner.putStatementResult(
+        StatementResult.exception(
+            SELECT_ARCHIVE,
+            Status.PERMISSION_DENIED
+                .withDescription("No access to DATABASECHANGELOGARCHIVE")
+                .asRuntimeException()));
+
+    // Other errors are not treated as an empty archive, as the archived change sets would then
+    // run again.
+    assertThrows(LiquibaseException.class, () -> update(dialect));
+    assertThat(mockAdmin.getRequests()).isEmpty();
+  }
+
+  private static void addCreateSingersResponse(Dialect dialect) {
+    addUpdateDdlStatementsResponse(
+        dialect,
+        dialect == Dialect.POSTGRESQL
+            ? "CREATE TABLE Singers (SingerId bigint, FirstName varchar(255), LastName varchar(255) NOT NULL, SingerInfo bytea, \"hash`s\" varchar(40), PRIMARY KEY (SingerId))"
+            : "CREATE TABLE Singers (SingerId INT64, FirstName STRING(255), LastName STRING(255) NOT NULL, SingerInfo BYTES(MAX), `hash\\`s` STRING(40)) PRIMARY KEY (SingerId)");
+  }
+
+  private static void update(Dialect dialect) throws Exception {
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "create-singers-table.spanner.yaml")) {
+      liquibase.update(new Contexts("test"));
+    }
+  }
+
+  private static List<String> getExecutedSql() {
+    return mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+        .map(ExecuteSqlRequest::getSql)
+        .collect(Collectors.toList());
+  }
+
+  private static void putHistoryResult() {
+    StructType.Builder rowType =
+        StructType.newBuilder()
+            .addFields(field("ID", TypeCode.STRING))
+            .addFields(field("AUTHOR", TypeCode.STRING))
+            .addFields(field("FILENAME", TypeCode.STRING))
+            .addFields(field("MD5SUM", TypeCode.STRING))
+            .addFields(field("EXECTYPE", TypeCode.STRING))
+            .addFields(field("ORDEREXECUTED", TypeCode.INT64))
+            .addFields(field("DATEEXECUTED", TypeCode.TIMESTAMP));
+    ResultSet.Builder resultSet =
+        ResultSet.newBuilder().setMetadata(ResultSetMetadata.newBuilder().setRowType(rowType));
+    for (int order = 3; order >= 1; order--) {
+      resultSet.addRows(
+          ListValue.newBuilder()
+              .addValues(string(String.valueOf(order)))
+              .addValues(string("test"))
+              .addValues(string("changelog.yaml"))
+              .addValues(string("9:" + order))
+              .addValues(string("EXECUTED"))
+              .addValues(string(String.valueOf(order)))
+              .addValues(string(Timestamp.now().toString())));
+    }
+    mockSpanner.putStatementResult(StatementResult.query(SELECT_HISTORY, resultSet.build()));
+  }
+
+  private static ResultSet createArchiveResult() {
+    StructType.Builder rowType =
+        StructType.newBuilder()
+            .addFields(field("FILENAME", TypeCode.STRING))
+            .addFields(arrayField("IDS", TypeCode.STRING))
+            .addFields(arrayField("AUTHORS", TypeCode.STRING))
+            .addFields(arrayField("MD5SUMS", TypeCode.STRING))
+            .addFields(arrayField("EXECTYPES", TypeCode.STRING))
+            .addFields(arrayField("ORDERS", TypeCode.INT64))
+            .addFields(field("DATEEXECUTED", TypeCode.TIMESTAMP));
+    return ResultSet.newBuilder()
+        .setMetadata(ResultSetMetadata.newBuilder().setRowType(rowType))
+        .build();
+  }
+
+  private static Value string(String value) {
+    return Value.newBuilder().setStringValue(value).build();
+  }
+
+  private static Field field(String name, TypeCode code) {
+    return Field.newBuilder().setName(name).setType(Type.newBuilder().setCode(code)).build();
+  }
+
+  private static Field arrayField(String name, TypeCode elementCode) {
+    return Field.newBuilder()
+        .setName(name)
+        .setType(
+            Type.newBuilder()
+                .setCode(TypeCode.ARRAY)
+                .setArrayElementType(Type.newBuilder().setCode(elementCode)))
+        .build();
+  }
+}
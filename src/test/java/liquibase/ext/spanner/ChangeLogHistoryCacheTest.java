@@ -0,0 +1,196 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.MockSpannerServiceImpl.StatementResult;
+import com.google.cloud.spanner.Statement;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Value;
+import com.google.spanner.v1.ExecuteSqlRequest;
+import com.google.spanner.v1.ResultSet;
+import com.google.spanner.v1.ResultSetMetadata;
+import com.google.spanner.v1.StructType;
+import com.google.spanner.v1.StructType.Field;
+import com.google.spanner.v1.Type;
+import com.google.spanner.v1.TypeCode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import liquibase.Contexts;
+import liquibase.Liquibase;
+import liquibase.Scope;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+@Execution(ExecutionMode.SAME_THREAD)
+public class ChangeLogHistoryCacheTest extends AbstractMockServerTest {
+  private static final Statement SELECT_NEW_ROWS =
+      Statement.of(
+          "SELECT * FROM DATABASECHANGELOG WHERE ORDEREXECUTED > 0 "
+              + "ORDER BY DATEEXECUTED ASC, ORDEREXECUTED ASC");
+  private static final Statement SELECT_COUNTS =
+      Statement.of(
+          "SELECT COUNT(*) AS TOTAL_ROWS, COUNT(MD5SUM) AS CHECKSUMS, COUNT(TAG) AS TAGS "
+              + "FROM DATABASECHANGELOG");
+
+  @BeforeEach
+  void resetServer() {
+    mockSpanner.reset();
+    mockAdmin.reset();
+    mockSpanner.putStatementResult(
+        StatementResult.query(
+            SELECT_NEW_ROWS, DatabaseChangeLog.createChangeSetResultSet(ImmutableList.of())));
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testReadsOnlyNewRows(Dialect dialect) throws Exception {
+    // The first update reads and caches the whole (empty) table.
+    update(dialect);
+    assertThat(getExecutedSql()).contains(SELECT_FROM_DATABASECHANGELOG.getSql());
+    mockSpanner.clearRequests();
+    putCountsResult(0L);
+
+    update(dialect);
+
+    assertThat(getExecutedSql()).doesNotContain(SELECT_FROM_DATABASECHANGELOG.getSql());
+    assertThat(getExecutedSql()).contains(SELECT_NEW_ROWS.getSql());
+    assertThat(getExecutedSql()).contains(SELECT_COUNTS.getSql());
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testCachedRowsIncludeMissingArchive(Dialect dialect) throws Exception {
+    // The first update reads the whole table and finds that there is no archive table.
+    putCountsResult(1L);
+    update(dialect);
+    assertThat(getExecutedSql()).contains(SELECT_DATABASECHANGELOGARCHIVE.getSql());
+    mockSpanner.clearRequests();
+    putCountsResult(0L);
+
+    update(dialect);
+
+    // Only the new rows and the counts are read. The archive is not queried again.
+    List<String> sql = getExecutedSql();
+    assertThat(sql).doesNotContain(SELECT_DATABASECHANGELOGARCHIVE.getSql());
+    assertThat(sql).doesNotContain(SELECT_FROM_DATABASECHANGELOG.getSql());
+    assertThat(sql).contains(SELECT_COUNTS.getSql());
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testReadsAllRowsWhenCountsDiffer(Dialect dialect) throws Exception {
+    update(dialect);
+    mockSpanner.clearRequests();
+    // A row was added out-of-band with a lower ORDEREXECUTED than the cached rows.
+    putCountsResult(1L);
+
+    update(dialect);
+
+    assertThat(getExecutedSql()).contains(SELECT_COUNTS.getSql());
+    assertThat(getExecutedSql()).contains(SELECT_FROM_DATABASECHANGELOG.getSql());
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testDoesNotRewriteUnchangedCacheFile(Dialect dialect, @TempDir Path tempDir)
+      throws Exception {
+    Path cacheFile = tempDir.resolve("changelog-cache.properties");
+    // Different counts make the first update read the whole table and write the cache file.
+    putCountsResult(1L);
+    update(dialect, cacheFile);
+    assertThat(Files.exists(cacheFile)).isTrue();
+    // Properties.store drops comments, so the marker is only kept if the file is not rewritten.
+    byte[] marker = "# marker\n".getBytes(StandardCharsets.UTF_8);
+    Files.write(cacheFile, marker, StandardOpenOption.APPEND);
+    mockSpanner.clearRequests();
+    putCountsResult(0L);
+
+    update(dialect, cacheFile);
+
+    assertThat(getExecutedSql()).contains(SELECT_NEW_ROWS.getSql());
+    assertThat(getExecutedSql()).doesNotContain(SELECT_FROM_DATABASECHANGELOG.getSql());
+    assertThat(new String(Files.readAllBytes(cacheFile), StandardCharsets.UTF_8))
+        .contains("# marker");
+  }
+
+  private static void update(Dialect dialect) throws Exception {
+    update(dialect, null);
+  }
+
+  private static void update(Dialect dialect, @Nullable Path cacheFile) throws Exception {
+    // The mock DATABASECHANGELOG table is always empty, so the change set is applied each time.
+    addUpdateDdlStatementsResponse(
+        dialect,
+        dialect == Dialect.POSTGRESQL
+            ? "CREATE TABLE Singers (SingerId bigint, FirstName varchar(255), LastName varchar(255) NOT NULL, SingerInfo bytea, \"hash`s\" varchar(40), PRIMARY KEY (SingerId))"
+            : "CREATE TABLE Singers (SingerId INT64, FirstName STRING(255), LastName STRING(255) NOT NULL, SingerInfo BYTES(MAX), `hash\\`s` STRING(40)) PRIMARY KEY (SingerId)");
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "create-singers-table.spanner.yaml")) {
+      Map<String, Object> config = new HashMap<>();
+      config.put(SpannerConfiguration.CHANGELOG_CACHE.getKey(), true);
+      if (cacheFile != null) {
+        config.put(SpannerConfiguration.CHANGELOG_CACHE_FILE.getKey(), cacheFile.toString());
+      }
+      Scope.child(config, () -> liquibase.update(new Contexts("test")));
+    }
+  }
+
+  private static void putCountsResult(long totalRows) {
+    StructType.Builder rowType =
+        StructType.newBuilder()
+            .addFields(field("TOTAL_ROWS"))
+            .addFields(field("CHECKSUMS"))
+            .addFields(field("TAGS"));
+    mockSpanner.putStatementResult(
+        StatementResult.query(
+            SELECT_COUNTS,
+            ResultSet.newBuilder()
+                .setMetadata(ResultSetMetadata.newBuilder().setRowType(rowType))
+                .addRows(
+                    ListValue.newBuilder()
+                        .addValues(Value.newBuilder().setStringValue(String.valueOf(totalRows)))
+                        .addValues(Value.newBuilder().setStringValue("0"))
+                        .addValues(Value.newBuilder().setStringValue("0")))
+                .build()));
+  }
+
+  private static Field field(String name) {
+    return Field.newBuilder()
+        .setName(name)
+        .setType(Type.newBuilder().setCode(TypeCode.INT64))
+        .build();
+  }
+
+  private static List<String> getExecutedSql() {
+    return mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+        .map(ExecuteSqlRequest::getSql)
+        .collect(Collectors.toList());
+  }
+}
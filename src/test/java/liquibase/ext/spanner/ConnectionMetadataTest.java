@@ -0,0 +1,111 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.cloud.spanner.Dialect;
+import java.sql.Connection;
+import liquibase.Liquibase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.datatype.DataTypeFactory;
+import liquibase.sqlgenerator.SqlGeneratorFactory;
+import liquibase.statement.NotNullConstraint;
+import liquibase.statement.core.CreateTableStatement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+@Execution(ExecutionMode.SAME_THREAD)
+public class ConnectionMetadataTest extends AbstractMockServerTest {
+
+  @BeforeEach
+  void resetServer() {
+    mockSpanner.reset();
+    mockAdmin.reset();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testMetadataIsCapturedOnce(Dialect dialect) throws Exception {
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "changelog.spanner.sql")) {
+      CloudSpanner database = (CloudSpanner) liquibase.getDatabase();
+      SpannerConnectionMetadata metadata = database.getConnectionMetadata();
+      assertThat(metadata).isNotNull();
+      assertThat(metadata.getDialect()).isEqualTo(dialect);
+      assertThat(metadata.getDefaultSchema())
+          .isEqualTo(dialect == Dialect.POSTGRESQL ? "public" : "");
+      assertThat(metadata.getDriverVersion()).isNotEmpty();
+      assertThat(metadata.getDriverMajorVersion()).isAtLeast(2);
+
+      assertThat(database.getDialect()).isEqualTo(dialect);
+      assertThat(database.getConnectionMetadata()).isSameInstanceAs(metadata);
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testMetadataLookupsDoNotSendRequests(Dialect dialect) throws Exception {
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "changelog.spanner.sql")) {
+      CloudSpanner database = (CloudSpanner) liquibase.getDatabase();
+      assertThat(database.getConnectionMetadata()).isNotNull();
+      CreateTableStatement createTable =
+          new CreateTableStatement(null, null, "Singers")
+              .addPrimaryKeyColumn(
+                  "SingerId",
+                  DataTypeFactory.getInstance().fromDescription("bigint", database),
+                  null,
+                  null,
+                  null,
+                  new NotNullConstraint())
+              .addColumn(
+                  "Name", DataTypeFactory.getInstance().fromDescription("varchar(100)", database));
+      mockSpanner.clearRequests();
+
+      // The dialect and the default schema are read from the captured metadata for each statement.
+      for (int i = 0; i < 100; i++) {
+        assertThat(database.getDialect()).isEqualTo(dialect);
+        assertThat(database.getConnectionMetadata().getDefaultSchema())
+            .isEqualTo(dialect == Dialect.POSTGRESQL ? "public" : "");
+        assertThat(SqlGeneratorFactory.getInstance().generateSql(createTable, database))
+            .hasLength(1);
+      }
+      assertThat(mockSpanner.getRequests()).isEmpty();
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testMetadataIsInvalidatedOnReconnect(Dialect dialect) throws Exception {
+    Dialect otherDialect =
+        dialect == Dialect.POSTGRESQL ? Dialect.GOOGLE_STANDARD_SQL : Dialect.POSTGRESQL;
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "changelog.spanner.sql")) {
+      CloudSpanner database = (CloudSpanner) liquibase.getDatabase();
+      SpannerConnectionMetadata metadata = database.getConnectionMetadata();
+      assertThat(database.getDialect()).isEqualTo(dialect);
+
+      try (Connection otherConnection = createConnection(otherDialect)) {
+        database.setConnection(new JdbcConnection(otherConnection));
+        assertThat(database.getConnectionMetadata()).isNotSameInstanceAs(metadata);
+        assertThat(database.getDialect()).isEqualTo(otherDialect);
+        database.getConnection().close();
+      }
+    }
+  }
+}
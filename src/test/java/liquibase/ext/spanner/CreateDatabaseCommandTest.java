@@ -0,0 +1,134 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.cloud.spanner.Dialect;
+import com.google.common.collect.ImmutableList;
+import com.google.longrunning.Operation;
+import com.google.protobuf.AbstractMessage;
+import com.google.protobuf.Any;
+import com.google.spanner.admin.database.v1.CreateDatabaseMetadata;
+import com.google.spanner.admin.database.v1.CreateDatabaseRequest;
+import com.google.spanner.admin.database.v1.Database;
+import com.google.spanner.admin.database.v1.UpdateDatabaseDdlRequest;
+import com.google.spanner.v1.CommitRequest;
+import com.google.spanner.v1.Mutation;
+import java.util.List;
+import java.util.stream.Collectors;
+import liquibase.command.CommandResults;
+import liquibase.command.CommandScope;
+import liquibase.ext.spanner.command.CreateDatabaseCommandStepSpanner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+@Execution(ExecutionMode.SAME_THREAD)
+public class CreateDatabaseCommandTest extends AbstractMockServerTest {
+
+  @BeforeEach
+  void resetServer() {
+    mockSpanner.reset();
+    mockAdmin.reset();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testCreateDatabaseWithChangeLog(Dialect dialect) throws Exception {
+    CommandResults results = createDatabase(dialect, "create-singers-table.spanner.yaml");
+
+    assertThat(results.getResult(CreateDatabaseCommandStepSpanner.COMPILED_CHANGE_SETS_RESULT))
+        .isEqualTo(1);
+    List<AbstractMessage> requests = mockAdmin.getRequests();
+    List<String> statements;
+    if (dialect == Dialect.POSTGRESQL) {
+      // PostgreSQL databases cannot be created with extra statements.
+      assertThat(requests).hasSize(2);
+      assertThat(((CreateDatabaseRequest) requests.get(0)).getExtraStatementsList()).isEmpty();
+      statements = ((UpdateDatabaseDdlRequest) requests.get(1)).getStatementsList();
+    } else {
+      assertThat(requests).hasSize(1);
+      statements = ((CreateDatabaseRequest) requests.get(0)).getExtraStatementsList();
+    }
+    assertThat(statements).hasSize(3);
+    assertThat(statements.get(0)).matches("(?is)CREATE TABLE DATABASECHANGELOGLOCK\\b.*");
+    assertThat(statements.get(1)).matches("(?is)CREATE TABLE DATABASECHANGELOG\\b.*");
+    assertThat(statements.get(2)).matches("(?is)CREATE TABLE Singers\\b.*");
+
+    List<Mutation> mutations = getCommittedMutations();
+    assertThat(mutations).hasSize(2);
+    assertThat(mutations.get(0).getInsertOrUpdate().getTable())
+        .ignoringCase()
+        .isEqualTo("DATABASECHANGELOGLOCK");
+    assertThat(mutations.get(1).getInsert().getTable())
+        .ignoringCase()
+        .isEqualTo("DATABASECHANGELOG");
+    assertThat(mutations.get(1).getInsert().getValues(0).getValues(0).getStringValue())
+        .isEqualTo("v0.1-create-singers-table");
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testCreateDatabaseWithLogicalFilePath(Dialect dialect) throws Exception {
+    createDatabase(dialect, "create-singers-table-logical-path.spanner.yaml");
+
+    // The change set is recorded with its logical file path, like Liquibase does, so a later
+    // update does not run it again.
+    List<Mutation> mutations = getCommittedMutations();
+    assertThat(mutations).hasSize(2);
+    assertThat(mutations.get(1).getInsert().getColumnsList().get(2))
+        .ignoringCase()
+        .isEqualTo("FILENAME");
+    assertThat(mutations.get(1).getInsert().getValues(0).getValues(2).getStringValue())
+        .isEqualTo("db/changelog/singers.yaml");
+  }
+
+  private static CommandResults createDatabase(Dialect dialect, String changeLogFile)
+      throws Exception {
+    String dbId = dialect == Dialect.POSTGRESQL ? DB_ID_POSTGRESQL : DB_ID_GOOGLESQL;
+    mockAdmin.addResponse(
+        Operation.newBuilder()
+            .setDone(true)
+            .setName(String.format("%s/operations/create", dbId))
+            .setMetadata(
+                Any.pack(CreateDatabaseMetadata.newBuilder().setDatabase(dbId).build()))
+            .setResponse(
+                Any.pack(
+                    Database.newBuilder()
+                        .setName(dbId)
+                        .setState(Database.State.READY)
+                        .build()))
+            .build());
+    if (dialect == Dialect.POSTGRESQL) {
+      addUpdateDdlStatementsResponse(
+          dialect,
+          ImmutableList.of("DATABASECHANGELOGLOCK", "DATABASECHANGELOG", "Singers"));
+    }
+
+    return new CommandScope(CreateDatabaseCommandStepSpanner.COMMAND_NAME)
+        .addArgumentValue(CreateDatabaseCommandStepSpanner.URL_ARG, createConnectionUrl(dialect))
+        .addArgumentValue(CreateDatabaseCommandStepSpanner.CHANGELOG_FILE_ARG, changeLogFile)
+        .addArgumentValue(CreateDatabaseCommandStepSpanner.DIALECT_ARG, dialect.name())
+        .execute();
+  }
+
+  private static List<Mutation> getCommittedMutations() {
+    return mockSpanner.getRequestsOfType(CommitRequest.class).stream()
+        .flatMap(commit -> commit.getMutationsList().stream())
+        .collect(Collectors.toList());
+  }
+}
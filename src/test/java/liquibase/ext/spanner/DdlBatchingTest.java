@@ -0,0 +1,154 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.Dialect;
+import com.google.common.collect.ImmutableList;
+import com.google.longrunning.Operation;
+import com.google.protobuf.Any;
+import com.google.rpc.Code;
+import com.google.rpc.Status;
+import com.google.spanner.admin.database.v1.UpdateDatabaseDdlMetadata;
+import com.google.spanner.admin.database.v1.UpdateDatabaseDdlRequest;
+import com.google.spanner.v1.ExecuteSqlRequest;
+import java.sql.Connection;
+import java.util.List;
+import java.util.stream.Collectors;
+import liquibase.Contexts;
+import liquibase.Liquibase;
+import liquibase.Scope;
+import liquibase.exception.CommandExecutionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+@Execution(ExecutionMode.SAME_THREAD)
+public class DdlBatchingTest extends AbstractMockServerTest {
+
+  @BeforeEach
+  void resetServer() {
+    mockSpanner.reset();
+    mockAdmin.reset();
+  }
+
+  static List<String> getDdlStatements(Dialect dialect) {
+    return ImmutableList.of(
+        dialect == Dialect.POSTGRESQL
+            ? "CREATE TABLE Singers (SingerId bigint, LastName varchar(255), PRIMARY KEY (SingerId))"
+            : "CREATE TABLE Singers (SingerId INT64, LastName STRING(255)) PRIMARY KEY (SingerId)",
+        dialect == Dialect.POSTGRESQL
+            ? "CREATE TABLE Albums (AlbumId bigint, Title varchar(255), PRIMARY KEY (AlbumId))"
+            : "CREATE TABLE Albums (AlbumId INT64, Title STRING(255)) PRIMARY KEY (AlbumId)",
+        "CREATE INDEX Idx_Singers_LastName ON Singers(LastName)");
+  }
+
+  static List<ExecuteSqlRequest> getInsertDatabaseChangeLogRequests() {
+    return mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+        .filter(request -> request.getSql().startsWith(INSERT_DATABASECHANGELOG.getSql()))
+        .collect(Collectors.toList());
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testDdlIsExecutedPerChangeSetByDefault(Dialect dialect) throws Exception {
+    List<String> statements = getDdlStatements(dialect);
+    for (String statement : statements) {
+      addUpdateDdlStatementsResponse(dialect, statement);
+    }
+
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "ddl-batching-singers-albums.spanner.yaml")) {
+      liquibase.update(new Contexts("test"));
+    }
+
+    assertThat(mockAdmin.getRequests()).hasSize(3);
+    for (int i = 0; i < statements.size(); i++) {
+      assertThat(getUpdateDdlStatementsList(i)).containsExactly(statements.get(i));
+    }
+    assertThat(getInsertDatabaseChangeLogRequests()).hasSize(3);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testDdlOfConsecutiveChangeSetsIsBatched(Dialect dialect) throws Exception {
+    List<String> statements = getDdlStatements(dialect);
+    addUpdateDdlStatementsResponse(dialect, statements);
+
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "ddl-batching-singers-albums.spanner.yaml")) {
+      Scope.child(
+          SpannerConfiguration.DDL_BATCHING.getKey(),
+          true,
+          () -> liquibase.update(new Contexts("test")));
+    }
+
+    assertThat(mockAdmin.getRequests()).hasSize(1);
+    assertThat(mockAdmin.getRequests().get(0)).isInstanceOf(UpdateDatabaseDdlRequest.class);
+    assertThat(getUpdateDdlStatementsList(0)).containsExactlyElementsIn(statements).inOrder();
+    // All change sets are recorded after the batch has been executed.
+    assertThat(getInsertDatabaseChangeLogRequests()).hasSize(3);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testPartiallyFailedDdlBatchOnlyRecordsAppliedChangeSets(Dialect dialect) throws Exception {
+    List<String> statements = getDdlStatements(dialect);
+    String dbId = dialect == Dialect.POSTGRESQL ? DB_ID_POSTGRESQL : DB_ID_GOOGLESQL;
+    // Only the first statement of the batch is applied.
+    mockAdmin.addResponse(
+        Operation.newBuilder()
+            .setDone(true)
+            .setMetadata(
+                Any.pack(
+                    UpdateDatabaseDdlMetadata.newBuilder()
+                        .addCommitTimestamps(Timestamp.now().toProto())
+                        .setDatabase(dbId)
+                        .addAllStatements(statements)
+                        .build()))
+            .setName(String.format("%s/operations/o", dbId))
+            .setError(
+                Status.newBuilder()
+                    .setCode(Code.FAILED_PRECONDITION_VALUE)
+                    .setMessage("Duplicate name in schema: Albums")
+                    .build())
+            .build());
+
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "ddl-batching-singers-albums.spanner.yaml")) {
+      CommandExecutionException exception =
+          assertThrows(
+              CommandExecutionException.class,
+              () ->
+                  Scope.child(
+                      SpannerConfiguration.DDL_BATCHING.getKey(),
+                      true,
+                      () -> liquibase.update(new Contexts("test"))));
+      assertThat(exception.getMessage()).contains("DDL batch failed at statement 2 of 3");
+      assertThat(exception.getMessage()).contains("v0.1-create-albums");
+    }
+
+    assertThat(mockAdmin.getRequests()).hasSize(1);
+    assertThat(getUpdateDdlStatementsList(0)).containsExactlyElementsIn(statements).inOrder();
+    // Only the change set that was fully applied is recorded in DATABASECHANGELOG.
+    List<ExecuteSqlRequest> inserts = getInsertDatabaseChangeLogRequests();
+    assertThat(inserts).hasSize(1);
+    assertThat(inserts.get(0).getSql()).contains("v0.1-create-singers");
+  }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.MockSpannerServiceImpl.StatementResult;
+import com.google.cloud.spanner.Statement;
+import com.google.common.collect.ImmutableMap;
+import com.google.spanner.v1.ExecuteBatchDmlRequest;
+import com.google.spanner.v1.ExecuteSqlRequest;
+import io.grpc.Status;
+import java.sql.Connection;
+import java.util.List;
+import java.util.stream.Collectors;
+import liquibase.Contexts;
+import liquibase.Liquibase;
+import liquibase.Scope;
+import liquibase.command.CommandExecutionException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+@Execution(ExecutionMode.SAME_THREAD)
+public class DmlBatchingTest extends AbstractMockServerTest {
+
+  @BeforeAll
+  static void setupResults() {
+    mockSpanner.putPartialStatementResult(
+        StatementResult.update(Statement.of("INSERT INTO Singers"), 1L));
+    mockSpanner.putPartialStatementResult(
+        StatementResult.update(Statement.of("UPDATE Singers"), 1L));
+  }
+
+  @BeforeEach
+  void resetServer() {
+    mockSpanner.reset();
+    mockAdmin.reset();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testConsecutiveInsertsAreBatched(Dialect dialect) throws Exception {
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "dml-commit-chunking.spanner.yaml")) {
+      Scope.child(
+          ImmutableMap.of(
+              SpannerConfiguration.DML_BATCHING.getKey(),
+              true,
+              SpannerConfiguration.DML_BATCH_SIZE.getKey(),
+              3),
+          () -> liquibase.update(new Contexts("test")));
+    }
+
+    assertThat(
+            mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+                .anyMatch(request -> request.getSql().startsWith("INSERT INTO Singers")))
+        .isFalse();
+    List<ExecuteBatchDmlRequest> batches =
+        mockSpanner.getRequestsOfType(ExecuteBatchDmlRequest.class);
+    assertThat(
+            batches.stream()
+                .map(ExecuteBatchDmlRequest::getStatementsCount)
+                .collect(Collectors.toList()))
+        .containsExactly(3, 2)
+        .inOrder();
+    assertThat(batches.get(0).getStatements(0).getSql()).contains("Singer1");
+    assertThat(batches.get(1).getStatements(1).getSql()).contains("Singer5");
+    // Both batches are executed in the transaction of the change set.
+    assertThat(batches.get(1).getTransaction().hasBegin()).isFalse();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testFailedBatchReportsStatement(Dialect dialect) throws Exception {
+    String failed = "UPDATE Singers SET LastName = 'Two' WHERE SingerId = 2";
+    mockSpanner.putStatementResult(
+        StatementResult.exception(
+            Statement.of(failed),
+            Status.FAILED_PRECONDITION.withDescription("Invalid update").asRuntimeException()));
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "dml-batching.spanner.yaml")) {
+      CommandExecutionException exception =
+          assertThrows(
+              CommandExecutionException.class,
+              () ->
+                  Scope.child(
+                      SpannerConfiguration.DML_BATCHING.getKey(),
+                      true,
+                      () -> liquibase.update(new Contexts("test"))));
+      assertThat(exception.getMessage()).contains("DML batch failed at statement 2 of 3");
+      assertThat(exception.getMessage()).contains("v0.1-update-singers-in-batch");
+      assertThat(exception.getMessage()).contains(failed);
+    }
+
+    List<ExecuteBatchDmlRequest> batches =
+        mockSpanner.getRequestsOfType(ExecuteBatchDmlRequest.class);
+    assertThat(batches).hasSize(1);
+    assertThat(batches.get(0).getStatementsCount()).isEqualTo(3);
+    assertThat(
+            mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+                .anyMatch(request -> request.getSql().startsWith("INSERT INTO DATABASECHANGELOG ")))
+        .isFalse();
+  }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.MockSpannerServiceImpl.StatementResult;
+import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.jdbc.CloudSpannerJdbcConnection;
+import com.google.spanner.v1.CommitRequest;
+import com.google.spanner.v1.ExecuteSqlRequest;
+import com.google.spanner.v1.Mutation;
+import java.sql.Connection;
+import java.util.List;
+import java.util.stream.Collectors;
+import liquibase.Contexts;
+import liquibase.Liquibase;
+import liquibase.Scope;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+@Execution(ExecutionMode.SAME_THREAD)
+public class DmlCommitChunkingTest extends AbstractMockServerTest {
+
+  @BeforeAll
+  static void setupResults() {
+    mockSpanner.putPartialStatementResult(
+        StatementResult.update(Statement.of("INSERT INTO Singers"), 1L));
+  }
+
+  @BeforeEach
+  void resetServer() {
+    mockSpanner.reset();
+    mockAdmin.reset();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testChangeSetIsCommittedInChunks(Dialect dialect) throws Exception {
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "dml-commit-chunking.spanner.yaml")) {
+      Scope.child(
+          SpannerConfiguration.DML_COMMIT_CHUNKING.getKey(),
+          true,
+          () ->
+              Scope.child(
+                  SpannerConfiguration.DML_COMMIT_CHUNK_INITIAL_SIZE.getKey(),
+                  2,
+                  () -> liquibase.update(new Contexts("test"))));
+      // The connection is shared with the application, so the setting must be restored.
+      assertThat(con.unwrap(CloudSpannerJdbcConnection.class).isReturnCommitStats()).isFalse();
+    }
+
+    // The first chunk contains 2 statements. The commit of the first chunk does not contain any
+    // mutations, so the next chunk may be twice as large and contains the remaining 3 statements.
+    List<ExecuteSqlRequest> inserts =
+        mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+            .filter(request -> request.getSql().startsWith("INSERT INTO Singers"))
+            .collect(Collectors.toList());
+    assertThat(inserts).hasSize(5);
+    // The third statement starts a new transaction.
+    assertThat(
+            inserts.subList(1, 5).stream()
+                .map(request -> request.getTransaction().hasBegin())
+                .collect(Collectors.toList()))
+        .containsExactly(false, true, false, false)
+        .inOrder();
+
+    List<Mutation.Write> records =
+        mockSpanner.getRequestsOfType(CommitRequest.class).stream()
+            .flatMap(request -> request.getMutationsList().stream())
+            .filter(Mutation::hasInsertOrUpdate)
+            .map(Mutation::getInsertOrUpdate)
+            .filter(write -> write.getTable().equalsIgnoreCase("DATABASECHANGELOGCHUNKS"))
+            .collect(Collectors.toList());
+    assertThat(records).hasSize(1);
+    assertThat(records.get(0).getValues(0).getValues(0).getStringValue())
+        .isEqualTo("v0.1-insert-singers-in-chunks");
+    // STATEMENTS and CHUNKS
+    assertThat(records.get(0).getValues(0).getValues(3).getStringValue()).isEqualTo("5");
+    assertThat(records.get(0).getValues(0).getValues(4).getStringValue()).isEqualTo("2");
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testChangeSetIsCommittedOnceByDefault(Dialect dialect) throws Exception {
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "dml-commit-chunking.spanner.yaml")) {
+      liquibase.update(new Contexts("test"));
+    }
+
+    assertThat(
+            mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+                .filter(request -> request.getSql().startsWith("INSERT INTO Singers"))
+                .skip(1)
+                .anyMatch(request -> request.getTransaction().hasBegin()))
+        .isFalse();
+    assertThat(
+            mockSpanner.getRequestsOfType(CommitRequest.class).stream()
+                .flatMap(request -> request.getMutationsList().stream())
+                .filter(Mutation::hasInsertOrUpdate)
+                .anyMatch(
+                    mutation ->
+                        mutation
+                            .getInsertOrUpdate()
+                            .getTable()
+                            .equalsIgnoreCase("DATABASECHANGELOGCHUNKS")))
+        .isFalse();
+  }
+}
@@ -0,0 +1,276 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.MockSpannerServiceImpl.StatementResult;
+import com.google.cloud.spanner.Statement;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Value;
+import com.google.spanner.v1.CommitRequest;
+import com.google.spanner.v1.ExecuteSqlRequest;
+import com.google.spanner.v1.Mutation.Write;
+import com.google.spanner.v1.ResultSet;
+import com.google.spanner.v1.ResultSetMetadata;
+import com.google.spanner.v1.StructType;
+import com.google.spanner.v1.StructType.Field;
+import com.google.spanner.v1.Type;
+import com.google.spanner.v1.TypeCode;
+import java.sql.Connection;
+import java.util.List;
+import java.util.stream.Collectors;
+import liquibase.ChecksumVersion;
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Liquibase;
+import liquibase.Scope;
+import liquibase.changelog.ChangeLogHistoryService;
+import liquibase.changelog.ChangeLogHistoryServiceFactory;
+import liquibase.changelog.ChangeSet;
+import liquibase.changelog.RanChangeSet;
+import liquibase.ext.spanner.change.StandardChangeLogHistoryServiceSpanner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+@Execution(ExecutionMode.SAME_THREAD)
+public class FastNoOpUpdateTest extends AbstractMockServerTest {
+
+  @BeforeEach
+  void resetServer() {
+    mockSpanner.reset();
+    mockAdmin.reset();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testNoOpUpdateDoesNotTakeLock(Dialect dialect) throws Exception {
+    Contexts contexts = new Contexts("test");
+    Write summary = runInitialUpdate(dialect, contexts);
+    // The summary that was written by the first update is returned by the stale read.
+    putSummaryResult(dialect, summary, getLong(summary, 3), getLong(summary, 3));
+    putChangeLogResult(ImmutableList.of(getAppliedRow(dialect)));
+    mockSpanner.clearRequests();
+
+    try {
+      update(dialect, contexts);
+    } finally {
+      putChangeLogResult(ImmutableList.of());
+    }
+
+    // The rows are read to confirm the summary, but the lock is not taken.
+    assertThat(getExecutedSql()).contains(SELECT_FROM_DATABASECHANGELOG.getSql());
+    assertThat(getExecutedSql().stream().filter(sql -> sql.contains("DATABASECHANGELOGLOCK")))
+        .isEmpty();
+    assertThat(mockSpanner.getRequestsOfType(CommitRequest.class)).isEmpty();
+    // The table was only created by the first update.
+    assertThat(mockAdmin.getRequests()).hasSize(1);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testNoOpReturnsStoredRows(Dialect dialect) throws Exception {
+    Contexts contexts = new Contexts("test", "stored-rows");
+    LabelExpression labels = new LabelExpression("version 0.1");
+    Write summary = runInitialUpdate(dialect, contexts);
+    putSummaryResult(dialect, summary, getLong(summary, 3), getLong(summary, 3));
+    DatabaseChangeLog row = getAppliedRow(dialect);
+    putChangeLogResult(ImmutableList.of(row));
+    mockSpanner.clearRequests();
+
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "create-singers-table.spanner.yaml")) {
+      Scope.child(
+          SpannerConfiguration.FAST_NO_OP_UPDATE.getKey(),
+          true,
+          () -> {
+            ChangeLogHistoryService service =
+                Scope.getCurrentScope()
+                    .getSingleton(ChangeLogHistoryServiceFactory.class)
+                    .getChangeLogService(liquibase.getDatabase());
+            service.upgradeChecksums(liquibase.getDatabaseChangeLog(), contexts, labels);
+            // Commands such as status, history and rollback see the actual executions.
+            List<RanChangeSet> ranChangeSets = service.getRanChangeSets();
+            assertThat(ranChangeSets).hasSize(1);
+            assertThat(ranChangeSets.get(0).getId()).isEqualTo(row.id);
+            assertThat(ranChangeSets.get(0).getDeploymentId()).isEqualTo(row.deploymentId);
+            assertThat(ranChangeSets.get(0).getOrderExecuted()).isEqualTo(row.orderExecuted);
+            assertThat(ranChangeSets.get(0).getDateExecuted().getTime())
+                .isEqualTo(row.dateExecuted.toSqlTimestamp().getTime());
+            StandardChangeLogHistoryServiceSpanner.clearChangeLogSummary(liquibase.getDatabase());
+          });
+    } finally {
+      putChangeLogResult(ImmutableList.of());
+    }
+
+    assertThat(getExecutedSql().stream().filter(sql -> sql.contains("DATABASECHANGELOGLOCK")))
+        .isEmpty();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testSummaryWithoutRowsTakesLock(Dialect dialect) throws Exception {
+    Contexts contexts = new Contexts("test", "missing-rows");
+    Write summary = runInitialUpdate(dialect, contexts);
+    // The stored summary matches, but DATABASECHANGELOG does not contain the change set.
+    putSummaryResult(dialect, summary, getLong(summary, 3), getLong(summary, 3));
+    mockSpanner.clearRequests();
+    addCreateSingersResponse(dialect);
+
+    update(dialect, contexts);
+
+    assertThat(getExecutedSql().stream().filter(sql -> sql.startsWith(ACQUIRE_LOCK.getSql())))
+        .isNotEmpty();
+    assertThat(mockAdmin.getRequests()).hasSize(2);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testChangedSummaryTakesLock(Dialect dialect) throws Exception {
+    Contexts contexts = new Contexts("test", "changed-summary");
+    Write summary = runInitialUpdate(dialect, contexts);
+    // DATABASECHANGELOG now contains more rows than when the summary was written.
+    putSummaryResult(dialect, summary, getLong(summary, 3), getLong(summary, 3) + 1);
+    mockSpanner.clearRequests();
+    // The mock DATABASECHANGELOG table is empty, so the change set is applied again.
+    addCreateSingersResponse(dialect);
+
+    update(dialect, contexts);
+
+    assertThat(getExecutedSql()).contains(SELECT_FROM_DATABASECHANGELOG.getSql());
+    assertThat(getExecutedSql().stream().filter(sql -> sql.startsWith(ACQUIRE_LOCK.getSql())))
+        .isNotEmpty();
+  }
+
+  /** Applies the change log to an empty database and returns the summary that it wrote. */
+  private Write runInitialUpdate(Dialect dialect, Contexts contexts) throws Exception {
+    addCreateSingersResponse(dialect);
+    update(dialect, contexts);
+
+    assertThat(getExecutedSql().stream().filter(sql -> sql.startsWith(ACQUIRE_LOCK.getSql())))
+        .isNotEmpty();
+    List<Write> summaries =
+        mockSpanner.getRequestsOfType(CommitRequest.class).stream()
+            .flatMap(commit -> commit.getMutationsList().stream())
+            .filter(mutation -> mutation.hasInsertOrUpdate())
+            .map(mutation -> mutation.getInsertOrUpdate())
+            .filter(write -> write.getTable().equalsIgnoreCase("DATABASECHANGELOGSUMMARY"))
+            .collect(Collectors.toList());
+    assertThat(summaries).hasSize(1);
+    Write summary = summaries.get(0);
+    assertThat(
+            summary.getColumnsList().stream()
+                .map(column -> column.toUpperCase())
+                .collect(Collectors.toList()))
+        .containsExactly("ID", "CHECKSUM", "CHANGESETS", "TOTAL_ROWS", "UPDATED")
+        .inOrder();
+    // The change log contains one change set for these contexts and labels.
+    assertThat(getLong(summary, 2)).isEqualTo(1L);
+    return summary;
+  }
+
+  private static void addCreateSingersResponse(Dialect dialect) {
+    addUpdateDdlStatementsResponse(
+        dialect,
+        dialect == Dialect.POSTGRESQL
+            ? "CREATE TABLE Singers (SingerId bigint, FirstName varchar(255), LastName varchar(255) NOT NULL, SingerInfo bytea, \"hash`s\" varchar(40), PRIMARY KEY (SingerId))"
+            : "CREATE TABLE Singers (SingerId INT64, FirstName STRING(255), LastName STRING(255) NOT NULL, SingerInfo BYTES(MAX), `hash\\`s` STRING(40)) PRIMARY KEY (SingerId)");
+  }
+
+  private static void update(Dialect dialect, Contexts contexts) throws Exception {
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "create-singers-table.spanner.yaml")) {
+      Scope.child(
+          SpannerConfiguration.FAST_NO_OP_UPDATE.getKey(),
+          true,
+          () -> liquibase.update(contexts, new LabelExpression("version 0.1")));
+    }
+  }
+
+  /** Returns the DATABASECHANGELOG row of the change set of the change log after it was applied. */
+  private static DatabaseChangeLog getAppliedRow(Dialect dialect) throws Exception {
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "create-singers-table.spanner.yaml")) {
+      ChangeSet changeSet =
+          liquibase.getDatabaseChangeLog().getChangeSets().stream()
+              .filter(candidate -> candidate.getId().equals("v0.1-create-singers-table"))
+              .findFirst()
+              .get();
+      DatabaseChangeLog row = new DatabaseChangeLog();
+      row.id = changeSet.getId();
+      row.author = changeSet.getAuthor();
+      row.filename = changeSet.getFilePath();
+      row.dateExecuted = Timestamp.ofTimeSecondsAndNanos(1700000000L, 0);
+      row.orderExecuted = 1L;
+      row.execType = "EXECUTED";
+      row.md5 = changeSet.generateCheckSum(ChecksumVersion.latest()).toString();
+      row.deploymentId = "7000000000";
+      return row;
+    }
+  }
+
+  private static void putChangeLogResult(List<DatabaseChangeLog> rows) {
+    mockSpanner.putStatementResult(
+        StatementResult.query(
+            SELECT_FROM_DATABASECHANGELOG, DatabaseChangeLog.createChangeSetResultSet(rows)));
+  }
+
+  private static void putSummaryResult(
+      Dialect dialect, Write summary, long totalRows, long currentRows) {
+    String sql =
+        String.format(
+            "SELECT CHECKSUM, CHANGESETS, TOTAL_ROWS, (SELECT COUNT(*) FROM DATABASECHANGELOG) "
+                + "AS CURRENT_ROWS FROM DATABASECHANGELOGSUMMARY WHERE ID = %s",
+            dialect == Dialect.POSTGRESQL ? "$1" : "@p1");
+    String id = summary.getValues(0).getValues(0).getStringValue();
+    StructType.Builder rowType =
+        StructType.newBuilder()
+            .addFields(field("CHECKSUM", TypeCode.STRING))
+            .addFields(field("CHANGESETS", TypeCode.INT64))
+            .addFields(field("TOTAL_ROWS", TypeCode.INT64))
+            .addFields(field("CURRENT_ROWS", TypeCode.INT64));
+    ResultSet resultSet =
+        ResultSet.newBuilder()
+            .setMetadata(ResultSetMetadata.newBuilder().setRowType(rowType))
+            .addRows(
+                ListValue.newBuilder()
+                    .addValues(summary.getValues(0).getValues(1))
+                    .addValues(summary.getValues(0).getValues(2))
+                    .addValues(Value.newBuilder().setStringValue(String.valueOf(totalRows)))
+                    .addValues(Value.newBuilder().setStringValue(String.valueOf(currentRows))))
+            .build();
+    mockSpanner.putStatementResult(
+        StatementResult.query(Statement.newBuilder(sql).bind("p1").to(id).build(), resultSet));
+  }
+
+  private static Field field(String name, TypeCode code) {
+    return Field.newBuilder().setName(name).setType(Type.newBuilder().setCode(code)).build();
+  }
+
+  private static long getLong(Write write, int column) {
+    return Long.parseLong(write.getValues(0).getValues(column).getStringValue());
+  }
+
+  private static List<String> getExecutedSql() {
+    return mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+        .map(ExecuteSqlRequest::getSql)
+        .collect(Collectors.toList());
+  }
+}
@@ -16,6 +16,12 @@ package liquibase.ext.spanner;
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth.assertWithMessage;
 import static liquibase.ext.spanner.JdbcMetadataQueries.*;
+import static liquibase.ext.spanner.snapshotgenerator.DdlSnapshotGeneratorSpanner.GENERATION_EXPRESSION;
+import static liquibase.ext.spanner.snapshotgenerator.DdlSnapshotGeneratorSpanner.INCLUDED_COLUMNS;
+import static liquibase.ext.spanner.snapshotgenerator.DdlSnapshotGeneratorSpanner.INTERLEAVE_IN;
+import static liquibase.ext.spanner.snapshotgenerator.DdlSnapshotGeneratorSpanner.INTERLEAVE_ON_DELETE;
+import static liquibase.ext.spanner.snapshotgenerator.DdlSnapshotGeneratorSpanner.NULL_FILTERED;
+import static liquibase.ext.spanner.snapshotgenerator.DdlSnapshotGeneratorSpanner.ROW_DELETION_POLICY;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -24,27 +30,49 @@ import com.google.cloud.spanner.MockSpannerServiceImpl.StatementResult;
 import com.google.cloud.spanner.Statement;
 import com.google.cloud.spanner.connection.AbstractStatementParser;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.protobuf.ListValue;
 import com.google.protobuf.NullValue;
 import com.google.protobuf.Value;
+import com.google.spanner.admin.database.v1.GetDatabaseDdlRequest;
+import com.google.spanner.admin.database.v1.GetDatabaseDdlResponse;
 import com.google.spanner.v1.*;
+import io.grpc.Status;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.math.BigInteger;
 import java.util.*;
 import liquibase.CatalogAndSchema;
 import liquibase.Liquibase;
+import liquibase.Scope;
 import liquibase.database.Database;
+import liquibase.diff.DiffGeneratorFactory;
+import liquibase.diff.DiffResult;
+import liquibase.diff.compare.CompareControl;
+import liquibase.diff.output.DiffOutputControl;
+import liquibase.diff.output.changelog.DiffToChangeLog;
+import liquibase.executor.ExecutorService;
 import liquibase.ext.spanner.JdbcMetadataQueries.ColumnMetaData;
 import liquibase.ext.spanner.JdbcMetadataQueries.IndexMetaData;
 import liquibase.ext.spanner.JdbcMetadataQueries.SequenceMetadata;
+import liquibase.serializer.core.yaml.YamlChangeLogSerializer;
 import liquibase.snapshot.DatabaseSnapshot;
+import liquibase.snapshot.EmptyDatabaseSnapshot;
 import liquibase.snapshot.SnapshotControl;
 import liquibase.snapshot.SnapshotGeneratorFactory;
+import liquibase.statement.core.RawSqlStatement;
 import liquibase.structure.DatabaseObject;
+import liquibase.structure.core.Column;
+import liquibase.structure.core.ForeignKey;
+import liquibase.structure.core.ForeignKeyConstraintType;
 import liquibase.structure.core.Index;
 import liquibase.structure.core.Schema;
 import liquibase.structure.core.Sequence;
 import liquibase.structure.core.Table;
+import liquibase.structure.core.View;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.parallel.Execution;
 import org.junit.jupiter.api.parallel.ExecutionMode;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -132,11 +160,32 @@ public class GenerateSnapshotTest extends AbstractMockServerTest {
           .isEqualTo(dialect == Dialect.POSTGRESQL ? "varchar" : "STRING(200)");
       assertThat(singers.getColumn("LastName").getType().toString())
           .isEqualTo(dialect == Dialect.POSTGRESQL ? "varchar" : "STRING(200)");
+      // The column defaults and types are loaded with one query for all columns.
+      assertThat(
+              mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+                  .filter(request -> request.getSql().equals(getColumnMetadataStatement(dialect)))
+                  .count())
+          .isEqualTo(1L);
 
       Set<Index> indexes = snapshot.get(Index.class);
       assertEquals(1, indexes.size());
       Index index = indexes.iterator().next();
       assertEquals("Idx_Singers_FirstName", index.getName());
+      assertEquals("FirstName", index.getColumns().get(0).getName());
+      assertEquals("LastName", index.getColumns().get(1).getName());
+      // The index metadata of the schema is loaded with one query for all tables.
+      assertThat(
+              mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+                  .filter(
+                      request ->
+                          request.getSql().contains("UPPER(IDX.INDEX_NAME) LIKE")
+                              && request
+                                  .getParams()
+                                  .getFieldsOrThrow("p3")
+                                  .getStringValue()
+                                  .equals("%"))
+                  .count())
+          .isEqualTo(1L);
 
       Set<Sequence> sequences = snapshot.get(Sequence.class);
       assertEquals(1, sequences.size());
@@ -145,6 +194,439 @@ public class GenerateSnapshotTest extends AbstractMockServerTest {
     }
   }
 
+  @Test
+  void testIndexExamplesAreResolvedWithOneIndexQuery() throws Exception {
+    int tableCount = 10;
+    int indexesPerTable = 50;
+    List<IndexMetaData> indexes = new ArrayList<>();
+    List<DatabaseObject> byName = new ArrayList<>();
+    List<DatabaseObject> byColumns = new ArrayList<>();
+    for (int t = 0; t < tableCount; t++) {
+      Table table = new Table().setName("Table" + t);
+      indexes.add(new IndexMetaData("Table" + t, true, "PRIMARY_KEY", true, 1, "Id", true));
+      for (int i = 0; i < indexesPerTable; i++) {
+        String name = "Idx_Table" + t + "_" + i;
+        indexes.add(new IndexMetaData("Table" + t, false, name, false, 1, "Col" + i + "_0", true));
+        indexes.add(new IndexMetaData("Table" + t, false, name, false, 2, "Col" + i + "_1", false));
+        byName.add(new Index().setName(name).setRelation(table));
+        byColumns.add(
+            new Index()
+                .setRelation(table)
+                .addColumn(new Column("Col" + i + "_0"))
+                .addColumn(new Column("Col" + i + "_1")));
+      }
+    }
+    String sql =
+        PARSER.removeCommentsAndTrim(readSqlFromFile(GET_INDEX_INFO, Dialect.GOOGLE_STANDARD_SQL));
+    AbstractStatementParser.ParametersInfo params =
+        PARSER.convertPositionalParametersToNamedParameters('?', sql);
+    mockSpanner.putStatementResult(
+        StatementResult.query(
+            Statement.newBuilder(params.sqlWithNamedParameters)
+                .bind("p1")
+                .to("")
+                .bind("p2")
+                .to("")
+                .bind("p3")
+                .to("%")
+                .bind("p4")
+                .to("%")
+                .bind("p5")
+                .to("%")
+                .build(),
+            JdbcMetadataQueries.createGetIndexInfoResultSet(indexes)));
+
+    try (Liquibase liquibase =
+        getLiquibase(
+            createConnection(Dialect.GOOGLE_STANDARD_SQL), "create-snapshot.spanner.yaml")) {
+      Database database = liquibase.getDatabase();
+      for (List<DatabaseObject> examples : ImmutableList.of(byName, byColumns)) {
+        mockSpanner.clearRequests();
+        DatabaseSnapshot snapshot =
+            SnapshotGeneratorFactory.getInstance()
+                .createSnapshot(
+                    examples.toArray(new DatabaseObject[0]),
+                    database,
+                    new SnapshotControl(database, Index.class));
+        assertThat(snapshot.get(Index.class)).hasSize(tableCount * indexesPerTable);
+        // All examples are resolved from one index query for the whole schema.
+        assertThat(
+                mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+                    .filter(request -> request.getSql().contains("INDEX_COLUMNS"))
+                    .count())
+            .isEqualTo(1L);
+      }
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testSnapshotUsesSingleReadTimestamp(Dialect dialect) throws Exception {
+    for (int maxStaleness : new int[] {0, 10}) {
+      mockSpanner.clearRequests();
+      String schemaName = dialect == Dialect.POSTGRESQL ? "PUBLIC" : "";
+      String catalog = dialect == Dialect.POSTGRESQL ? "DB_PG" : "";
+      putMockResultsForSchemas(dialect);
+      try (Liquibase liquibase =
+          getLiquibase(createConnection(dialect), "create-snapshot.spanner.yaml")) {
+        Database database = liquibase.getDatabase();
+        Scope.child(
+            ImmutableMap.of(
+                SpannerConfiguration.SNAPSHOT_SINGLE_READ_TIMESTAMP.getKey(),
+                true,
+                SpannerConfiguration.SNAPSHOT_MAX_STALENESS_SECONDS.getKey(),
+                maxStaleness),
+            () ->
+                SnapshotGeneratorFactory.getInstance()
+                    .createSnapshot(
+                        new CatalogAndSchema(catalog, schemaName),
+                        database,
+                        new SnapshotControl(database)));
+        // Execute a query after the snapshot has been taken.
+        Scope.getCurrentScope()
+            .getSingleton(ExecutorService.class)
+            .getExecutor("jdbc", database)
+            .queryForList(new RawSqlStatement(SELECT_SNAPSHOT_READ_TIMESTAMP.getSql()));
+      }
+      List<ExecuteSqlRequest> requests = mockSpanner.getRequestsOfType(ExecuteSqlRequest.class);
+      ExecuteSqlRequest first = requests.get(0);
+      assertThat(first.getSql()).isEqualTo(SELECT_SNAPSHOT_READ_TIMESTAMP.getSql());
+      TransactionOptions.ReadOnly readOnly = first.getTransaction().getSingleUse().getReadOnly();
+      assertThat(readOnly.getReturnReadTimestamp()).isTrue();
+      if (maxStaleness > 0) {
+        assertThat(readOnly.getMaxStaleness().getSeconds()).isEqualTo(maxStaleness);
+      } else {
+        assertThat(readOnly.getStrong()).isTrue();
+      }
+      // All queries of the snapshot, including those for DatabaseMetaData, use the same read
+      // timestamp.
+      assertSameReadTimestamp(requests.subList(1, requests.size() - 1));
+      assertThat(requests.stream().map(ExecuteSqlRequest::getSql))
+          .contains(getColumnMetadataStatement(dialect));
+      // The original read-only staleness is restored after the snapshot.
+      ExecuteSqlRequest last = requests.get(requests.size() - 1);
+      assertThat(last.getSql()).isEqualTo(SELECT_SNAPSHOT_READ_TIMESTAMP.getSql());
+      assertThat(last.getTransaction().getSingleUse().getReadOnly().getStrong()).isTrue();
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testSnapshotInTransactionUsesSingleReadTimestamp(Dialect dialect) throws Exception {
+    String schemaName = dialect == Dialect.POSTGRESQL ? "PUBLIC" : "";
+    String catalog = dialect == Dialect.POSTGRESQL ? "DB_PG" : "";
+    putMockResultsForSchemas(dialect);
+    try (Liquibase liquibase =
+        getLiquibase(createConnection(dialect), "create-snapshot.spanner.yaml")) {
+      Database database = liquibase.getDatabase();
+      database.getConnection().setAutoCommit(false);
+      mockSpanner.clearRequests();
+      Scope.child(
+          SpannerConfiguration.SNAPSHOT_SINGLE_READ_TIMESTAMP.getKey(),
+          true,
+          () ->
+              SnapshotGeneratorFactory.getInstance()
+                  .createSnapshot(
+                      new CatalogAndSchema(catalog, schemaName),
+                      database,
+                      new SnapshotControl(database)));
+      // The connection is back in transactional mode after the snapshot.
+      assertThat(database.getConnection().getAutoCommit()).isFalse();
+    }
+    List<ExecuteSqlRequest> requests = mockSpanner.getRequestsOfType(ExecuteSqlRequest.class);
+    assertThat(requests.get(0).getSql()).isEqualTo(SELECT_SNAPSHOT_READ_TIMESTAMP.getSql());
+    assertSameReadTimestamp(requests.subList(1, requests.size()));
+  }
+
+  /** Asserts that all requests are single-use reads at the same read timestamp. */
+  private static void assertSameReadTimestamp(List<ExecuteSqlRequest> requests) {
+    assertThat(requests).isNotEmpty();
+    Set<com.google.protobuf.Timestamp> readTimestamps = new HashSet<>();
+    for (ExecuteSqlRequest request : requests) {
+      TransactionOptions.ReadOnly readOnly = request.getTransaction().getSingleUse().getReadOnly();
+      assertWithMessage(request.getSql()).that(readOnly.hasReadTimestamp()).isTrue();
+      readTimestamps.add(readOnly.getReadTimestamp());
+    }
+    assertThat(readTimestamps).hasSize(1);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testParallelSnapshotIsIdenticalToSerial(Dialect dialect) throws Exception {
+    putMockResultsForSchemas(dialect);
+    String serial = generateChangeLog(dialect, 1);
+    assertThat(serial).contains("Idx_Singers_FirstName");
+    assertThat(serial).contains("testSequence");
+    assertThat(
+            mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+                .map(ExecuteSqlRequest::getSql))
+        .doesNotContain(getIndexesStatement(dialect));
+
+    mockSpanner.clearRequests();
+    String parallel = generateChangeLog(dialect, 4);
+    assertThat(parallel).isEqualTo(serial);
+    // The column, index and sequence metadata are prefetched, and the JDBC driver is not used for
+    // the indexes and sequences.
+    List<ExecuteSqlRequest> requests = mockSpanner.getRequestsOfType(ExecuteSqlRequest.class);
+    String allSequences =
+        dialect == Dialect.POSTGRESQL
+            ? JdbcMetadataQueries.GET_ALL_SEQUENCES_PG
+            : JdbcMetadataQueries.GET_ALL_SEQUENCES;
+    assertThat(requests.stream().filter(request -> request.getSql().equals(allSequences)).count())
+        .isEqualTo(1L);
+    assertThat(
+            requests.stream()
+                .filter(request -> request.getSql().contains("AS SEQUENCE_NAME"))
+                .filter(request -> !request.getSql().equals(allSequences))
+                .count())
+        .isEqualTo(0L);
+    assertThat(
+            requests.stream()
+                .filter(request -> request.getSql().equals(getIndexesStatement(dialect)))
+                .count())
+        .isEqualTo(1L);
+    assertThat(
+            requests.stream()
+                .filter(request -> request.getSql().equals(getColumnMetadataStatement(dialect)))
+                .count())
+        .isEqualTo(1L);
+    assertThat(
+            requests.stream()
+                .filter(request -> request.getSql().contains("UPPER(IDX.INDEX_NAME) LIKE"))
+                .filter(
+                    request ->
+                        request.getParams().getFieldsOrThrow("p3").getStringValue().equals("%"))
+                .count())
+        .isEqualTo(0L);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testSnapshotFromDdl(Dialect dialect) throws Exception {
+    putMockResultsForSchemas(dialect);
+    mockAdmin.addResponse(
+        GetDatabaseDdlResponse.newBuilder().addAllStatements(getSnapshotDdl(dialect)).build());
+    DatabaseSnapshot snapshot = createSnapshotFromDdl(dialect);
+
+    assertThat(mockAdmin.getRequests()).hasSize(1);
+    assertThat(mockAdmin.getRequests().get(0)).isInstanceOf(GetDatabaseDdlRequest.class);
+    // The tables, columns and indexes are not read from INFORMATION_SCHEMA.
+    assertThat(
+            mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+                .map(ExecuteSqlRequest::getSql)
+                .filter(
+                    sql ->
+                        sql.equals(getColumnMetadataStatement(dialect))
+                            || sql.contains("UPPER(IDX.INDEX_NAME) LIKE")
+                            || sql.contains("COLUMN_NAME")))
+        .isEmpty();
+
+    assertThat(snapshot.get(Schema.class)).hasSize(1);
+    verifySnapshotIdsInDatabaseObjects(
+        snapshot.get(Schema.class).iterator().next(), new HashSet<>());
+    assertThat(snapshot.get(Table.class)).hasSize(2);
+    Table singers = getByName(snapshot.get(Table.class), "Singers");
+    Table albums = getByName(snapshot.get(Table.class), "Albums");
+    assertThat(singers.getColumns()).hasSize(6);
+    assertThat(singers.getColumn("FirstName").getType().toString())
+        .isEqualTo(dialect == Dialect.POSTGRESQL ? "varchar(100)" : "STRING(100)");
+    assertThat(singers.getColumn("Tags").getType().toString())
+        .isEqualTo(
+            dialect == Dialect.POSTGRESQL
+                ? "varchar[]"
+                : "ARRAY<STRUCT<Name STRING(MAX), Value INT64>>");
+    assertThat(singers.getColumn("SingerId").isNullable()).isFalse();
+    assertThat(singers.getColumn("FirstName").isNullable()).isTrue();
+    assertThat(singers.getColumn("LastName").getDefaultValue()).isNotNull();
+    assertThat(
+            (String)
+                singers.getColumn("FullName").getAttribute(GENERATION_EXPRESSION, String.class))
+        .isNotEmpty();
+    assertThat(singers.getAttribute(INTERLEAVE_IN, String.class)).isNull();
+
+    assertThat(albums.getPrimaryKey().getColumnNamesAsList())
+        .containsExactly(
+            dialect == Dialect.POSTGRESQL ? "singerid" : "SingerId",
+            dialect == Dialect.POSTGRESQL ? "albumid" : "AlbumId")
+        .inOrder();
+    assertThat(albums.getPrimaryKey().getColumns().get(1).getDescending()).isTrue();
+    assertThat(albums.getAttribute(INTERLEAVE_IN, String.class))
+        .ignoringCase()
+        .isEqualTo("Singers");
+    assertThat(albums.getAttribute(INTERLEAVE_ON_DELETE, String.class)).isEqualTo("CASCADE");
+    assertThat(albums.getAttribute(ROW_DELETION_POLICY, String.class))
+        .isEqualTo(
+            dialect == Dialect.POSTGRESQL
+                ? "INTERVAL '30 days' ON createdat"
+                : "OLDER_THAN(CreatedAt, INTERVAL 30 DAY)");
+
+    assertThat(albums.getOutgoingForeignKeys()).hasSize(1);
+    ForeignKey foreignKey = albums.getOutgoingForeignKeys().get(0);
+    assertThat(foreignKey.getName()).ignoringCase().isEqualTo("FK_Albums_Reviewers");
+    assertThat(foreignKey.getPrimaryKeyTable()).isSameInstanceAs(singers);
+    assertThat(foreignKey.getDeleteRule()).isEqualTo(ForeignKeyConstraintType.importedKeyCascade);
+
+    Index titleIndex = getByName(snapshot.get(Index.class), "Idx_Albums_Title");
+    assertThat(titleIndex.getRelation()).isSameInstanceAs(albums);
+    assertThat(titleIndex.isUnique()).isFalse();
+    assertThat(titleIndex.getAttribute(NULL_FILTERED, Boolean.class)).isTrue();
+    assertThat((List<?>) titleIndex.getAttribute(INCLUDED_COLUMNS, List.class))
+        .containsExactly(dialect == Dialect.POSTGRESQL ? "createdat" : "CreatedAt");
+    assertThat(titleIndex.getAttribute(INTERLEAVE_IN, String.class))
+        .ignoringCase()
+        .isEqualTo("Singers");
+    Index nameIndex = getByName(snapshot.get(Index.class), "Idx_Singers_Name");
+    assertThat(nameIndex.isUnique()).isTrue();
+    assertThat(nameIndex.getAttribute(NULL_FILTERED, Boolean.class)).isNull();
+    assertThat(nameIndex.getColumns().get(1).getDescending()).isTrue();
+    Index primaryKeyIndex = getByName(snapshot.get(Index.class), "PRIMARY_KEY");
+    assertThat(primaryKeyIndex.getClustered()).isTrue();
+
+    Sequence sequence = getByName(snapshot.get(Sequence.class), "testSequence");
+    assertThat(sequence.getStartValue()).isEqualTo(BigInteger.valueOf(100L));
+    View view = getByName(snapshot.get(View.class), "SingerNames");
+    assertThat(view.getDefinition()).startsWith("SELECT s.");
+    assertThat(view.getColumns()).isEmpty();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testSnapshotFromDdlFallsBackToInformationSchema(Dialect dialect) throws Exception {
+    putMockResultsForSchemas(dialect);
+    mockAdmin.addException(Status.PERMISSION_DENIED.asRuntimeException());
+    DatabaseSnapshot snapshot = createSnapshotFromDdl(dialect);
+
+    // The snapshot is read from INFORMATION_SCHEMA.
+    assertThat(
+            mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+                .map(ExecuteSqlRequest::getSql))
+        .contains(getColumnMetadataStatement(dialect));
+    Set<Table> tables = snapshot.get(Table.class);
+    assertThat(tables).hasSize(1);
+    assertThat(tables.iterator().next().getColumns()).hasSize(3);
+  }
+
+  private DatabaseSnapshot createSnapshotFromDdl(Dialect dialect) throws Exception {
+    String schemaName = dialect == Dialect.POSTGRESQL ? "PUBLIC" : "";
+    String catalog = dialect == Dialect.POSTGRESQL ? "DB_PG" : "";
+    try (Liquibase liquibase =
+        getLiquibase(createConnection(dialect), "create-snapshot.spanner.yaml")) {
+      Database database = liquibase.getDatabase();
+      return Scope.child(
+          Collections.singletonMap(SpannerConfiguration.SNAPSHOT_FROM_DDL.getKey(), (Object) true),
+          () ->
+              SnapshotGeneratorFactory.getInstance()
+                  .createSnapshot(
+                      new CatalogAndSchema(catalog, schemaName),
+                      database,
+                      new SnapshotControl(database)));
+    }
+  }
+
+  private static List<String> getSnapshotDdl(Dialect dialect) {
+    if (dialect == Dialect.POSTGRESQL) {
+      return ImmutableList.of(
+          "CREATE TABLE singers (\n"
+              + "  singerid bigint NOT NULL,\n"
+              + "  firstname character varying(100),\n"
+              + "  lastname character varying(200) DEFAULT 'Unknown'::character varying NOT NULL,\n"
+              + "  fullname character varying GENERATED ALWAYS AS "
+              + "(((firstname)::text || ' '::text) || (lastname)::text) STORED,\n"
+              + "  tags character varying[],\n"
+              + "  createdat timestamp with time zone,\n"
+              + "  PRIMARY KEY(singerid)\n"
+              + ")",
+          "CREATE TABLE albums (\n"
+              + "  singerid bigint NOT NULL,\n"
+              + "  albumid bigint NOT NULL,\n"
+              + "  title character varying,\n"
+              + "  createdat timestamp with time zone NOT NULL,\n"
+              + "  reviewerid bigint,\n"
+              + "  PRIMARY KEY(singerid, albumid DESC),\n"
+              + "  CONSTRAINT fk_albums_reviewers FOREIGN KEY (reviewerid) "
+              + "REFERENCES singers(singerid) ON DELETE CASCADE\n"
+              + ") INTERLEAVE IN PARENT singers ON DELETE CASCADE "
+              + "TTL INTERVAL '30 days' ON createdat",
+          "CREATE INDEX idx_albums_title ON albums USING btree (title) INCLUDE (createdat) "
+              + "INTERLEAVE IN singers WHERE (title IS NOT NULL)",
+          "CREATE UNIQUE INDEX idx_singers_name ON singers USING btree (lastname, firstname DESC)",
+          "CREATE SEQUENCE testsequence BIT_REVERSED_POSITIVE START COUNTER WITH 100",
+          "CREATE VIEW singernames SQL SECURITY INVOKER AS "
+              + "SELECT s.firstname, s.lastname FROM singers s",
+          "CREATE CHANGE STREAM changes FOR ALL");
+    }
+    return ImmutableList.of(
+        "CREATE TABLE Singers (\n"
+            + "  SingerId INT64 NOT NULL,\n"
+            + "  FirstName STRING(100),\n"
+            + "  LastName STRING(200) NOT NULL DEFAULT ('Unknown'),\n"
+            + "  FullName STRING(MAX) AS (ARRAY_TO_STRING([FirstName, LastName], \" \")) STORED,\n"
+            + "  Tags ARRAY<STRUCT<Name STRING(MAX), Value INT64>>,\n"
+            + "  CreatedAt TIMESTAMP OPTIONS (\n"
+            + "    allow_commit_timestamp = true\n"
+            + "  ),\n"
+            + ") PRIMARY KEY(SingerId)",
+        "CREATE TABLE Albums (\n"
+            + "  SingerId INT64 NOT NULL,\n"
+            + "  AlbumId INT64 NOT NULL,\n"
+            + "  Title STRING(MAX),\n"
+            + "  CreatedAt TIMESTAMP NOT NULL,\n"
+            + "  ReviewerId INT64,\n"
+            + "  CONSTRAINT FK_Albums_Reviewers FOREIGN KEY(ReviewerId) "
+            + "REFERENCES Singers(SingerId) ON DELETE CASCADE,\n"
+            + ") PRIMARY KEY(SingerId, AlbumId DESC),\n"
+            + "  INTERLEAVE IN PARENT Singers ON DELETE CASCADE,\n"
+            + "  ROW DELETION POLICY (OLDER_THAN(CreatedAt, INTERVAL 30 DAY))",
+        "CREATE NULL_FILTERED INDEX Idx_Albums_Title ON Albums(Title) STORING (CreatedAt), "
+            + "INTERLEAVE IN Singers",
+        "CREATE UNIQUE INDEX Idx_Singers_Name ON Singers(LastName, FirstName DESC)",
+        "CREATE SEQUENCE testSequence OPTIONS (\n"
+            + "  sequence_kind = 'bit_reversed_positive',\n"
+            + "  start_with_counter = 100\n"
+            + ")",
+        "CREATE VIEW SingerNames SQL SECURITY INVOKER AS "
+            + "SELECT s.FirstName, s.LastName FROM Singers AS s",
+        "CREATE CHANGE STREAM Changes FOR ALL");
+  }
+
+  private static <T extends DatabaseObject> T getByName(Set<T> objects, String name) {
+    for (T object : objects) {
+      if (object.getName().equalsIgnoreCase(name)) {
+        return object;
+      }
+    }
+    throw new AssertionError("Missing " + name + " in " + objects);
+  }
+
+  private String generateChangeLog(Dialect dialect, int parallelism) throws Exception {
+    String schemaName = dialect == Dialect.POSTGRESQL ? "PUBLIC" : "";
+    String catalog = dialect == Dialect.POSTGRESQL ? "DB_PG" : "";
+    try (Liquibase liquibase =
+        getLiquibase(createConnection(dialect), "create-snapshot.spanner.yaml")) {
+      Database database = liquibase.getDatabase();
+      return Scope.child(
+          Collections.singletonMap(
+              SpannerConfiguration.SNAPSHOT_PARALLELISM.getKey(), (Object) parallelism),
+          () -> {
+            DatabaseSnapshot snapshot =
+                SnapshotGeneratorFactory.getInstance()
+                    .createSnapshot(
+                        new CatalogAndSchema(catalog, schemaName),
+                        database,
+                        new SnapshotControl(database));
+            DiffResult diffResult =
+                DiffGeneratorFactory.getInstance()
+                    .compare(snapshot, new EmptyDatabaseSnapshot(database), new CompareControl());
+            DiffToChangeLog changeLog = new DiffToChangeLog(diffResult, new DiffOutputControl());
+            changeLog.setIdRoot("test");
+            changeLog.setChangeSetAuthor("test");
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            changeLog.print(new PrintStream(output, true, "UTF-8"), new YamlChangeLogSerializer());
+            return output.toString("UTF-8");
+          });
+    }
+  }
+
   private void verifySnapshotIdsInDatabaseObjects(Object object, Set<Object> visited)
       throws NoSuchFieldException {
     if (object == null) {
@@ -206,7 +688,6 @@ public class GenerateSnapshotTest extends AbstractMockServerTest {
   }
 
   void putMockResultsForSchemas(Dialect dialect) {
-    String[] columns = new String[] {"SingerId", "FirstName", "LastName"};
     String schema = dialect == Dialect.POSTGRESQL ? "PUBLIC" : "";
     String catalog = dialect == Dialect.POSTGRESQL ? "DB_PG" : "";
     AbstractStatementParser.ParametersInfo params;
@@ -282,6 +763,12 @@ public class GenerateSnapshotTest extends AbstractMockServerTest {
                 .to("SINGERS") // Table
                 .build(),
             JdbcMetadataQueries.createGetImportedKeysResultSet(ImmutableList.of())));
+    ImmutableList<IndexMetaData> indexes =
+        ImmutableList.of(
+            new IndexMetaData(
+                "Singers", false, "Idx_Singers_FirstName", false, 1, "FirstName", true),
+            new IndexMetaData(
+                "Singers", false, "Idx_Singers_FirstName", false, 2, "LastName", true));
     sql =
         dialect == Dialect.POSTGRESQL
             ? readSqlFromFile(GET_INDEX_INFO, dialect)
@@ -295,18 +782,19 @@ public class GenerateSnapshotTest extends AbstractMockServerTest {
                 .bind("p2")
                 .to(schema) // Schema
                 .bind("p3")
-                .to("SINGERS") // Table
+                .to("%") // Table
                 .bind("p4")
                 .to("%") // Index
                 .bind("p5")
                 .to("%") // Unique
                 .build(),
-            JdbcMetadataQueries.createGetIndexInfoResultSet(
-                ImmutableList.of(
-                    new IndexMetaData(
-                        "Singers", false, "Idx_Singers_FirstName", false, 1, "FirstName", true),
-                    new IndexMetaData(
-                        "Singers", false, "Idx_Singers_FirstName", false, 2, "LastName", true)))));
+            JdbcMetadataQueries.createGetIndexInfoResultSet(indexes)));
+    // Used when the index metadata is prefetched in parallel.
+    mockSpanner.putStatementResult(
+        StatementResult.query(
+            Statement.of(getIndexesStatement(dialect)),
+            JdbcMetadataQueries.createGetIndexesResultSet(
+                dialect == Dialect.POSTGRESQL ? "public" : "", indexes)));
     sql =
         dialect == Dialect.POSTGRESQL
             ? readSqlFromFile(GET_COLUMNS, dialect)
@@ -394,170 +882,27 @@ public class GenerateSnapshotTest extends AbstractMockServerTest {
                       new SequenceMetadata(
                           "testSequence", "bit_reversed_positive", 100, 5000000, 1)))));
     }
-    for (String column : columns) {
-
-      params =
-          parser.convertPositionalParametersToNamedParameters('?', GET_COLUMN_DEFAULT_STATEMENT);
-      mockSpanner.putStatementResult(
-          StatementResult.query(
-              Statement.newBuilder(params.sqlWithNamedParameters)
-                  .bind("p1")
-                  .to(catalog.toLowerCase())
-                  .bind("p2")
-                  .to(schema.toLowerCase())
-                  .bind("p3")
-                  .to("Singers".toLowerCase())
-                  .bind("p4")
-                  .to(column.toLowerCase())
-                  .build(),
-              ResultSet.newBuilder()
-                  .setMetadata(
-                      ResultSetMetadata.newBuilder()
-                          .setRowType(
-                              StructType.newBuilder()
-                                  .addFields(
-                                      StructType.Field.newBuilder()
-                                          .setName("COLUMN_DEF")
-                                          .setType(
-                                              Type.newBuilder().setCode(TypeCode.STRING).build())
-                                          .build())
-                                  .build())
-                          .build())
-                  .addRows(
-                      ListValue.newBuilder()
-                          .addValues(Value.newBuilder().setNullValue(NullValue.NULL_VALUE).build())
-                          .build())
-                  .build()));
-
-      mockSpanner.putStatementResult(
-          StatementResult.query(
-              Statement.newBuilder(params.sqlWithNamedParameters)
-                  .bind("p1")
-                  .to(catalog.toLowerCase())
-                  .bind("p2")
-                  .to(schema)
-                  .bind("p3")
-                  .to("Singers".toLowerCase())
-                  .bind("p4")
-                  .to(column.toLowerCase())
-                  .build(),
-              ResultSet.newBuilder()
-                  .setMetadata(
-                      ResultSetMetadata.newBuilder()
-                          .setRowType(
-                              StructType.newBuilder()
-                                  .addFields(
-                                      StructType.Field.newBuilder()
-                                          .setName("COLUMN_DEF")
-                                          .setType(
-                                              Type.newBuilder().setCode(TypeCode.STRING).build())
-                                          .build())
-                                  .build())
-                          .build())
-                  .addRows(
-                      ListValue.newBuilder()
-                          .addValues(Value.newBuilder().setNullValue(NullValue.NULL_VALUE).build())
-                          .build())
-                  .build()));
-
-      params = parser.convertPositionalParametersToNamedParameters('?', GET_SPANNER_TYPE_STATEMENT);
-      mockSpanner.putStatementResult(
-          StatementResult.query(
-              Statement.newBuilder(params.sqlWithNamedParameters)
-                  .bind("p1")
-                  .to(schema.toLowerCase())
-                  .bind("p2")
-                  .to("Singers".toLowerCase())
-                  .bind("p3")
-                  .to(column.toLowerCase())
-                  .build(),
-              ResultSet.newBuilder()
-                  .setMetadata(
-                      ResultSetMetadata.newBuilder()
-                          .setRowType(
-                              StructType.newBuilder()
-                                  .addFields(
-                                      StructType.Field.newBuilder()
-                                          .setName("SPANNER_TYPE")
-                                          .setType(
-                                              Type.newBuilder().setCode(TypeCode.STRING).build())
-                                          .build())
-                                  .build())
-                          .build())
-                  .addRows(
-                      ListValue.newBuilder()
-                          .addValues(Value.newBuilder().setStringValue("varchar").build())
-                          .build())
-                  .build()));
-      mockSpanner.putStatementResult(
-          StatementResult.query(
-              Statement.newBuilder(params.sqlWithNamedParameters)
-                  .bind("p1")
-                  .to(schema)
-                  .bind("p2")
-                  .to("Singers".toLowerCase())
-                  .bind("p3")
-                  .to(column.toLowerCase())
-                  .build(),
-              ResultSet.newBuilder()
-                  .setMetadata(
-                      ResultSetMetadata.newBuilder()
-                          .setRowType(
-                              StructType.newBuilder()
-                                  .addFields(
-                                      StructType.Field.newBuilder()
-                                          .setName("SPANNER_TYPE")
-                                          .setType(
-                                              Type.newBuilder().setCode(TypeCode.STRING).build())
-                                          .build())
-                                  .build())
-                          .build())
-                  .addRows(
-                      ListValue.newBuilder()
-                          .addValues(Value.newBuilder().setStringValue("varchar").build())
-                          .build())
-                  .build()));
-    }
-    Map<String, String> columnTypes = new HashMap<>();
-    columnTypes.put("SingerId", "bigint");
-    columnTypes.put("FirstName", "varchar");
-    columnTypes.put("LastName", "varchar");
-
-    for (Map.Entry<String, String> entry : columnTypes.entrySet()) {
-      String column = entry.getKey();
-      String type = entry.getValue();
-
-      params = parser.convertPositionalParametersToNamedParameters('?', GET_SPANNER_TYPE_STATEMENT);
-
-      mockSpanner.putStatementResult(
-          StatementResult.query(
-              Statement.newBuilder(params.sqlWithNamedParameters)
-                  .bind("p1")
-                  .to(schema.toLowerCase())
-                  .bind("p2")
-                  .to("Singers".toLowerCase())
-                  .bind("p3")
-                  .to(column.toLowerCase())
-                  .build(),
-              ResultSet.newBuilder()
-                  .setMetadata(
-                      ResultSetMetadata.newBuilder()
-                          .setRowType(
-                              StructType.newBuilder()
-                                  .addFields(
-                                      StructType.Field.newBuilder()
-                                          .setName("SPANNER_TYPE")
-                                          .setType(
-                                              Type.newBuilder().setCode(TypeCode.STRING).build())
-                                          .build())
-                                  .build())
-                          .build())
-                  .addRows(
-                      ListValue.newBuilder()
-                          .addValues(Value.newBuilder().setStringValue(type).build())
-                          .build())
-                  .build()));
-    }
+    // Used when the sequences are prefetched in parallel.
+    mockSpanner.putStatementResult(
+        StatementResult.query(
+            Statement.of(
+                dialect == Dialect.POSTGRESQL
+                    ? JdbcMetadataQueries.GET_ALL_SEQUENCES_PG
+                    : JdbcMetadataQueries.GET_ALL_SEQUENCES),
+            JdbcMetadataQueries.createGetAllSequencesResultSet(
+                dialect == Dialect.POSTGRESQL ? "public" : "",
+                ImmutableList.of(
+                    new SequenceMetadata(
+                        "testSequence", "bit_reversed_positive", 100, 5000000, 1)))));
+    List<ColumnInfoMetadata> columnMetadata =
+        new ArrayList<>(createDatabaseChangeLogColumnMetadata(schema));
+    columnMetadata.add(new ColumnInfoMetadata(schema, "Singers", "SingerId", null, "bigint"));
+    columnMetadata.add(new ColumnInfoMetadata(schema, "Singers", "FirstName", null, "varchar"));
+    columnMetadata.add(new ColumnInfoMetadata(schema, "Singers", "LastName", null, "varchar"));
+    mockSpanner.putStatementResult(
+        StatementResult.query(
+            Statement.of(getColumnMetadataStatement(dialect)),
+            createGetColumnMetadataResultSet(columnMetadata)));
     sql =
         "select view_definition from information_schema.views where table_name='Singers' and table_schema=? and table_catalog=?";
     params = parser.convertPositionalParametersToNamedParameters('?', sql);
@@ -43,6 +43,26 @@ class JdbcMetadataQueries {
           + "WHERE seq.CATALOG = ? AND seq.SCHEMA = ?";
   static final String GET_SEQUENCES_PG =
       "SELECT sequence_name AS SEQUENCE_NAME, sequence_kind AS SEQUENCE_KIND, skip_range_max AS SKIP_RANGE_MAX, skip_range_min AS SKIP_RANGE_MIN, counter_start_value AS START_VALUE FROM information_schema.sequences WHERE sequence_catalog = ? AND sequence_schema = ?";
+  /** The query that prefetches the sequences of all schemas. */
+  static final String GET_ALL_SEQUENCES =
+      "SELECT "
+          + "seq.SCHEMA AS SEQUENCE_SCHEMA, "
+          + "seq.NAME AS SEQUENCE_NAME, "
+          + "seq_kind.OPTION_VALUE AS SEQUENCE_KIND, "
+          + "skip_max.OPTION_VALUE AS SKIP_RANGE_MAX, "
+          + "skip_min.OPTION_VALUE AS SKIP_RANGE_MIN, "
+          + "start_counter.OPTION_VALUE AS START_VALUE "
+          + "FROM INFORMATION_SCHEMA.SEQUENCES AS seq "
+          + "LEFT JOIN INFORMATION_SCHEMA.SEQUENCE_OPTIONS AS seq_kind "
+          + "ON seq.CATALOG = seq_kind.CATALOG AND seq.SCHEMA = seq_kind.SCHEMA AND seq.NAME = seq_kind.NAME AND seq_kind.OPTION_NAME = 'sequence_kind' "
+          + "LEFT JOIN INFORMATION_SCHEMA.SEQUENCE_OPTIONS AS skip_max "
+          + "ON seq.CATALOG = skip_max.CATALOG AND seq.SCHEMA = skip_max.SCHEMA AND seq.NAME = skip_max.NAME AND skip_max.OPTION_NAME = 'skip_range_max' "
+          + "LEFT JOIN INFORMATION_SCHEMA.SEQUENCE_OPTIONS AS skip_min "
+          + "ON seq.CATALOG = skip_min.CATALOG AND seq.SCHEMA = skip_min.SCHEMA AND seq.NAME = skip_min.NAME AND skip_min.OPTION_NAME = 'skip_range_min' "
+          + "LEFT JOIN INFORMATION_SCHEMA.SEQUENCE_OPTIONS AS start_counter "
+          + "ON seq.CATALOG = start_counter.CATALOG AND seq.SCHEMA = start_counter.SCHEMA AND seq.NAME = start_counter.NAME AND start_counter.OPTION_NAME = 'start_with_counter'";
+  static final String GET_ALL_SEQUENCES_PG =
+      "SELECT sequence_schema AS SEQUENCE_SCHEMA, sequence_name AS SEQUENCE_NAME, sequence_kind AS SEQUENCE_KIND, skip_range_max AS SKIP_RANGE_MAX, skip_range_min AS SKIP_RANGE_MIN, counter_start_value AS START_VALUE FROM information_schema.sequences";
   static final String GET_COLUMN_DEFAULT_VALUE =
       convertPositionalParametersToNamedParameters(
           "SELECT DISTINCT COLUMN_DEFAULT AS COLUMN_DEF FROM INFORMATION_SCHEMA.COLUMNS "
@@ -671,6 +691,33 @@ class JdbcMetadataQueries {
     return builder.build();
   }
 
+  /** Returns the result of {@link #GET_ALL_SEQUENCES} for sequences in the given schema. */
+  static ResultSet createGetAllSequencesResultSet(
+      String schema, Iterable<SequenceMetadata> sequences) {
+    ResultSet.Builder builder =
+        ResultSet.newBuilder()
+            .setMetadata(
+                ResultSetMetadata.newBuilder()
+                    .setRowType(
+                        StructType.newBuilder()
+                            .addFields(
+                                Field.newBuilder()
+                                    .setName("SEQUENCE_SCHEMA")
+                                    .setType(Type.newBuilder().setCode(TypeCode.STRING)))
+                            .addAllFields(
+                                GET_SEQUENCE_INFO_METADATA
+                                    .getRowType()
+                                    .getFieldsList()
+                                    .subList(2, 7))));
+    for (ListValue row : createGetSequenceResultSet(sequences).getRowsList()) {
+      builder.addRows(
+          ListValue.newBuilder()
+              .addValues(Value.newBuilder().setStringValue(schema))
+              .addAllValues(row.getValuesList().subList(2, 7)));
+    }
+    return builder.build();
+  }
+
   static final ResultSetMetadata GET_COLUMN_DEFAULT_VALUE_METADATA =
       ResultSetMetadata.newBuilder()
           .setRowType(
@@ -704,6 +751,123 @@ class JdbcMetadataQueries {
     }
   }
 
+  static final ResultSetMetadata GET_COLUMN_METADATA_METADATA =
+      ResultSetMetadata.newBuilder()
+          .setRowType(
+              StructType.newBuilder()
+                  .addFields(
+                      Field.newBuilder()
+                          .setName("TABLE_SCHEMA")
+                          .setType(Type.newBuilder().setCode(TypeCode.STRING)))
+                  .addFields(
+                      Field.newBuilder()
+                          .setName("TABLE_NAME")
+                          .setType(Type.newBuilder().setCode(TypeCode.STRING)))
+                  .addFields(
+                      Field.newBuilder()
+                          .setName("COLUMN_NAME")
+                          .setType(Type.newBuilder().setCode(TypeCode.STRING)))
+                  .addFields(
+                      Field.newBuilder()
+                          .setName("COLUMN_DEFAULT")
+                          .setType(Type.newBuilder().setCode(TypeCode.STRING)))
+                  .addFields(
+                      Field.newBuilder()
+                          .setName("SPANNER_TYPE")
+                          .setType(Type.newBuilder().setCode(TypeCode.STRING))))
+          .build();
+
+  static ResultSet createGetColumnMetadataResultSet(Iterable<ColumnInfoMetadata> columns) {
+    ResultSet.Builder builder = ResultSet.newBuilder().setMetadata(GET_COLUMN_METADATA_METADATA);
+    for (ColumnInfoMetadata column : columns) {
+      builder.addRows(
+          ListValue.newBuilder()
+              .addValues(Value.newBuilder().setStringValue(column.schema))
+              .addValues(Value.newBuilder().setStringValue(column.table))
+              .addValues(Value.newBuilder().setStringValue(column.column))
+              .addValues(
+                  column.columnDefault == null
+                      ? Value.newBuilder().setNullValue(NullValue.NULL_VALUE)
+                      : Value.newBuilder().setStringValue(column.columnDefault))
+              .addValues(Value.newBuilder().setStringValue(column.spannerType)));
+    }
+    return builder.build();
+  }
+
+  static class ColumnInfoMetadata {
+    final String schema;
+    final String table;
+    final String column;
+    final String columnDefault;
+    final String spannerType;
+
+    ColumnInfoMetadata(
+        String schema, String table, String column, String columnDefault, String spannerType) {
+      this.schema = schema;
+      this.table = table;
+      this.column = column;
+      this.columnDefault = columnDefault;
+      this.spannerType = spannerType;
+    }
+  }
+
+  static final ResultSetMetadata GET_INDEXES_METADATA =
+      ResultSetMetadata.newBuilder()
+          .setRowType(
+              StructType.newBuilder()
+                  .addFields(
+                      Field.newBuilder()
+                          .setName("TABLE_SCHEMA")
+                          .setType(Type.newBuilder().setCode(TypeCode.STRING)))
+                  .addFields(
+                      Field.newBuilder()
+                          .setName("TABLE_NAME")
+                          .setType(Type.newBuilder().setCode(TypeCode.STRING)))
+                  .addFields(
+                      Field.newBuilder()
+                          .setName("INDEX_NAME")
+                          .setType(Type.newBuilder().setCode(TypeCode.STRING)))
+                  .addFields(
+                      Field.newBuilder()
+                          .setName("NON_UNIQUE")
+                          .setType(Type.newBuilder().setCode(TypeCode.BOOL)))
+                  .addFields(
+                      Field.newBuilder()
+                          .setName("ORDINAL_POSITION")
+                          .setType(Type.newBuilder().setCode(TypeCode.INT64)))
+                  .addFields(
+                      Field.newBuilder()
+                          .setName("COLUMN_NAME")
+                          .setType(Type.newBuilder().setCode(TypeCode.STRING)))
+                  .addFields(
+                      Field.newBuilder()
+                          .setName("COLUMN_ORDERING")
+                          .setType(Type.newBuilder().setCode(TypeCode.STRING))))
+          .build();
+
+  /** Creates a result for the query that prefetches the indexes of all schemas. */
+  static ResultSet createGetIndexesResultSet(String schema, Iterable<IndexMetaData> indexes) {
+    ResultSet.Builder builder = ResultSet.newBuilder().setMetadata(GET_INDEXES_METADATA);
+    for (IndexMetaData index : indexes) {
+      builder.addRows(
+          ListValue.newBuilder()
+              .addValues(Value.newBuilder().setStringValue(schema))
+              .addValues(Value.newBuilder().setStringValue(index.table))
+              .addValues(Value.newBuilder().setStringValue(index.name))
+              .addValues(Value.newBuilder().setBoolValue(!index.unique))
+              .addValues(
+                  index.ordinalPosition == null
+                      ? Value.newBuilder().setNullValue(NullValue.NULL_VALUE)
+                      : Value.newBuilder().setStringValue(String.valueOf(index.ordinalPosition)))
+              .addValues(Value.newBuilder().setStringValue(index.column))
+              .addValues(
+                  index.ascending == null
+                      ? Value.newBuilder().setNullValue(NullValue.NULL_VALUE)
+                      : Value.newBuilder().setStringValue(index.ascending ? "ASC" : "DESC")));
+    }
+    return builder.build();
+  }
+
   static String readSqlFromFile(String filename, Dialect dialect) {
     InputStream in;
     switch (dialect) {
@@ -0,0 +1,296 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.MockSpannerServiceImpl.StatementResult;
+import com.google.cloud.spanner.Statement;
+import com.google.common.base.Throwables;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Value;
+import com.google.spanner.v1.CommitRequest;
+import com.google.spanner.v1.ExecuteSqlRequest;
+import com.google.spanner.v1.Mutation.Write;
+import com.google.spanner.v1.ResultSet;
+import com.google.spanner.v1.ResultSetMetadata;
+import com.google.spanner.v1.StructType;
+import com.google.spanner.v1.StructType.Field;
+import com.google.spanner.v1.Type;
+import com.google.spanner.v1.TypeCode;
+import io.grpc.Status;
+import java.sql.Connection;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import liquibase.Contexts;
+import liquibase.GlobalConfiguration;
+import liquibase.Liquibase;
+import liquibase.Scope;
+import liquibase.exception.LockException;
+import liquibase.lockservice.LockService;
+import liquibase.lockservice.LockServiceFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+@Execution(ExecutionMode.SAME_THREAD)
+public class LeaseLockTest extends AbstractMockServerTest {
+
+  @BeforeEach
+  void resetServer() {
+    mockSpanner.reset();
+    mockAdmin.reset();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testAcquireFreeLease(Dialect dialect) throws Exception {
+    putLeaseTableResult(dialect, true);
+    putLeaseResult(dialect, null, null);
+    addCreateSingersResponse(dialect);
+
+    update(dialect);
+
+    List<String> executedSql = getExecutedSql();
+    assertThat(executedSql.stream().filter(sql -> sql.startsWith(ACQUIRE_LOCK.getSql())))
+        .isEmpty();
+    assertThat(executedSql).doesNotContain(DELETE_FROM_DATABASECHANGELOGLOCK.getSql());
+    List<Write> leases = getLeaseWrites();
+    assertThat(leases).hasSize(1);
+    assertThat(
+            leases.get(0).getColumnsList().stream()
+                .map(column -> column.toUpperCase())
+                .collect(Collectors.toList()))
+        .containsExactly("ID", "LOCKEDBY", "GRANTED", "HEARTBEAT", "LEASE_SECONDS")
+        .inOrder();
+    // The lease is granted and renewed with the commit timestamp of the transaction.
+    assertThat(leases.get(0).getValues(0).getValues(2).getStringValue())
+        .isEqualTo("spanner.commit_timestamp()");
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testAcquireExpiredLease(Dialect dialect) throws Exception {
+    // The other runner stopped writing heartbeats more than the lease duration ago.
+    putLeaseTableResult(dialect, true);
+    putLeaseResult(dialect, "other-runner", Timestamp.ofTimeSecondsAndNanos(0L, 0));
+    addCreateSingersResponse(dialect);
+
+    update(dialect);
+
+    assertThat(getLeaseWrites()).hasSize(1);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testLeaseHeldByOtherRunner(Dialect dialect) {
+    putLeaseTableResult(dialect, true);
+    putLeaseResult(dialect, "other-runner", Timestamp.now());
+
+    Exception exception =
+        assertThrows(
+            Exception.class,
+            () ->
+                Scope.child(
+                    GlobalConfiguration.CHANGELOGLOCK_WAIT_TIME.getKey(),
+                    0L,
+                    () -> update(dialect)));
+
+    assertThat(
+            Throwables.getCausalChain(exception).stream()
+                .filter(cause -> cause instanceof LockException)
+                .map(Throwable::getMessage)
+                .collect(Collectors.toList()))
+        .contains("Could not acquire change log lock. Currently locked by other-runner");
+    assertThat(getLeaseWrites()).isEmpty();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testCreateLeaseTable(Dialect dialect) throws Exception {
+    putLeaseTableResult(dialect, false);
+    putLeaseResult(dialect, null, null);
+    addUpdateDdlStatementsResponse(
+        dialect, "CREATE TABLE IF NOT EXISTS DATABASECHANGELOGLOCKLEASE (...)");
+    addCreateSingersResponse(dialect);
+
+    update(dialect);
+
+    // The lease table is created by the first runner that tries to acquire the lease.
+    assertThat(mockAdmin.getRequests()).hasSize(2);
+    assertThat(getUpdateDdlStatementsList(0))
+        .containsExactly(
+            dialect == Dialect.POSTGRESQL
+                ? "CREATE TABLE IF NOT EXISTS DATABASECHANGELOGLOCKLEASE (ID BIGINT NOT NULL "
+                    + "PRIMARY KEY, LOCKEDBY VARCHAR(255), GRANTED SPANNER.COMMIT_TIMESTAMP, "
+                    + "HEARTBEAT SPANNER.COMMIT_TIMESTAMP, LEASE_SECONDS BIGINT)"
+                : "CREATE TABLE IF NOT EXISTS DATABASECHANGELOGLOCKLEASE (ID INT64 NOT NULL, "
+                    + "LOCKEDBY STRING(255), "
+                    + "GRANTED TIMESTAMP OPTIONS (allow_commit_timestamp=true), "
+                    + "HEARTBEAT TIMESTAMP OPTIONS (allow_commit_timestamp=true), "
+                    + "LEASE_SECONDS INT64) PRIMARY KEY (ID)");
+    assertThat(getLeaseWrites()).hasSize(1);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testListLocksWithoutLeaseTable(Dialect dialect) throws Exception {
+    putLeaseTableResult(dialect, false);
+    // Spanner returns INVALID_ARGUMENT, and not NOT_FOUND, for a query on a missing table.
+    mockSpanner.putStatementResult(
+        StatementResult.exception(
+            Statement.of(getLeaseSql(dialect)),
+            Status.INVALID_ARGUMENT
+                .withDescription("Table not found: DATABASECHANGELOGLOCKLEASE")
+                .asRuntimeException()));
+
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "create-singers-table.spanner.yaml")) {
+      Scope.child(
+          SpannerConfiguration.LEASE_LOCK.getKey(),
+          true,
+          () -> {
+            LockService lockService =
+                LockServiceFactory.getInstance().getLockService(liquibase.getDatabase());
+            try {
+              assertThat(lockService.listLocks()).isEmpty();
+            } finally {
+              lockService.reset();
+            }
+          });
+    }
+
+    assertThat(getExecutedSql()).doesNotContain(getLeaseSql(dialect));
+    assertThat(mockAdmin.getRequests()).isEmpty();
+  }
+
+  private static void addCreateSingersResponse(Dialect dialect) {
+    addUpdateDdlStatementsResponse(
+        dialect,
+        dialect == Dialect.POSTGRESQL
+            ? "CREATE TABLE Singers (SingerId bigint, FirstName varchar(255), LastName varchar(255) NOT NULL, SingerInfo bytea, \"hash`s\" varchar(40), PRIMARY KEY (SingerId))"
+            : "CREATE TABLE Singers (SingerId INT64, FirstName STRING(255), LastName STRING(255) NOT NULL, SingerInfo BYTES(MAX), `hash\\`s` STRING(40)) PRIMARY KEY (SingerId)");
+  }
+
+  private static void update(Dialect dialect) throws Exception {
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "create-singers-table.spanner.yaml")) {
+      Scope.child(
+          SpannerConfiguration.LEASE_LOCK.getKey(),
+          true,
+          () -> liquibase.update(new Contexts("test")));
+    }
+  }
+
+  /**
+   * Registers the lease row that is returned to the runner. The lease has a duration of 60 seconds
+   * and the current time of the database is the actual time.
+   */
+  private static void putLeaseResult(
+      Dialect dialect, @Nullable String lockedBy, @Nullable Timestamp heartbeat) {
+    putLeaseResult(dialect, lockedBy, heartbeat, heartbeat);
+  }
+
+  /**
+   * Registers the lease row that is returned to the runner, with the given fencing token in the
+   * GRANTED column.
+   */
+  public static void putLeaseResult(
+      Dialect dialect,
+      @Nullable String lockedBy,
+      @Nullable Timestamp granted,
+      @Nullable Timestamp heartbeat) {
+    String sql = getLeaseSql(dialect);
+    StructType.Builder rowType =
+        StructType.newBuilder()
+            .addFields(field("LOCKEDBY", TypeCode.STRING))
+            .addFields(field("GRANTED", TypeCode.TIMESTAMP))
+            .addFields(field("HEARTBEAT", TypeCode.TIMESTAMP))
+            .addFields(field("LEASE_SECONDS", TypeCode.INT64))
+            .addFields(field("NOW", TypeCode.TIMESTAMP));
+    ResultSet.Builder resultSet =
+        ResultSet.newBuilder().setMetadata(ResultSetMetadata.newBuilder().setRowType(rowType));
+    if (lockedBy != null) {
+      resultSet.addRows(
+          ListValue.newBuilder()
+              .addValues(Value.newBuilder().setStringValue(lockedBy))
+              .addValues(Value.newBuilder().setStringValue(granted.toString()))
+              .addValues(Value.newBuilder().setStringValue(heartbeat.toString()))
+              .addValues(Value.newBuilder().setStringValue("60"))
+              .addValues(Value.newBuilder().setStringValue(Timestamp.now().toString())));
+    }
+    mockSpanner.putStatementResult(StatementResult.query(Statement.of(sql), resultSet.build()));
+  }
+
+  private static String getLeaseSql(Dialect dialect) {
+    return String.format(
+        "SELECT LOCKEDBY, GRANTED, HEARTBEAT, LEASE_SECONDS, %s AS NOW "
+            + "FROM DATABASECHANGELOGLOCKLEASE WHERE ID = 1",
+        dialect == Dialect.POSTGRESQL ? "now()" : "CURRENT_TIMESTAMP()");
+  }
+
+  /** Registers the result of the query that checks whether the lease table exists. */
+  public static void putLeaseTableResult(Dialect dialect, boolean exists) {
+    Statement statement =
+        Statement.newBuilder(
+                dialect == Dialect.POSTGRESQL
+                    ? "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES "
+                        + "WHERE TABLE_SCHEMA = 'public' AND TABLE_NAME = $1"
+                    : "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES "
+                        + "WHERE TABLE_SCHEMA = '' AND TABLE_NAME = @p1")
+            .bind("p1")
+            .to(
+                dialect == Dialect.POSTGRESQL
+                    ? "databasechangeloglocklease"
+                    : "DATABASECHANGELOGLOCKLEASE")
+            .build();
+    mockSpanner.putStatementResult(
+        StatementResult.query(
+            statement,
+            ResultSet.newBuilder()
+                .setMetadata(
+                    ResultSetMetadata.newBuilder()
+                        .setRowType(
+                            StructType.newBuilder().addFields(field("", TypeCode.INT64)).build()))
+                .addRows(
+                    ListValue.newBuilder()
+                        .addValues(Value.newBuilder().setStringValue(exists ? "1" : "0")))
+                .build()));
+  }
+
+  private static Field field(String name, TypeCode code) {
+    return Field.newBuilder().setName(name).setType(Type.newBuilder().setCode(code)).build();
+  }
+
+  private static List<Write> getLeaseWrites() {
+    return mockSpanner.getRequestsOfType(CommitRequest.class).stream()
+        .flatMap(commit -> commit.getMutationsList().stream())
+        .filter(mutation -> mutation.hasInsertOrUpdate())
+        .map(mutation -> mutation.getInsertOrUpdate())
+        .filter(write -> write.getTable().equalsIgnoreCase("DATABASECHANGELOGLOCKLEASE"))
+        .collect(Collectors.toList());
+  }
+
+  private static List<String> getExecutedSql() {
+    return mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+        .map(ExecuteSqlRequest::getSql)
+        .collect(Collectors.toList());
+  }
+}
@@ -14,6 +14,7 @@
 package liquibase.ext.spanner;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.google.cloud.ByteArray;
 import com.google.cloud.Date;
@@ -22,15 +23,36 @@ import com.google.cloud.spanner.Dialect;
 import com.google.cloud.spanner.MockSpannerServiceImpl.StatementResult;
 import com.google.cloud.spanner.Statement;
 import com.google.cloud.spanner.connection.AbstractStatementParser;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.AbstractMessage;
+import com.google.protobuf.ListValue;
 import com.google.protobuf.Value;
+import com.google.spanner.v1.CommitRequest;
 import com.google.spanner.v1.ExecuteBatchDmlRequest;
+import com.google.spanner.v1.ExecuteSqlRequest;
+import com.google.spanner.v1.Mutation;
+import com.google.spanner.v1.Mutation.Write;
+import com.google.spanner.v1.ResultSet;
+import com.google.spanner.v1.ResultSetMetadata;
+import com.google.spanner.v1.StructType;
+import com.google.spanner.v1.StructType.Field;
+import com.google.spanner.v1.Type;
+import com.google.spanner.v1.TypeCode;
 import java.sql.Connection;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import liquibase.Contexts;
 import liquibase.Liquibase;
+import liquibase.Scope;
+import liquibase.exception.CommandExecutionException;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Timeout;
 import org.junit.jupiter.api.parallel.Execution;
 import org.junit.jupiter.api.parallel.ExecutionMode;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -39,6 +61,16 @@ import org.testcontainers.shaded.com.google.common.collect.Iterables;
 
 @Execution(ExecutionMode.SAME_THREAD)
 public class LoadDataTest extends AbstractMockServerTest {
+  private static final String PRIMARY_KEY_QUERY =
+      "SELECT I.COLUMN_NAME, "
+          + "(SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES T "
+          + "JOIN INFORMATION_SCHEMA.INDEX_COLUMNS P ON P.TABLE_SCHEMA = T.TABLE_SCHEMA "
+          + "AND P.TABLE_NAME = T.PARENT_TABLE_NAME AND P.INDEX_NAME = 'PRIMARY_KEY' "
+          + "WHERE T.TABLE_SCHEMA = I.TABLE_SCHEMA AND T.TABLE_NAME = I.TABLE_NAME) "
+          + "AS PARENT_KEY_COLUMNS "
+          + "FROM INFORMATION_SCHEMA.INDEX_COLUMNS I "
+          + "WHERE I.TABLE_SCHEMA = %s AND I.TABLE_NAME = %s AND I.INDEX_NAME = 'PRIMARY_KEY' "
+          + "ORDER BY I.ORDINAL_POSITION";
   private static final String INSERT =
       "INSERT INTO Singers(SingerId, Name, Description, SingerInfo, AnyGood, Birthdate, LastConcertTimestamp, ExternalID) "
           + "VALUES(?, ?, ?, ?, ?, ?, ?, ?)";
@@ -74,6 +106,413 @@ public class LoadDataTest extends AbstractMockServerTest {
     }
   }
 
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testLoadDataWithMutations(Dialect dialect) throws Exception {
+    setupColumnTypesResult(dialect);
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "load-data-singers-mutations.spanner.yaml")) {
+      Scope.child(
+          SpannerConfiguration.LOAD_DATA_WITH_MUTATIONS.getKey(),
+          true,
+          () -> liquibase.update(new Contexts("test")));
+    }
+    assertThat(mockSpanner.countRequestsOfType(ExecuteBatchDmlRequest.class)).isEqualTo(0);
+    List<List<Write>> commits = getSingersInsertCommits();
+    assertThat(commits).hasSize(1);
+    List<ListValue> rows = getRows(commits.get(0));
+    assertThat(rows).hasSize(3);
+    assertThat(commits.get(0).get(0).getColumnsList())
+        .containsExactly("SingerId", "Name", "AnyGood", "Birthdate", "LastConcertTimestamp")
+        .inOrder();
+    for (int id : new int[] {1, 2, 3}) {
+      ListValue row = rows.get(id - 1);
+      // INT64 values are encoded as strings.
+      assertThat(row.getValues(0).getStringValue()).isEqualTo(String.valueOf(id));
+      assertThat(row.getValues(1).getStringValue()).isEqualTo("Name " + id);
+      assertThat(row.getValues(2).getBoolValue()).isEqualTo(id % 2 == 0);
+    }
+    assertThat(rows.get(1).getValues(3).getStringValue()).isEqualTo("2000-02-29");
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testLoadDataWithMutationsInChunks(Dialect dialect) throws Exception {
+    setupColumnTypesResult(dialect);
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "load-data-singers-mutations.spanner.yaml")) {
+      // Each row contains 5 values, so a limit of 10 mutations means 2 rows per commit.
+      Scope.child(
+          ImmutableMap.of(
+              SpannerConfiguration.LOAD_DATA_WITH_MUTATIONS.getKey(),
+              true,
+              SpannerConfiguration.MAX_MUTATIONS_PER_COMMIT.getKey(),
+              10,
+              SpannerConfiguration.LOAD_DATA_SPLIT_COMMITS.getKey(),
+              true),
+          () -> liquibase.update(new Contexts("test")));
+    }
+    List<List<Write>> commits = getSingersInsertCommits();
+    assertThat(commits).hasSize(2);
+    assertThat(getRows(commits.get(0))).hasSize(2);
+    assertThat(getRows(commits.get(1))).hasSize(1);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testLoadDataWithMutationsTooLargeForTransaction(Dialect dialect) throws Exception {
+    setupColumnTypesResult(dialect);
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "load-data-singers-mutations.spanner.yaml")) {
+      // The 3 rows contain 15 values, which do not fit in one commit of 10 mutations.
+      CommandExecutionException exception =
+          assertThrows(
+              CommandExecutionException.class,
+              () ->
+                  Scope.child(
+                      ImmutableMap.of(
+                          SpannerConfiguration.LOAD_DATA_WITH_MUTATIONS.getKey(),
+                          true,
+                          SpannerConfiguration.MAX_MUTATIONS_PER_COMMIT.getKey(),
+                          10),
+                      () -> liquibase.update(new Contexts("test"))));
+      assertThat(exception.getMessage())
+          .contains(SpannerConfiguration.LOAD_DATA_SPLIT_COMMITS.getKey());
+    }
+    assertThat(getSingersInsertCommits()).isEmpty();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testLoadDataWithMutationsSplitAfterUpdateFails(Dialect dialect) throws Exception {
+    setupColumnTypesResult(dialect);
+    mockSpanner.putStatementResult(
+        StatementResult.update(
+            Statement.of("UPDATE Singers SET Name = 'Unknown' WHERE Name IS NULL"), 0L));
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase =
+            getLiquibase(con, "load-data-singers-mutations-after-update.spanner.yaml")) {
+      // Committing the first chunk would also commit the UPDATE statement of the change set.
+      CommandExecutionException exception =
+          assertThrows(
+              CommandExecutionException.class,
+              () ->
+                  Scope.child(
+                      ImmutableMap.of(
+                          SpannerConfiguration.LOAD_DATA_WITH_MUTATIONS.getKey(),
+                          true,
+                          SpannerConfiguration.MAX_MUTATIONS_PER_COMMIT.getKey(),
+                          10,
+                          SpannerConfiguration.LOAD_DATA_SPLIT_COMMITS.getKey(),
+                          true),
+                      () -> liquibase.update(new Contexts("test"))));
+      assertThat(exception.getMessage()).contains("separate change set");
+    }
+    assertThat(getSingersInsertCommits()).isEmpty();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testLoadDataWithMutationsInTransactionOfChangeSet(Dialect dialect) throws Exception {
+    setupColumnTypesResult(dialect);
+    mockSpanner.putStatementResult(
+        StatementResult.update(
+            Statement.of("UPDATE Singers SET Name = 'Unknown' WHERE Name IS NULL"), 0L));
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase =
+            getLiquibase(con, "load-data-singers-mutations-after-update.spanner.yaml")) {
+      Scope.child(
+          SpannerConfiguration.LOAD_DATA_WITH_MUTATIONS.getKey(),
+          true,
+          () -> liquibase.update(new Contexts("test")));
+    }
+    // The mutations are committed by Liquibase in the transaction of the UPDATE statement.
+    List<List<Write>> commits = getSingersInsertCommits();
+    assertThat(commits).hasSize(1);
+    assertThat(getRows(commits.get(0))).hasSize(3);
+    List<AbstractMessage> requests = mockSpanner.getRequests();
+    int update =
+        Iterables.indexOf(
+            requests,
+            request ->
+                request instanceof ExecuteSqlRequest
+                    && ((ExecuteSqlRequest) request).getSql().startsWith("UPDATE Singers"));
+    int commit =
+        Iterables.indexOf(
+            requests,
+            request ->
+                request instanceof CommitRequest
+                    && ((CommitRequest) request).getMutationsCount() > 0
+                    && ((CommitRequest) request).getMutations(0).hasInsert());
+    assertThat(update).isAtLeast(0);
+    assertThat(commit).isGreaterThan(update);
+    assertThat(
+            requests.subList(update, commit).stream()
+                .noneMatch(request -> request instanceof CommitRequest))
+        .isTrue();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testLoadDataStreaming(Dialect dialect) throws Exception {
+    setupColumnTypesResult(dialect);
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "load-data-singers-mutations.spanner.yaml")) {
+      // Each row contains 5 values, so a limit of 10 mutations means 2 rows per commit.
+      Scope.child(
+          ImmutableMap.of(
+              SpannerConfiguration.LOAD_DATA_STREAMING.getKey(),
+              true,
+              SpannerConfiguration.MAX_MUTATIONS_PER_COMMIT.getKey(),
+              10),
+          () -> liquibase.update(new Contexts("test")));
+    }
+    assertThat(mockSpanner.countRequestsOfType(ExecuteBatchDmlRequest.class)).isEqualTo(0);
+    List<List<Write>> commits = getSingersInsertCommits();
+    assertThat(commits).hasSize(2);
+    assertThat(getRows(commits.get(0))).hasSize(2);
+    assertThat(getRows(commits.get(1))).hasSize(1);
+    assertThat(commits.get(0).get(0).getColumnsList())
+        .containsExactly("SingerId", "Name", "AnyGood", "Birthdate", "LastConcertTimestamp")
+        .inOrder();
+    List<ListValue> rows = new ArrayList<>(getRows(commits.get(0)));
+    rows.addAll(getRows(commits.get(1)));
+    for (int id : new int[] {1, 2, 3}) {
+      ListValue row = rows.get(id - 1);
+      assertThat(row.getValues(0).getStringValue()).isEqualTo(String.valueOf(id));
+      assertThat(row.getValues(1).getStringValue()).isEqualTo("Name " + id);
+      assertThat(row.getValues(2).getBoolValue()).isEqualTo(id % 2 == 0);
+    }
+    assertThat(rows.get(1).getValues(3).getStringValue()).isEqualTo("2000-02-29");
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testLoadDataStreamingGzip(Dialect dialect) throws Exception {
+    setupColumnTypesResult(dialect);
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "load-data-singers-gzip.spanner.yaml")) {
+      Scope.child(
+          SpannerConfiguration.LOAD_DATA_STREAMING.getKey(),
+          true,
+          () -> liquibase.update(new Contexts("test")));
+    }
+    List<List<Write>> commits = getSingersInsertCommits();
+    assertThat(commits).hasSize(1);
+    List<ListValue> rows = getRows(commits.get(0));
+    assertThat(rows).hasSize(3);
+    assertThat(rows.get(2).getValues(1).getStringValue()).isEqualTo("Name 3");
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  @Timeout(60)
+  void testLoadDataStreamingMalformedTimestamp(Dialect dialect) throws Exception {
+    setupColumnTypesResult(dialect);
+    putPrimaryKeyResult(dialect);
+    for (int writers : new int[] {1, 2}) {
+      try (Connection con = createConnection(dialect);
+          Liquibase liquibase =
+              getLiquibase(con, "load-data-singers-malformed-timestamp.spanner.yaml")) {
+        // The reader must end the stream after the error, or the writers wait forever.
+        CommandExecutionException exception =
+            assertThrows(
+                CommandExecutionException.class,
+                () ->
+                    Scope.child(
+                        ImmutableMap.of(
+                            SpannerConfiguration.LOAD_DATA_STREAMING.getKey(),
+                            true,
+                            SpannerConfiguration.LOAD_DATA_WRITERS.getKey(),
+                            writers),
+                        () -> liquibase.update(new Contexts("test"))));
+        assertThat(exception.getMessage())
+            .contains("Invalid value for column LastConcertTimestamp in line 3");
+      }
+    }
+    assertThat(getSingersInsertCommits()).isEmpty();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testLoadDataParallelWriters(Dialect dialect) throws Exception {
+    setupColumnTypesResult(dialect);
+    putPrimaryKeyResult(dialect);
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "load-data-singers-parallel.spanner.yaml")) {
+      // Each row contains 5 values, so a limit of 10 mutations means 2 rows per commit.
+      Scope.child(
+          ImmutableMap.of(
+              SpannerConfiguration.LOAD_DATA_STREAMING.getKey(),
+              true,
+              SpannerConfiguration.LOAD_DATA_WRITERS.getKey(),
+              2,
+              SpannerConfiguration.MAX_MUTATIONS_PER_COMMIT.getKey(),
+              10),
+          () -> liquibase.update(new Contexts("test")));
+    }
+    // The file contains the ids 5, 2, 4, 1, 3. The rows are sorted by key before they are split
+    // into chunks, and the chunks are committed in any order by the two writers.
+    List<List<String>> commits =
+        getSingersInsertCommits().stream()
+            .map(
+                writes ->
+                    getRows(writes).stream()
+                        .map(row -> row.getValues(0).getStringValue())
+                        .collect(Collectors.toList()))
+            .collect(Collectors.toList());
+    assertThat(commits)
+        .containsExactly(
+            ImmutableList.of("1", "2"), ImmutableList.of("3", "4"), ImmutableList.of("5"));
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testLoadDataWithParameterizedDml(Dialect dialect) throws Exception {
+    setupColumnTypesResult(dialect);
+    mockSpanner.putPartialStatementResult(
+        StatementResult.update(Statement.of("INSERT INTO Singers"), 1L));
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "load-data-singers-mutations.spanner.yaml")) {
+      Scope.child(
+          SpannerConfiguration.PARAMETERIZED_DML.getKey(),
+          true,
+          () -> liquibase.update(new Contexts("test")));
+    }
+    List<ExecuteBatchDmlRequest> requests =
+        mockSpanner.getRequestsOfType(ExecuteBatchDmlRequest.class);
+    assertThat(requests).hasSize(1);
+    assertThat(requests.get(0).getStatementsList()).hasSize(3);
+    for (int id : new int[] {1, 2, 3}) {
+      ExecuteBatchDmlRequest.Statement statement = requests.get(0).getStatements(id - 1);
+      // All rows use the same SQL string with typed query parameters.
+      assertThat(statement.getSql().replaceAll("(@p\\d+|\\$\\d+)", "?"))
+          .isEqualTo(
+              "INSERT INTO Singers (SingerId, Name, AnyGood, Birthdate, LastConcertTimestamp) "
+                  + "SELECT ?, ?, ?, ?, ?");
+      assertThat(statement.getParamTypesMap().get("p1").getCode()).isEqualTo(TypeCode.INT64);
+      assertThat(statement.getParamTypesMap().get("p2").getCode()).isEqualTo(TypeCode.STRING);
+      assertThat(statement.getParamTypesMap().get("p3").getCode()).isEqualTo(TypeCode.BOOL);
+      assertThat(statement.getParamTypesMap().get("p4").getCode()).isEqualTo(TypeCode.DATE);
+      assertThat(statement.getParamTypesMap().get("p5").getCode()).isEqualTo(TypeCode.TIMESTAMP);
+      assertThat(statement.getParams().getFieldsMap().get("p1").getStringValue())
+          .isEqualTo(String.valueOf(id));
+      assertThat(statement.getParams().getFieldsMap().get("p2").getStringValue())
+          .isEqualTo("Name " + id);
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testLoadDataWithFilesFallsBackToDml(Dialect dialect) throws Exception {
+    setupResults(dialect);
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "load-data-singers.spanner.yaml")) {
+      Scope.child(
+          SpannerConfiguration.LOAD_DATA_WITH_MUTATIONS.getKey(),
+          true,
+          () -> liquibase.update(new Contexts("test")));
+    }
+    // The CLOB and BLOB values are read from files, which is not supported for mutations.
+    assertThat(mockSpanner.countRequestsOfType(ExecuteBatchDmlRequest.class)).isEqualTo(1);
+    assertThat(getSingersInsertCommits()).isEmpty();
+  }
+
+  static void setupColumnTypesResult(Dialect dialect) {
+    setupColumnTypesResult(
+        dialect,
+        dialect == Dialect.POSTGRESQL
+            ? ImmutableMap.of(
+                "SingerId", "bigint",
+                "Name", "character varying(255)",
+                "AnyGood", "boolean",
+                "Birthdate", "date",
+                "LastConcertTimestamp", "timestamp with time zone")
+            : ImmutableMap.of(
+                "SingerId", "INT64",
+                "Name", "STRING(255)",
+                "AnyGood", "BOOL",
+                "Birthdate", "DATE",
+                "LastConcertTimestamp", "TIMESTAMP"));
+  }
+
+  static void setupColumnTypesResult(Dialect dialect, Map<String, String> columnTypes) {
+    List<List<String>> rows = new ArrayList<>();
+    columnTypes.forEach((name, type) -> rows.add(ImmutableList.of(name, type)));
+    String sql =
+        "SELECT COLUMN_NAME, SPANNER_TYPE FROM INFORMATION_SCHEMA.COLUMNS "
+            + "WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ?";
+    AbstractStatementParser parser = dialect == Dialect.POSTGRESQL ? PARSER_PG : PARSER;
+    mockSpanner.putStatementResult(
+        StatementResult.query(
+            Statement.newBuilder(
+                    parser.convertPositionalParametersToNamedParameters('?', sql)
+                        .sqlWithNamedParameters)
+                .bind("p1")
+                .to(dialect == Dialect.POSTGRESQL ? "public" : "")
+                .bind("p2")
+                .to("Singers")
+                .build(),
+            createStringResultSet(ImmutableList.of("COLUMN_NAME", "SPANNER_TYPE"), rows)));
+  }
+
+  private static void putPrimaryKeyResult(Dialect dialect) {
+    Statement statement =
+        Statement.newBuilder(
+                dialect == Dialect.POSTGRESQL
+                    ? String.format(PRIMARY_KEY_QUERY, "$1", "$2")
+                    : String.format(PRIMARY_KEY_QUERY, "@p1", "@p2"))
+            .bind("p1")
+            .to(dialect == Dialect.POSTGRESQL ? "public" : "")
+            .bind("p2")
+            .to(dialect == Dialect.POSTGRESQL ? "singers" : "Singers")
+            .build();
+    ResultSet resultSet =
+        ResultSet.newBuilder()
+            .setMetadata(
+                ResultSetMetadata.newBuilder()
+                    .setRowType(
+                        StructType.newBuilder()
+                            .addFields(field("COLUMN_NAME", TypeCode.STRING))
+                            .addFields(field("PARENT_KEY_COLUMNS", TypeCode.INT64))))
+            .addRows(
+                ListValue.newBuilder()
+                    .addValues(Value.newBuilder().setStringValue("SingerId"))
+                    .addValues(Value.newBuilder().setStringValue("0")))
+            .build();
+    mockSpanner.putStatementResult(StatementResult.query(statement, resultSet));
+  }
+
+  private static Field field(String name, TypeCode code) {
+    return Field.newBuilder().setName(name).setType(Type.newBuilder().setCode(code)).build();
+  }
+
+  /** Returns the mutations for the Singers table, grouped per commit. */
+  static List<List<Write>> getSingersInsertCommits() {
+    List<List<Write>> result = new ArrayList<>();
+    for (CommitRequest commit : mockSpanner.getRequestsOfType(CommitRequest.class)) {
+      List<Write> writes = new ArrayList<>();
+      for (Mutation mutation : commit.getMutationsList()) {
+        Write write = mutation.hasInsert() ? mutation.getInsert() : mutation.getInsertOrUpdate();
+        if (write.getTable().equals("Singers")) {
+          writes.add(write);
+        }
+      }
+      if (!writes.isEmpty()) {
+        result.add(writes);
+      }
+    }
+    return result;
+  }
+
+  static List<ListValue> getRows(List<Write> writes) {
+    List<ListValue> rows = new ArrayList<>();
+    for (Write write : writes) {
+      rows.addAll(write.getValuesList());
+    }
+    return rows;
+  }
+
   static void setupResults(Dialect dialect) throws ParseException {
     Date[] birthdates =
         new Date[] {
@@ -21,14 +21,24 @@ import com.google.cloud.spanner.Dialect;
 import com.google.cloud.spanner.MockSpannerServiceImpl.StatementResult;
 import com.google.cloud.spanner.Statement;
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.protobuf.ListValue;
+import com.google.spanner.v1.CommitRequest;
+import com.google.spanner.v1.ExecuteBatchDmlRequest;
 import com.google.spanner.v1.ExecuteSqlRequest;
+import com.google.spanner.v1.Mutation;
+import com.google.spanner.v1.Mutation.Write;
+import com.google.spanner.v1.TypeCode;
 import java.sql.Connection;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
 import liquibase.Contexts;
 import liquibase.Liquibase;
+import liquibase.Scope;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.parallel.Execution;
 import org.junit.jupiter.api.parallel.ExecutionMode;
@@ -42,6 +52,10 @@ public class LoadUpdateDataTest extends AbstractMockServerTest {
           + "SELECT @id, @name, @description, @singerinfo, @anygood, @birthdate, @lastconcert, @externalid FROM UNNEST([1]) "
           + "WHERE NOT EXISTS (SELECT SingerId FROM Singers WHERE SingerId = @id)";
 
+  private static final String INSERT_OR_UPDATE =
+      "INSERT OR UPDATE INTO Singers (SingerId, Name, Description, SingerInfo, AnyGood, Birthdate, LastConcertTimestamp, ExternalID) "
+          + "SELECT @id, @name, @description, @singerinfo, @anygood, @birthdate, @lastconcert, @externalid";
+
   private static final String UPDATE =
       "UPDATE Singers SET "
           + "AnyGood = @anygood, Birthdate = @birthdate, Description = @description, "
@@ -87,7 +101,7 @@ public class LoadUpdateDataTest extends AbstractMockServerTest {
       try (Connection con = createConnection(dialect);
           Liquibase liquibase = getLiquibase(con, file)) {
         db = (CloudSpanner) liquibase.getDatabase();
-        registerInsertUpdateStatements(db, dialect);
+        registerInsertUpdateStatements(db, dialect, false);
         liquibase.update(new Contexts("test"));
       }
     }
@@ -124,8 +138,196 @@ public class LoadUpdateDataTest extends AbstractMockServerTest {
     assertThat(requests.hasNext()).isFalse();
   }
 
-  private void registerInsertUpdateStatements(CloudSpanner db, Dialect dialect)
-      throws ParseException {
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testLoadUpdateDataWithInsertOrUpdateDml(Dialect dialect) throws Exception {
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, getChangeLogFile(dialect))) {
+      registerInsertUpdateStatements((CloudSpanner) liquibase.getDatabase(), dialect, true);
+      Scope.child(
+          SpannerConfiguration.INSERT_OR_UPDATE_DML.getKey(),
+          true,
+          () -> liquibase.update(new Contexts("test")));
+    }
+
+    List<String> statements =
+        mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+            .map(ExecuteSqlRequest::getSql)
+            .filter(sql -> sql.contains("INTO Singers") || sql.startsWith("UPDATE Singers"))
+            .collect(Collectors.toList());
+    // Each row is written with exactly one statement.
+    assertThat(statements).hasSize(3);
+    for (int i = 0; i < statements.size(); i++) {
+      String sql = statements.get(i);
+      if (dialect == Dialect.POSTGRESQL) {
+        assertThat(sql).startsWith("INSERT INTO Singers");
+        assertThat(sql).contains("SELECT " + (i + 1) + ",");
+        assertThat(sql).contains("ON CONFLICT (SingerId) DO UPDATE SET");
+      } else {
+        assertThat(sql).startsWith("INSERT OR UPDATE INTO Singers");
+        assertThat(sql).contains("SELECT " + (i + 1) + ",");
+        assertThat(sql).doesNotContain("NOT EXISTS");
+      }
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testLoadUpdateDataWithMutations(Dialect dialect) throws Exception {
+    setupColumnTypesResult(dialect);
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, getChangeLogFile(dialect))) {
+      Scope.child(
+          SpannerConfiguration.LOAD_DATA_WITH_MUTATIONS.getKey(),
+          true,
+          () -> liquibase.update(new Contexts("test")));
+    }
+
+    assertThat(
+            mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+                .map(ExecuteSqlRequest::getSql)
+                .filter(sql -> sql.contains("INTO Singers") || sql.startsWith("UPDATE Singers")))
+        .isEmpty();
+    List<List<Write>> commits = LoadDataTest.getSingersInsertCommits();
+    assertThat(commits).hasSize(1);
+    for (Write write : commits.get(0)) {
+      assertThat(write.getColumnsList())
+          .containsExactly(
+              "SingerId",
+              "Name",
+              "Description",
+              "SingerInfo",
+              "AnyGood",
+              "Birthdate",
+              "LastConcertTimestamp",
+              "ExternalID")
+          .inOrder();
+    }
+    List<Mutation> mutations =
+        mockSpanner.getRequestsOfType(CommitRequest.class).stream()
+            .flatMap(commit -> commit.getMutationsList().stream())
+            .collect(Collectors.toList());
+    for (Mutation mutation : mutations) {
+      assertThat(mutation.hasInsertOrUpdate()).isTrue();
+    }
+    List<ListValue> rows = LoadDataTest.getRows(commits.get(0));
+    assertThat(rows).hasSize(3);
+    for (int id : new int[] {1, 2, 3}) {
+      ListValue row = rows.get(id - 1);
+      assertThat(row.getValues(0).getStringValue()).isEqualTo(String.valueOf(id));
+      assertThat(row.getValues(2).getStringValue()).isEqualTo("Description " + id);
+      assertThat(row.getValues(4).getBoolValue()).isEqualTo(id % 2 == 0);
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testLoadUpdateDataWithParameterizedDml(Dialect dialect) throws Exception {
+    setupColumnTypesResult(dialect);
+    mockSpanner.putPartialStatementResult(
+        StatementResult.update(Statement.of("INSERT INTO Singers"), 1L));
+    mockSpanner.putPartialStatementResult(
+        StatementResult.update(Statement.of("UPDATE Singers"), 1L));
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, getChangeLogFile(dialect))) {
+      Scope.child(
+          SpannerConfiguration.PARAMETERIZED_DML.getKey(),
+          true,
+          () -> liquibase.update(new Contexts("test")));
+    }
+
+    // The INSERT and the UPDATE statements are each executed as one batch of 3 statements with
+    // the same SQL string.
+    List<ExecuteBatchDmlRequest> batches =
+        mockSpanner.getRequestsOfType(ExecuteBatchDmlRequest.class);
+    assertThat(batches).hasSize(2);
+    for (ExecuteBatchDmlRequest batch : batches) {
+      assertThat(batch.getStatementsList()).hasSize(3);
+      assertThat(
+              batch.getStatementsList().stream()
+                  .map(ExecuteBatchDmlRequest.Statement::getSql)
+                  .distinct()
+                  .count())
+          .isEqualTo(1L);
+    }
+    String insert = batches.get(0).getStatements(0).getSql();
+    String update = batches.get(1).getStatements(0).getSql();
+    if (dialect == Dialect.POSTGRESQL) {
+      assertThat(insert)
+          .isEqualTo(
+              "INSERT INTO Singers (SingerId, Name, Description, SingerInfo, AnyGood, Birthdate, "
+                  + "LastConcertTimestamp, ExternalID) SELECT $1, $2, $3, $4, $5, $6, $7, $8 "
+                  + "ON CONFLICT (SingerId) DO UPDATE SET SingerId = excluded.SingerId, "
+                  + "Name = excluded.Name, Description = excluded.Description, "
+                  + "SingerInfo = excluded.SingerInfo, AnyGood = excluded.AnyGood, "
+                  + "Birthdate = excluded.Birthdate, "
+                  + "LastConcertTimestamp = excluded.LastConcertTimestamp, "
+                  + "ExternalID = excluded.ExternalID");
+      assertThat(update)
+          .isEqualTo(
+              "UPDATE Singers SET AnyGood = $1, Birthdate = $2, Description = $3, "
+                  + "ExternalID = $4, LastConcertTimestamp = $5, Name = $6, SingerInfo = $7 "
+                  + "WHERE SingerId = $8");
+    } else {
+      assertThat(insert)
+          .isEqualTo(
+              "INSERT INTO Singers (SingerId, Name, Description, SingerInfo, AnyGood, Birthdate, "
+                  + "LastConcertTimestamp, ExternalID) "
+                  + "SELECT @p1, @p2, @p3, @p4, @p5, @p6, @p7, @p8 FROM UNNEST([1]) "
+                  + "WHERE NOT EXISTS (SELECT SingerId FROM Singers WHERE SingerId = @p9)");
+      assertThat(update)
+          .isEqualTo(
+              "UPDATE Singers SET AnyGood = @p1, Birthdate = @p2, Description = @p3, "
+                  + "ExternalID = @p4, LastConcertTimestamp = @p5, Name = @p6, SingerInfo = @p7 "
+                  + "WHERE SingerId = @p8");
+    }
+    for (int id : new int[] {1, 2, 3}) {
+      ExecuteBatchDmlRequest.Statement statement = batches.get(0).getStatements(id - 1);
+      assertThat(statement.getParamTypesMap().get("p1").getCode()).isEqualTo(TypeCode.INT64);
+      assertThat(statement.getParamTypesMap().get("p5").getCode()).isEqualTo(TypeCode.BOOL);
+      assertThat(statement.getParamTypesMap().get("p6").getCode()).isEqualTo(TypeCode.DATE);
+      assertThat(statement.getParamTypesMap().get("p7").getCode()).isEqualTo(TypeCode.TIMESTAMP);
+      assertThat(statement.getParams().getFieldsMap().get("p1").getStringValue())
+          .isEqualTo(String.valueOf(id));
+      assertThat(statement.getParams().getFieldsMap().get("p3").getStringValue())
+          .isEqualTo("Description " + id);
+    }
+  }
+
+  private static void setupColumnTypesResult(Dialect dialect) {
+    LoadDataTest.setupColumnTypesResult(
+        dialect,
+        dialect == Dialect.POSTGRESQL
+            ? ImmutableMap.<String, String>builder()
+                .put("SingerId", "bigint")
+                .put("Name", "character varying(255)")
+                .put("Description", "character varying")
+                .put("SingerInfo", "character varying")
+                .put("AnyGood", "boolean")
+                .put("Birthdate", "date")
+                .put("LastConcertTimestamp", "timestamp with time zone")
+                .put("ExternalID", "character varying(36)")
+                .build()
+            : ImmutableMap.<String, String>builder()
+                .put("SingerId", "INT64")
+                .put("Name", "STRING(255)")
+                .put("Description", "STRING(MAX)")
+                .put("SingerInfo", "BYTES(MAX)")
+                .put("AnyGood", "BOOL")
+                .put("Birthdate", "DATE")
+                .put("LastConcertTimestamp", "TIMESTAMP")
+                .put("ExternalID", "STRING(36)")
+                .build());
+  }
+
+  private static String getChangeLogFile(Dialect dialect) {
+    return dialect == Dialect.POSTGRESQL
+        ? "load-update-data-singers.spanner-pg.yaml"
+        : "load-update-data-singers.spanner.yaml";
+  }
+
+  private void registerInsertUpdateStatements(
+      CloudSpanner db, Dialect dialect, boolean insertOrUpdateDml) throws ParseException {
     Date[] birthdates =
         new Date[] {
           Date.fromYearMonthDay(1997, 10, 1),
@@ -157,6 +359,9 @@ public class LoadUpdateDataTest extends AbstractMockServerTest {
         };
 
     String insertTemplate = dialect == Dialect.POSTGRESQL ? INSERT_PG : INSERT;
+    if (insertOrUpdateDml && dialect == Dialect.GOOGLE_STANDARD_SQL) {
+      insertTemplate = INSERT_OR_UPDATE;
+    }
     String updateTemplate = dialect == Dialect.POSTGRESQL ? UPDATE_PG : UPDATE;
     for (int id : new int[] {1, 2, 3}) {
       String insert =
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.MockSpannerServiceImpl.StatementResult;
+import com.google.cloud.spanner.Statement;
+import com.google.spanner.v1.BeginTransactionRequest;
+import com.google.spanner.v1.ExecuteSqlRequest;
+import java.sql.Connection;
+import java.util.List;
+import java.util.stream.Collectors;
+import liquibase.Contexts;
+import liquibase.Liquibase;
+import liquibase.exception.CommandExecutionException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+@Execution(ExecutionMode.SAME_THREAD)
+public class PartitionedDmlTest extends AbstractMockServerTest {
+  private static final String UPDATE_SINGERS =
+      "UPDATE Singers SET LastName = 'Unknown' WHERE LastName IS NULL";
+  private static final String DELETE_CONCERTS =
+      "DELETE FROM Concerts WHERE EndTime < CURRENT_TIMESTAMP";
+  private static final String DELETE_ALBUMS = "DELETE FROM Albums WHERE TRUE";
+
+  @BeforeAll
+  static void setupResults() {
+    mockSpanner.putStatementResult(StatementResult.update(Statement.of(UPDATE_SINGERS), 10L));
+    mockSpanner.putStatementResult(StatementResult.update(Statement.of(DELETE_CONCERTS), 20L));
+    mockSpanner.putStatementResult(StatementResult.update(Statement.of(DELETE_ALBUMS), 30L));
+  }
+
+  @BeforeEach
+  void resetServer() {
+    mockSpanner.reset();
+    mockAdmin.reset();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testPartitionedDmlFromYaml(Dialect dialect) throws Exception {
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "partitioned-dml.spanner.yaml")) {
+      liquibase.update(new Contexts("test"));
+    }
+
+    // Each change set executes its statement in a separate Partitioned DML transaction.
+    assertThat(
+            mockSpanner.getRequestsOfType(BeginTransactionRequest.class).stream()
+                .filter(request -> request.getOptions().hasPartitionedDml())
+                .count())
+        .isEqualTo(3L);
+    List<String> statements =
+        mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+            .map(ExecuteSqlRequest::getSql)
+            .filter(
+                sql ->
+                    sql.equals(UPDATE_SINGERS)
+                        || sql.equals(DELETE_CONCERTS)
+                        || sql.equals(DELETE_ALBUMS))
+            .collect(Collectors.toList());
+    assertThat(statements).containsExactly(UPDATE_SINGERS, DELETE_CONCERTS, DELETE_ALBUMS);
+    for (ExecuteSqlRequest request : mockSpanner.getRequestsOfType(ExecuteSqlRequest.class)) {
+      if (statements.contains(request.getSql())) {
+        assertThat(request.getTransaction().hasId()).isTrue();
+      }
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testInvalidDmlMode(Dialect dialect) throws Exception {
+    try (Connection con = createConnection(dialect);
+        Liquibase liquibase = getLiquibase(con, "invalid-dml-mode.spanner.yaml")) {
+      CommandExecutionException exception =
+          assertThrows(CommandExecutionException.class, () -> liquibase.update(new Contexts()));
+      assertThat(exception.getMessage()).contains("Invalid dmlMode 'batched'");
+    }
+    assertThat(
+            mockSpanner.getRequestsOfType(BeginTransactionRequest.class).stream()
+                .anyMatch(request -> request.getOptions().hasPartitionedDml()))
+        .isFalse();
+  }
+}
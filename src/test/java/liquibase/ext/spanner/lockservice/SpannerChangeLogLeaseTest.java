@@ -0,0 +1,247 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.lockservice;
+
+import static com.google.common.truth.Truth.assertThat;
+import static liquibase.ext.spanner.LeaseLockTest.putLeaseResult;
+import static liquibase.ext.spanner.LeaseLockTest.putLeaseTableResult;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.jdbc.CloudSpannerJdbcConnection;
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.Value;
+import com.google.spanner.v1.CommitRequest;
+import com.google.spanner.v1.Mutation.Write;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.ext.spanner.AbstractMockServerTest;
+import liquibase.ext.spanner.SpannerConfiguration;
+import liquibase.lockservice.LockServiceFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+@Execution(ExecutionMode.SAME_THREAD)
+public class SpannerChangeLogLeaseTest extends AbstractMockServerTest {
+  private static final String OWNER = "test-runner";
+
+  @BeforeEach
+  void resetServer() {
+    mockSpanner.reset();
+    mockAdmin.reset();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testHeartbeat(Dialect dialect) throws Exception {
+    putLeaseTableResult(dialect, true);
+    putLeaseResult(dialect, null, null, null);
+
+    try (Connection con = createConnection(dialect)) {
+      SpannerChangeLogLease lease = createLease(con, dialect);
+      assertThat(lease.tryAcquire()).isEqualTo(0L);
+      Timestamp token = lease.getToken();
+      assertThat(token).isNotNull();
+
+      putLeaseResult(dialect, OWNER, token, token);
+      assertTrue(lease.heartbeat());
+    }
+
+    List<Write> updates = getLeaseUpdates();
+    assertThat(updates).hasSize(1);
+    assertThat(getColumns(updates.get(0))).containsExactly("ID", "HEARTBEAT");
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testHeartbeatAfterTakeOver(Dialect dialect) throws Exception {
+    putLeaseTableResult(dialect, true);
+    putLeaseResult(dialect, null, null, null);
+
+    try (Connection con = createConnection(dialect)) {
+      SpannerChangeLogLease lease = createLease(con, dialect);
+      assertThat(lease.tryAcquire()).isEqualTo(0L);
+
+      // The lease expired and was acquired by another runner.
+      Timestamp now = Timestamp.now();
+      putLeaseResult(dialect, "other-runner", now, now);
+      assertFalse(lease.heartbeat());
+      assertFalse(lease.release());
+    }
+
+    assertThat(getLeaseUpdates()).isEmpty();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testRelease(Dialect dialect) throws Exception {
+    putLeaseTableResult(dialect, true);
+    putLeaseResult(dialect, null, null, null);
+
+    try (Connection con = createConnection(dialect)) {
+      SpannerChangeLogLease lease = createLease(con, dialect);
+      assertThat(lease.tryAcquire()).isEqualTo(0L);
+      Timestamp token = lease.getToken();
+
+      putLeaseResult(dialect, OWNER, token, token);
+      assertTrue(lease.release());
+      assertThat(lease.getToken()).isNull();
+      // A released lease cannot be renewed, even if the row has not changed.
+      assertFalse(lease.heartbeat());
+    }
+
+    List<Write> updates = getLeaseUpdates();
+    assertThat(updates).hasSize(1);
+    assertThat(getColumns(updates.get(0))).containsExactly("ID", "LOCKEDBY", "HEARTBEAT");
+    assertThat(updates.get(0).getValues(0).getValues(1).getKindCase())
+        .isEqualTo(Value.KindCase.NULL_VALUE);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  @Timeout(30)
+  void testLeaseLost(Dialect dialect) throws Exception {
+    putLeaseTableResult(dialect, true);
+    putLeaseResult(dialect, null, null, null);
+
+    try (Connection con = createConnection(dialect)) {
+      Database database =
+          DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(con));
+      Map<String, Object> config =
+          ImmutableMap.of(
+              SpannerConfiguration.LEASE_LOCK.getKey(),
+              true,
+              SpannerConfiguration.LEASE_LOCK_DURATION_SECONDS.getKey(),
+              1);
+      Scope.child(
+          config,
+          () -> {
+            LockServiceSpanner lockService =
+                (LockServiceSpanner) LockServiceFactory.getInstance().getLockService(database);
+            try {
+              assertTrue(lockService.acquireLock());
+              assertTrue(lockService.hasChangeLogLock());
+
+              // Another runner takes over the lease. The next heartbeat notices that.
+              Timestamp now = Timestamp.now();
+              putLeaseResult(dialect, "other-runner", now, now);
+              while (lockService.hasChangeLogLock()) {
+                Thread.sleep(10L);
+              }
+              DatabaseException exception =
+                  assertThrows(
+                      DatabaseException.class,
+                      () -> LockServiceSpanner.checkChangeLogLock(database));
+              assertThat(exception.getMessage()).contains("was taken over by another runner");
+              // The lease can be acquired again once it is free.
+              putLeaseResult(dialect, null, null, null);
+              assertTrue(lockService.acquireLock());
+              assertTrue(lockService.hasChangeLogLock());
+            } finally {
+              LockServiceFactory.getInstance().resetAll();
+            }
+          });
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(Dialect.class)
+  void testLockMetrics(Dialect dialect) throws Exception {
+    putLeaseTableResult(dialect, true);
+    putLeaseResult(dialect, null, null, null);
+
+    InMemoryMetricReader reader = InMemoryMetricReader.create();
+    SdkMeterProvider meterProvider =
+        SdkMeterProvider.builder().registerMetricReader(reader).build();
+    GlobalOpenTelemetry.resetForTest();
+    GlobalOpenTelemetry.set(OpenTelemetrySdk.builder().setMeterProvider(meterProvider).build());
+    try (Connection con = createConnection(dialect)) {
+      Database database =
+          DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(con));
+      Scope.child(
+          SpannerConfiguration.LEASE_LOCK.getKey(),
+          true,
+          () -> {
+            LockServiceSpanner lockService =
+                (LockServiceSpanner) LockServiceFactory.getInstance().getLockService(database);
+            try {
+              assertTrue(lockService.acquireLock());
+              lockService.releaseLock();
+            } finally {
+              LockServiceFactory.getInstance().resetAll();
+            }
+          });
+
+      Map<String, MetricData> metrics =
+          reader.collectAllMetrics().stream()
+              .collect(Collectors.toMap(MetricData::getName, metric -> metric));
+      assertThat(metrics).containsKey(SpannerLockMetrics.WAIT_TIME);
+      assertThat(metrics).containsKey(SpannerLockMetrics.HOLD_TIME);
+      for (String name :
+          new String[] {SpannerLockMetrics.WAIT_TIME, SpannerLockMetrics.HOLD_TIME}) {
+        MetricData metric = metrics.get(name);
+        assertThat(metric.getUnit()).isEqualTo("ms");
+        assertThat(metric.getHistogramData().getPoints()).hasSize(1);
+        assertThat(metric.getHistogramData().getPoints().iterator().next().getCount())
+            .isEqualTo(1L);
+      }
+    } finally {
+      GlobalOpenTelemetry.resetForTest();
+      meterProvider.close();
+    }
+  }
+
+  private static SpannerChangeLogLease createLease(Connection connection, Dialect dialect)
+      throws Exception {
+    return new SpannerChangeLogLease(
+        connection.unwrap(CloudSpannerJdbcConnection.class),
+        dialect,
+        "DATABASECHANGELOGLOCKLEASE",
+        OWNER,
+        (int) TimeUnit.MINUTES.toSeconds(1L));
+  }
+
+  private static List<String> getColumns(Write write) {
+    return write.getColumnsList().stream().map(String::toUpperCase).collect(Collectors.toList());
+  }
+
+  private static List<Write> getLeaseUpdates() {
+    return mockSpanner.getRequestsOfType(CommitRequest.class).stream()
+        .flatMap(commit -> commit.getMutationsList().stream())
+        .filter(mutation -> mutation.hasUpdate())
+        .map(mutation -> mutation.getUpdate())
+        .filter(write -> write.getTable().equalsIgnoreCase("DATABASECHANGELOGLOCKLEASE"))
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.snapshotgenerator;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.ReadContext;
+import com.google.cloud.spanner.ResultSets;
+import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.TimestampBound;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.jdbc.CloudSpannerJdbcConnection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import liquibase.Scope;
+import liquibase.ext.spanner.SpannerConfiguration;
+import liquibase.snapshot.DatabaseSnapshot;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class SnapshotPrefetchSpannerTest {
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2, 3, 4})
+  void testParallelismLimitsConcurrentPrefetches(int parallelism) throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    ReadContext readContext = mock(ReadContext.class);
+    when(readContext.executeQuery(any(Statement.class)))
+        .thenAnswer(
+            invocation -> {
+              maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+              try {
+                release.await(10L, TimeUnit.SECONDS);
+              } finally {
+                running.decrementAndGet();
+              }
+              return ResultSets.forRows(Type.struct(), Collections.emptyList());
+            });
+    DatabaseClient client = mock(DatabaseClient.class);
+    when(client.singleUse(any(TimestampBound.class))).thenReturn(readContext);
+    CloudSpannerJdbcConnection connection = mock(CloudSpannerJdbcConnection.class);
+    when(connection.getDatabaseClient()).thenReturn(client);
+    when(connection.getDialect()).thenReturn(Dialect.GOOGLE_STANDARD_SQL);
+    DatabaseSnapshot snapshot = createSnapshot();
+
+    Scope.child(
+        SpannerConfiguration.SNAPSHOT_PARALLELISM.getKey(),
+        parallelism,
+        () -> SnapshotPrefetchSpanner.start(snapshot, connection, TimestampBound.strong()));
+
+    // There is one prefetch query for each of the columns, indexes and sequences.
+    int expected = parallelism <= 1 ? 0 : Math.min(parallelism, 3);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+    while (running.get() < expected && System.nanoTime() < deadline) {
+      Thread.sleep(1L);
+    }
+    assertThat(running.get()).isEqualTo(expected);
+    release.countDown();
+
+    for (String name :
+        new String[] {
+          SnapshotPrefetchSpanner.COLUMN_METADATA,
+          SnapshotPrefetchSpanner.INDEXES,
+          SnapshotPrefetchSpanner.SEQUENCES
+        }) {
+      Object result = SnapshotPrefetchSpanner.get(snapshot, name);
+      if (parallelism <= 1) {
+        assertThat(result).isNull();
+      } else {
+        assertThat(result).isNotNull();
+      }
+    }
+    assertThat(maxRunning.get()).isEqualTo(expected);
+  }
+
+  private static DatabaseSnapshot createSnapshot() {
+    Map<String, Object> scratchData = new HashMap<>();
+    DatabaseSnapshot snapshot = mock(DatabaseSnapshot.class);
+    doAnswer(invocation -> scratchData.put(invocation.getArgument(0), invocation.getArgument(1)))
+        .when(snapshot)
+        .setScratchData(anyString(), any());
+    when(snapshot.getScratchData(anyString()))
+        .thenAnswer(invocation -> scratchData.get(invocation.getArgument(0)));
+    return snapshot;
+  }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright 2026 Google LLC
+ *
+ * <p>Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ * <p>https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package liquibase.ext.spanner.sqlgenerator;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.cloud.Date;
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Value;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+public class SpannerValuesTest {
+
+  @Test
+  void testParseColumnType() {
+    assertThat(SpannerValues.parseColumnType("STRING(MAX)", Dialect.GOOGLE_STANDARD_SQL))
+        .isEqualTo(Type.string());
+    assertThat(SpannerValues.parseColumnType("NUMERIC", Dialect.GOOGLE_STANDARD_SQL))
+        .isEqualTo(Type.numeric());
+    assertThat(SpannerValues.parseColumnType("numeric", Dialect.POSTGRESQL))
+        .isEqualTo(Type.pgNumeric());
+    assertThat(SpannerValues.parseColumnType("JSON", Dialect.GOOGLE_STANDARD_SQL))
+        .isEqualTo(Type.json());
+    assertThat(SpannerValues.parseColumnType("jsonb", Dialect.POSTGRESQL))
+        .isEqualTo(Type.pgJsonb());
+    assertThat(SpannerValues.parseColumnType("ARRAY<STRING(100)>", Dialect.GOOGLE_STANDARD_SQL))
+        .isEqualTo(Type.array(Type.string()));
+    assertThat(SpannerValues.parseColumnType("bigint[]", Dialect.POSTGRESQL))
+        .isEqualTo(Type.array(Type.int64()));
+    assertThat(SpannerValues.parseColumnType("PROTO<Singer>", Dialect.GOOGLE_STANDARD_SQL))
+        .isNull();
+    assertThat(SpannerValues.parseColumnType("ARRAY<STRUCT<a INT64>>", Dialect.GOOGLE_STANDARD_SQL))
+        .isNull();
+  }
+
+  @Test
+  void testToValue() {
+    assertThat(SpannerValues.toValue("1", Type.int64())).isEqualTo(Value.int64(1L));
+    assertThat(SpannerValues.toValue(" 3.14 ", Type.numeric()))
+        .isEqualTo(Value.numeric(new BigDecimal("3.14")));
+    assertThat(SpannerValues.toValue("3.14", Type.pgNumeric())).isEqualTo(Value.pgNumeric("3.14"));
+    assertThat(SpannerValues.toValue("2000-02-29", Type.date()))
+        .isEqualTo(Value.date(Date.fromYearMonthDay(2000, 2, 29)));
+    assertThat(SpannerValues.toValue("{\"a\":1}", Type.json())).isEqualTo(Value.json("{\"a\":1}"));
+    assertThat(SpannerValues.toValue(null, Type.bytes())).isEqualTo(Value.bytes(null));
+    assertThrows(IllegalArgumentException.class, () -> SpannerValues.toValue("x", Type.int64()));
+  }
+
+  @Test
+  void testToArrayValue() {
+    assertThat(SpannerValues.toValue("[1, 2, NULL]", Type.array(Type.int64())))
+        .isEqualTo(Value.int64Array(Arrays.asList(1L, 2L, null)));
+    assertThat(SpannerValues.toValue("{\"a,b\",c,NULL}", Type.array(Type.string())))
+        .isEqualTo(Value.stringArray(Arrays.asList("a,b", "c", null)));
+    assertThat(SpannerValues.toValue("['it''s', 'NULL']", Type.array(Type.string())))
+        .isEqualTo(Value.stringArray(Arrays.asList("it's", "NULL")));
+    assertThat(SpannerValues.toValue("[]", Type.array(Type.bool())))
+        .isEqualTo(Value.boolArray(Arrays.<Boolean>asList()));
+    assertThat(SpannerValues.toValue(Arrays.asList(true, false), Type.array(Type.bool())))
+        .isEqualTo(Value.boolArray(Arrays.asList(true, false)));
+    assertThat(SpannerValues.toValue(null, Type.array(Type.date())))
+        .isEqualTo(Value.dateArray(null));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> SpannerValues.toValue("1, 2", Type.array(Type.int64())));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> SpannerValues.toValue("[1, 2.5]", Type.array(Type.int64())));
+  }
+
+  @Test
+  void testToInt64Value() {
+    assertThat(SpannerValues.toValue("1.0", Type.int64())).isEqualTo(Value.int64(1L));
+    assertThat(SpannerValues.toValue(new BigDecimal("9223372036854775807"), Type.int64()))
+        .isEqualTo(Value.int64(Long.MAX_VALUE));
+    assertThat(SpannerValues.toValue(2.0d, Type.int64())).isEqualTo(Value.int64(2L));
+    assertThrows(IllegalArgumentException.class, () -> SpannerValues.toValue("1.5", Type.int64()));
+    assertThrows(IllegalArgumentException.class, () -> SpannerValues.toValue(1.5d, Type.int64()));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> SpannerValues.toValue("9223372036854775808", Type.int64()));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> SpannerValues.toValue(new BigDecimal("-9223372036854775809"), Type.int64()));
+
+    IllegalArgumentException exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> SpannerValues.toValue("1.5", Type.int64(), "SingerId"));
+    assertThat(exception.getMessage()).contains("SingerId");
+    assertThat(exception.getMessage()).contains("1.5");
+  }
+}